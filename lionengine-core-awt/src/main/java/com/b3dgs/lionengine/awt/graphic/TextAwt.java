@@ -36,6 +36,9 @@ import com.b3dgs.lionengine.graphic.TextStyle;
  */
 final class TextAwt implements Text
 {
+    /** Default font context, used when graphic has no context. */
+    private static final FontRenderContext DEFAULT_CONTEXT = new FontRenderContext(null, false, false);
+
     /**
      * Get the style equivalence.
      * 
@@ -65,6 +68,27 @@ final class TextAwt implements Text
         return value;
     }
 
+    /**
+     * Get the font context of graphic.
+     * 
+     * @param g The graphic reference.
+     * @return The graphic font context, default one if graphic is not an AWT one.
+     */
+    private static FontRenderContext getContext(Graphic g)
+    {
+        final Object context = g.getGraphic();
+        final FontRenderContext fontContext;
+        if (context instanceof Graphics2D)
+        {
+            fontContext = ((Graphics2D) context).getFontRenderContext();
+        }
+        else
+        {
+            fontContext = DEFAULT_CONTEXT;
+        }
+        return fontContext;
+    }
+
     /** Text java font. */
     private final Font font;
     /** Text size. */
@@ -105,18 +129,17 @@ final class TextAwt implements Text
         font = new Font(fontName, TextAwt.getStyle(style), size);
     }
 
-    /*
-     * Text
+    /**
+     * Draw text glyphs on graphic.
+     * 
+     * @param g The graphic output.
+     * @param x The horizontal location.
+     * @param y The vertical location.
+     * @param alignment The text alignment.
+     * @param text The text value.
+     * @throws LionEngineException If invalid alignment.
      */
-
-    @Override
-    public void draw(Graphic g, int x, int y, String text)
-    {
-        draw(g, x, y, Align.LEFT, text);
-    }
-
-    @Override
-    public void draw(Graphic g, int x, int y, Align alignment, String text)
+    private void drawGlyphs(Graphic g, int x, int y, Align alignment, String text)
     {
         final Graphics2D g2d = (Graphics2D) g.getGraphic();
         final FontRenderContext context = g2d.getFontRenderContext();
@@ -152,6 +175,22 @@ final class TextAwt implements Text
         g.setColor(colorOld);
     }
 
+    /*
+     * Text
+     */
+
+    @Override
+    public void draw(Graphic g, int x, int y, String text)
+    {
+        draw(g, x, y, Align.LEFT, text);
+    }
+
+    @Override
+    public void draw(Graphic g, int x, int y, Align alignment, String text)
+    {
+        g.drawRenderable(output -> drawGlyphs(output, x, y, alignment, text));
+    }
+
     @Override
     public void render(Graphic g)
     {
@@ -223,12 +262,12 @@ final class TextAwt implements Text
     @Override
     public int getStringWidth(Graphic g, String str)
     {
-        return (int) font.getStringBounds(str, ((Graphics2D) g.getGraphic()).getFontRenderContext()).getWidth();
+        return (int) font.getStringBounds(str, getContext(g)).getWidth();
     }
 
     @Override
     public int getStringHeight(Graphic g, String str)
     {
-        return (int) font.getStringBounds(str, ((Graphics2D) g.getGraphic()).getFontRenderContext()).getHeight();
+        return (int) font.getStringBounds(str, getContext(g)).getHeight();
     }
 }
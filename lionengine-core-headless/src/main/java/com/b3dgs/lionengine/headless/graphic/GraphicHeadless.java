@@ -17,25 +17,128 @@
  */
 package com.b3dgs.lionengine.headless.graphic;
 
+import java.util.Arrays;
+
+import com.b3dgs.lionengine.Constant;
 import com.b3dgs.lionengine.Origin;
+import com.b3dgs.lionengine.UtilMath;
 import com.b3dgs.lionengine.Viewer;
 import com.b3dgs.lionengine.graphic.ColorGradient;
 import com.b3dgs.lionengine.graphic.ColorRgba;
 import com.b3dgs.lionengine.graphic.Graphic;
 import com.b3dgs.lionengine.graphic.ImageSurface;
 import com.b3dgs.lionengine.graphic.Transform;
+import com.b3dgs.lionengine.graphic.Transparency;
 
 /**
  * Main interface with the graphic output, representing the screen buffer.
+ * <p>
+ * Software rasterizer working directly on {@link ImageBufferHeadless} pixels, following AWT semantics: operations are
+ * clipped to buffer bounds, colors are alpha blended over destination, fills are done by horizontal spans, scaled
+ * blits use nearest neighbor sampling and mirror when destination or source coordinates are reversed.
+ * </p>
  */
 final class GraphicHeadless implements Graphic
 {
+    /** Opaque alpha value. */
+    private static final int OPAQUE = 0xFF;
+    /** Half pixel, used to sample pixels centers. */
+    private static final double HALF = 0.5;
+
+    /**
+     * Get color channel.
+     * 
+     * @param rgba The color value.
+     * @param shift The channel shift.
+     * @return The channel value.
+     */
+    private static int channel(int rgba, int shift)
+    {
+        return rgba >> shift & OPAQUE;
+    }
+
+    /**
+     * Blend source color over destination color (non premultiplied alpha).
+     * 
+     * @param src The source color.
+     * @param dst The destination color.
+     * @return The blended color.
+     */
+    private static int blend(int src, int dst)
+    {
+        final int sa = src >>> Constant.BYTE_4;
+        if (sa == OPAQUE)
+        {
+            return src;
+        }
+        if (sa == 0)
+        {
+            return dst;
+        }
+        final int db = (dst >>> Constant.BYTE_4) * (OPAQUE - sa) / OPAQUE;
+        final int a = sa + db;
+        final int r = (channel(src, Constant.BYTE_3) * sa + channel(dst, Constant.BYTE_3) * db) / a;
+        final int g = (channel(src, Constant.BYTE_2) * sa + channel(dst, Constant.BYTE_2) * db) / a;
+        final int b = (channel(src, Constant.BYTE_1) * sa + channel(dst, Constant.BYTE_1) * db) / a;
+
+        return a << Constant.BYTE_4 | r << Constant.BYTE_3 | g << Constant.BYTE_2 | b;
+    }
+
+    /**
+     * Interpolate between two colors.
+     * 
+     * @param c1 The first color.
+     * @param c2 The second color.
+     * @param t The interpolation factor in [0-1].
+     * @return The interpolated color.
+     */
+    private static int interpolate(int c1, int c2, double t)
+    {
+        int rgba = 0;
+        for (int shift = Constant.BYTE_1; shift <= Constant.BYTE_4; shift += Constant.BYTE_2)
+        {
+            final int a = channel(c1, shift);
+            final int b = channel(c2, shift);
+            rgba |= (int) Math.round(a + (b - a) * t) << shift;
+        }
+        return rgba;
+    }
+
+    /**
+     * Get the horizontal edge of an ellipse for a pixels row.
+     * 
+     * @param cx The ellipse horizontal center.
+     * @param cy The ellipse vertical center.
+     * @param rx The ellipse horizontal radius.
+     * @param ry The ellipse vertical radius.
+     * @param py The pixels row.
+     * @param left <code>true</code> for left edge, <code>false</code> for right edge.
+     * @return The edge pixel (inclusive), {@link Integer#MAX_VALUE} for left or {@link Integer#MIN_VALUE} for right if
+     *         row is outside ellipse.
+     */
+    private static int getEdge(double cx, double cy, double rx, double ry, int py, boolean left)
+    {
+        final double dy = (py + HALF - cy) / ry;
+        if (dy <= -1.0 || dy >= 1.0)
+        {
+            return left ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        }
+        final double half = rx * Math.sqrt(1.0 - dy * dy);
+        if (left)
+        {
+            return (int) Math.ceil(cx - half - HALF);
+        }
+        return (int) Math.floor(cx + half - HALF);
+    }
+
     /** Graphic representation. */
     private ImageBufferHeadless g;
     /** Current color. */
     private ColorRgba color = ColorRgba.WHITE;
     /** Color gradient. */
     private ColorGradient gradient;
+    /** Scaled blit source columns cache. */
+    private int[] columns = new int[0];
 
     /**
      * Internal constructor.
@@ -57,64 +160,250 @@ final class GraphicHeadless implements Graphic
         this.g = g;
     }
 
-    /*
-     * Graphic
+    /**
+     * Fill area with color, clipped to buffer.
+     * 
+     * @param x The horizontal location.
+     * @param y The vertical location.
+     * @param width The area width.
+     * @param height The area height.
+     * @param rgba The fill color.
+     * @param replace <code>true</code> to replace destination pixels, <code>false</code> to blend.
+     */
+    private void fill(int x, int y, int width, int height, int rgba, boolean replace)
+    {
+        final int startX = Math.max(0, x);
+        final int startY = Math.max(0, y);
+        final int endX = Math.min(g.getWidth(), x + width);
+        final int endY = Math.min(g.getHeight(), y + height);
+        final int alpha = rgba >>> Constant.BYTE_4;
+        if (startX >= endX || startY >= endY || !replace && alpha == 0)
+        {
+            return;
+        }
+
+        final int[] dst = g.getBuffer();
+        final int stride = g.getWidth();
+        for (int py = startY; py < endY; py++)
+        {
+            final int offset = py * stride;
+            if (replace || alpha == OPAQUE)
+            {
+                Arrays.fill(dst, offset + startX, offset + endX, rgba);
+            }
+            else
+            {
+                for (int i = offset + startX; i < offset + endX; i++)
+                {
+                    dst[i] = blend(rgba, dst[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draw horizontal span with current color.
+     * 
+     * @param x1 The first pixel (inclusive).
+     * @param x2 The last pixel (inclusive).
+     * @param y The row.
      */
+    private void span(int x1, int x2, int y)
+    {
+        fill(x1, y, x2 - x1 + 1, 1, color.getRgba(), false);
+    }
 
-    @Override
-    public void clear(int x, int y, int width, int height)
+    /**
+     * Draw image without scaling, clipped to buffer.
+     * 
+     * @param source The source image.
+     * @param x The horizontal location.
+     * @param y The vertical location.
+     */
+    private void blit(ImageBufferHeadless source, int x, int y)
     {
-        for (int i = x; i < width; i++)
+        final int width = source.getWidth();
+        final int startX = Math.max(0, x);
+        final int startY = Math.max(0, y);
+        final int endX = Math.min(g.getWidth(), x + width);
+        final int endY = Math.min(g.getHeight(), y + source.getHeight());
+        if (startX >= endX || startY >= endY)
+        {
+            return;
+        }
+
+        final int[] src = source.getBuffer();
+        final int[] dst = g.getBuffer();
+        final int stride = g.getWidth();
+        final int count = endX - startX;
+        final boolean opaque = source.getTransparency() == Transparency.OPAQUE;
+        for (int py = startY; py < endY; py++)
         {
-            for (int j = y; j < height; j++)
+            final int s = (py - y) * width + startX - x;
+            final int d = py * stride + startX;
+            if (opaque)
             {
-                g.setRgb(x, y, ColorRgba.BLACK.getRgba());
+                System.arraycopy(src, s, dst, d, count);
+            }
+            else
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    dst[d + i] = blend(src[s + i], dst[d + i]);
+                }
             }
         }
     }
 
+    /**
+     * Draw image area to destination area, scaled and mirrored if needed, clipped to buffer.
+     * 
+     * @param source The source image.
+     * @param dx1 The first destination horizontal corner.
+     * @param dy1 The first destination vertical corner.
+     * @param dx2 The second destination horizontal corner.
+     * @param dy2 The second destination vertical corner.
+     * @param sx1 The first source horizontal corner.
+     * @param sy1 The first source vertical corner.
+     * @param sx2 The second source horizontal corner.
+     * @param sy2 The second source vertical corner.
+     */
+    private void blit(ImageBufferHeadless source,
+                      int dx1,
+                      int dy1,
+                      int dx2,
+                      int dy2,
+                      int sx1,
+                      int sy1,
+                      int sx2,
+                      int sy2)
+    {
+        final int dw = dx2 - dx1;
+        final int dh = dy2 - dy1;
+        final int sw = sx2 - sx1;
+        final int sh = sy2 - sy1;
+        final int startX = Math.max(0, Math.min(dx1, dx2));
+        final int startY = Math.max(0, Math.min(dy1, dy2));
+        final int endX = Math.min(g.getWidth(), Math.max(dx1, dx2));
+        final int endY = Math.min(g.getHeight(), Math.max(dy1, dy2));
+        if (sw == 0 || sh == 0 || startX >= endX || startY >= endY)
+        {
+            return;
+        }
+
+        final int count = endX - startX;
+        if (columns.length < count)
+        {
+            columns = new int[count];
+        }
+        final int width = source.getWidth();
+        for (int i = 0; i < count; i++)
+        {
+            final int sx = sx1 + (int) Math.floor((startX + i + HALF - dx1) * sw / dw);
+            columns[i] = sx >= 0 && sx < width ? sx : -1;
+        }
+
+        final int[] src = source.getBuffer();
+        final int[] dst = g.getBuffer();
+        final int stride = g.getWidth();
+        final boolean opaque = source.getTransparency() == Transparency.OPAQUE;
+        for (int py = startY; py < endY; py++)
+        {
+            final int sy = sy1 + (int) Math.floor((py + HALF - dy1) * sh / dh);
+            if (sy >= 0 && sy < source.getHeight())
+            {
+                final int s = sy * width;
+                final int d = py * stride + startX;
+                for (int i = 0; i < count; i++)
+                {
+                    final int sx = columns[i];
+                    if (sx > -1)
+                    {
+                        dst[d + i] = opaque ? src[s + sx] : blend(src[s + sx], dst[d + i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Graphic
+     */
+
     @Override
-    public void dispose()
+    public void clear(int x, int y, int width, int height)
     {
-        g = null;
+        fill(x, y, width, height, ColorRgba.BLACK.getRgba(), true);
     }
 
     @Override
-    public void copyArea(int x, int y, int width, int height, int dx, int dy)
+    public void dispose()
     {
-        // Nothing to do
+        g = null;
     }
 
     @Override
-    public void drawImage(ImageSurface image, int x, int y)
+    public void copyArea(int x, int y, int width, int height, int dx, int dy)
     {
-        final ImageBufferHeadless surface = image.getSurface();
-        for (int i = x; i < image.getWidth(); i++)
+        final int startX = Math.max(Math.max(0, x), -dx);
+        final int startY = Math.max(Math.max(0, y), -dy);
+        final int endX = Math.min(Math.min(g.getWidth(), x + width), g.getWidth() - dx);
+        final int endY = Math.min(Math.min(g.getHeight(), y + height), g.getHeight() - dy);
+        if (startX >= endX || startY >= endY)
+        {
+            return;
+        }
+
+        final int[] buffer = g.getBuffer();
+        final int stride = g.getWidth();
+        final int count = endX - startX;
+        if (dy > 0)
         {
-            for (int j = y; j < image.getHeight(); j++)
+            for (int py = endY - 1; py >= startY; py--)
             {
-                g.setRgb(x + i, y + j, surface.getRgb(i, j));
+                System.arraycopy(buffer, py * stride + startX, buffer, (py + dy) * stride + startX + dx, count);
+            }
+        }
+        else
+        {
+            for (int py = startY; py < endY; py++)
+            {
+                System.arraycopy(buffer, py * stride + startX, buffer, (py + dy) * stride + startX + dx, count);
             }
         }
     }
 
+    @Override
+    public void drawImage(ImageSurface image, int x, int y)
+    {
+        blit(image.getSurface(), x, y);
+    }
+
     @Override
     public void drawImage(ImageSurface image, Transform transform, int x, int y)
     {
-        final ImageBufferHeadless surface = image.getSurface();
-        for (int i = x; i < image.getWidth(); i++)
+        final double sx = transform.getScaleX();
+        final double sy = transform.getScaleY();
+        if (Double.compare(sx, 1.0) == 0 && Double.compare(sy, 1.0) == 0)
         {
-            for (int j = y; j < image.getHeight(); j++)
-            {
-                g.setRgb(x + i, y + j, surface.getRgb(i, j));
-            }
+            blit(image.getSurface(), x, y);
+        }
+        else
+        {
+            final int width = (int) Math.round(image.getWidth() * Math.abs(sx));
+            final int height = (int) Math.round(image.getHeight() * Math.abs(sy));
+            final int dx1 = sx < 0 ? x + width : x;
+            final int dy1 = sy < 0 ? y + height : y;
+            final int dx2 = sx < 0 ? x : x + width;
+            final int dy2 = sy < 0 ? y : y + height;
+            blit(image.getSurface(), dx1, dy1, dx2, dy2, 0, 0, image.getWidth(), image.getHeight());
         }
     }
 
     @Override
     public void drawImage(ImageSurface image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2)
     {
-        // Nothing to do
+        blit(image.getSurface(), dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2);
     }
 
     @Override
@@ -122,25 +411,22 @@ final class GraphicHeadless implements Graphic
     {
         if (fill)
         {
-            for (int i = x; i < width; i++)
-            {
-                for (int j = y; j < height; j++)
-                {
-                    g.setRgb(x, y, color.getRgba());
-                }
-            }
+            fill(x, y, width, height, color.getRgba(), false);
         }
-        else
+        else if (width >= 0 && height >= 0)
         {
-            for (int i = x; i < width; i++)
-            {
-                g.setRgb(i, y, color.getRgba());
-                g.setRgb(i, y + height - 1, color.getRgba());
-            }
-            for (int j = y; j < height; j++)
+            span(x, x + width, y);
+            if (height > 0)
             {
-                g.setRgb(x, j, color.getRgba());
-                g.setRgb(x + width - 1, j, color.getRgba());
+                span(x, x + width, y + height);
+                for (int py = y + 1; py < y + height; py++)
+                {
+                    span(x, x, py);
+                    if (width > 0)
+                    {
+                        span(x + width, x + width, py);
+                    }
+                }
             }
         }
     }
@@ -156,11 +442,39 @@ final class GraphicHeadless implements Graphic
     @Override
     public void drawGradient(int x, int y, int width, int height)
     {
-        for (int i = x; i < width; i++)
+        if (gradient == null)
         {
-            for (int j = y; j < height; j++)
+            fill(x, y, width, height, color.getRgba(), false);
+            return;
+        }
+
+        final int startX = Math.max(0, x);
+        final int startY = Math.max(0, y);
+        final int endX = Math.min(g.getWidth(), x + width);
+        final int endY = Math.min(g.getHeight(), y + height);
+        final int c1 = gradient.getColor1().getRgba() | OPAQUE << Constant.BYTE_4;
+        final int c2 = gradient.getColor2().getRgba() | OPAQUE << Constant.BYTE_4;
+        final double vx = gradient.getX2() - (double) gradient.getX1();
+        final double vy = gradient.getY2() - (double) gradient.getY1();
+        final double length = vx * vx + vy * vy;
+
+        final int[] dst = g.getBuffer();
+        final int stride = g.getWidth();
+        for (int py = startY; py < endY; py++)
+        {
+            final double ry = (py + HALF - gradient.getY1()) * vy;
+            for (int px = startX; px < endX; px++)
             {
-                g.setRgb(x, y, gradient.getColor1().getRgba());
+                final double t;
+                if (Double.compare(length, 0.0) == 0)
+                {
+                    t = 0.0;
+                }
+                else
+                {
+                    t = UtilMath.clamp(((px + HALF - gradient.getX1()) * vx + ry) / length, 0.0, 1.0);
+                }
+                dst[py * stride + px] = interpolate(c1, c2, t);
             }
         }
     }
@@ -176,30 +490,32 @@ final class GraphicHeadless implements Graphic
     @Override
     public void drawLine(int x1, int y1, int x2, int y2)
     {
-        final double dx = x1 - (double) x2;
-        final double dy = y1 - (double) y2;
-        final double norm = Math.sqrt(dx * dx + dy * dy);
-        final double sx;
-        final double sy;
-        if (Double.compare(norm, 0.0) == 0)
-        {
-            sx = 0;
-            sy = 0;
-        }
-        else
-        {
-            sx = dx / norm;
-            sy = dy / norm;
-        }
-
-        double x = x1;
-        double y = y1;
+        final int dx = Math.abs(x2 - x1);
+        final int dy = -Math.abs(y2 - y1);
+        final int sx = x1 < x2 ? 1 : -1;
+        final int sy = y1 < y2 ? 1 : -1;
+        int error = dx + dy;
+        int x = x1;
+        int y = y1;
 
-        for (int count = 0; count < norm; count++)
+        while (true)
         {
-            g.setRgb((int) Math.floor(x), (int) Math.floor(y), color.getRgba());
-            x += sx;
-            y += sy;
+            span(x, x, y);
+            if (x == x2 && y == y2)
+            {
+                break;
+            }
+            final int e2 = 2 * error;
+            if (e2 >= dy)
+            {
+                error += dy;
+                x += sx;
+            }
+            if (e2 <= dx)
+            {
+                error += dx;
+                y += sy;
+            }
         }
     }
 
@@ -215,13 +531,54 @@ final class GraphicHeadless implements Graphic
     @Override
     public void drawOval(int x, int y, int width, int height, boolean fill)
     {
-        // Nothing to do
+        if (width <= 0 || height <= 0)
+        {
+            return;
+        }
+
+        final double rx = width / 2.0;
+        final double ry = height / 2.0;
+        final double cx = x + rx;
+        final double cy = y + ry;
+        final int startY = Math.max(0, y);
+        final int endY = Math.min(g.getHeight(), y + height);
+
+        for (int py = startY; py < endY; py++)
+        {
+            final int left = getEdge(cx, cy, rx, ry, py, true);
+            final int right = getEdge(cx, cy, rx, ry, py, false);
+            if (left > right)
+            {
+                continue;
+            }
+            final int previousLeft = getEdge(cx, cy, rx, ry, py - 1, true);
+            final int nextLeft = getEdge(cx, cy, rx, ry, py + 1, true);
+            final int innerLeft = Math.min(previousLeft, nextLeft);
+            final int innerRight = Math.max(getEdge(cx, cy, rx, ry, py - 1, false),
+                                            getEdge(cx, cy, rx, ry, py + 1, false));
+            if (fill || previousLeft == Integer.MAX_VALUE || nextLeft == Integer.MAX_VALUE)
+            {
+                span(left, right, py);
+            }
+            else
+            {
+                final int edgeLeft = Math.max(left, innerLeft - 1);
+                final int edgeRight = Math.min(right, innerRight + 1);
+                span(left, Math.min(edgeLeft, right), py);
+                if (edgeRight > edgeLeft)
+                {
+                    span(edgeRight, right, py);
+                }
+            }
+        }
     }
 
     @Override
     public void drawOval(Viewer viewer, Origin origin, double x, double y, int width, int height, boolean fill)
     {
-        // Nothing to do
+        final int px = (int) origin.getX(viewer.getViewpointX(x), width);
+        final int py = (int) origin.getY(viewer.getViewpointY(y), height);
+        drawOval(px, py, width, height, fill);
     }
 
     @Override
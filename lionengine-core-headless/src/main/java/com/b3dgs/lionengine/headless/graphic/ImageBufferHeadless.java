@@ -100,6 +100,16 @@ final class ImageBufferHeadless implements ImageBuffer
         transparency = image.getTransparency();
     }
 
+    /**
+     * Get the raw pixels buffer, row by row, in ARGB format. Modifications are directly applied.
+     * 
+     * @return The raw pixels buffer.
+     */
+    int[] getBuffer()
+    {
+        return buffer;
+    }
+
     /*
      * ImageBuffer
      */
@@ -17,15 +17,30 @@
  */
 package com.b3dgs.lionengine.headless.graphic;
 
+import static com.b3dgs.lionengine.UtilAssert.assertArrayEquals;
 import static com.b3dgs.lionengine.UtilAssert.assertEquals;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import com.b3dgs.lionengine.Mirror;
+import com.b3dgs.lionengine.graphic.ColorGradient;
 import com.b3dgs.lionengine.graphic.ColorRgba;
+import com.b3dgs.lionengine.graphic.Graphic;
+import com.b3dgs.lionengine.graphic.GraphicBatch;
 import com.b3dgs.lionengine.graphic.GraphicTest;
 import com.b3dgs.lionengine.graphic.Graphics;
 import com.b3dgs.lionengine.graphic.ImageBuffer;
+import com.b3dgs.lionengine.graphic.RenderCommands;
+import com.b3dgs.lionengine.graphic.Transform;
+import com.b3dgs.lionengine.graphic.drawable.Atlas;
+import com.b3dgs.lionengine.graphic.drawable.AtlasPacker;
+import com.b3dgs.lionengine.graphic.drawable.AtlasRegion;
+import com.b3dgs.lionengine.graphic.drawable.Drawable;
+import com.b3dgs.lionengine.graphic.drawable.SpriteTiled;
 
 /**
  * Test {@link GraphicHeadless}.
@@ -51,4 +66,282 @@ public final class GraphicHeadlessTest extends GraphicTest
 
         assertEquals(ColorRgba.BLACK.getRgba(), Graphics.applyMask(image, ColorRgba.TRANSPARENT).getRgb(0, 0));
     }
+
+    /**
+     * Test clipped fill, clear and alpha blending.
+     */
+    @Test
+    public void testFill()
+    {
+        final ImageBuffer image = Graphics.createImageBuffer(4, 4);
+        final Graphic g = image.createGraphic();
+
+        g.setColor(ColorRgba.RED);
+        g.drawRect(-2, -2, 4, 4, true);
+
+        assertEquals(ColorRgba.RED.getRgba(), image.getRgb(1, 1));
+        assertEquals(ColorRgba.BLACK.getRgba(), image.getRgb(2, 1));
+        assertEquals(ColorRgba.BLACK.getRgba(), image.getRgb(1, 2));
+
+        g.setColor(new ColorRgba(0, 0, 255, 128));
+        g.drawRect(0, 0, 4, 4, true);
+
+        assertEquals(new ColorRgba(127, 0, 128).getRgba(), image.getRgb(0, 0));
+        assertEquals(new ColorRgba(0, 0, 128).getRgba(), image.getRgb(3, 3));
+
+        g.clear(1, 1, 10, 10);
+
+        assertEquals(ColorRgba.BLACK.getRgba(), image.getRgb(1, 1));
+        assertEquals(new ColorRgba(0, 0, 128).getRgba(), image.getRgb(3, 0));
+
+        g.setColor(ColorRgba.WHITE);
+        g.drawRect(0, 0, 3, 3, false);
+
+        assertEquals(ColorRgba.WHITE.getRgba(), image.getRgb(3, 3));
+        assertEquals(ColorRgba.WHITE.getRgba(), image.getRgb(0, 2));
+        assertEquals(ColorRgba.BLACK.getRgba(), image.getRgb(1, 1));
+
+        g.setColorGradient(new ColorGradient(0, 0, ColorRgba.BLACK, 4, 0, ColorRgba.WHITE));
+        g.drawGradient(0, 0, 4, 4);
+
+        assertEquals(new ColorRgba(32, 32, 32).getRgba(), image.getRgb(0, 3));
+        assertEquals(new ColorRgba(223, 223, 223).getRgba(), image.getRgb(3, 0));
+
+        g.dispose();
+    }
+
+    /**
+     * Test clipped, mirrored and scaled images drawing.
+     */
+    @Test
+    public void testDrawImage()
+    {
+        final ImageBuffer source = Graphics.createImageBuffer(2, 2, ColorRgba.TRANSPARENT);
+        source.setRgb(0, 0, ColorRgba.RED.getRgba());
+        source.setRgb(1, 0, ColorRgba.GREEN.getRgba());
+        source.setRgb(0, 1, ColorRgba.BLUE.getRgba());
+
+        final ImageBuffer image = Graphics.createImageBuffer(4, 4);
+        final Graphic g = image.createGraphic();
+
+        g.drawImage(source, -1, 3);
+
+        assertEquals(ColorRgba.GREEN.getRgba(), image.getRgb(0, 3));
+        assertEquals(ColorRgba.BLACK.getRgba(), image.getRgb(1, 3));
+
+        g.clear(0, 0, 4, 4);
+        g.drawImage(source, 2, 0, 0, 2, 0, 0, 2, 2);
+
+        assertEquals(ColorRgba.GREEN.getRgba(), image.getRgb(0, 0));
+        assertEquals(ColorRgba.RED.getRgba(), image.getRgb(1, 0));
+        assertEquals(ColorRgba.BLACK.getRgba(), image.getRgb(0, 1));
+        assertEquals(ColorRgba.BLUE.getRgba(), image.getRgb(1, 1));
+
+        final Transform transform = Graphics.createTransform();
+        transform.scale(2.0, 2.0);
+        g.clear(0, 0, 4, 4);
+        g.drawImage(source, transform, 0, 0);
+
+        assertEquals(ColorRgba.RED.getRgba(), image.getRgb(1, 1));
+        assertEquals(ColorRgba.GREEN.getRgba(), image.getRgb(2, 1));
+        assertEquals(ColorRgba.BLUE.getRgba(), image.getRgb(0, 3));
+        assertEquals(ColorRgba.BLACK.getRgba(), image.getRgb(3, 3));
+
+        g.copyArea(0, 0, 2, 2, 2, 2);
+
+        assertEquals(ColorRgba.RED.getRgba(), image.getRgb(3, 3));
+
+        g.dispose();
+    }
+
+    /**
+     * Test lines and ovals.
+     */
+    @Test
+    public void testShapes()
+    {
+        final ImageBuffer image = Graphics.createImageBuffer(8, 8);
+        final Graphic g = image.createGraphic();
+
+        g.setColor(ColorRgba.WHITE);
+        g.drawLine(0, 0, 7, 7);
+
+        assertEquals(ColorRgba.WHITE.getRgba(), image.getRgb(0, 0));
+        assertEquals(ColorRgba.WHITE.getRgba(), image.getRgb(4, 4));
+        assertEquals(ColorRgba.WHITE.getRgba(), image.getRgb(7, 7));
+        assertEquals(ColorRgba.BLACK.getRgba(), image.getRgb(1, 0));
+
+        g.clear(0, 0, 8, 8);
+        g.drawOval(0, 0, 8, 8, true);
+
+        assertEquals(ColorRgba.WHITE.getRgba(), image.getRgb(4, 4));
+        assertEquals(ColorRgba.WHITE.getRgba(), image.getRgb(0, 4));
+        assertEquals(ColorRgba.BLACK.getRgba(), image.getRgb(0, 0));
+
+        g.clear(0, 0, 8, 8);
+        g.drawOval(0, 0, 8, 8, false);
+
+        assertEquals(ColorRgba.WHITE.getRgba(), image.getRgb(0, 4));
+        assertEquals(ColorRgba.WHITE.getRgba(), image.getRgb(4, 0));
+        assertEquals(ColorRgba.BLACK.getRgba(), image.getRgb(4, 4));
+        assertEquals(ColorRgba.BLACK.getRgba(), image.getRgb(0, 0));
+
+        g.dispose();
+    }
+
+    /**
+     * Test recorded commands replay draws the same pixels as direct drawing.
+     */
+    @Test
+    public void testRenderCommands()
+    {
+        final ImageBuffer source = Graphics.createImageBuffer(2, 2, ColorRgba.TRANSPARENT);
+        source.setRgb(0, 0, ColorRgba.RED.getRgba());
+        source.setRgb(1, 1, ColorRgba.GREEN.getRgba());
+        final Transform transform = Graphics.createTransform();
+        transform.scale(3.0, 2.0);
+
+        final ImageBuffer direct = Graphics.createImageBuffer(16, 16);
+        final ImageBuffer replayed = Graphics.createImageBuffer(16, 16);
+        final ImageBuffer redirected = Graphics.createImageBuffer(16, 16);
+        final Graphic g = direct.createGraphic();
+        final Graphic redirect = redirected.createGraphic();
+        final RenderCommands commands = new RenderCommands();
+
+        for (final Graphic output : Arrays.asList(g, commands))
+        {
+            output.setColor(new ColorRgba(0, 0, 255, 128));
+            output.drawRect(1, 1, 10, 6, true);
+            output.setColor(ColorRgba.WHITE);
+            output.drawLine(0, 15, 15, 0);
+            output.drawOval(4, 4, 8, 8, false);
+            output.drawImage(source, 12, 12);
+            output.drawImage(source, transform, 0, 8);
+            output.drawImage(source, 15, 0, 11, 4, 0, 0, 2, 2);
+            output.setColorGradient(new ColorGradient(0, 0, ColorRgba.BLACK, 4, 0, ColorRgba.RED));
+            output.drawGradient(8, 10, 4, 4);
+            output.copyArea(0, 0, 4, 4, 2, 2);
+        }
+        commands.setGraphic(redirect);
+        commands.drawImage(source, 0, 0);
+        commands.setGraphic(null);
+
+        final Graphic r = replayed.createGraphic();
+        commands.replay(r);
+
+        final int[] expected = direct.getRgb(0, 0, 16, 16, new int[16 * 16], 0, 16);
+
+        assertArrayEquals(expected, replayed.getRgb(0, 0, 16, 16, new int[16 * 16], 0, 16));
+        assertEquals(ColorRgba.RED.getRgba(), redirected.getRgb(0, 0));
+
+        g.dispose();
+        r.dispose();
+        redirect.dispose();
+    }
+
+    /**
+     * Test batched drawings draw the same pixels as direct drawing.
+     */
+    @Test
+    public void testBatch()
+    {
+        final Random random = new Random(42L);
+        final ImageBuffer[] sheets = new ImageBuffer[3];
+        for (int i = 0; i < sheets.length; i++)
+        {
+            sheets[i] = Graphics.createImageBuffer(8, 8, ColorRgba.TRANSPARENT);
+            for (int p = 0; p < 8 * 8; p++)
+            {
+                sheets[i].setRgb(p % 8, p / 8, random.nextInt() | 0xFF000000);
+            }
+        }
+
+        final ImageBuffer direct = Graphics.createImageBuffer(64, 64);
+        final ImageBuffer batched = Graphics.createImageBuffer(64, 64);
+        final Graphic g = direct.createGraphic();
+        final Graphic b = batched.createGraphic();
+        final GraphicBatch batch = new GraphicBatch(b);
+
+        for (int i = 0; i < 300; i++)
+        {
+            final ImageBuffer sheet = sheets[random.nextInt(sheets.length)];
+            final int x = random.nextInt(60);
+            final int y = random.nextInt(60);
+            final int sx = random.nextInt(2) * 4;
+            final int sy = random.nextInt(2) * 4;
+            for (final Graphic output : Arrays.<Graphic> asList(g, batch))
+            {
+                output.drawImage(sheet, x, y, x + 4, y + 4, sx, sy, sx + 4, sy + 4);
+            }
+        }
+        batch.flush();
+
+        final int[] expected = direct.getRgb(0, 0, 64, 64, new int[64 * 64], 0, 64);
+
+        assertArrayEquals(expected, batched.getRgb(0, 0, 64, 64, new int[64 * 64], 0, 64));
+        assertEquals(300L, batch.getDrawsSubmitted());
+
+        g.dispose();
+        b.dispose();
+    }
+
+    /**
+     * Test sprites from atlas regions draw the same pixels as sprites from their original image.
+     */
+    @Test
+    public void testAtlas()
+    {
+        final Random random = new Random(42L);
+        final AtlasPacker packer = new AtlasPacker(64, 64, 1);
+        final ImageBuffer[] images = new ImageBuffer[12];
+        for (int i = 0; i < images.length; i++)
+        {
+            final int width = 8 * (1 + random.nextInt(3));
+            final int height = 8 * (1 + random.nextInt(3));
+            images[i] = Graphics.createImageBuffer(width, height, ColorRgba.TRANSPARENT);
+            for (int p = 0; p < width * height; p++)
+            {
+                images[i].setRgb(p % width, p / width, random.nextInt() | 0xFF000000);
+            }
+            packer.add(String.valueOf(i), images[i]);
+        }
+        final Atlas atlas = packer.pack();
+
+        final ImageBuffer direct = Graphics.createImageBuffer(64, 64);
+        final ImageBuffer packed = Graphics.createImageBuffer(64, 64);
+        final Graphic g = direct.createGraphic();
+        final Graphic p = packed.createGraphic();
+
+        for (int i = 0; i < images.length; i++)
+        {
+            final AtlasRegion region = atlas.getRegion(String.valueOf(i));
+            final SpriteTiled original = Drawable.loadSpriteTiled(images[i], 8, 8);
+            final SpriteTiled sprite = Drawable.loadSpriteTiled(region, 8, 8);
+            final int tile = random.nextInt(original.getTilesHorizontal() * original.getTilesVertical());
+            final int x = random.nextInt(56);
+            final int y = random.nextInt(56);
+            for (final SpriteTiled current : Arrays.asList(original, sprite))
+            {
+                current.setMirror(Mirror.values()[i % Mirror.values().length]);
+                current.setTile(tile);
+                current.setLocation(x, y);
+            }
+            original.render(g);
+            sprite.render(p);
+
+            final int size = images[i].getWidth() * images[i].getHeight();
+            assertArrayEquals(images[i].getRgb(0, 0, images[i].getWidth(), images[i].getHeight(), new int[size], 0,
+                                               images[i].getWidth()),
+                              sprite.getSurface()
+                                    .getRgb(0, 0, sprite.getWidth(), sprite.getHeight(), new int[size], 0,
+                                            sprite.getWidth()));
+        }
+
+        assertArrayEquals(direct.getRgb(0, 0, 64, 64, new int[64 * 64], 0, 64),
+                          packed.getRgb(0, 0, 64, 64, new int[64 * 64], 0, 64));
+
+        g.dispose();
+        p.dispose();
+        atlas.dispose();
+    }
 }
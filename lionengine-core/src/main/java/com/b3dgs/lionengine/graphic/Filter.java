@@ -21,14 +21,30 @@ import com.b3dgs.lionengine.LionEngineException;
 
 /**
  * List of supported filters.
+ * <p>
+ * A filter may own its buffers, prepared once for a source size and reused on each call: the returned image is then
+ * overwritten by the next call, and must not be disposed by the caller.
+ * </p>
  */
 public interface Filter
 {
+    /**
+     * Prepare the filter buffers for a source size, in order to filter without allocation. Called when rendering
+     * resolution changes. Filtering a source of another size prepares it again. Does nothing by default.
+     * 
+     * @param width The source width.
+     * @param height The source height.
+     */
+    default void prepare(int width, int height)
+    {
+        // Nothing by default
+    }
+
     /**
      * Apply a filter to the image source.
      * 
      * @param source The image source (must not be <code>null</code>).
-     * @return The filtered image.
+     * @return The filtered image (may be reused by the next call).
      * @throws LionEngineException If invalid argument.
      */
     ImageBuffer filter(ImageBuffer source);
@@ -235,4 +235,23 @@ public interface Graphic
      */
     ColorRgba getColor();
 
+    /**
+     * Draw a renderable requiring the graphic context, such as text glyphs. Rendered immediately by default, graphics
+     * deferring drawings render it later on their output, so the renderable must not assume the graphic type.
+     * 
+     * @param renderable The renderable reference.
+     */
+    default void drawRenderable(Renderable renderable)
+    {
+        renderable.render(this);
+    }
+
+    /**
+     * Flush pending drawings, for graphics deferring them. Does nothing by default.
+     */
+    default void flush()
+    {
+        // Does nothing by default
+    }
+
 }
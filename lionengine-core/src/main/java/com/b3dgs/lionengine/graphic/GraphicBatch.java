@@ -0,0 +1,496 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Origin;
+import com.b3dgs.lionengine.Viewer;
+
+/**
+ * Graphic decorator batching images drawing by surface, in order to reduce draw calls overhead and surface switches.
+ * <p>
+ * Images drawn with {@link #drawImage(ImageSurface, int, int)} and
+ * {@link #drawImage(ImageSurface, int, int, int, int, int, int, int, int)} are buffered in batches of same surface,
+ * then drawn batch after batch on {@link #flush()}. A drawing joins the last batch of its surface if no later batch
+ * overlaps it, else starts a new batch, so drawings overlapping each other keep their order. Last batch of each surface
+ * is indexed, so only the batches following it are checked.
+ * </p>
+ * <p>
+ * Any other drawing flushes pending images before being forwarded, as well as {@link #getGraphic()}, so direct
+ * accesses to graphic context stay ordered. Pending images must be flushed at the end of rendering, and usually at
+ * each layer end.
+ * </p>
+ */
+public final class GraphicBatch implements Graphic
+{
+    /** Default capacity. */
+    private static final int DEFAULT_CAPACITY = 256;
+    /** Coordinates per drawing. */
+    private static final int COORDS = 8;
+    /** Bounds per batch. */
+    private static final int BOUNDS = 4;
+    /** No drawing index. */
+    private static final int NONE = -1;
+
+    /** Last batch index by surface. */
+    private final Map<ImageSurface, Integer> lasts = new IdentityHashMap<>();
+    /** Drawings coordinates (destination then source corners). */
+    private int[] coords = new int[DEFAULT_CAPACITY * COORDS];
+    /** Drawings with source rectangle flag. */
+    private boolean[] parts = new boolean[DEFAULT_CAPACITY];
+    /** Next drawing in same batch. */
+    private int[] next = new int[DEFAULT_CAPACITY];
+    /** Pending drawings. */
+    private int drawings;
+    /** Batches surface. */
+    private ImageSurface[] batchImages = new ImageSurface[DEFAULT_CAPACITY];
+    /** Batches destination bounds (min x, min y, max x, max y). */
+    private int[] batchBounds = new int[DEFAULT_CAPACITY * BOUNDS];
+    /** Batches first drawing. */
+    private int[] heads = new int[DEFAULT_CAPACITY];
+    /** Batches last drawing. */
+    private int[] tails = new int[DEFAULT_CAPACITY];
+    /** Pending batches. */
+    private int batches;
+    /** Last bound surface. */
+    private ImageSurface bound;
+    /** Submitted drawings counter. */
+    private long submitted;
+    /** Bound surfaces counter. */
+    private long binds;
+    /** Target graphic. */
+    private Graphic target;
+
+    /**
+     * Create batch.
+     * 
+     * @param target The target graphic (must not be <code>null</code>).
+     * @throws LionEngineException If invalid argument.
+     */
+    public GraphicBatch(Graphic target)
+    {
+        super();
+
+        setTarget(target);
+    }
+
+    /**
+     * Set the target graphic. Pending images are flushed on previous target.
+     * 
+     * @param target The target graphic (must not be <code>null</code>).
+     * @throws LionEngineException If invalid argument.
+     */
+    public void setTarget(Graphic target)
+    {
+        Check.notNull(target);
+
+        if (this.target != null)
+        {
+            drain();
+        }
+        this.target = target;
+        bound = null;
+    }
+
+    /**
+     * Get the number of submitted images drawings since last reset.
+     * 
+     * @return The submitted drawings number.
+     */
+    public long getDrawsSubmitted()
+    {
+        return submitted;
+    }
+
+    /**
+     * Get the number of surfaces bound since last reset, which is the number of surface switches between images
+     * drawings performed on target.
+     * 
+     * @return The surfaces bound number.
+     */
+    public long getSurfacesBound()
+    {
+        return binds;
+    }
+
+    /**
+     * Reset counters.
+     */
+    public void resetCounters()
+    {
+        submitted = 0L;
+        binds = 0L;
+    }
+
+    /**
+     * Add drawing to its batch.
+     * 
+     * @param image The image surface.
+     * @param part <code>true</code> if drawn with source rectangle, <code>false</code> if whole image.
+     * @param dx1 The first destination corner horizontal location.
+     * @param dy1 The first destination corner vertical location.
+     * @param dx2 The second destination corner horizontal location.
+     * @param dy2 The second destination corner vertical location.
+     * @param sx1 The first source corner horizontal location.
+     * @param sy1 The first source corner vertical location.
+     * @param sx2 The second source corner horizontal location.
+     * @param sy2 The second source corner vertical location.
+     */
+    // CHECKSTYLE IGNORE LINE: ParameterNumber
+    private void add(ImageSurface image,
+                     boolean part,
+                     int dx1,
+                     int dy1,
+                     int dx2,
+                     int dy2,
+                     int sx1,
+                     int sy1,
+                     int sx2,
+                     int sy2)
+    {
+        submitted++;
+        if (drawings == next.length)
+        {
+            final int capacity = drawings * 2;
+            coords = Arrays.copyOf(coords, capacity * COORDS);
+            parts = Arrays.copyOf(parts, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        final int index = drawings++;
+        final int offset = index * COORDS;
+        coords[offset] = dx1;
+        coords[offset + 1] = dy1;
+        coords[offset + 2] = dx2;
+        coords[offset + 3] = dy2;
+        coords[offset + 4] = sx1;
+        coords[offset + 5] = sy1;
+        coords[offset + 6] = sx2;
+        coords[offset + 7] = sy2;
+        parts[index] = part;
+        next[index] = NONE;
+
+        final int minX = Math.min(dx1, dx2);
+        final int minY = Math.min(dy1, dy2);
+        final int maxX = Math.max(dx1, dx2);
+        final int maxY = Math.max(dy1, dy2);
+
+        int batch = NONE;
+        final Integer last = lasts.get(image);
+        if (last != null)
+        {
+            batch = last.intValue();
+            for (int b = batches - 1; b > batch; b--)
+            {
+                if (intersects(b, minX, minY, maxX, maxY))
+                {
+                    batch = NONE;
+                    break;
+                }
+            }
+        }
+        if (batch == NONE)
+        {
+            batch = addBatch(image, index, minX, minY, maxX, maxY);
+        }
+        else
+        {
+            next[tails[batch]] = index;
+            tails[batch] = index;
+            final int bounds = batch * BOUNDS;
+            batchBounds[bounds] = Math.min(batchBounds[bounds], minX);
+            batchBounds[bounds + 1] = Math.min(batchBounds[bounds + 1], minY);
+            batchBounds[bounds + 2] = Math.max(batchBounds[bounds + 2], maxX);
+            batchBounds[bounds + 3] = Math.max(batchBounds[bounds + 3], maxY);
+        }
+    }
+
+    /**
+     * Add a new batch.
+     * 
+     * @param image The batch surface.
+     * @param index The first drawing index.
+     * @param minX The drawing min horizontal location.
+     * @param minY The drawing min vertical location.
+     * @param maxX The drawing max horizontal location (excluded).
+     * @param maxY The drawing max vertical location (excluded).
+     * @return The batch index.
+     */
+    private int addBatch(ImageSurface image, int index, int minX, int minY, int maxX, int maxY)
+    {
+        if (batches == batchImages.length)
+        {
+            final int capacity = batches * 2;
+            batchImages = Arrays.copyOf(batchImages, capacity);
+            batchBounds = Arrays.copyOf(batchBounds, capacity * BOUNDS);
+            heads = Arrays.copyOf(heads, capacity);
+            tails = Arrays.copyOf(tails, capacity);
+        }
+        final int batch = batches++;
+        batchImages[batch] = image;
+        lasts.put(image, Integer.valueOf(batch));
+        heads[batch] = index;
+        tails[batch] = index;
+        final int bounds = batch * BOUNDS;
+        batchBounds[bounds] = minX;
+        batchBounds[bounds + 1] = minY;
+        batchBounds[bounds + 2] = maxX;
+        batchBounds[bounds + 3] = maxY;
+        return batch;
+    }
+
+    /**
+     * Check if batch bounds intersects area.
+     * 
+     * @param batch The batch index.
+     * @param minX The area min horizontal location.
+     * @param minY The area min vertical location.
+     * @param maxX The area max horizontal location (excluded).
+     * @param maxY The area max vertical location (excluded).
+     * @return <code>true</code> if intersects, <code>false</code> else.
+     */
+    private boolean intersects(int batch, int minX, int minY, int maxX, int maxY)
+    {
+        final int bounds = batch * BOUNDS;
+        return minX < batchBounds[bounds + 2]
+               && batchBounds[bounds] < maxX
+               && minY < batchBounds[bounds + 3]
+               && batchBounds[bounds + 1] < maxY;
+    }
+
+    /**
+     * Count surface bind if changed.
+     * 
+     * @param image The surface to bind.
+     */
+    private void bind(ImageSurface image)
+    {
+        if (image != bound)
+        {
+            bound = image;
+            binds++;
+        }
+    }
+
+    /**
+     * Draw pending images batch after batch on target.
+     */
+    private void drain()
+    {
+        final Graphic g = target;
+        for (int b = 0; b < batches; b++)
+        {
+            final ImageSurface image = batchImages[b];
+            bind(image);
+            for (int i = heads[b]; i != NONE; i = next[i])
+            {
+                final int o = i * COORDS;
+                if (parts[i])
+                {
+                    g.drawImage(image,
+                                coords[o],
+                                coords[o + 1],
+                                coords[o + 2],
+                                coords[o + 3],
+                                coords[o + 4],
+                                coords[o + 5],
+                                coords[o + 6],
+                                coords[o + 7]);
+                }
+                else
+                {
+                    g.drawImage(image, coords[o], coords[o + 1]);
+                }
+            }
+        }
+        Arrays.fill(batchImages, 0, batches, null);
+        lasts.clear();
+        drawings = 0;
+        batches = 0;
+    }
+
+    /*
+     * Graphic
+     */
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Draw pending images batch after batch on target, and flush it.
+     * </p>
+     */
+    @Override
+    public void flush()
+    {
+        drain();
+        target.flush();
+    }
+
+    @Override
+    public void clear(int x, int y, int width, int height)
+    {
+        drain();
+        target.clear(x, y, width, height);
+    }
+
+    @Override
+    public void dispose()
+    {
+        drain();
+        target.dispose();
+    }
+
+    @Override
+    public void copyArea(int x, int y, int width, int height, int dx, int dy)
+    {
+        drain();
+        target.copyArea(x, y, width, height, dx, dy);
+    }
+
+    @Override
+    public void drawImage(ImageSurface image, int x, int y)
+    {
+        add(image, false, x, y, x + image.getWidth(), y + image.getHeight(), 0, 0, 0, 0);
+    }
+
+    @Override
+    public void drawImage(ImageSurface image, Transform op, int x, int y)
+    {
+        drain();
+        submitted++;
+        bind(image);
+        target.drawImage(image, op, x, y);
+    }
+
+    @Override
+    public void drawImage(ImageSurface image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2)
+    {
+        add(image, true, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2);
+    }
+
+    @Override
+    public void drawRect(int x, int y, int width, int height, boolean fill)
+    {
+        drain();
+        target.drawRect(x, y, width, height, fill);
+    }
+
+    @Override
+    public void drawRect(Viewer viewer, Origin origin, double x, double y, int width, int height, boolean fill)
+    {
+        drain();
+        target.drawRect(viewer, origin, x, y, width, height, fill);
+    }
+
+    @Override
+    public void drawGradient(int x, int y, int width, int height)
+    {
+        drain();
+        target.drawGradient(x, y, width, height);
+    }
+
+    @Override
+    public void drawGradient(Viewer viewer, Origin origin, double x, double y, int width, int height)
+    {
+        drain();
+        target.drawGradient(viewer, origin, x, y, width, height);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2)
+    {
+        drain();
+        target.drawLine(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void drawLine(Viewer viewer, double x1, double y1, double x2, double y2)
+    {
+        drain();
+        target.drawLine(viewer, x1, y1, x2, y2);
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height, boolean fill)
+    {
+        drain();
+        target.drawOval(x, y, width, height, fill);
+    }
+
+    @Override
+    public void drawOval(Viewer viewer, Origin origin, double x, double y, int width, int height, boolean fill)
+    {
+        drain();
+        target.drawOval(viewer, origin, x, y, width, height, fill);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Pending images are flushed first, then renderable is drawn on target.
+     * </p>
+     */
+    @Override
+    public void drawRenderable(Renderable renderable)
+    {
+        drain();
+        target.drawRenderable(renderable);
+    }
+
+    @Override
+    public void setColor(ColorRgba color)
+    {
+        target.setColor(color);
+    }
+
+    @Override
+    public void setColorGradient(ColorGradient gradientColor)
+    {
+        target.setColorGradient(gradientColor);
+    }
+
+    @Override
+    public void setGraphic(Object graphic)
+    {
+        drain();
+        target.setGraphic(graphic);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Pending images are flushed first.
+     * </p>
+     */
+    @Override
+    public Object getGraphic()
+    {
+        drain();
+        return target.getGraphic();
+    }
+
+    @Override
+    public ColorRgba getColor()
+    {
+        return target.getColor();
+    }
+}
@@ -0,0 +1,552 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.b3dgs.lionengine.Align;
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Origin;
+import com.b3dgs.lionengine.Viewer;
+
+/**
+ * Graphic recording its calls into a compact command buffer, to be replayed later on another graphic, possibly from
+ * another thread.
+ * <p>
+ * Commands are stored as operation codes with their integer arguments and object references, in arrays reused after
+ * each {@link #clear()}. Viewer based calls are resolved to screen coordinates when recorded, as viewer keeps moving.
+ * Images, transforms and texts are only referenced, and read when replayed.
+ * </p>
+ * <p>
+ * As replay may happen one frame later on another thread, a recorded image must not be disposed nor modified until
+ * commands are cleared. Images to dispose are given to {@link #release(ImageBuffer)} (or
+ * {@link #release(Graphic, ImageBuffer)} from a renderer), and images modified each frame are drawn as a copy, or
+ * from a {@link Renderable} executed at replay.
+ * </p>
+ * <p>
+ * {@link #setGraphic(Object)} with another {@link Graphic} redirects the next replayed commands to it, until called
+ * with <code>null</code> which restores the replay graphic.
+ * </p>
+ * <p>
+ * This class is not Thread-Safe: recording and replaying must not be performed at the same time.
+ * </p>
+ */
+public final class RenderCommands implements Graphic
+{
+    /** Clear operation. */
+    private static final byte CLEAR = 0;
+    /** Copy area operation. */
+    private static final byte COPY_AREA = 1;
+    /** Draw image operation. */
+    private static final byte IMAGE = 2;
+    /** Draw transformed image operation. */
+    private static final byte IMAGE_TRANSFORM = 3;
+    /** Draw image part operation. */
+    private static final byte IMAGE_PART = 4;
+    /** Draw rectangle operation. */
+    private static final byte RECT = 5;
+    /** Draw gradient operation. */
+    private static final byte GRADIENT = 6;
+    /** Draw line operation. */
+    private static final byte LINE = 7;
+    /** Draw oval operation. */
+    private static final byte OVAL = 8;
+    /** Set color operation. */
+    private static final byte COLOR = 9;
+    /** Set gradient operation. */
+    private static final byte COLOR_GRADIENT = 10;
+    /** Redirect graphic operation. */
+    private static final byte REDIRECT = 11;
+    /** Draw text operation. */
+    private static final byte TEXT = 12;
+    /** Renderable operation. */
+    private static final byte RENDERABLE = 13;
+    /** Flush operation. */
+    private static final byte FLUSH = 14;
+    /** Default commands capacity. */
+    private static final int DEFAULT_CAPACITY = 256;
+    /** Integer arguments per command average. */
+    private static final int INTS_PER_COMMAND = 4;
+
+    /**
+     * Release an image drawn on graphic. Disposal is deferred until commands are cleared if graphic is recording, else
+     * performed immediately.
+     * 
+     * @param g The graphic the image may have been drawn on (must not be <code>null</code>).
+     * @param image The image to release (must not be <code>null</code>).
+     * @throws LionEngineException If invalid arguments.
+     */
+    public static void release(Graphic g, ImageBuffer image)
+    {
+        Check.notNull(g);
+        Check.notNull(image);
+
+        if (g instanceof RenderCommands)
+        {
+            ((RenderCommands) g).release(image);
+        }
+        else
+        {
+            image.dispose();
+        }
+    }
+
+    /** Images to dispose on clear. */
+    private final List<ImageBuffer> released = new ArrayList<>();
+
+    /** Operation codes. */
+    private byte[] operations = new byte[DEFAULT_CAPACITY];
+    /** Integer arguments. */
+    private int[] ints = new int[DEFAULT_CAPACITY * INTS_PER_COMMAND];
+    /** Object arguments. */
+    private Object[] refs = new Object[DEFAULT_CAPACITY];
+    /** Recorded operations. */
+    private int operationsCount;
+    /** Recorded integer arguments. */
+    private int intsCount;
+    /** Recorded object arguments. */
+    private int refsCount;
+    /** Last recorded color. */
+    private ColorRgba color = ColorRgba.WHITE;
+
+    /**
+     * Create empty commands.
+     */
+    public RenderCommands()
+    {
+        super();
+    }
+
+    /**
+     * Record a text drawing, performed with {@link Text#draw(Graphic, int, int, Align, String)} when replayed.
+     * 
+     * @param text The text reference (must not be <code>null</code>).
+     * @param x The horizontal location.
+     * @param y The vertical location.
+     * @param align The text alignment (must not be <code>null</code>).
+     * @param value The text value (must not be <code>null</code>).
+     * @throws LionEngineException If invalid arguments.
+     */
+    public void drawText(Text text, int x, int y, Align align, String value)
+    {
+        Check.notNull(text);
+        Check.notNull(align);
+        Check.notNull(value);
+
+        add(TEXT, 2);
+        put(x);
+        put(y);
+        put(text);
+        put(align);
+        put(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Renderable is recorded, and rendered on current replay graphic when replayed.
+     * </p>
+     * 
+     * @throws LionEngineException If invalid argument.
+     */
+    @Override
+    public void drawRenderable(Renderable renderable)
+    {
+        Check.notNull(renderable);
+
+        add(RENDERABLE, 0);
+        put(renderable);
+    }
+
+    /**
+     * Release an image once commands are cleared, as it may still be referenced by commands not replayed yet.
+     * 
+     * @param image The image to dispose (must not be <code>null</code>).
+     * @throws LionEngineException If invalid argument.
+     */
+    public void release(ImageBuffer image)
+    {
+        Check.notNull(image);
+
+        released.add(image);
+    }
+
+    /**
+     * Replay recorded commands on graphic. Commands are kept until {@link #clear()}.
+     * 
+     * @param g The graphic output (must not be <code>null</code>).
+     * @throws LionEngineException If invalid argument.
+     */
+    // CHECKSTYLE IGNORE LINE: CyclomaticComplexity|ExecutableStatementCount
+    public void replay(Graphic g)
+    {
+        Check.notNull(g);
+
+        Graphic target = g;
+        int i = 0;
+        int r = 0;
+        for (int n = 0; n < operationsCount; n++)
+        {
+            switch (operations[n])
+            {
+                case CLEAR:
+                    target.clear(ints[i], ints[i + 1], ints[i + 2], ints[i + 3]);
+                    i += 4;
+                    break;
+                case COPY_AREA:
+                    target.copyArea(ints[i], ints[i + 1], ints[i + 2], ints[i + 3], ints[i + 4], ints[i + 5]);
+                    i += 6;
+                    break;
+                case IMAGE:
+                    target.drawImage((ImageSurface) refs[r++], ints[i], ints[i + 1]);
+                    i += 2;
+                    break;
+                case IMAGE_TRANSFORM:
+                    target.drawImage((ImageSurface) refs[r], (Transform) refs[r + 1], ints[i], ints[i + 1]);
+                    r += 2;
+                    i += 2;
+                    break;
+                case IMAGE_PART:
+                    target.drawImage((ImageSurface) refs[r++],
+                                     ints[i],
+                                     ints[i + 1],
+                                     ints[i + 2],
+                                     ints[i + 3],
+                                     ints[i + 4],
+                                     ints[i + 5],
+                                     ints[i + 6],
+                                     ints[i + 7]);
+                    i += 8;
+                    break;
+                case RECT:
+                    target.drawRect(ints[i], ints[i + 1], ints[i + 2], ints[i + 3], ints[i + 4] != 0);
+                    i += 5;
+                    break;
+                case GRADIENT:
+                    target.drawGradient(ints[i], ints[i + 1], ints[i + 2], ints[i + 3]);
+                    i += 4;
+                    break;
+                case LINE:
+                    target.drawLine(ints[i], ints[i + 1], ints[i + 2], ints[i + 3]);
+                    i += 4;
+                    break;
+                case OVAL:
+                    target.drawOval(ints[i], ints[i + 1], ints[i + 2], ints[i + 3], ints[i + 4] != 0);
+                    i += 5;
+                    break;
+                case COLOR:
+                    target.setColor((ColorRgba) refs[r++]);
+                    break;
+                case COLOR_GRADIENT:
+                    target.setColorGradient((ColorGradient) refs[r++]);
+                    break;
+                case REDIRECT:
+                    target = refs[r] == null ? g : (Graphic) refs[r];
+                    r++;
+                    break;
+                case TEXT:
+                    ((Text) refs[r]).draw(target, ints[i], ints[i + 1], (Align) refs[r + 1], (String) refs[r + 2]);
+                    r += 3;
+                    i += 2;
+                    break;
+                case RENDERABLE:
+                    ((Renderable) refs[r++]).render(target);
+                    break;
+                case FLUSH:
+                    target.flush();
+                    break;
+                default:
+                    throw new LionEngineException(String.valueOf(operations[n]));
+            }
+        }
+    }
+
+    /**
+     * Clear recorded commands, keeping allocated storage, and dispose released images.
+     */
+    public void clear()
+    {
+        for (final ImageBuffer image : released)
+        {
+            image.dispose();
+        }
+        released.clear();
+        Arrays.fill(refs, 0, refsCount, null);
+        operationsCount = 0;
+        intsCount = 0;
+        refsCount = 0;
+    }
+
+    /**
+     * Get the number of recorded commands.
+     * 
+     * @return The recorded commands number.
+     */
+    public int getCount()
+    {
+        return operationsCount;
+    }
+
+    /**
+     * Add an operation, ensuring storage for its integer arguments.
+     * 
+     * @param operation The operation code.
+     * @param arguments The number of integer arguments which will follow.
+     */
+    private void add(byte operation, int arguments)
+    {
+        if (operationsCount == operations.length)
+        {
+            operations = Arrays.copyOf(operations, operations.length * 2);
+        }
+        operations[operationsCount++] = operation;
+
+        if (intsCount + arguments > ints.length)
+        {
+            ints = Arrays.copyOf(ints, Math.max(ints.length * 2, intsCount + arguments));
+        }
+    }
+
+    /**
+     * Put integer argument. Storage must have been ensured by {@link #add(byte, int)}.
+     * 
+     * @param value The argument value.
+     */
+    private void put(int value)
+    {
+        ints[intsCount++] = value;
+    }
+
+    /**
+     * Put object argument.
+     * 
+     * @param ref The argument reference.
+     */
+    private void put(Object ref)
+    {
+        if (refsCount == refs.length)
+        {
+            refs = Arrays.copyOf(refs, refs.length * 2);
+        }
+        refs[refsCount++] = ref;
+    }
+
+    /*
+     * Graphic
+     */
+
+    @Override
+    public void flush()
+    {
+        add(FLUSH, 0);
+    }
+
+    @Override
+    public void clear(int x, int y, int width, int height)
+    {
+        add(CLEAR, 4);
+        put(x);
+        put(y);
+        put(width);
+        put(height);
+    }
+
+    @Override
+    public void dispose()
+    {
+        clear();
+    }
+
+    @Override
+    public void copyArea(int x, int y, int width, int height, int dx, int dy)
+    {
+        add(COPY_AREA, 6);
+        put(x);
+        put(y);
+        put(width);
+        put(height);
+        put(dx);
+        put(dy);
+    }
+
+    @Override
+    public void drawImage(ImageSurface image, int x, int y)
+    {
+        add(IMAGE, 2);
+        put(x);
+        put(y);
+        put(image);
+    }
+
+    @Override
+    public void drawImage(ImageSurface image, Transform op, int x, int y)
+    {
+        add(IMAGE_TRANSFORM, 2);
+        put(x);
+        put(y);
+        put(image);
+        put(op);
+    }
+
+    @Override
+    public void drawImage(ImageSurface image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2)
+    {
+        add(IMAGE_PART, 8);
+        put(dx1);
+        put(dy1);
+        put(dx2);
+        put(dy2);
+        put(sx1);
+        put(sy1);
+        put(sx2);
+        put(sy2);
+        put(image);
+    }
+
+    @Override
+    public void drawRect(int x, int y, int width, int height, boolean fill)
+    {
+        add(RECT, 5);
+        put(x);
+        put(y);
+        put(width);
+        put(height);
+        put(fill ? 1 : 0);
+    }
+
+    @Override
+    public void drawRect(Viewer viewer, Origin origin, double x, double y, int width, int height, boolean fill)
+    {
+        final int px = (int) origin.getX(viewer.getViewpointX(x), width);
+        final int py = (int) origin.getY(viewer.getViewpointY(y), height);
+        drawRect(px, py, width, height, fill);
+    }
+
+    @Override
+    public void drawGradient(int x, int y, int width, int height)
+    {
+        add(GRADIENT, 4);
+        put(x);
+        put(y);
+        put(width);
+        put(height);
+    }
+
+    @Override
+    public void drawGradient(Viewer viewer, Origin origin, double x, double y, int width, int height)
+    {
+        final int px = (int) origin.getX(viewer.getViewpointX(x), width);
+        final int py = (int) origin.getY(viewer.getViewpointY(y), height);
+        drawGradient(px, py, width, height);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2)
+    {
+        add(LINE, 4);
+        put(x1);
+        put(y1);
+        put(x2);
+        put(y2);
+    }
+
+    @Override
+    public void drawLine(Viewer viewer, double x1, double y1, double x2, double y2)
+    {
+        drawLine((int) viewer.getViewpointX(x1),
+                 (int) viewer.getViewpointY(y1),
+                 (int) viewer.getViewpointX(x2),
+                 (int) viewer.getViewpointY(y2));
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height, boolean fill)
+    {
+        add(OVAL, 5);
+        put(x);
+        put(y);
+        put(width);
+        put(height);
+        put(fill ? 1 : 0);
+    }
+
+    @Override
+    public void drawOval(Viewer viewer, Origin origin, double x, double y, int width, int height, boolean fill)
+    {
+        final int px = (int) origin.getX(viewer.getViewpointX(x), width);
+        final int py = (int) origin.getY(viewer.getViewpointY(y), height);
+        drawOval(px, py, width, height, fill);
+    }
+
+    @Override
+    public void setColor(ColorRgba color)
+    {
+        this.color = color;
+        add(COLOR, 0);
+        put(color);
+    }
+
+    @Override
+    public void setColorGradient(ColorGradient gradientColor)
+    {
+        add(COLOR_GRADIENT, 0);
+        put(gradientColor);
+    }
+
+    @Override
+    public void setGraphic(Object graphic)
+    {
+        add(REDIRECT, 0);
+        if (graphic instanceof Graphic)
+        {
+            put(graphic);
+        }
+        else
+        {
+            put((Object) null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Commands are their own graphic context, as the replay graphic is not known while recording. Drawings requiring
+     * the replay graphic context must use {@link #drawRenderable(Renderable)}.
+     * </p>
+     */
+    @Override
+    public Object getGraphic()
+    {
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Last recorded color.
+     * </p>
+     */
+    @Override
+    public ColorRgba getColor()
+    {
+        return color;
+    }
+}
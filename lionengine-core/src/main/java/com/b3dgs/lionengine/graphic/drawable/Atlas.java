@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic.drawable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.Constant;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.Xml;
+import com.b3dgs.lionengine.graphic.Graphics;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
+
+/**
+ * Texture atlas, storing many images in a few large pages, each image being accessible by name as an
+ * {@link AtlasRegion}.
+ * <p>
+ * Sprites created from regions of the same page share the same surface, so a batching graphic can draw them without
+ * switching surface. An atlas is built with an {@link AtlasPacker}, and can be saved next to the original media with
+ * {@link #save(Media)} to be later loaded with a single decode per page with {@link #load(Media)}.
+ * </p>
+ * <p>
+ * Index file structure:
+ * </p>
+ * 
+ * <pre>
+ * &lt;lionengine:atlas xmlns:lionengine="http://lionengine.b3dgs.com"&gt;
+ *     &lt;lionengine:page file="sheets_atlas_0.png"/&gt;
+ *     &lt;lionengine:region name="ground.png" page="0" x="0" y="0" width="256" height="128"/&gt;
+ * &lt;/lionengine:atlas&gt;
+ * </pre>
+ */
+public final class Atlas
+{
+    /** Atlas node. */
+    public static final String NODE_ATLAS = Constant.XML_PREFIX + "atlas";
+    /** Page node. */
+    public static final String NODE_PAGE = Constant.XML_PREFIX + "page";
+    /** Region node. */
+    public static final String NODE_REGION = Constant.XML_PREFIX + "region";
+    /** Page file attribute. */
+    public static final String ATT_FILE = "file";
+    /** Region name attribute. */
+    public static final String ATT_NAME = "name";
+    /** Region page attribute. */
+    public static final String ATT_PAGE = "page";
+    /** Region horizontal location attribute. */
+    public static final String ATT_X = "x";
+    /** Region vertical location attribute. */
+    public static final String ATT_Y = "y";
+    /** Region width attribute. */
+    public static final String ATT_WIDTH = "width";
+    /** Region height attribute. */
+    public static final String ATT_HEIGHT = "height";
+    /** Atlas index suffix. */
+    public static final String SUFFIX = "atlas";
+    /** Error region not found. */
+    static final String ERROR_REGION = "Region not found: ";
+    /** Page file extension. */
+    private static final String EXTENSION = ".png";
+
+    /**
+     * Get the atlas index associated to a media, by adding the atlas suffix before its extension.
+     * <p>
+     * For example, the index of <code>sheets.xml</code> is <code>sheets_atlas.xml</code>.
+     * </p>
+     * 
+     * @param media The media reference (must not be <code>null</code>).
+     * @return The associated atlas index.
+     * @throws LionEngineException If invalid argument.
+     */
+    public static Media getIndex(Media media)
+    {
+        return Medias.getWithSuffix(media, SUFFIX);
+    }
+
+    /**
+     * Load an atlas from its index. Pages are read from the index folder and prepared.
+     * 
+     * @param index The atlas index (must not be <code>null</code>).
+     * @return The loaded atlas.
+     * @throws LionEngineException If invalid argument or unable to read atlas.
+     */
+    public static Atlas load(Media index)
+    {
+        Check.notNull(index);
+
+        final Xml root = new Xml(index);
+        final Collection<Xml> nodePages = root.getChildren(NODE_PAGE);
+        final List<ImageBuffer> pages = new ArrayList<>(nodePages.size());
+        for (final Xml nodePage : nodePages)
+        {
+            final ImageBuffer page = Graphics.getImageBuffer(Medias.create(index.getParentPath(),
+                                                                           nodePage.readString(ATT_FILE)));
+            page.prepare();
+            pages.add(page);
+        }
+
+        final Map<String, AtlasRegion> regions = new LinkedHashMap<>();
+        for (final Xml nodeRegion : root.getChildren(NODE_REGION))
+        {
+            final int page = nodeRegion.readInteger(ATT_PAGE);
+            Check.inferiorStrict(page, pages.size());
+
+            regions.put(nodeRegion.readString(ATT_NAME),
+                        new AtlasRegion(pages.get(page),
+                                        page,
+                                        nodeRegion.readInteger(ATT_X),
+                                        nodeRegion.readInteger(ATT_Y),
+                                        nodeRegion.readInteger(ATT_WIDTH),
+                                        nodeRegion.readInteger(ATT_HEIGHT)));
+        }
+
+        return new Atlas(pages, regions);
+    }
+
+    /** Pages surface. */
+    private final List<ImageBuffer> pages;
+    /** Regions by name. */
+    private final Map<String, AtlasRegion> regions;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param pages The pages surface.
+     * @param regions The regions by name.
+     */
+    Atlas(List<ImageBuffer> pages, Map<String, AtlasRegion> regions)
+    {
+        super();
+
+        this.pages = pages;
+        this.regions = regions;
+    }
+
+    /**
+     * Save the atlas pages and its index. Pages are saved in the index folder, as <code>PNG</code> files named after
+     * the index and suffixed by their page number.
+     * 
+     * @param index The atlas index (must not be <code>null</code>).
+     * @throws LionEngineException If invalid argument or unable to save atlas.
+     */
+    public void save(Media index)
+    {
+        Check.notNull(index);
+
+        final String name = index.getName();
+        final int dotIndex = name.lastIndexOf(Constant.DOT);
+        final String prefix = dotIndex > -1 ? name.substring(0, dotIndex) : name;
+
+        final Xml root = new Xml(NODE_ATLAS);
+        root.writeString(Constant.XML_HEADER, Constant.ENGINE_WEBSITE);
+
+        final int n = pages.size();
+        for (int i = 0; i < n; i++)
+        {
+            final String file = prefix + Constant.UNDERSCORE + i + EXTENSION;
+            Graphics.saveImage(pages.get(i), Medias.create(index.getParentPath(), file));
+
+            final Xml nodePage = root.createChild(NODE_PAGE);
+            nodePage.writeString(ATT_FILE, file);
+        }
+        for (final Map.Entry<String, AtlasRegion> entry : regions.entrySet())
+        {
+            final AtlasRegion region = entry.getValue();
+            final Xml nodeRegion = root.createChild(NODE_REGION);
+            nodeRegion.writeString(ATT_NAME, entry.getKey());
+            nodeRegion.writeInteger(ATT_PAGE, region.getIndex());
+            nodeRegion.writeInteger(ATT_X, region.getX());
+            nodeRegion.writeInteger(ATT_Y, region.getY());
+            nodeRegion.writeInteger(ATT_WIDTH, region.getWidth());
+            nodeRegion.writeInteger(ATT_HEIGHT, region.getHeight());
+        }
+
+        root.save(index);
+    }
+
+    /**
+     * Dispose all pages. Sprites loaded from regions must not be used anymore.
+     */
+    public void dispose()
+    {
+        for (final ImageBuffer page : pages)
+        {
+            page.dispose();
+        }
+    }
+
+    /**
+     * Check if atlas contains the region.
+     * 
+     * @param name The region name.
+     * @return <code>true</code> if region defined, <code>false</code> else.
+     */
+    public boolean hasRegion(String name)
+    {
+        return regions.containsKey(name);
+    }
+
+    /**
+     * Get the region by name.
+     * 
+     * @param name The region name.
+     * @return The region found.
+     * @throws LionEngineException If region not found.
+     */
+    public AtlasRegion getRegion(String name)
+    {
+        final AtlasRegion region = regions.get(name);
+        if (region == null)
+        {
+            throw new LionEngineException(ERROR_REGION + name);
+        }
+        return region;
+    }
+
+    /**
+     * Get the regions name in packing order.
+     * 
+     * @return The regions name.
+     */
+    public Collection<String> getRegions()
+    {
+        return Collections.unmodifiableCollection(regions.keySet());
+    }
+
+    /**
+     * Get the pages surface.
+     * 
+     * @return The pages surface.
+     */
+    public List<ImageBuffer> getPages()
+    {
+        return Collections.unmodifiableList(pages);
+    }
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic.drawable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.graphic.ColorRgba;
+import com.b3dgs.lionengine.graphic.Graphics;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
+
+/**
+ * Pack images into the pages of an {@link Atlas}, using a skyline bottom-left heuristic.
+ * <p>
+ * Images are placed from the tallest to the lowest, each one at the lowest location of the first page where it fits,
+ * a new page being created when none can receive it. Pages are cropped to their used area, and use a bitmask
+ * transparency.
+ * </p>
+ * <p>
+ * Usage example:
+ * </p>
+ * 
+ * <pre>
+ * final AtlasPacker packer = new AtlasPacker(1024, 1024, 1);
+ * packer.add(Medias.create(&quot;ground.png&quot;));
+ * packer.add(Medias.create(&quot;hero.png&quot;));
+ * final Atlas atlas = packer.pack();
+ * final SpriteAnimated hero = Drawable.loadSpriteAnimated(atlas.getRegion(&quot;hero.png&quot;), 4, 1);
+ * </pre>
+ */
+public final class AtlasPacker
+{
+    /** Error image too large. */
+    static final String ERROR_SIZE = "Image is larger than atlas page: ";
+    /** Error name already added. */
+    static final String ERROR_NAME = "Image already added: ";
+
+    /** Images to pack in adding order. */
+    private final List<Entry> entries = new ArrayList<>();
+    /** Added names. */
+    private final Set<String> names = new HashSet<>();
+    /** Maximum page width. */
+    private final int pageWidth;
+    /** Maximum page height. */
+    private final int pageHeight;
+    /** Space kept between images. */
+    private final int padding;
+
+    /**
+     * Create packer.
+     * 
+     * @param pageWidth The maximum page width (must be strictly positive).
+     * @param pageHeight The maximum page height (must be strictly positive).
+     * @param padding The space kept between images (must be positive).
+     * @throws LionEngineException If invalid arguments.
+     */
+    public AtlasPacker(int pageWidth, int pageHeight, int padding)
+    {
+        super();
+
+        Check.superiorStrict(pageWidth, 0);
+        Check.superiorStrict(pageHeight, 0);
+        Check.superiorOrEqual(padding, 0);
+
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        this.padding = padding;
+    }
+
+    /**
+     * Add an image to pack. Image remains owned by caller.
+     * 
+     * @param name The region name (must not be <code>null</code>).
+     * @param image The image to pack (must not be <code>null</code>).
+     * @throws LionEngineException If invalid arguments, name already added or image larger than page.
+     */
+    public void add(String name, ImageBuffer image)
+    {
+        add(name, image, false);
+    }
+
+    /**
+     * Add an image to pack, using its file name as region name. Image is read now, and disposed once packed.
+     * 
+     * @param media The image media (must not be <code>null</code>).
+     * @throws LionEngineException If invalid argument, name already added, image larger than page or unable to read.
+     */
+    public void add(Media media)
+    {
+        Check.notNull(media);
+
+        add(media.getName(), Graphics.getImageBuffer(media), true);
+    }
+
+    /**
+     * Pack all added images, and empty the packer.
+     * 
+     * @return The created atlas, with a region for each added image.
+     */
+    public Atlas pack()
+    {
+        final List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort((a, b) ->
+        {
+            final int compare = Integer.compare(b.height, a.height);
+            if (compare != 0)
+            {
+                return compare;
+            }
+            return Integer.compare(b.width, a.width);
+        });
+
+        final List<Skyline> skylines = new ArrayList<>();
+        for (final Entry entry : sorted)
+        {
+            place(skylines, entry);
+        }
+
+        final List<ImageBuffer> pages = new ArrayList<>(skylines.size());
+        for (final Skyline skyline : skylines)
+        {
+            pages.add(Graphics.createImageBuffer(skyline.usedWidth, skyline.usedHeight, ColorRgba.TRANSPARENT));
+        }
+
+        final Map<String, AtlasRegion> regions = new LinkedHashMap<>();
+        for (final Entry entry : entries)
+        {
+            final ImageBuffer page = pages.get(entry.page);
+            final int[] data = entry.image.getRgb(0,
+                                                  0,
+                                                  entry.width,
+                                                  entry.height,
+                                                  new int[entry.width * entry.height],
+                                                  0,
+                                                  entry.width);
+            page.setRgb(entry.x, entry.y, entry.width, entry.height, data, 0, entry.width);
+            regions.put(entry.name, new AtlasRegion(page, entry.page, entry.x, entry.y, entry.width, entry.height));
+
+            if (entry.owned)
+            {
+                entry.image.dispose();
+            }
+        }
+        for (final ImageBuffer page : pages)
+        {
+            page.prepare();
+        }
+
+        entries.clear();
+        names.clear();
+
+        return new Atlas(pages, regions);
+    }
+
+    /**
+     * Add an image to pack.
+     * 
+     * @param name The region name (must not be <code>null</code>).
+     * @param image The image to pack (must not be <code>null</code>).
+     * @param owned <code>true</code> to dispose image once packed, <code>false</code> else.
+     * @throws LionEngineException If invalid arguments, name already added or image larger than page.
+     */
+    private void add(String name, ImageBuffer image, boolean owned)
+    {
+        Check.notNull(name);
+        Check.notNull(image);
+
+        if (image.getWidth() > pageWidth || image.getHeight() > pageHeight)
+        {
+            throw new LionEngineException(ERROR_SIZE + name);
+        }
+        if (!names.add(name))
+        {
+            throw new LionEngineException(ERROR_NAME + name);
+        }
+        entries.add(new Entry(name, image, owned));
+    }
+
+    /**
+     * Place entry on the first page where it fits, creating a new page if none.
+     * 
+     * @param skylines The pages skyline.
+     * @param entry The entry to place.
+     */
+    private void place(List<Skyline> skylines, Entry entry)
+    {
+        final int n = skylines.size();
+        for (int i = 0; i < n; i++)
+        {
+            if (skylines.get(i).place(entry))
+            {
+                entry.page = i;
+                return;
+            }
+        }
+        final Skyline skyline = new Skyline();
+        skyline.place(entry);
+        entry.page = n;
+        skylines.add(skyline);
+    }
+
+    /**
+     * Image to pack and its placement.
+     */
+    private static final class Entry
+    {
+        /** Region name. */
+        private final String name;
+        /** Image reference. */
+        private final ImageBuffer image;
+        /** Image width. */
+        private final int width;
+        /** Image height. */
+        private final int height;
+        /** Dispose once packed. */
+        private final boolean owned;
+        /** Page index. */
+        private int page;
+        /** Horizontal location on page. */
+        private int x;
+        /** Vertical location on page. */
+        private int y;
+
+        /**
+         * Create entry.
+         * 
+         * @param name The region name.
+         * @param image The image reference.
+         * @param owned <code>true</code> to dispose image once packed, <code>false</code> else.
+         */
+        Entry(String name, ImageBuffer image, boolean owned)
+        {
+            super();
+
+            this.name = name;
+            this.image = image;
+            this.owned = owned;
+            width = image.getWidth();
+            height = image.getHeight();
+        }
+    }
+
+    /**
+     * Horizontal segment of the skyline, at the top of the already placed images.
+     */
+    private static final class Segment
+    {
+        /** Horizontal start. */
+        private int x;
+        /** Vertical level. */
+        private final int y;
+        /** Segment width. */
+        private int width;
+
+        /**
+         * Create segment.
+         * 
+         * @param x The horizontal start.
+         * @param y The vertical level.
+         * @param width The segment width.
+         */
+        Segment(int x, int y, int width)
+        {
+            super();
+
+            this.x = x;
+            this.y = y;
+            this.width = width;
+        }
+    }
+
+    /**
+     * Page skyline, covering the whole page width.
+     */
+    private final class Skyline
+    {
+        /** Segments from left to right. */
+        private final List<Segment> segments = new ArrayList<>();
+        /** Used width. */
+        private int usedWidth;
+        /** Used height. */
+        private int usedHeight;
+
+        /**
+         * Create skyline.
+         */
+        Skyline()
+        {
+            super();
+
+            segments.add(new Segment(0, 0, pageWidth));
+        }
+
+        /**
+         * Place entry at the lowest location where it fits.
+         * 
+         * @param entry The entry to place.
+         * @return <code>true</code> if placed, <code>false</code> if page cannot receive it.
+         */
+        boolean place(Entry entry)
+        {
+            int best = -1;
+            int bestY = Integer.MAX_VALUE;
+            final int n = segments.size();
+            for (int i = 0; i < n; i++)
+            {
+                final int y = fit(i, entry.width, entry.height);
+                if (y > -1 && y < bestY)
+                {
+                    best = i;
+                    bestY = y;
+                }
+            }
+            if (best < 0)
+            {
+                return false;
+            }
+
+            entry.x = segments.get(best).x;
+            entry.y = bestY;
+            usedWidth = Math.max(usedWidth, entry.x + entry.width);
+            usedHeight = Math.max(usedHeight, entry.y + entry.height);
+            raise(best, entry.x, bestY + entry.height + padding, getSpan(entry.x, entry.width));
+
+            return true;
+        }
+
+        /**
+         * Get the width covered by an area and its padding, without exceeding page.
+         * 
+         * @param x The area horizontal start.
+         * @param width The area width.
+         * @return The covered width.
+         */
+        private int getSpan(int x, int width)
+        {
+            return Math.min(width + padding, pageWidth - x);
+        }
+
+        /**
+         * Get the vertical location where an area starting at segment would fit, including its padding.
+         * 
+         * @param index The starting segment index.
+         * @param width The area width.
+         * @param height The area height.
+         * @return The vertical location, <code>-1</code> if not fitting.
+         */
+        private int fit(int index, int width, int height)
+        {
+            final int x = segments.get(index).x;
+            if (x + width > pageWidth)
+            {
+                return -1;
+            }
+            int y = 0;
+            int remaining = getSpan(x, width);
+            int i = index;
+            while (remaining > 0)
+            {
+                final Segment segment = segments.get(i);
+                y = Math.max(y, segment.y);
+                if (y + height > pageHeight)
+                {
+                    return -1;
+                }
+                remaining -= segment.width;
+                i++;
+            }
+            return y;
+        }
+
+        /**
+         * Raise the skyline over the placed area, and merge the segments at the same level.
+         * 
+         * @param index The starting segment index.
+         * @param x The area horizontal start.
+         * @param y The new level.
+         * @param width The covered width.
+         */
+        private void raise(int index, int x, int y, int width)
+        {
+            segments.add(index, new Segment(x, y, width));
+
+            final int end = segments.get(index).x + segments.get(index).width;
+            int i = index + 1;
+            while (i < segments.size() && segments.get(i).x < end)
+            {
+                final Segment segment = segments.get(i);
+                final int shrink = end - segment.x;
+                if (segment.width <= shrink)
+                {
+                    segments.remove(i);
+                }
+                else
+                {
+                    segment.x += shrink;
+                    segment.width -= shrink;
+                    i++;
+                }
+            }
+
+            i = 0;
+            while (i < segments.size() - 1)
+            {
+                final Segment current = segments.get(i);
+                final Segment next = segments.get(i + 1);
+                if (current.y == next.y)
+                {
+                    current.width += next.width;
+                    segments.remove(i + 1);
+                }
+                else
+                {
+                    i++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic.drawable;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
+
+/**
+ * Represents an area of an {@link Atlas} page, where an original image has been packed.
+ * <p>
+ * The page surface is shared by all the regions of the same page, and is owned by the {@link Atlas}.
+ * </p>
+ * 
+ * @see Drawable#loadSprite(AtlasRegion)
+ */
+public final class AtlasRegion
+{
+    /** Page surface. */
+    private final ImageBuffer page;
+    /** Page index. */
+    private final int index;
+    /** Horizontal location on page. */
+    private final int x;
+    /** Vertical location on page. */
+    private final int y;
+    /** Region width. */
+    private final int width;
+    /** Region height. */
+    private final int height;
+
+    /**
+     * Create a region.
+     * 
+     * @param page The page surface (must not be <code>null</code>).
+     * @param index The page index (must be positive).
+     * @param x The horizontal location on page (must be positive).
+     * @param y The vertical location on page (must be positive).
+     * @param width The region width (must be strictly positive).
+     * @param height The region height (must be strictly positive).
+     * @throws LionEngineException If invalid arguments or region outside page.
+     */
+    public AtlasRegion(ImageBuffer page, int index, int x, int y, int width, int height)
+    {
+        super();
+
+        Check.notNull(page);
+        Check.superiorOrEqual(index, 0);
+        Check.superiorOrEqual(x, 0);
+        Check.superiorOrEqual(y, 0);
+        Check.superiorStrict(width, 0);
+        Check.superiorStrict(height, 0);
+        Check.inferiorOrEqual(x + width, page.getWidth());
+        Check.inferiorOrEqual(y + height, page.getHeight());
+
+        this.page = page;
+        this.index = index;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Get the page surface.
+     * 
+     * @return The page surface.
+     */
+    public ImageBuffer getPage()
+    {
+        return page;
+    }
+
+    /**
+     * Get the page index.
+     * 
+     * @return The page index.
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Get the horizontal location on page.
+     * 
+     * @return The horizontal location on page.
+     */
+    public int getX()
+    {
+        return x;
+    }
+
+    /**
+     * Get the vertical location on page.
+     * 
+     * @return The vertical location on page.
+     */
+    public int getY()
+    {
+        return y;
+    }
+
+    /**
+     * Get the region width.
+     * 
+     * @return The region width.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Get the region height.
+     * 
+     * @return The region height.
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+}
@@ -164,6 +164,21 @@ public final class Drawable
         return new SpriteImpl(surface);
     }
 
+    /**
+     * Load a sprite from an atlas region (sharing the atlas page surface).
+     * <p>
+     * {@link Sprite#load()} must not be called as surface has already been loaded.
+     * </p>
+     * 
+     * @param region The atlas region reference (must not be <code>null</code>).
+     * @return The loaded sprite.
+     * @throws LionEngineException If invalid argument.
+     */
+    public static Sprite loadSprite(AtlasRegion region)
+    {
+        return new SpriteImpl(region);
+    }
+
     /**
      * Load an animated sprite from a file, giving horizontal and vertical frames.
      * <p>
@@ -199,6 +214,24 @@ public final class Drawable
         return new SpriteAnimatedImpl(surface, horizontalFrames, verticalFrames);
     }
 
+    /**
+     * Load an animated sprite from an atlas region, giving horizontal and vertical frames (sharing the atlas page
+     * surface).
+     * <p>
+     * {@link SpriteAnimated#load()} must not be called as surface has already been loaded.
+     * </p>
+     * 
+     * @param region The atlas region reference (must not be <code>null</code>).
+     * @param horizontalFrames The number of horizontal frames (must be strictly positive).
+     * @param verticalFrames The number of vertical frames (must be strictly positive).
+     * @return The loaded animated sprite.
+     * @throws LionEngineException If arguments are invalid.
+     */
+    public static SpriteAnimated loadSpriteAnimated(AtlasRegion region, int horizontalFrames, int verticalFrames)
+    {
+        return new SpriteAnimatedImpl(region, horizontalFrames, verticalFrames);
+    }
+
     /**
      * Load a tiled sprite from a file, giving tile dimension.
      * <p>
@@ -234,6 +267,23 @@ public final class Drawable
         return new SpriteTiledImpl(surface, tileWidth, tileHeight);
     }
 
+    /**
+     * Load a tiled sprite from an atlas region, giving tile dimension (sharing the atlas page surface).
+     * <p>
+     * {@link SpriteTiled#load()} must not be called as surface has already been loaded.
+     * </p>
+     * 
+     * @param region The atlas region reference (must not be <code>null</code>).
+     * @param tileWidth The tile width (must be strictly positive).
+     * @param tileHeight The tile height (must be strictly positive).
+     * @return The loaded tiled sprite.
+     * @throws LionEngineException If arguments are invalid.
+     */
+    public static SpriteTiled loadSpriteTiled(AtlasRegion region, int tileWidth, int tileHeight)
+    {
+        return new SpriteTiledImpl(region, tileWidth, tileHeight);
+    }
+
     /**
      * Load a parallaxed sprite, for parallax effect.
      * <p>
@@ -270,6 +320,24 @@ public final class Drawable
         return new SpriteFontImpl(getMediaDpi(media), data, letterWidth, letterHeight);
     }
 
+    /**
+     * Load a font based on an atlas region (sharing the atlas page surface).
+     * <p>
+     * {@link SpriteFont#load()} must not be called as surface has already been loaded.
+     * </p>
+     * 
+     * @param region The font atlas region reference (must not be <code>null</code>).
+     * @param data The font data media (must not be <code>null</code>).
+     * @param letterWidth The font image letter width (must be strictly positive).
+     * @param letterHeight The font image letter height (must be strictly positive).
+     * @return The created font sprite.
+     * @throws LionEngineException If an error occurred when creating the font.
+     */
+    public static SpriteFont loadSpriteFont(AtlasRegion region, Media data, int letterWidth, int letterHeight)
+    {
+        return new SpriteFontImpl(region, data, letterWidth, letterHeight);
+    }
+
     /**
      * Get the associated DPI media.
      * 
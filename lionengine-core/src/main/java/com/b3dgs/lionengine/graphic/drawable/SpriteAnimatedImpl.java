@@ -33,8 +33,6 @@ final class SpriteAnimatedImpl extends SpriteImpl implements SpriteAnimated
 {
     /** Animator reference. */
     private final Animator animator = new AnimatorImpl();
-    /** Media reference (<code>null</code> created with existing surface). */
-    private final Media media;
     /** Number of horizontal frames. */
     private final int framesHorizontal;
     /** Number of vertical frames. */
@@ -61,7 +59,6 @@ final class SpriteAnimatedImpl extends SpriteImpl implements SpriteAnimated
         Check.superiorStrict(framesHorizontal, 0);
         Check.superiorStrict(framesVertical, 0);
 
-        this.media = media;
         this.framesHorizontal = framesHorizontal;
         this.framesVertical = framesVertical;
         framesNumber = framesHorizontal * framesVertical;
@@ -84,7 +81,26 @@ final class SpriteAnimatedImpl extends SpriteImpl implements SpriteAnimated
         Check.superiorStrict(framesHorizontal, 0);
         Check.superiorStrict(framesVertical, 0);
 
-        media = null;
+        this.framesHorizontal = framesHorizontal;
+        this.framesVertical = framesVertical;
+        framesNumber = framesHorizontal * framesVertical;
+    }
+
+    /**
+     * Internal constructor.
+     * 
+     * @param region The atlas region reference (must not be <code>null</code>).
+     * @param framesHorizontal The number of horizontal frames (must be strictly positive).
+     * @param framesVertical The number of vertical frames (must be strictly positive).
+     * @throws LionEngineException If arguments are invalid.
+     */
+    SpriteAnimatedImpl(AtlasRegion region, int framesHorizontal, int framesVertical)
+    {
+        super(region);
+
+        Check.superiorStrict(framesHorizontal, 0);
+        Check.superiorStrict(framesVertical, 0);
+
         this.framesHorizontal = framesHorizontal;
         this.framesVertical = framesVertical;
         framesNumber = framesHorizontal * framesVertical;
@@ -221,15 +237,7 @@ final class SpriteAnimatedImpl extends SpriteImpl implements SpriteAnimated
     public int hashCode()
     {
         final int prime = 31;
-        int result = 1;
-        if (getSurface() != null)
-        {
-            result = prime * result + getSurface().hashCode();
-        }
-        else
-        {
-            result = prime * result + media.hashCode();
-        }
+        int result = super.hashCode();
         result = prime * result + framesHorizontal;
         result = prime * result + framesVertical;
         return result;
@@ -242,13 +250,12 @@ final class SpriteAnimatedImpl extends SpriteImpl implements SpriteAnimated
         {
             return true;
         }
-        if (object == null || object.getClass() != getClass())
+        if (!super.equals(object))
         {
             return false;
         }
         final SpriteAnimatedImpl other = (SpriteAnimatedImpl) object;
-        return getSurface() == other.getSurface()
-               && framesHorizontal == other.framesHorizontal
+        return framesHorizontal == other.framesHorizontal
                && framesVertical == other.framesVertical;
     }
 }
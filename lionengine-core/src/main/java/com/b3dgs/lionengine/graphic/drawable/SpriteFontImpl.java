@@ -73,8 +73,6 @@ final class SpriteFontImpl implements SpriteFont
 
     /** Font data. */
     private final Map<Character, FontCharData> fontData = new TreeMap<>();
-    /** Media reference. */
-    private final Media media;
     /** Font surface. */
     private final SpriteTiled surface;
     /** Text. */
@@ -98,11 +96,36 @@ final class SpriteFontImpl implements SpriteFont
      * @throws LionEngineException If invalid arguments or an error occurred when creating the font.
      */
     SpriteFontImpl(Media media, Media mediaData, int tw, int th)
+    {
+        this(new SpriteTiledImpl(media, tw, th), mediaData);
+    }
+
+    /**
+     * Internal constructor.
+     * 
+     * @param region The font image atlas region (must not be <code>null</code>).
+     * @param mediaData The font data media (must not be <code>null</code>).
+     * @param tw The horizontal character number (must be strictly positive).
+     * @param th The vertical character number (must be strictly positive).
+     * @throws LionEngineException If invalid arguments or an error occurred when creating the font.
+     */
+    SpriteFontImpl(AtlasRegion region, Media mediaData, int tw, int th)
+    {
+        this(new SpriteTiledImpl(region, tw, th), mediaData);
+    }
+
+    /**
+     * Internal constructor.
+     * 
+     * @param surface The font surface.
+     * @param mediaData The font data media (must not be <code>null</code>).
+     * @throws LionEngineException If an error occurred when reading the font data.
+     */
+    private SpriteFontImpl(SpriteTiled surface, Media mediaData)
     {
         super();
 
-        this.media = media;
-        surface = new SpriteTiledImpl(media, tw, th);
+        this.surface = surface;
         lineHeight = surface.getTileHeight();
 
         // Load data for each characters
@@ -345,14 +368,7 @@ final class SpriteFontImpl implements SpriteFont
     {
         final int prime = 31;
         int result = 1;
-        if (getSurface() != null)
-        {
-            result = prime * result + getSurface().hashCode();
-        }
-        else
-        {
-            result = prime * result + media.hashCode();
-        }
+        result = prime * result + surface.hashCode();
         return result;
     }
 
@@ -46,6 +46,14 @@ class SpriteImpl implements Sprite
     private volatile ImageBuffer surface;
     /** Sprite original surface (<code>null</code> if surface unmodified). */
     private ImageBuffer surfaceOriginal;
+    /** Atlas region (<code>null</code> if not created from atlas). */
+    private final AtlasRegion region;
+    /** Region copied to an own surface flag. */
+    private boolean detached;
+    /** Horizontal offset of the sprite on its surface. */
+    private int sourceX;
+    /** Vertical offset of the sprite on its surface. */
+    private int sourceY;
     /** Origin point. */
     private Origin origin = Origin.TOP_LEFT;
     /** Mirror flag. */
@@ -84,6 +92,7 @@ class SpriteImpl implements Sprite
         final ImageHeader info = ImageInfo.get(media);
         width = info.getWidth();
         height = info.getHeight();
+        region = null;
     }
 
     /**
@@ -101,6 +110,32 @@ class SpriteImpl implements Sprite
         this.surface = surface;
         width = surface.getWidth();
         height = surface.getHeight();
+        region = null;
+        media = null;
+    }
+
+    /**
+     * Internal constructor.
+     * <p>
+     * The atlas page is shared and never disposed by the sprite. Any surface modification or access to
+     * {@link #getSurface()} first copies the region to an own surface. Sprite equality stays based on the region.
+     * </p>
+     * 
+     * @param region The atlas region to use (must not be <code>null</code>).
+     * @throws LionEngineException If region is <code>null</code>.
+     */
+    SpriteImpl(AtlasRegion region)
+    {
+        super();
+
+        Check.notNull(region);
+
+        this.region = region;
+        surface = region.getPage();
+        sourceX = region.getX();
+        sourceY = region.getY();
+        width = region.getWidth();
+        height = region.getHeight();
         media = null;
     }
 
@@ -118,17 +153,19 @@ class SpriteImpl implements Sprite
      */
     protected final void render(Graphic g, int x, int y, int w, int h, int ox, int oy)
     {
+        final int sx = sourceX + ox * w;
+        final int sy = sourceY + oy * h;
         if (Mirror.HORIZONTAL == mirror)
         {
-            g.drawImage(surface, x, y, x + w, y + h, ox * w + w, oy * h, ox * w, oy * h + h);
+            g.drawImage(surface, x, y, x + w, y + h, sx + w, sy, sx, sy + h);
         }
         else if (Mirror.VERTICAL == mirror)
         {
-            g.drawImage(surface, x, y, x + w, y + h, ox * w, oy * h + h, ox * w + w, oy * h);
+            g.drawImage(surface, x, y, x + w, y + h, sx, sy + h, sx + w, sy);
         }
         else
         {
-            g.drawImage(surface, x, y, x + w, y + h, ox * w, oy * h, ox * w + w, oy * h + h);
+            g.drawImage(surface, x, y, x + w, y + h, sx, sy, sx + w, sy + h);
         }
     }
 
@@ -182,12 +219,31 @@ class SpriteImpl implements Sprite
      */
     private void lazySurfaceBackup()
     {
+        detach();
         if (surfaceOriginal == null)
         {
             surfaceOriginal = Graphics.getImageBuffer(surface);
         }
     }
 
+    /**
+     * Copy the atlas region to an own surface if not already done.
+     */
+    private synchronized void detach()
+    {
+        if (region != null && !detached)
+        {
+            final ImageBuffer page = region.getPage();
+            final int[] data = page.getRgb(sourceX, sourceY, width, height, new int[width * height], 0, width);
+            final ImageBuffer own = Graphics.createImageBuffer(width, height, page.getTransparentColor());
+            own.setRgb(0, 0, width, height, data, 0, width);
+            surface = own;
+            sourceX = 0;
+            sourceY = 0;
+            detached = true;
+        }
+    }
+
     /*
      * Sprite
      */
@@ -209,13 +265,16 @@ class SpriteImpl implements Sprite
     @Override
     public void prepare()
     {
-        surface.prepare();
+        if (region == null || detached)
+        {
+            surface.prepare();
+        }
     }
 
     @Override
     public void dispose()
     {
-        if (surface != null)
+        if (surface != null && (region == null || detached))
         {
             surface.dispose();
         }
@@ -251,7 +310,8 @@ class SpriteImpl implements Sprite
         Check.notNull(filter);
 
         lazySurfaceBackup();
-        surface = filter.filter(surfaceOriginal);
+        // Filter output is reused by its next call
+        surface = Graphics.getImageBuffer(filter.filter(surfaceOriginal));
         width = surface.getWidth();
         height = surface.getHeight();
     }
@@ -368,6 +428,7 @@ class SpriteImpl implements Sprite
     @Override
     public final ImageBuffer getSurface()
     {
+        detach();
         return surface;
     }
 
@@ -386,7 +447,13 @@ class SpriteImpl implements Sprite
     {
         final int prime = 31;
         int result = 1;
-        if (surface != null)
+        if (region != null)
+        {
+            result = prime * result + region.getPage().hashCode();
+            result = prime * result + region.getX();
+            result = prime * result + region.getY();
+        }
+        else if (surface != null)
         {
             result = prime * result + surface.hashCode();
         }
@@ -409,6 +476,12 @@ class SpriteImpl implements Sprite
             return false;
         }
         final SpriteImpl other = (SpriteImpl) object;
-        return surface == other.surface;
+        if (region != null && other.region != null)
+        {
+            return region.getPage() == other.region.getPage()
+                   && region.getX() == other.region.getX()
+                   && region.getY() == other.region.getY();
+        }
+        return region == other.region && surface == other.surface;
     }
 }
@@ -28,8 +28,6 @@ import com.b3dgs.lionengine.graphic.ImageBuffer;
  */
 final class SpriteTiledImpl extends SpriteImpl implements SpriteTiled
 {
-    /** Media reference (<code>null</code> created with existing surface). */
-    private final Media media;
     /** Number of horizontal tiles. */
     private final int tilesHorizontal;
     /** Number of vertical tiles. */
@@ -52,7 +50,6 @@ final class SpriteTiledImpl extends SpriteImpl implements SpriteTiled
         Check.superiorStrict(tileWidth, 0);
         Check.superiorStrict(tileHeight, 0);
 
-        this.media = media;
         tilesHorizontal = getWidth() / tileWidth;
         tilesVertical = getHeight() / tileHeight;
     }
@@ -72,7 +69,25 @@ final class SpriteTiledImpl extends SpriteImpl implements SpriteTiled
         Check.superiorStrict(tileWidth, 0);
         Check.superiorStrict(tileHeight, 0);
 
-        media = null;
+        tilesHorizontal = getWidth() / tileWidth;
+        tilesVertical = getHeight() / tileHeight;
+    }
+
+    /**
+     * Internal constructor.
+     * 
+     * @param region The atlas region reference (must not be <code>null</code>).
+     * @param tileWidth The tile width (must be strictly positive).
+     * @param tileHeight The tile height (must be strictly positive).
+     * @throws LionEngineException If arguments are invalid.
+     */
+    SpriteTiledImpl(AtlasRegion region, int tileWidth, int tileHeight)
+    {
+        super(region);
+
+        Check.superiorStrict(tileWidth, 0);
+        Check.superiorStrict(tileHeight, 0);
+
         tilesHorizontal = getWidth() / tileWidth;
         tilesVertical = getHeight() / tileHeight;
     }
@@ -143,15 +158,7 @@ final class SpriteTiledImpl extends SpriteImpl implements SpriteTiled
     public int hashCode()
     {
         final int prime = 31;
-        int result = 1;
-        if (getSurface() != null)
-        {
-            result = prime * result + getSurface().hashCode();
-        }
-        else
-        {
-            result = prime * result + media.hashCode();
-        }
+        int result = super.hashCode();
         result = prime * result + tilesHorizontal;
         result = prime * result + tilesVertical;
         return result;
@@ -164,13 +171,12 @@ final class SpriteTiledImpl extends SpriteImpl implements SpriteTiled
         {
             return true;
         }
-        if (object == null || object.getClass() != getClass())
+        if (!super.equals(object))
         {
             return false;
         }
         final SpriteTiledImpl other = (SpriteTiledImpl) object;
-        return getSurface() == other.getSurface()
-               && tilesHorizontal == other.tilesHorizontal
+        return tilesHorizontal == other.tilesHorizontal
                && tilesVertical == other.tilesVertical;
     }
 }
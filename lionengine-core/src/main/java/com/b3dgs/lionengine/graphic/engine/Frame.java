@@ -18,6 +18,7 @@
 package com.b3dgs.lionengine.graphic.engine;
 
 import com.b3dgs.lionengine.Updatable;
+import com.b3dgs.lionengine.graphic.RenderCommands;
 
 /**
  * Represents a frame instant, which has to be updated and rendered.
@@ -37,6 +38,17 @@ public interface Frame extends Updatable
      */
     void render();
 
+    /**
+     * Record updated frame rendering, without drawing it. Used by loops drawing on a dedicated thread, such as
+     * {@link LoopPipelined}, which replay commands on screen later. Does nothing by default.
+     * 
+     * @param commands The commands recorder.
+     */
+    default void render(RenderCommands commands)
+    {
+        // Does nothing by default
+    }
+
     /**
      * Compute the frame rate depending of the game loop speed.
      * 
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic.engine;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.Config;
+import com.b3dgs.lionengine.Constant;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Resolution;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
+import com.b3dgs.lionengine.graphic.RenderCommands;
+import com.b3dgs.lionengine.graphic.Screen;
+
+/**
+ * Pipelined loop. Update and record rendering, waiting for expected frame rate, while a dedicated thread draws the
+ * previous recorded frame on screen.
+ * <p>
+ * Rendering is recorded with {@link Frame#render(RenderCommands)} into one of two commands buffers, then handed to the
+ * render thread which replays it on screen graphic and shows it. Next frame is updated and recorded in the other
+ * buffer meanwhile, so simulation overlaps with rasterization and screen update, with a one frame latency at most.
+ * </p>
+ * <p>
+ * A buffer is cleared only once drawn, before recording in it again, which disposes the images it released (see
+ * {@link RenderCommands#release(ImageBuffer)}), as no drawn frame references them anymore.
+ * </p>
+ * <p>
+ * Max speed is capped like {@link LoopLocked}, and update waits for render thread if it is more than one frame late.
+ * </p>
+ */
+public final class LoopPipelined implements Loop
+{
+    /** Render thread name. */
+    private static final String THREAD_NAME = Constant.ENGINE_NAME + " Render";
+    /** Commands buffers number. */
+    private static final int BUFFERS = 2;
+
+    /**
+     * Wait for next buffer.
+     * 
+     * @param queue The buffers queue.
+     * @return The buffer, <code>null</code> if none available yet.
+     */
+    private static RenderCommands poll(BlockingQueue<RenderCommands> queue)
+    {
+        try
+        {
+            return queue.poll(Constant.DECADE, TimeUnit.MILLISECONDS);
+        }
+        catch (@SuppressWarnings("unused") final InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /** Buffers available for recording. */
+    private final BlockingQueue<RenderCommands> free = new ArrayBlockingQueue<>(BUFFERS);
+    /** Buffers recorded, waiting to be drawn. */
+    private final BlockingQueue<RenderCommands> recorded = new ArrayBlockingQueue<>(BUFFERS);
+    /** Render thread failure. */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    /** Running flag. */
+    private volatile boolean isRunning;
+    /** Max frame time in nano. */
+    private double maxFrameTimeNano = -1.0;
+
+    /**
+     * Create loop.
+     */
+    public LoopPipelined()
+    {
+        super();
+
+        for (int i = 0; i < BUFFERS; i++)
+        {
+            free.add(new RenderCommands());
+        }
+    }
+
+    /**
+     * Record frame rendering in a free buffer and hand it to render thread.
+     * 
+     * @param frame The frame reference.
+     */
+    private void record(Frame frame)
+    {
+        RenderCommands commands = null;
+        while (commands == null && isRunning)
+        {
+            commands = poll(free);
+        }
+        if (commands != null)
+        {
+            commands.clear();
+            frame.render(commands);
+            recorded.add(commands);
+        }
+    }
+
+    /**
+     * Draw recorded buffers on screen until loop stopped. Executed by render thread.
+     * 
+     * @param screen The screen reference.
+     */
+    private void draw(Screen screen)
+    {
+        while (isRunning)
+        {
+            final RenderCommands commands = poll(recorded);
+            if (commands != null)
+            {
+                if (screen.isReady())
+                {
+                    screen.preUpdate();
+                    commands.replay(screen.getGraphic());
+                    screen.update();
+                }
+                free.add(commands);
+            }
+        }
+    }
+
+    /**
+     * Stop render thread and wait for its end, and re-throw its exception if has.
+     * 
+     * @param renderer The render thread.
+     * @throws LionEngineException If render thread failed.
+     */
+    private void terminate(Thread renderer)
+    {
+        isRunning = false;
+        try
+        {
+            renderer.join();
+        }
+        catch (@SuppressWarnings("unused") final InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+        recorded.drainTo(free);
+        for (final RenderCommands commands : free)
+        {
+            commands.clear();
+        }
+
+        final Throwable throwable = failure.getAndSet(null);
+        if (throwable instanceof LionEngineException)
+        {
+            throw (LionEngineException) throwable;
+        }
+        if (throwable != null)
+        {
+            throw new LionEngineException(throwable);
+        }
+    }
+
+    /*
+     * Loop
+     */
+
+    @Override
+    public void start(Screen screen, Frame frame)
+    {
+        Check.notNull(screen);
+        Check.notNull(frame);
+
+        final Config config = screen.getConfig();
+        final Resolution output = config.getOutput();
+        final boolean sync = config.isWindowed() && output.getRate() > 0;
+        if (maxFrameTimeNano < 0)
+        {
+            notifyRateChanged(output.getRate());
+        }
+
+        isRunning = true;
+        final Thread renderer = new Thread(() -> draw(screen), THREAD_NAME);
+        renderer.setUncaughtExceptionHandler((t, e) ->
+        {
+            failure.set(e);
+            isRunning = false;
+        });
+        renderer.start();
+        try
+        {
+            while (isRunning)
+            {
+                if (screen.isReady())
+                {
+                    final long lastTime = System.nanoTime();
+
+                    frame.update(Constant.EXTRP);
+                    record(frame);
+
+                    while (sync && System.nanoTime() - lastTime < maxFrameTimeNano)
+                    {
+                        Thread.yield();
+                    }
+
+                    frame.computeFrameRate(lastTime, Math.max(lastTime + 1L, System.nanoTime()));
+                }
+                else
+                {
+                    frame.check();
+                    UtilSequence.pause(Constant.DECADE);
+                }
+            }
+        }
+        finally
+        {
+            terminate(renderer);
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        isRunning = false;
+    }
+
+    @Override
+    public void notifyRateChanged(int rate)
+    {
+        if (rate == 0)
+        {
+            maxFrameTimeNano = 0.0;
+        }
+        else
+        {
+            maxFrameTimeNano = Constant.ONE_SECOND_IN_MILLI / (double) rate * Constant.NANO_TO_MILLI;
+        }
+    }
+}
@@ -33,6 +33,7 @@ import com.b3dgs.lionengine.graphic.Filter;
 import com.b3dgs.lionengine.graphic.Graphic;
 import com.b3dgs.lionengine.graphic.Graphics;
 import com.b3dgs.lionengine.graphic.ImageBuffer;
+import com.b3dgs.lionengine.graphic.RenderCommands;
 import com.b3dgs.lionengine.graphic.Screen;
 import com.b3dgs.lionengine.graphic.ScreenListener;
 import com.b3dgs.lionengine.graphic.Transform;
@@ -62,6 +63,8 @@ public abstract class Sequence implements Sequencable, Sequencer, Zooming, TimeC
     private final Graphic graphic;
     /** Loop mode. */
     private final Loop loop;
+    /** Filter lock, as filter may be used by another thread with {@link LoopPipelined}. */
+    private final Object filterLock = new Object();
     /** Source resolution. */
     private Resolution source;
     /** Filter reference. */
@@ -220,6 +223,10 @@ public abstract class Sequence implements Sequencable, Sequencer, Zooming, TimeC
         else
         {
             buf = Graphics.createImageBuffer(width, height);
+            synchronized (filterLock)
+            {
+                filter.prepare(width, height);
+            }
             transform = getTransform();
             final Graphic gbuf = buf.createGraphic();
             graphic.setGraphic(gbuf.getGraphic());
@@ -262,6 +269,37 @@ public abstract class Sequence implements Sequencable, Sequencer, Zooming, TimeC
         }
     }
 
+    /**
+     * Local render routine, recording commands drawn later on screen.
+     * 
+     * @param commands The commands recorder.
+     */
+    private void render(RenderCommands commands)
+    {
+        if (buf == null)
+        {
+            // Direct rendering
+            render((Graphic) commands);
+        }
+        else
+        {
+            final ImageBuffer image = buf;
+            final Filter current = filter;
+            final Transform op = transform;
+
+            commands.setGraphic(graphic);
+            render((Graphic) commands);
+            commands.setGraphic(null);
+            commands.drawRenderable(g ->
+            {
+                synchronized (filterLock)
+                {
+                    g.drawImage(current.filter(image), op, 0, 0);
+                }
+            });
+        }
+    }
+
     /**
      * Compute the frame rate depending of the game loop speed.
      * 
@@ -315,6 +353,12 @@ public abstract class Sequence implements Sequencable, Sequencer, Zooming, TimeC
                 Sequence.this.render();
             }
 
+            @Override
+            public void render(RenderCommands commands)
+            {
+                Sequence.this.render(commands);
+            }
+
             @Override
             public void computeFrameRate(long lastTime, long currentTime)
             {
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic.filter;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.b3dgs.lionengine.LionEngineException;
+
+/**
+ * Compute a per row kernel by horizontal bands executed in parallel on the common {@link ForkJoinPool}, returning once
+ * all rows have been computed. Kernels read their source as a whole (rows around a band edge being read from the
+ * neighbour band, as halo), and write only the output of their own rows, so result is identical to a serial
+ * computation.
+ * <p>
+ * Sources smaller than the threshold are computed on the caller thread, as well as all sources on a single processor
+ * where bands would only add their tasks overhead.
+ * </p>
+ */
+final class Bands
+{
+    /** Available processors. */
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+    /** Default threshold in pixels, under which computation is serial (always serial on a single processor). */
+    static final int DEFAULT_THRESHOLD = PROCESSORS > 1 ? 256 * 192 : Integer.MAX_VALUE;
+    /** Minimum rows per band. */
+    private static final int MIN_ROWS = 8;
+    /** Bands per pool thread, for load balancing. */
+    private static final int SPLIT = 4;
+
+    /** Current threshold in pixels. */
+    private static volatile int threshold = DEFAULT_THRESHOLD;
+
+    /**
+     * Set the threshold under which computation is serial.
+     * 
+     * @param pixels The threshold in pixels (0 to always use bands, {@link Integer#MAX_VALUE} to always be serial).
+     */
+    static void setThreshold(int pixels)
+    {
+        threshold = pixels;
+    }
+
+    /**
+     * Compute all rows.
+     * 
+     * @param rows The rows number.
+     * @param columns The columns number.
+     * @param band The band kernel.
+     */
+    static void compute(int rows, int columns, Band band)
+    {
+        if ((long) rows * columns < threshold || rows < MIN_ROWS * 2)
+        {
+            band.compute(0, rows);
+        }
+        else
+        {
+            final ForkJoinPool pool = ForkJoinPool.commonPool();
+            final int size = Math.max(MIN_ROWS, rows / (pool.getParallelism() * SPLIT));
+            pool.invoke(new Task(band, 0, rows, size));
+        }
+    }
+
+    /**
+     * Private constructor.
+     */
+    private Bands()
+    {
+        throw new LionEngineException(LionEngineException.ERROR_PRIVATE_CONSTRUCTOR);
+    }
+
+    /**
+     * Per row kernel.
+     */
+    @FunctionalInterface
+    interface Band
+    {
+        /**
+         * Compute rows of a band.
+         * 
+         * @param start The first row (included).
+         * @param end The last row (excluded).
+         */
+        void compute(int start, int end);
+    }
+
+    /**
+     * Recursive band task, split until rows count is lower or equal to band size.
+     */
+    private static final class Task extends RecursiveAction
+    {
+        /** Serial UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** Band kernel. */
+        private final transient Band band;
+        /** First row (included). */
+        private final int start;
+        /** Last row (excluded). */
+        private final int end;
+        /** Band size. */
+        private final int size;
+
+        /**
+         * Create task.
+         * 
+         * @param band The band kernel.
+         * @param start The first row (included).
+         * @param end The last row (excluded).
+         * @param size The band size.
+         */
+        Task(Band band, int start, int end, int size)
+        {
+            super();
+
+            this.band = band;
+            this.start = start;
+            this.end = end;
+            this.size = size;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (end - start <= size)
+            {
+                band.compute(start, end);
+            }
+            else
+            {
+                final int middle = start + (end - start) / 2;
+                invokeAll(new Task(band, start, middle, size), new Task(band, middle, end, size));
+            }
+        }
+    }
+}
@@ -27,23 +27,22 @@ import com.b3dgs.lionengine.graphic.Transform;
 /**
  * Bilinear filter implementation.
  * <p>
- * This class is Thread-Safe.
+ * Source and target buffers are reused between calls, returned image is overwritten by the next one.
  * </p>
  */
 public class FilterBilinear implements Filter
 {
+    /** Filter radius. */
+    private static final int RADIUS = 1;
+
     /**
-     * Compute bilinear filtering.
+     * Create the divide table.
      * 
-     * @param in The source pixels.
-     * @param out The destination pixels.
-     * @param width The image width.
-     * @param height The image height.
      * @param radius The radius used.
+     * @return The divide table.
      */
-    private static void compute(int[] in, int[] out, int width, int height, int radius)
+    private static int[] createDivide(int radius)
     {
-        final int widthMinus1 = width - 1;
         final int tableSize = 2 * radius + 1;
         final int[] divide = new int[Constant.UNSIGNED_BYTE * tableSize];
 
@@ -51,13 +50,32 @@ public class FilterBilinear implements Filter
         {
             divide[i] = i / tableSize;
         }
+        return divide;
+    }
+
+    /**
+     * Compute bilinear filtering, by bands of rows.
+     * 
+     * @param in The source pixels.
+     * @param out The destination pixels.
+     * @param divide The divide table.
+     * @param width The image width.
+     * @param height The image height.
+     * @param radius The radius used.
+     */
+    private static void compute(int[] in, int[] out, int[] divide, int width, int height, int radius)
+    {
+        final int widthMinus1 = width - 1;
 
-        int inIndex = 0;
-        for (int y = 0; y < height; y++)
+        Bands.compute(height, width, (start, end) ->
         {
-            compute(in, out, y, inIndex, divide, width, widthMinus1, height, radius);
-            inIndex += width;
-        }
+            int inIndex = start * width;
+            for (int y = start; y < end; y++)
+            {
+                compute(in, out, y, inIndex, divide, width, widthMinus1, height, radius);
+                inIndex += width;
+            }
+        });
     }
 
     /**
@@ -129,6 +147,11 @@ public class FilterBilinear implements Filter
         }
     }
 
+    /** Divide table. */
+    private final int[] divide = createDivide(RADIUS);
+    /** Reused buffers. */
+    private final PixelBuffers buffers = new PixelBuffers(1);
+
     /**
      * Create the filter.
      */
@@ -141,22 +164,26 @@ public class FilterBilinear implements Filter
      * Filter
      */
 
+    @Override
+    public void prepare(int width, int height)
+    {
+        buffers.prepare(width, height);
+    }
+
     @Override
     public ImageBuffer filter(ImageBuffer source)
     {
         final int width = source.getWidth();
         final int height = source.getHeight();
+        buffers.prepare(width, height);
 
-        final int[] inPixels = new int[width * height];
-        final int[] outPixels = new int[width * height];
-        source.getRgb(0, 0, width, height, inPixels, 0, width);
+        final int[] inPixels = buffers.read(source);
+        final int[] outPixels = buffers.getTarget();
 
-        compute(inPixels, outPixels, width, height, 1);
-        compute(outPixels, inPixels, height, width, 1);
+        compute(inPixels, outPixels, divide, width, height, RADIUS);
+        compute(outPixels, inPixels, divide, height, width, RADIUS);
 
-        final ImageBuffer dest = Graphics.createImageBuffer(width, height, source.getTransparentColor());
-        dest.setRgb(0, 0, width, height, inPixels, 0, width);
-        return dest;
+        return buffers.write(inPixels, source.getTransparentColor());
     }
 
     @Override
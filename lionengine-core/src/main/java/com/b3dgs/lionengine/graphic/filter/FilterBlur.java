@@ -26,6 +26,9 @@ import com.b3dgs.lionengine.graphic.Transform;
 
 /**
  * Blur filter implementation.
+ * <p>
+ * Source and target buffers are reused between calls, returned image is overwritten by the next one.
+ * </p>
  */
 public class FilterBlur implements Filter
 {
@@ -39,7 +42,7 @@ public class FilterBlur implements Filter
     private static final int MIN_SIZE = 3;
 
     /**
-     * Compute blur.
+     * Compute blur, by bands of rows.
      * 
      * @param kernel The kernel used.
      * @param in The source pixels.
@@ -55,16 +58,19 @@ public class FilterBlur implements Filter
         final int cols = kernel.getWidth();
         final int cols2 = cols / 2;
 
-        for (int y = 0; y < height; y++)
+        Bands.compute(height, width, (start, end) ->
         {
-            int index = y;
-            final int ioffset = y * width;
-            for (int x = 0; x < width; x++)
+            for (int y = start; y < end; y++)
             {
-                compute(matrix, in, out, x, index, ioffset, cols2, width, alpha, edge);
-                index += height;
+                int index = y;
+                final int ioffset = y * width;
+                for (int x = 0; x < width; x++)
+                {
+                    compute(matrix, in, out, x, index, ioffset, cols2, width, alpha, edge);
+                    index += height;
+                }
             }
-        }
+        });
     }
 
     /**
@@ -167,11 +173,9 @@ public class FilterBlur implements Filter
      * Create a blur kernel.
      * 
      * @param radius The blur radius.
-     * @param width The image width.
-     * @param height The image height.
      * @return The blur kernel.
      */
-    private static Kernel createKernel(float radius, int width, int height)
+    private static Kernel createKernel(float radius)
     {
         final int r = (int) Math.ceil(radius);
         final int rows = r * 2 + 1;
@@ -203,10 +207,7 @@ public class FilterBlur implements Filter
             matrix[i] /= total;
         }
 
-        final float[] data = new float[width * height];
-        System.arraycopy(matrix, 0, data, 0, rows);
-
-        return new Kernel(rows, data);
+        return new Kernel(rows, matrix);
     }
 
     /**
@@ -220,12 +221,18 @@ public class FilterBlur implements Filter
         return UtilMath.clamp(value, 0, 255);
     }
 
+    /** Reused buffers. */
+    private final PixelBuffers buffers = new PixelBuffers(1);
     /** Current radius. */
     private volatile float radius = RADIUS_DEFAULT;
     /** Alpha flag. */
     private volatile boolean alpha = true;
     /** Edge mode. */
     private volatile int edge = CLAMP_EDGES;
+    /** Kernel for current radius (<code>null</code> if not created). */
+    private Kernel kernel;
+    /** Kernel radius. */
+    private float kernelRadius;
 
     /**
      * Create the filter.
@@ -271,6 +278,15 @@ public class FilterBlur implements Filter
      * Filter
      */
 
+    @Override
+    public void prepare(int width, int height)
+    {
+        if (width >= MIN_SIZE && height >= MIN_SIZE)
+        {
+            buffers.prepare(width, height);
+        }
+    }
+
     @Override
     public ImageBuffer filter(ImageBuffer source)
     {
@@ -280,18 +296,23 @@ public class FilterBlur implements Filter
         {
             return source;
         }
+        buffers.prepare(width, height);
 
-        final int[] inPixels = new int[width * height];
-        final int[] outPixels = new int[width * height];
-        source.getRgb(0, 0, width, height, inPixels, 0, width);
+        final int[] inPixels = buffers.read(source);
+        final int[] outPixels = buffers.getTarget();
 
-        final Kernel kernel = createKernel(radius, width, height);
-        compute(kernel, inPixels, outPixels, width, height, alpha, edge);
-        compute(kernel, outPixels, inPixels, height, width, alpha, edge);
+        final float current = radius;
+        if (kernel == null || Float.compare(current, kernelRadius) != 0)
+        {
+            kernel = createKernel(current);
+            kernelRadius = current;
+        }
+        final boolean currentAlpha = alpha;
+        final int currentEdge = edge;
+        compute(kernel, inPixels, outPixels, width, height, currentAlpha, currentEdge);
+        compute(kernel, outPixels, inPixels, height, width, currentAlpha, currentEdge);
 
-        final ImageBuffer dest = Graphics.createImageBuffer(width, height, source.getTransparentColor());
-        dest.setRgb(0, 0, width, height, inPixels, 0, width);
-        return dest;
+        return buffers.write(inPixels, source.getTransparentColor());
     }
 
     @Override
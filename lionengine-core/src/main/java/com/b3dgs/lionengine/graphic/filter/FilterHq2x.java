@@ -25,11 +25,16 @@ import com.b3dgs.lionengine.graphic.Transform;
 /**
  * HQ2X implementation.
  * <p>
- * This class is Thread-Safe.
+ * Source and target buffers are reused between calls, returned image is overwritten by the next one.
  * </p>
  */
 public final class FilterHq2x implements Filter
 {
+    /** Reused buffers. */
+    private final PixelBuffers buffers = new PixelBuffers(RawScale2x.SCALE);
+    /** Scaler for prepared size. */
+    private RawScale2x scaler;
+
     /**
      * Create an Hq2x filter.
      */
@@ -43,26 +48,20 @@ public final class FilterHq2x implements Filter
      */
 
     @Override
-    public ImageBuffer filter(ImageBuffer source)
+    public void prepare(int width, int height)
     {
-        final int width = source.getWidth();
-        final int height = source.getHeight();
-        final int[] srcData = new int[width * height];
-        source.getRgb(0, 0, width, height, srcData, 0, width);
-
-        final RawScale2x scaler = new RawScale2x(width, height);
-        final ImageBuffer image = Graphics.createImageBuffer(width * RawScale2x.SCALE,
-                                                             height * RawScale2x.SCALE,
-                                                             source.getTransparentColor());
-        image.setRgb(0,
-                     0,
-                     width * RawScale2x.SCALE,
-                     height * RawScale2x.SCALE,
-                     scaler.getScaledData(srcData),
-                     0,
-                     width * RawScale2x.SCALE);
+        if (buffers.prepare(width, height))
+        {
+            scaler = new RawScale2x(width, height);
+        }
+    }
 
-        return image;
+    @Override
+    public ImageBuffer filter(ImageBuffer source)
+    {
+        prepare(source.getWidth(), source.getHeight());
+        scaler.getScaledData(buffers.read(source), buffers.getTarget());
+        return buffers.write(buffers.getTarget(), source.getTransparentColor());
     }
 
     @Override
@@ -25,11 +25,16 @@ import com.b3dgs.lionengine.graphic.Transform;
 /**
  * HQ3X implementation.
  * <p>
- * This class is Thread-Safe.
+ * Source and target buffers are reused between calls, returned image is overwritten by the next one.
  * </p>
  */
 public final class FilterHq3x implements Filter
 {
+    /** Reused buffers. */
+    private final PixelBuffers buffers = new PixelBuffers(RawScale3x.SCALE);
+    /** Scaler for prepared size. */
+    private RawScale3x scaler;
+
     /**
      * Create an Hq3x filter.
      */
@@ -43,25 +48,20 @@ public final class FilterHq3x implements Filter
      */
 
     @Override
-    public ImageBuffer filter(ImageBuffer source)
+    public void prepare(int width, int height)
     {
-        final int width = source.getWidth();
-        final int height = source.getHeight();
-        final int[] srcData = new int[width * height];
-        source.getRgb(0, 0, width, height, srcData, 0, width);
+        if (buffers.prepare(width, height))
+        {
+            scaler = new RawScale3x(width, height);
+        }
+    }
 
-        final RawScale3x scaler = new RawScale3x(width, height);
-        final ImageBuffer image = Graphics.createImageBuffer(width * RawScale3x.SCALE,
-                                                             height * RawScale3x.SCALE,
-                                                             source.getTransparentColor());
-        image.setRgb(0,
-                     0,
-                     width * RawScale3x.SCALE,
-                     height * RawScale3x.SCALE,
-                     scaler.getScaledData(srcData),
-                     0,
-                     width * RawScale3x.SCALE);
-        return image;
+    @Override
+    public ImageBuffer filter(ImageBuffer source)
+    {
+        prepare(source.getWidth(), source.getHeight());
+        scaler.getScaledData(buffers.read(source), buffers.getTarget());
+        return buffers.write(buffers.getTarget(), source.getTransparentColor());
     }
 
     @Override
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic.filter;
+
+import java.util.Objects;
+
+import com.b3dgs.lionengine.graphic.ColorRgba;
+import com.b3dgs.lionengine.graphic.Graphics;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
+
+/**
+ * Filter pixel buffers, allocated once for a source size and reused on each filtering.
+ * <p>
+ * Target image is owned by the buffers: it is returned on each filtering, and must not be disposed by the caller.
+ * </p>
+ */
+final class PixelBuffers
+{
+    /** Target scale factor. */
+    private final int scale;
+    /** Source pixels. */
+    private int[] source;
+    /** Target pixels. */
+    private int[] target;
+    /** Target image (<code>null</code> if not created). */
+    private ImageBuffer image;
+    /** Target image transparency (<code>null</code> if none). */
+    private ColorRgba transparency;
+    /** Source width. */
+    private int width;
+    /** Source height. */
+    private int height;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param scale The target scale factor.
+     */
+    PixelBuffers(int scale)
+    {
+        super();
+
+        this.scale = scale;
+    }
+
+    /**
+     * Allocate buffers for the source size, if different from current one.
+     * 
+     * @param width The source width.
+     * @param height The source height.
+     * @return <code>true</code> if allocated, <code>false</code> if already prepared.
+     */
+    boolean prepare(int width, int height)
+    {
+        if (source != null && this.width == width && this.height == height)
+        {
+            return false;
+        }
+        this.width = width;
+        this.height = height;
+        source = new int[width * height];
+        target = new int[width * height * scale * scale];
+        if (image != null)
+        {
+            image.dispose();
+            image = null;
+        }
+        return true;
+    }
+
+    /**
+     * Read source pixels. Buffers must have been prepared for the source size.
+     * 
+     * @param image The source image.
+     * @return The source pixels.
+     */
+    int[] read(ImageBuffer image)
+    {
+        image.getRgb(0, 0, width, height, source, 0, width);
+        return source;
+    }
+
+    /**
+     * Get the source pixels.
+     * 
+     * @return The source pixels.
+     */
+    int[] getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Get the target pixels.
+     * 
+     * @return The target pixels.
+     */
+    int[] getTarget()
+    {
+        return target;
+    }
+
+    /**
+     * Write pixels to the target image, created on first use or if transparency changed.
+     * 
+     * @param pixels The pixels to write, of target size.
+     * @param transparency The source transparency (may be <code>null</code>).
+     * @return The target image.
+     */
+    ImageBuffer write(int[] pixels, ColorRgba transparency)
+    {
+        if (image == null || !Objects.equals(this.transparency, transparency))
+        {
+            if (image != null)
+            {
+                image.dispose();
+            }
+            this.transparency = transparency;
+            if (transparency == null)
+            {
+                image = Graphics.createImageBuffer(width * scale, height * scale);
+            }
+            else
+            {
+                image = Graphics.createImageBuffer(width * scale, height * scale, transparency);
+            }
+        }
+        image.setRgb(0, 0, width * scale, height * scale, pixels, 0, width * scale);
+        return image;
+    }
+}
@@ -45,24 +45,33 @@ final class RawScale2x
     }
 
     /**
-     * Get the scaled data.
+     * Compute the scaled data.
      * 
      * @param srcImage The image source.
-     * @return The data array.
+     * @param dstImage The image destination, of scaled size, overwritten.
      */
-    int[] getScaledData(int[] srcImage)
+    void getScaledData(int[] srcImage, int[] dstImage)
     {
-        final int[] dstImage = new int[srcImage.length * SCALE * SCALE];
+        Bands.compute(height, width, (start, end) -> processRows(srcImage, dstImage, start, end));
+    }
 
-        for (int y = 0; y < height; y++)
+    /**
+     * Process filter on a band of rows.
+     * 
+     * @param srcImage The image source.
+     * @param dstImage The image destination.
+     * @param start The first row (included).
+     * @param end The last row (excluded).
+     */
+    private void processRows(int[] srcImage, int[] dstImage, int start, int end)
+    {
+        for (int y = start; y < end; y++)
         {
             for (int x = 0; x < width; x++)
             {
                 process(srcImage, dstImage, x, y);
             }
         }
-
-        return dstImage;
     }
 
     /**
@@ -148,6 +148,17 @@ public final class FileReading implements Closeable
         return in.readUTF();
     }
 
+    /**
+     * Read a sequence of bytes, until the buffer is full.
+     * 
+     * @param bytes The buffer to fill (must not be <code>null</code>).
+     * @throws IOException If read failed or end of file reached before buffer is full.
+     */
+    public void readBytes(byte[] bytes) throws IOException
+    {
+        in.readFully(bytes);
+    }
+
     /*
      * Closeable
      */
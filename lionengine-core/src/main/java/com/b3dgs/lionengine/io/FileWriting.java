@@ -148,6 +148,17 @@ public final class FileWriting implements Closeable
         out.writeUTF(s);
     }
 
+    /**
+     * Write a sequence of bytes.
+     * 
+     * @param bytes The bytes to write (must not be <code>null</code>).
+     * @throws IOException If write failed.
+     */
+    public void writeBytes(byte[] bytes) throws IOException
+    {
+        out.write(bytes);
+    }
+
     /*
      * Closeable
      */
@@ -321,6 +321,18 @@ public final class UtilAssert
         Assertions.assertArrayEquals(expected, actual);
     }
 
+    /**
+     * Asserts that {@code expected} and {@code actual} byte arrays are equal. If both are <code>null</code>, they
+     * are considered equal.
+     * 
+     * @param expected The excepted byte array.
+     * @param actual The actual byte array.
+     */
+    public static void assertArrayEquals(byte[] expected, byte[] actual)
+    {
+        Assertions.assertArrayEquals(expected, actual);
+    }
+
     /**
      * Asserts that {@code expected} and {@code actual} int arrays are equal. If both are <code>null</code>, they
      * are considered equal.
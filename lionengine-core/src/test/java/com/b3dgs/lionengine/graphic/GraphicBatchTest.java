@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertIterableEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link GraphicBatch}.
+ */
+public final class GraphicBatchTest
+{
+    /** First sheet. */
+    private static final ImageSurface SHEET1 = new ImageBufferMock(1, 1);
+    /** Second sheet. */
+    private static final ImageSurface SHEET2 = new ImageBufferMock(2, 2);
+
+    /**
+     * Create a graphic logging its calls.
+     * 
+     * @param log The calls log.
+     * @return The logging graphic.
+     */
+    private static Graphic log(List<String> log)
+    {
+        return new GraphicMock()
+        {
+            @Override
+            public void drawImage(ImageSurface image, int x, int y)
+            {
+                log.add("image" + image.getWidth() + " " + x + " " + y);
+            }
+
+            @Override
+            public void drawImage(ImageSurface image, Transform op, int x, int y)
+            {
+                log.add("transform" + image.getWidth() + " " + x + " " + y);
+            }
+
+            @Override
+            public void drawImage(ImageSurface image,
+                                  int dx1,
+                                  int dy1,
+                                  int dx2,
+                                  int dy2,
+                                  int sx1,
+                                  int sy1,
+                                  int sx2,
+                                  int sy2)
+            {
+                log.add("part" + image.getWidth() + " " + dx1 + " " + dy1 + " " + sx1 + " " + sy2);
+            }
+
+            @Override
+            public void drawRect(int x, int y, int width, int height, boolean fill)
+            {
+                log.add("rect");
+            }
+
+            @Override
+            public void flush()
+            {
+                log.add("flush");
+            }
+        };
+    }
+
+    /**
+     * Test drawings sorted by surface when not overlapping.
+     */
+    @Test
+    public void testSort()
+    {
+        final List<String> log = new ArrayList<>();
+        final GraphicBatch batch = new GraphicBatch(log(log));
+
+        batch.drawImage(SHEET1, 0, 0, 16, 16, 0, 0, 1, 1);
+        batch.drawImage(SHEET2, 16, 0, 32, 16, 1, 0, 2, 2);
+        batch.drawImage(SHEET1, 32, 0, 48, 16, 2, 0, 3, 1);
+        batch.drawImage(SHEET2, 0, 16);
+        batch.drawImage(SHEET1, 48, 16, 32, 0, 3, 0, 4, 1);
+
+        assertIterableEquals(new ArrayList<>(), log);
+
+        batch.flush();
+
+        assertIterableEquals(Arrays.asList("part1 0 0 0 1",
+                                           "part1 32 0 2 1",
+                                           "part1 48 16 3 1",
+                                           "part2 16 0 1 2",
+                                           "image2 0 16",
+                                           "flush"),
+                            log);
+        assertEquals(5L, batch.getDrawsSubmitted());
+        assertEquals(2L, batch.getSurfacesBound());
+
+        batch.resetCounters();
+
+        assertEquals(0L, batch.getDrawsSubmitted());
+        assertEquals(0L, batch.getSurfacesBound());
+    }
+
+    /**
+     * Test overlapping drawings keep their order.
+     */
+    @Test
+    public void testOverlap()
+    {
+        final List<String> log = new ArrayList<>();
+        final GraphicBatch batch = new GraphicBatch(log(log));
+
+        batch.drawImage(SHEET1, 0, 0, 16, 16, 0, 0, 1, 1);
+        batch.drawImage(SHEET2, 8, 8, 24, 24, 1, 0, 2, 2);
+        batch.drawImage(SHEET1, 20, 20, 36, 36, 2, 0, 3, 1);
+        batch.drawImage(SHEET2, 100, 100, 116, 116, 3, 0, 4, 2);
+        batch.drawImage(SHEET1, 16, 0, 32, 8, 4, 0, 5, 1);
+        batch.flush();
+
+        // Last drawing overlaps no later batch, so joins last batch of its surface
+        assertIterableEquals(Arrays.asList("part1 0 0 0 1",
+                                           "part2 8 8 1 2",
+                                           "part2 100 100 3 2",
+                                           "part1 20 20 2 1",
+                                           "part1 16 0 4 1",
+                                           "flush"),
+                            log);
+        assertEquals(3L, batch.getSurfacesBound());
+    }
+
+    /**
+     * Test other drawings flush pending images first.
+     */
+    @Test
+    public void testBarrier()
+    {
+        final List<String> log = new ArrayList<>();
+        final GraphicBatch batch = new GraphicBatch(log(log));
+
+        batch.drawImage(SHEET1, 0, 0);
+        batch.drawRect(0, 0, 1, 1, true);
+        batch.drawImage(SHEET2, 0, 0);
+        batch.drawImage(SHEET1, new TransformMock(), 5, 5);
+        batch.drawImage(SHEET1, 10, 10);
+        batch.getGraphic();
+        batch.drawImage(SHEET2, 20, 20);
+
+        final List<String> other = new ArrayList<>();
+        batch.setTarget(log(other));
+        batch.flush();
+
+        assertIterableEquals(Arrays.asList("image1 0 0",
+                                           "rect",
+                                           "image2 0 0",
+                                           "transform1 5 5",
+                                           "image1 10 10",
+                                           "image2 20 20"),
+                            log);
+        assertIterableEquals(Arrays.asList("flush"), other);
+        assertEquals(5L, batch.getDrawsSubmitted());
+        assertEquals(4L, batch.getSurfacesBound());
+    }
+
+    /**
+     * Test renderable drawn after pending images, and recorded when batch targets commands.
+     */
+    @Test
+    public void testRenderable()
+    {
+        final List<String> log = new ArrayList<>();
+        final RenderCommands commands = new RenderCommands();
+        final GraphicBatch batch = new GraphicBatch(commands);
+
+        batch.drawImage(SHEET1, 0, 0);
+        batch.drawRenderable(g -> g.drawRect(0, 0, 1, 1, true));
+        batch.flush();
+
+        assertIterableEquals(new ArrayList<>(), log);
+
+        commands.replay(log(log));
+
+        assertIterableEquals(Arrays.asList("image1 0 0", "rect", "flush"), log);
+    }
+
+    /**
+     * Test storage growing.
+     */
+    @Test
+    public void testGrow()
+    {
+        final List<String> log = new ArrayList<>();
+        final GraphicBatch batch = new GraphicBatch(log(log));
+        for (int i = 0; i < 1000; i++)
+        {
+            batch.drawImage(i % 2 == 0 ? SHEET1 : SHEET2, i, i, i + 1, i + 1, i, 0, 0, 0);
+        }
+        batch.flush();
+
+        assertEquals(1001, log.size());
+        assertEquals(1000L, batch.getDrawsSubmitted());
+        assertEquals(2L, batch.getSurfacesBound());
+        assertEquals("part1 998 998 998 0", log.get(499));
+        assertEquals("part2 1 1 1 0", log.get(500));
+    }
+
+    /**
+     * Test invalid target.
+     */
+    @Test
+    public void testInvalid()
+    {
+        assertThrows(() -> new GraphicBatch(null), "Unexpected null argument !");
+    }
+}
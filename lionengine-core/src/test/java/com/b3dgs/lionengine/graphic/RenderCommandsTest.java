@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertIterableEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.Align;
+import com.b3dgs.lionengine.Constant;
+import com.b3dgs.lionengine.Origin;
+import com.b3dgs.lionengine.ViewerMock;
+
+/**
+ * Test {@link RenderCommands}.
+ */
+public final class RenderCommandsTest
+{
+    /**
+     * Create a graphic logging its calls.
+     * 
+     * @param name The graphic name.
+     * @param log The calls log.
+     * @return The logging graphic.
+     */
+    private static Graphic log(String name, List<String> log)
+    {
+        return new GraphicMock()
+        {
+            @Override
+            public void clear(int x, int y, int width, int height)
+            {
+                log.add(name + " clear " + x + " " + y + " " + width + " " + height);
+            }
+
+            @Override
+            public void copyArea(int x, int y, int width, int height, int dx, int dy)
+            {
+                log.add(name + " copy " + x + " " + y + " " + width + " " + height + " " + dx + " " + dy);
+            }
+
+            @Override
+            public void drawImage(ImageSurface image, int x, int y)
+            {
+                log.add(name + " image " + image.getWidth() + " " + x + " " + y);
+            }
+
+            @Override
+            public void drawImage(ImageSurface image, Transform op, int x, int y)
+            {
+                log.add(name + " transform " + op.getScaleX() + " " + x + " " + y);
+            }
+
+            @Override
+            public void drawImage(ImageSurface image,
+                                  int dx1,
+                                  int dy1,
+                                  int dx2,
+                                  int dy2,
+                                  int sx1,
+                                  int sy1,
+                                  int sx2,
+                                  int sy2)
+            {
+                log.add(name + " part " + dx1 + " " + dy1 + " " + dx2 + " " + dy2 + " " + sx1 + " " + sy2);
+            }
+
+            @Override
+            public void drawRect(int x, int y, int width, int height, boolean fill)
+            {
+                log.add(name + " rect " + x + " " + y + " " + width + " " + height + " " + fill);
+            }
+
+            @Override
+            public void drawGradient(int x, int y, int width, int height)
+            {
+                log.add(name + " gradient " + x + " " + y + " " + width + " " + height);
+            }
+
+            @Override
+            public void drawLine(int x1, int y1, int x2, int y2)
+            {
+                log.add(name + " line " + x1 + " " + y1 + " " + x2 + " " + y2);
+            }
+
+            @Override
+            public void drawOval(int x, int y, int width, int height, boolean fill)
+            {
+                log.add(name + " oval " + x + " " + y + " " + width + " " + height + " " + fill);
+            }
+
+            @Override
+            public void setColor(ColorRgba color)
+            {
+                log.add(name + " color " + color.getRgba());
+            }
+
+            @Override
+            public void setColorGradient(ColorGradient gradientColor)
+            {
+                log.add(name + " colors " + gradientColor.getX2());
+            }
+
+            @Override
+            public void flush()
+            {
+                log.add(name + " flush");
+            }
+        };
+    }
+
+    /**
+     * Test recorded commands replay.
+     */
+    @Test
+    public void testReplay()
+    {
+        final List<String> log = new ArrayList<>();
+        final Graphic screen = log("screen", log);
+        final Graphic buffer = log("buffer", log);
+        final ImageSurface image = new ImageBufferMock(3, 4);
+        final Transform transform = new TransformMock();
+        transform.scale(2.0, 2.0);
+
+        final ViewerMock viewer = new ViewerMock();
+        viewer.set(10, 20);
+
+        final RenderCommands commands = new RenderCommands();
+        commands.setGraphic(buffer);
+        commands.clear(1, 2, 3, 4);
+        commands.copyArea(1, 2, 3, 4, 5, 6);
+        commands.drawImage(image, 1, 2);
+        commands.drawImage(image, transform, 3, 4);
+        commands.drawImage(image, 1, 2, 3, 4, 5, 6, 7, 8);
+        commands.setGraphic(null);
+        commands.setColor(ColorRgba.RED);
+        commands.setColorGradient(new ColorGradient(0, 0, ColorRgba.BLACK, 9, 0, ColorRgba.WHITE));
+        commands.drawRect(1, 2, 3, 4, true);
+        commands.drawGradient(1, 2, 3, 4);
+        commands.drawLine(1, 2, 3, 4);
+        commands.drawOval(1, 2, 3, 4, false);
+        commands.drawRect(viewer, Origin.TOP_LEFT, 11.0, 5.0, 3, 4, false);
+        commands.drawGradient(viewer, Origin.TOP_LEFT, 11.0, 5.0, 3, 4);
+        commands.drawLine(viewer, 11.0, 5.0, 12.0, 6.0);
+        commands.drawOval(viewer, Origin.TOP_LEFT, 11.0, 5.0, 3, 4, true);
+        commands.drawText(new TextMock(Constant.FONT_SERIF, 8, TextStyle.NORMAL), 1, 2, Align.LEFT, "text");
+        commands.drawRenderable(g -> g.drawLine(0, 0, 0, 0));
+        commands.flush();
+
+        assertEquals(20, commands.getCount());
+        assertEquals(ColorRgba.RED, commands.getColor());
+        assertEquals(commands, commands.getGraphic());
+
+        final int y = (int) viewer.getViewpointY(5.0);
+        final int y2 = (int) viewer.getViewpointY(6.0);
+
+        viewer.set(0, 0);
+        commands.replay(screen);
+
+        assertIterableEquals(Arrays.asList("buffer clear 1 2 3 4",
+                                           "buffer copy 1 2 3 4 5 6",
+                                           "buffer image 3 1 2",
+                                           "buffer transform 2.0 3 4",
+                                           "buffer part 1 2 3 4 5 8",
+                                           "screen color " + ColorRgba.RED.getRgba(),
+                                           "screen colors 9",
+                                           "screen rect 1 2 3 4 true",
+                                           "screen gradient 1 2 3 4",
+                                           "screen line 1 2 3 4",
+                                           "screen oval 1 2 3 4 false",
+                                           "screen rect 1 " + y + " 3 4 false",
+                                           "screen gradient 1 " + y + " 3 4",
+                                           "screen line 1 " + y + " 2 " + y2,
+                                           "screen oval 1 " + y + " 3 4 true",
+                                           "screen line 0 0 0 0",
+                                           "screen flush"),
+                            log);
+
+        log.clear();
+        commands.clear();
+
+        assertEquals(0, commands.getCount());
+
+        commands.replay(screen);
+
+        assertIterableEquals(new ArrayList<>(), log);
+    }
+
+    /**
+     * Test commands storage growing.
+     */
+    @Test
+    public void testGrow()
+    {
+        final List<String> log = new ArrayList<>();
+        final RenderCommands commands = new RenderCommands();
+        for (int i = 0; i < 1000; i++)
+        {
+            commands.drawImage(new ImageBufferMock(1, 1), 1, 2, 3, 4, 5, 6, 7, i);
+        }
+        commands.replay(log("screen", log));
+
+        assertEquals(1000, commands.getCount());
+        assertEquals(1000, log.size());
+        assertEquals("screen part 1 2 3 4 5 999", log.get(999));
+
+        commands.dispose();
+
+        assertEquals(0, commands.getCount());
+    }
+
+    /**
+     * Test released images are disposed on clear only when recording.
+     */
+    @Test
+    public void testRelease()
+    {
+        final List<String> log = new ArrayList<>();
+        final RenderCommands commands = new RenderCommands();
+        final ImageBuffer image = new ImageBufferMock(2, 2)
+        {
+            @Override
+            public void dispose()
+            {
+                log.add("dispose " + getWidth());
+            }
+        };
+        commands.drawImage(image, 0, 0);
+        RenderCommands.release(commands, image);
+        commands.replay(log("screen", log));
+
+        assertIterableEquals(Arrays.asList("screen image 2 0 0"), log);
+
+        commands.clear();
+
+        assertIterableEquals(Arrays.asList("screen image 2 0 0", "dispose 2"), log);
+
+        commands.clear();
+        RenderCommands.release(log("screen", log), image);
+
+        assertIterableEquals(Arrays.asList("screen image 2 0 0", "dispose 2", "dispose 2"), log);
+    }
+
+    /**
+     * Test invalid arguments.
+     */
+    @Test
+    public void testInvalid()
+    {
+        final RenderCommands commands = new RenderCommands();
+
+        assertThrows(() -> commands.replay(null), "Unexpected null argument !");
+        assertThrows(() -> commands.drawRenderable(null), "Unexpected null argument !");
+        assertThrows(() -> commands.release(null), "Unexpected null argument !");
+        assertThrows(() -> RenderCommands.release(commands, null), "Unexpected null argument !");
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic.drawable;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.graphic.FactoryGraphicMock;
+import com.b3dgs.lionengine.graphic.Graphics;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
+
+/**
+ * Test {@link AtlasPacker}.
+ */
+public final class AtlasPackerTest
+{
+    /**
+     * Prepare tests.
+     */
+    @BeforeAll
+    public static void beforeTests()
+    {
+        Graphics.setFactoryGraphic(new FactoryGraphicMock());
+        Medias.setLoadFromJar(AtlasPackerTest.class);
+    }
+
+    /**
+     * Clean up tests.
+     */
+    @AfterAll
+    public static void afterTests()
+    {
+        Graphics.setFactoryGraphic(null);
+        Medias.setLoadFromJar(null);
+    }
+
+    /**
+     * Test constructor with invalid arguments.
+     */
+    @Test
+    public void testConstructorInvalid()
+    {
+        assertThrows(() -> new AtlasPacker(0, 1, 0), "Invalid argument: 0 is not strictly superior to 0");
+        assertThrows(() -> new AtlasPacker(1, 0, 0), "Invalid argument: 0 is not strictly superior to 0");
+        assertThrows(() -> new AtlasPacker(1, 1, -1), "Invalid argument: -1 is not superior or equal to 0");
+    }
+
+    /**
+     * Test add errors.
+     */
+    @Test
+    public void testAddInvalid()
+    {
+        final AtlasPacker packer = new AtlasPacker(32, 32, 0);
+        packer.add("a", Graphics.createImageBuffer(8, 8));
+
+        assertThrows(() -> packer.add("a", Graphics.createImageBuffer(8, 8)), AtlasPacker.ERROR_NAME + "a");
+        assertThrows(() -> packer.add("b", Graphics.createImageBuffer(33, 8)), AtlasPacker.ERROR_SIZE + "b");
+        assertThrows(() -> packer.add("c", Graphics.createImageBuffer(8, 33)), AtlasPacker.ERROR_SIZE + "c");
+        assertThrows(() -> packer.add(null, Graphics.createImageBuffer(8, 8)), "Unexpected null argument !");
+        assertThrows(() -> packer.add("d", null), "Unexpected null argument !");
+    }
+
+    /**
+     * Test skyline placement, from the tallest image, at the lowest location.
+     */
+    @Test
+    public void testPlacement()
+    {
+        final AtlasPacker packer = new AtlasPacker(64, 64, 0);
+        packer.add("low1", Graphics.createImageBuffer(32, 16));
+        packer.add("tall", Graphics.createImageBuffer(32, 32));
+        packer.add("low2", Graphics.createImageBuffer(32, 16));
+        packer.add("wide", Graphics.createImageBuffer(64, 8));
+
+        final Atlas atlas = packer.pack();
+
+        assertEquals(1, atlas.getPages().size());
+        assertEquals(64, atlas.getPages().get(0).getWidth());
+        assertEquals(40, atlas.getPages().get(0).getHeight());
+        assertEquals("[low1, tall, low2, wide]", atlas.getRegions().toString());
+        assertRegion(atlas.getRegion("tall"), 0, 0, 0, 32, 32);
+        assertRegion(atlas.getRegion("low1"), 0, 32, 0, 32, 16);
+        assertRegion(atlas.getRegion("low2"), 0, 32, 16, 32, 16);
+        assertRegion(atlas.getRegion("wide"), 0, 0, 32, 64, 8);
+    }
+
+    /**
+     * Test padding between images.
+     */
+    @Test
+    public void testPadding()
+    {
+        final AtlasPacker packer = new AtlasPacker(34, 34, 2);
+        packer.add("a", Graphics.createImageBuffer(10, 10));
+        packer.add("b", Graphics.createImageBuffer(10, 10));
+        packer.add("c", Graphics.createImageBuffer(10, 10));
+        packer.add("d", Graphics.createImageBuffer(10, 10));
+
+        final Atlas atlas = packer.pack();
+
+        assertRegion(atlas.getRegion("a"), 0, 0, 0, 10, 10);
+        assertRegion(atlas.getRegion("b"), 0, 12, 0, 10, 10);
+        assertRegion(atlas.getRegion("c"), 0, 24, 0, 10, 10);
+        assertRegion(atlas.getRegion("d"), 0, 0, 12, 10, 10);
+        assertEquals(34, atlas.getPages().get(0).getWidth());
+        assertEquals(22, atlas.getPages().get(0).getHeight());
+    }
+
+    /**
+     * Test new page creation when full.
+     */
+    @Test
+    public void testPages()
+    {
+        final AtlasPacker packer = new AtlasPacker(32, 32, 0);
+        packer.add("a", Graphics.createImageBuffer(32, 32));
+        packer.add("b", Graphics.createImageBuffer(16, 16));
+        packer.add("c", Graphics.createImageBuffer(32, 32));
+
+        final Atlas atlas = packer.pack();
+
+        assertEquals(3, atlas.getPages().size());
+        assertRegion(atlas.getRegion("a"), 0, 0, 0, 32, 32);
+        assertRegion(atlas.getRegion("c"), 1, 0, 0, 32, 32);
+        assertRegion(atlas.getRegion("b"), 2, 0, 0, 16, 16);
+        assertEquals(atlas.getPages().get(2), atlas.getRegion("b").getPage());
+    }
+
+    /**
+     * Test many random images are packed inside pages without overlap.
+     */
+    @Test
+    public void testNoOverlap()
+    {
+        final Random random = new Random(42);
+        final AtlasPacker packer = new AtlasPacker(128, 128, 1);
+        final int count = 200;
+        for (int i = 0; i < count; i++)
+        {
+            packer.add(String.valueOf(i), Graphics.createImageBuffer(1 + random.nextInt(40), 1 + random.nextInt(40)));
+        }
+
+        final Atlas atlas = packer.pack();
+        final List<AtlasRegion> regions = new ArrayList<>();
+        for (final String name : atlas.getRegions())
+        {
+            regions.add(atlas.getRegion(name));
+        }
+
+        assertEquals(count, regions.size());
+        for (int i = 0; i < count; i++)
+        {
+            final AtlasRegion a = regions.get(i);
+            assertTrue(a.getX() + a.getWidth() <= a.getPage().getWidth());
+            assertTrue(a.getY() + a.getHeight() <= a.getPage().getHeight());
+            assertTrue(a.getPage().getWidth() <= 128 && a.getPage().getHeight() <= 128);
+
+            for (int j = i + 1; j < count; j++)
+            {
+                final AtlasRegion b = regions.get(j);
+                assertFalse(a.getIndex() == b.getIndex()
+                            && a.getX() < b.getX() + b.getWidth()
+                            && b.getX() < a.getX() + a.getWidth()
+                            && a.getY() < b.getY() + b.getHeight()
+                            && b.getY() < a.getY() + a.getHeight());
+            }
+        }
+    }
+
+    /**
+     * Test add from media.
+     */
+    @Test
+    public void testAddMedia()
+    {
+        final AtlasPacker packer = new AtlasPacker(128, 128, 0);
+        packer.add(Medias.create("image.png"));
+
+        final Atlas atlas = packer.pack();
+
+        assertRegion(atlas.getRegion("image.png"), 0, 0, 0, 64, 32);
+        assertTrue(packer.pack().getRegions().isEmpty());
+    }
+
+    /**
+     * Check region values.
+     * 
+     * @param region The region to check.
+     * @param index The expected page index.
+     * @param x The expected horizontal location.
+     * @param y The expected vertical location.
+     * @param width The expected width.
+     * @param height The expected height.
+     */
+    private static void assertRegion(AtlasRegion region, int index, int x, int y, int width, int height)
+    {
+        assertEquals(index, region.getIndex());
+        assertEquals(x, region.getX());
+        assertEquals(y, region.getY());
+        assertEquals(width, region.getWidth());
+        assertEquals(height, region.getHeight());
+    }
+}
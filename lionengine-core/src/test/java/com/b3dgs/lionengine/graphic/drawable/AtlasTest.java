@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic.drawable;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.UtilFile;
+import com.b3dgs.lionengine.graphic.FactoryGraphicMock;
+import com.b3dgs.lionengine.graphic.Graphics;
+
+/**
+ * Test {@link Atlas}.
+ */
+public final class AtlasTest
+{
+    /**
+     * Prepare tests.
+     */
+    @BeforeAll
+    public static void beforeTests()
+    {
+        Graphics.setFactoryGraphic(new FactoryGraphicMock());
+        Medias.setLoadFromJar(AtlasTest.class);
+    }
+
+    /**
+     * Clean up tests.
+     */
+    @AfterAll
+    public static void afterTests()
+    {
+        Graphics.setFactoryGraphic(null);
+        Medias.setLoadFromJar(null);
+    }
+
+    /**
+     * Create a two regions atlas.
+     * 
+     * @return The created atlas.
+     */
+    private static Atlas createAtlas()
+    {
+        final AtlasPacker packer = new AtlasPacker(64, 64, 0);
+        packer.add("a.png", Graphics.createImageBuffer(32, 32));
+        packer.add("b.png", Graphics.createImageBuffer(32, 32));
+        return packer.pack();
+    }
+
+    /**
+     * Test index media.
+     */
+    @Test
+    public void testGetIndex()
+    {
+        assertEquals(Medias.create("sheets_atlas.xml"), Atlas.getIndex(Medias.create("sheets.xml")));
+    }
+
+    /**
+     * Test regions access.
+     */
+    @Test
+    public void testRegions()
+    {
+        final Atlas atlas = createAtlas();
+
+        assertTrue(atlas.hasRegion("a.png"));
+        assertFalse(atlas.hasRegion("c.png"));
+        assertEquals(32, atlas.getRegion("b.png").getX());
+        assertThrows(() -> atlas.getRegion("c.png"), Atlas.ERROR_REGION + "c.png");
+        assertThrows(UnsupportedOperationException.class, () -> atlas.getPages().clear(), null);
+
+        atlas.dispose();
+    }
+
+    /**
+     * Test save and load.
+     */
+    @Test
+    public void testSaveLoad()
+    {
+        final Atlas atlas = createAtlas();
+        final Media index = Medias.create("atlas.xml");
+        atlas.save(index);
+        atlas.dispose();
+
+        final Media page = Medias.create("atlas_0.png");
+        assertTrue(index.exists());
+        assertTrue(page.exists());
+
+        final Atlas loaded = Atlas.load(index);
+
+        assertEquals(1, loaded.getPages().size());
+        assertEquals(64, loaded.getPages().get(0).getWidth());
+        assertEquals(32, loaded.getPages().get(0).getHeight());
+        assertEquals("[a.png, b.png]", loaded.getRegions().toString());
+
+        final AtlasRegion region = loaded.getRegion("b.png");
+        assertEquals(0, region.getIndex());
+        assertEquals(32, region.getX());
+        assertEquals(0, region.getY());
+        assertEquals(32, region.getWidth());
+        assertEquals(32, region.getHeight());
+        assertEquals(loaded.getPages().get(0), region.getPage());
+
+        loaded.dispose();
+        UtilFile.deleteFile(index.getFile());
+        UtilFile.deleteFile(page.getFile());
+    }
+
+    /**
+     * Test region outside page.
+     */
+    @Test
+    public void testRegionOutside()
+    {
+        assertThrows(() -> new AtlasRegion(Graphics.createImageBuffer(16, 16), 0, 8, 0, 9, 16),
+                     "Invalid argument: 17 is not inferior or equal to 16");
+    }
+}
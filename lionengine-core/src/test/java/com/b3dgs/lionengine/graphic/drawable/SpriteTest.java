@@ -40,6 +40,7 @@ import com.b3dgs.lionengine.ViewerMock;
 import com.b3dgs.lionengine.geom.Geom;
 import com.b3dgs.lionengine.graphic.ColorRgba;
 import com.b3dgs.lionengine.graphic.FactoryGraphicMock;
+import com.b3dgs.lionengine.graphic.Filter;
 import com.b3dgs.lionengine.graphic.Graphic;
 import com.b3dgs.lionengine.graphic.Graphics;
 import com.b3dgs.lionengine.graphic.ImageBuffer;
@@ -345,6 +346,22 @@ public final class SpriteTest
         assertEquals(32, sprite.getHeight());
     }
 
+    /**
+     * Test sprites filtered by the same filter own their surface.
+     */
+    @Test
+    public void testFilterShared()
+    {
+        final Filter filter = new FilterBilinear();
+        final Sprite sprite1 = new SpriteImpl(Graphics.createImageBuffer(64, 32));
+        final Sprite sprite2 = new SpriteImpl(Graphics.createImageBuffer(64, 32));
+        sprite1.filter(filter);
+        sprite2.filter(filter);
+
+        assertNotEquals(sprite1.getSurface(), sprite2.getSurface());
+        assertNotEquals(filter.filter(Graphics.createImageBuffer(64, 32)), sprite2.getSurface());
+    }
+
     /**
      * Test filter <code>null</code>.
      */
@@ -127,6 +127,35 @@ public final class SpriteTiledTest
         assertEquals(4, sprite.getTilesVertical());
     }
 
+    /**
+     * Test constructor with atlas region.
+     */
+    @Test
+    public void testConstructorRegion()
+    {
+        final ImageBuffer page = Graphics.createImageBuffer(128, 64);
+        final SpriteTiled sprite = new SpriteTiledImpl(new AtlasRegion(page, 0, 64, 32, 64, 32), 16, 8);
+
+        assertTrue(sprite.isLoaded());
+        assertEquals(64, sprite.getWidth());
+        assertEquals(32, sprite.getHeight());
+        assertEquals(16, sprite.getTileWidth());
+        assertEquals(8, sprite.getTileHeight());
+        assertEquals(4, sprite.getTilesHorizontal());
+        assertEquals(4, sprite.getTilesVertical());
+        assertThrows(() -> sprite.load(), SpriteImpl.ERROR_ALREADY_LOADED);
+
+        final ImageBuffer surface = sprite.getSurface();
+
+        assertNotEquals(page, surface);
+        assertEquals(64, surface.getWidth());
+        assertEquals(32, surface.getHeight());
+        assertEquals(surface, sprite.getSurface());
+
+        sprite.dispose();
+        page.dispose();
+    }
+
     /**
      * Test load with media.
      */
@@ -501,6 +530,35 @@ public final class SpriteTiledTest
         surface.dispose();
     }
 
+    /**
+     * Test equals with atlas region.
+     */
+    @Test
+    public void testEqualsRegion()
+    {
+        final ImageBuffer page = Graphics.createImageBuffer(128, 64);
+        final SpriteTiled sprite = new SpriteTiledImpl(new AtlasRegion(page, 0, 0, 0, 64, 32), 16, 8);
+
+        assertEquals(sprite, new SpriteTiledImpl(new AtlasRegion(page, 0, 0, 0, 64, 32), 16, 8));
+        assertHashEquals(sprite, new SpriteTiledImpl(new AtlasRegion(page, 0, 0, 0, 64, 32), 16, 8));
+
+        assertNotEquals(sprite, new SpriteTiledImpl(new AtlasRegion(page, 0, 64, 0, 64, 32), 16, 8));
+        assertNotEquals(sprite, new SpriteTiledImpl(new AtlasRegion(page, 0, 0, 32, 64, 32), 16, 8));
+        assertNotEquals(sprite, new SpriteTiledImpl(page, 16, 8));
+        assertHashNotEquals(sprite, new SpriteTiledImpl(new AtlasRegion(page, 0, 64, 0, 64, 32), 16, 8));
+
+        final SpriteTiled other = new SpriteTiledImpl(new AtlasRegion(page, 0, 0, 0, 64, 32), 16, 8);
+        final int hash = sprite.hashCode();
+        sprite.getSurface();
+
+        assertEquals(hash, sprite.hashCode());
+        assertEquals(sprite, other);
+        assertEquals(other, sprite);
+
+        sprite.dispose();
+        page.dispose();
+    }
+
     /**
      * Test hash code.
      */
@@ -23,6 +23,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.Test;
 
+import com.b3dgs.lionengine.graphic.RenderCommands;
+
 /**
  * Test {@link Frame}.
  */
@@ -56,6 +58,7 @@ public final class FrameTest
             }
         };
         frame.check();
+        frame.render(new RenderCommands());
 
         assertFalse(result.get());
     }
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic.engine;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+import static com.b3dgs.lionengine.UtilAssert.assertTimeout;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.Config;
+import com.b3dgs.lionengine.Constant;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Resolution;
+import com.b3dgs.lionengine.graphic.FactoryGraphicMock;
+import com.b3dgs.lionengine.graphic.Graphics;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
+import com.b3dgs.lionengine.graphic.ImageBufferMock;
+import com.b3dgs.lionengine.graphic.RenderCommands;
+import com.b3dgs.lionengine.graphic.Screen;
+import com.b3dgs.lionengine.graphic.ScreenMock;
+
+/**
+ * Test {@link LoopPipelined}.
+ */
+public final class LoopPipelinedTest
+{
+    /**
+     * Prepare tests.
+     */
+    @BeforeAll
+    public static void beforeTests()
+    {
+        Graphics.setFactoryGraphic(new FactoryGraphicMock());
+    }
+
+    /**
+     * Clean up tests.
+     */
+    @AfterAll
+    public static void afterTests()
+    {
+        Graphics.setFactoryGraphic(null);
+    }
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong drawn = new AtomicLong();
+    private final AtomicBoolean drawnOutside = new AtomicBoolean(true);
+    private final AtomicLong computed = new AtomicLong(-1);
+    private final AtomicLong disposed = new AtomicLong();
+    private final AtomicBoolean drawnDisposed = new AtomicBoolean();
+    private final AtomicLong tick = new AtomicLong();
+    private final AtomicLong maxTick = new AtomicLong(5);
+    private final Loop loop = new LoopPipelined();
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    private Thread getTask(final Screen screen)
+    {
+        return new Thread(() -> loop.start(screen, new Frame()
+        {
+            @Override
+            public void check()
+            {
+                latch.countDown();
+            }
+
+            @Override
+            public void update(double extrp)
+            {
+                if (tick.incrementAndGet() == maxTick.get())
+                {
+                    loop.stop();
+                }
+            }
+
+            @Override
+            public void render()
+            {
+                throw new LionEngineException("Unexpected direct render");
+            }
+
+            @Override
+            public void render(RenderCommands commands)
+            {
+                final Thread updater = Thread.currentThread();
+                final AtomicBoolean gone = new AtomicBoolean();
+                final ImageBuffer image = new ImageBufferMock(1, 1)
+                {
+                    @Override
+                    public void dispose()
+                    {
+                        gone.set(true);
+                        disposed.incrementAndGet();
+                    }
+                };
+                recorded.incrementAndGet();
+                commands.drawRect(0, 0, 1, 1, true);
+                commands.drawImage(image, 0, 0);
+                commands.release(image);
+                commands.drawRenderable(g ->
+                {
+                    drawnOutside.compareAndSet(true, Thread.currentThread() != updater);
+                    drawnDisposed.compareAndSet(false, gone.get());
+                    drawn.incrementAndGet();
+                });
+            }
+
+            @Override
+            public void computeFrameRate(long lastTime, long currentTime)
+            {
+                final long fps = Constant.ONE_SECOND_IN_NANO / (currentTime - lastTime);
+                computed.set(fps);
+            }
+        }));
+    }
+
+    /**
+     * Test loop.
+     */
+    @Test
+    public void testLoop()
+    {
+        ScreenMock.setScreenWait(false);
+
+        final Screen screen = new ScreenMock(new Config(new Resolution(320, 240, 50), 16, true));
+
+        final Thread thread = getTask(screen);
+        thread.start();
+
+        assertTimeout(1000L, thread::join);
+        assertEquals(maxTick.get(), tick.get());
+        // Last update stopped loop before recording
+        assertEquals(tick.get() - 1, recorded.get());
+        assertTrue(drawn.get() > 0L, String.valueOf(drawn.get()));
+        assertTrue(drawn.get() <= recorded.get(), String.valueOf(drawn.get()));
+        assertTrue(drawnOutside.get());
+        // Released images disposed once drawn, all at end
+        assertFalse(drawnDisposed.get());
+        assertEquals(recorded.get(), disposed.get());
+
+        final int expectedRate = screen.getConfig().getOutput().getRate();
+
+        assertTrue(computed.get() <= expectedRate, String.valueOf(computed.get()));
+    }
+
+    /**
+     * Test without sync.
+     */
+    @Test
+    public void testNoSync()
+    {
+        ScreenMock.setScreenWait(false);
+
+        final Screen screen = new ScreenMock(new Config(new Resolution(320, 240, 0), 16, true));
+        maxTick.set(1000);
+
+        final Thread thread = getTask(screen);
+        thread.start();
+
+        assertTimeout(5000L, thread::join);
+        assertEquals(maxTick.get(), tick.get());
+        // Last update stopped loop before recording
+        assertEquals(tick.get() - 1, recorded.get());
+        assertTrue(drawn.get() <= recorded.get(), String.valueOf(drawn.get()));
+
+        final int expectedRate = screen.getConfig().getOutput().getRate();
+
+        assertTrue(computed.get() > expectedRate, String.valueOf(computed.get()));
+    }
+
+    /**
+     * Test render thread failure is thrown by loop.
+     */
+    @Test
+    public void testRenderFailure()
+    {
+        ScreenMock.setScreenWait(false);
+
+        final Screen screen = new ScreenMock(new Config(new Resolution(320, 240, 50), 16, true));
+
+        assertTimeout(1000L, () -> assertThrows(() -> loop.start(screen, new Frame()
+        {
+            @Override
+            public void update(double extrp)
+            {
+                tick.incrementAndGet();
+            }
+
+            @Override
+            public void render()
+            {
+                // Mock
+            }
+
+            @Override
+            public void render(RenderCommands commands)
+            {
+                commands.drawRenderable(g ->
+                {
+                    throw new LionEngineException("Render failure");
+                });
+            }
+
+            @Override
+            public void computeFrameRate(long lastTime, long currentTime)
+            {
+                // Mock
+            }
+        }), "Render failure"));
+    }
+
+    /**
+     * Test with not ready screen.
+     */
+    @Test
+    public void testUnready()
+    {
+        ScreenMock.setScreenWait(true);
+
+        final Screen screen = new ScreenMock(new Config(new Resolution(320, 240, 50), 16, true));
+
+        final Thread thread = getTask(screen);
+        thread.start();
+
+        assertTimeout(1000L, latch::await);
+
+        loop.stop();
+
+        assertTimeout(1000L, thread::join);
+        assertEquals(0, tick.get());
+        assertEquals(0, recorded.get());
+        assertEquals(0, drawn.get());
+        assertEquals(-1, computed.get());
+    }
+}
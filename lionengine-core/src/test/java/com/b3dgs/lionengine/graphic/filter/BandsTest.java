@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic.filter;
+
+import static com.b3dgs.lionengine.UtilAssert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.graphic.FactoryGraphicMock;
+import com.b3dgs.lionengine.graphic.Filter;
+import com.b3dgs.lionengine.graphic.Graphics;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
+
+/**
+ * Test {@link Bands}.
+ */
+public final class BandsTest
+{
+    /** Test width. */
+    private static final int WIDTH = 67;
+    /** Test height. */
+    private static final int HEIGHT = 53;
+
+    /**
+     * Prepare tests.
+     */
+    @BeforeAll
+    public static void beforeTests()
+    {
+        Graphics.setFactoryGraphic(new FactoryGraphicMock());
+    }
+
+    /**
+     * Clean up tests.
+     */
+    @AfterAll
+    public static void afterTests()
+    {
+        Bands.setThreshold(Bands.DEFAULT_THRESHOLD);
+        Graphics.setFactoryGraphic(null);
+    }
+
+    /**
+     * Filter image and get its pixels.
+     * 
+     * @param filter The filter to apply.
+     * @param image The source image.
+     * @param threshold The bands threshold.
+     * @return The filtered pixels.
+     */
+    private static int[] filter(Filter filter, ImageBuffer image, int threshold)
+    {
+        Bands.setThreshold(threshold);
+        final ImageBuffer filtered = filter.filter(image);
+        final int width = filtered.getWidth();
+        final int height = filtered.getHeight();
+
+        return filtered.getRgb(0, 0, width, height, new int[width * height], 0, width);
+    }
+
+    /**
+     * Check that banded and serial results are identical.
+     * 
+     * @param filter The filter to check.
+     */
+    private static void assertIdentical(Filter filter)
+    {
+        final Random random = new Random(WIDTH * HEIGHT);
+        final ImageBuffer image = Graphics.createImageBuffer(WIDTH, HEIGHT);
+        for (int y = 0; y < HEIGHT; y++)
+        {
+            for (int x = 0; x < WIDTH; x++)
+            {
+                image.setRgb(x, y, random.nextInt(4) * 0x3F3F3F3F);
+            }
+        }
+
+        final int[] serial = filter(filter, image, Integer.MAX_VALUE);
+        final int[] banded = filter(filter, image, 0);
+
+        assertArrayEquals(serial, banded);
+
+        image.dispose();
+    }
+
+    /**
+     * Test banded filters give same result as serial.
+     */
+    @Test
+    public void testIdentical()
+    {
+        assertIdentical(new FilterHq2x());
+        assertIdentical(new FilterHq3x());
+        assertIdentical(new FilterBilinear());
+        assertIdentical(new FilterBlur());
+    }
+}
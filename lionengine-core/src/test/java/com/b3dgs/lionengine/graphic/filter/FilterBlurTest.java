@@ -170,4 +170,13 @@ public final class FilterBlurTest
         image.dispose();
         filtered.dispose();
     }
+
+    /**
+     * Test buffers reused between calls of same size, and prepared again on size change.
+     */
+    @Test
+    public void testReuse()
+    {
+        UtilFilter.assertReuse(new FilterBlur(), 1);
+    }
 }
@@ -95,4 +95,13 @@ public final class FilterHq3xTest
         image.dispose();
         filtered.dispose();
     }
+
+    /**
+     * Test buffers reused between calls of same size, and prepared again on size change.
+     */
+    @Test
+    public void testReuse()
+    {
+        UtilFilter.assertReuse(new FilterHq3x(), 3);
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.graphic.filter;
+
+import static com.b3dgs.lionengine.UtilAssert.assertArrayEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.graphic.Filter;
+import com.b3dgs.lionengine.graphic.Graphics;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
+
+/**
+ * Utilities related to filter test.
+ */
+final class UtilFilter
+{
+    /**
+     * Assert filter buffers are reused between calls of same size, and prepared again on size change.
+     * 
+     * @param filter The filter to test.
+     * @param scale The filter scale factor.
+     */
+    public static void assertReuse(Filter filter, int scale)
+    {
+        filter.prepare(4, 4);
+        final ImageBuffer image = Graphics.createImageBuffer(4, 4);
+        image.setRgb(1, 1, 0xFF00FF);
+        final ImageBuffer filtered = filter.filter(image);
+        final int size = 4 * scale;
+        final int[] expected = filtered.getRgb(0, 0, size, size, new int[size * size], 0, size);
+
+        assertEquals(filtered, filter.filter(image));
+        assertArrayEquals(expected, filtered.getRgb(0, 0, size, size, new int[size * size], 0, size));
+
+        final ImageBuffer other = Graphics.createImageBuffer(5, 5);
+        final ImageBuffer resized = filter.filter(other);
+
+        assertEquals(5 * scale, resized.getWidth());
+        assertEquals(5 * scale, resized.getHeight());
+
+        image.dispose();
+        other.dispose();
+        resized.dispose();
+    }
+
+    /**
+     * Private constructor.
+     */
+    private UtilFilter()
+    {
+        throw new LionEngineException(LionEngineException.ERROR_PRIVATE_CONSTRUCTOR);
+    }
+}
@@ -30,6 +30,10 @@ import com.b3dgs.lionengine.graphic.Graphic;
 /**
  * Renderer component implementation which render {@link Displayable} elements with {@link Layerable} support to order
  * rendering. If there is not {@link Layerable} feature, {@link #LAYER_DEFAULT} will be used as default layer value.
+ * <p>
+ * Graphic is flushed at each layer end, allowing a {@link com.b3dgs.lionengine.graphic.GraphicBatch} to batch drawings
+ * per layer. Graphic may be <code>null</code> if displayables do not use it.
+ * </p>
  */
 public class ComponentDisplayable implements ComponentRenderer, HandlerListener, LayerableListener
 {
@@ -115,6 +119,10 @@ public class ComponentDisplayable implements ComponentRenderer, HandlerListener,
             {
                 displayable.render(g);
             }
+            if (g != null)
+            {
+                g.flush();
+            }
         }
     }
 
@@ -17,21 +17,30 @@
  */
 package com.b3dgs.lionengine.game.feature;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
 import com.b3dgs.lionengine.game.FeatureProvider;
 
 /**
  * Refresher component implementation which refreshes {@link Refreshable} elements with {@link Layerable} support to
  * order rendering. If there is not {@link Layerable} feature, {@link #LAYER_DEFAULT} will be used as default layer
  * value.
+ * <p>
+ * In parallel mode, refreshables of a layer enabled with {@link #setParallel(Integer, boolean)} are updated
+ * concurrently, other layers being updated serially. Layers are still updated in order. Layers are serial by default,
+ * as refreshables usually access shared state.
+ * </p>
  */
-public class ComponentRefreshable implements ComponentUpdater, HandlerListener, LayerableListener
+public class ComponentRefreshable implements ComponentUpdaterParallel, HandlerListener, LayerableListener
 {
     /** Default layer value. */
     private static final Integer LAYER_DEFAULT = Integer.valueOf(0);
@@ -56,6 +65,10 @@ public class ComponentRefreshable implements ComponentUpdater, HandlerListener,
     private final Set<Integer> indexs = new TreeSet<>();
     /** Layers to render. */
     private final Map<Integer, Collection<Refreshable>> layers = new HashMap<>();
+    /** Layers updated concurrently in parallel mode. */
+    private final Set<Integer> parallels = new HashSet<>();
+    /** Layers elements cache, used by parallel update and dropped when layer changes. */
+    private final Map<Integer, List<Refreshable>> caches = new HashMap<>();
 
     /**
      * Create component.
@@ -65,6 +78,28 @@ public class ComponentRefreshable implements ComponentUpdater, HandlerListener,
         super();
     }
 
+    /**
+     * Set layer parallel update. Its refreshables must then be independent, as they are updated concurrently in
+     * parallel mode.
+     * 
+     * @param layer The layer index (must not be <code>null</code>).
+     * @param parallel <code>true</code> to update layer concurrently, <code>false</code> to update it serially.
+     * @throws LionEngineException If invalid argument.
+     */
+    public void setParallel(Integer layer, boolean parallel)
+    {
+        Check.notNull(layer);
+
+        if (parallel)
+        {
+            parallels.add(layer);
+        }
+        else
+        {
+            parallels.remove(layer);
+        }
+    }
+
     /**
      * Get the layer set at the specified index. Creates an empty set if no set already defined.
      * 
@@ -86,6 +121,23 @@ public class ComponentRefreshable implements ComponentUpdater, HandlerListener,
         return refreshables;
     }
 
+    /**
+     * Get the layer elements cache. Created from layer set if it changed since last call.
+     * 
+     * @param layer The layer index.
+     * @return The layer elements.
+     */
+    private List<Refreshable> getCache(Integer layer)
+    {
+        List<Refreshable> cache = caches.get(layer);
+        if (cache == null)
+        {
+            cache = new ArrayList<>(layers.get(layer));
+            caches.put(layer, cache);
+        }
+        return cache;
+    }
+
     /**
      * Remove refreshable and its layer.
      * 
@@ -96,6 +148,7 @@ public class ComponentRefreshable implements ComponentUpdater, HandlerListener,
     {
         final Collection<Refreshable> refreshables = getLayer(layer);
         refreshables.remove(refreshable);
+        caches.remove(layer);
         if (refreshables.isEmpty())
         {
             indexs.remove(layer);
@@ -118,6 +171,35 @@ public class ComponentRefreshable implements ComponentUpdater, HandlerListener,
         }
     }
 
+    /*
+     * ComponentUpdaterParallel
+     */
+
+    @Override
+    public void read(double extrp, Handlables featurables, ParallelUpdate parallel)
+    {
+        for (final Integer layer : indexs)
+        {
+            if (parallels.contains(layer))
+            {
+                parallel.forEach(getCache(layer), refreshable -> refreshable.update(extrp));
+            }
+            else
+            {
+                for (final Refreshable refreshable : layers.get(layer))
+                {
+                    refreshable.update(extrp);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void apply(double extrp, Handlables featurables)
+    {
+        // Nothing to apply, refreshables are updated during read phase
+    }
+
     /*
      * HandlerListener
      */
@@ -131,6 +213,7 @@ public class ComponentRefreshable implements ComponentUpdater, HandlerListener,
             final Integer layer = getLayer(featurable);
             final Collection<Refreshable> refreshables = getLayer(layer);
             refreshables.add(refreshable);
+            caches.remove(layer);
             indexs.add(layer);
         }
     }
@@ -162,6 +245,8 @@ public class ComponentRefreshable implements ComponentUpdater, HandlerListener,
             final Refreshable refreshable = provider.getFeature(Refreshable.class);
             getLayer(layerRefreshOld).remove(refreshable);
             getLayer(layerRefreshNew).add(refreshable);
+            caches.remove(layerRefreshOld);
+            caches.remove(layerRefreshNew);
             indexs.add(layerRefreshNew);
         }
     }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature;
+
+/**
+ * Describe a {@link ComponentUpdater} supporting the {@link Handler} parallel mode. Update is split in two phases:
+ * <ul>
+ * <li>read phase: work is split with {@link ParallelUpdate} and may run concurrently, each task must only modify its
+ * own featurable state, shared component state must not be modified (but may be recorded in thread-safe buffers),</li>
+ * <li>apply phase: run on the handler thread once read phase is complete, shared state can be safely modified.</li>
+ * </ul>
+ * When parallel mode is disabled, {@link #update(double, Handlables)} is called instead.
+ * 
+ * @see Handler#setParallel(ParallelUpdate)
+ */
+public interface ComponentUpdaterParallel extends ComponentUpdater
+{
+    /**
+     * Read phase, may be executed concurrently with the parallel reference.
+     * 
+     * @param extrp The extrapolation value.
+     * @param featurables The featurables reference.
+     * @param parallel The parallel executor.
+     */
+    void read(double extrp, Handlables featurables, ParallelUpdate parallel);
+
+    /**
+     * Apply phase, executed on the handler thread after read phase.
+     * 
+     * @param extrp The extrapolation value.
+     * @param featurables The featurables reference.
+     */
+    void apply(double extrp, Handlables featurables);
+}
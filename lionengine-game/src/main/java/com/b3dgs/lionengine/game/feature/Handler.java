@@ -19,6 +19,7 @@ package com.b3dgs.lionengine.game.feature;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 
 import com.b3dgs.lionengine.Updatable;
@@ -29,6 +30,11 @@ import com.b3dgs.lionengine.graphic.Renderable;
 /**
  * Designed to handle {@link Featurable}, updating and rendering a set of components.
  * Modifications on the list can be done at any time because they are applied at the beginning of the next update.
+ * <p>
+ * An optional parallel mode can be enabled with {@link #setParallel(ParallelUpdate)}, where
+ * {@link ComponentUpdaterParallel} are updated by read and apply phases. Deferred add and remove are still performed on
+ * the handler thread, before any phase.
+ * </p>
  * 
  * @see HandlerListener
  * @see ComponentUpdater
@@ -44,16 +50,18 @@ public class Handler implements Handlables, Updatable, Renderable, IdentifiableL
     private final Collection<ComponentRenderer> renderers = new ArrayList<>();
     /** List of items. */
     private final HandlablesImpl featurables = new HandlablesImpl();
-    /** To add list. */
-    private final Collection<Featurable> toAdd = new HashSet<>();
-    /** To delete list. */
-    private final Collection<Integer> toDelete = new HashSet<>();
+    /** To add list (synchronized as it may be filled during parallel read phase). */
+    private final Collection<Featurable> toAdd = Collections.synchronizedSet(new HashSet<>());
+    /** To delete list (synchronized as it may be filled during parallel read phase). */
+    private final Collection<Integer> toDelete = Collections.synchronizedSet(new HashSet<>());
     /** Services reference. */
     private final Services services;
     /** Will delete flag. */
-    private boolean willDelete;
+    private volatile boolean willDelete;
     /** Will add flag. */
-    private boolean willAdd;
+    private volatile boolean willAdd;
+    /** Parallel update reference (<code>null</code> if sequential). */
+    private ParallelUpdate parallel;
 
     /**
      * Create a handler.
@@ -119,6 +127,29 @@ public class Handler implements Handlables, Updatable, Renderable, IdentifiableL
         }
     }
 
+    /**
+     * Set the parallel update mode. {@link ComponentUpdaterParallel} will be updated with
+     * {@link ComponentUpdaterParallel#read(double, Handlables, ParallelUpdate)} followed by
+     * {@link ComponentUpdaterParallel#apply(double, Handlables)}, other components are updated sequentially.
+     * Components are still updated in their adding order.
+     * 
+     * @param parallel The parallel update reference, <code>null</code> to disable parallel mode.
+     */
+    public final void setParallel(ParallelUpdate parallel)
+    {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Check if parallel update mode is enabled.
+     * 
+     * @return <code>true</code> if parallel update enabled, <code>false</code> else.
+     */
+    public final boolean isParallel()
+    {
+        return parallel != null;
+    }
+
     /**
      * Add a featurable to the list. Will be added at the beginning of {@link #update(double)} call.
      * If this function is called during {@link #update(double)}, it will be delayed to next {@link #update(double)}
@@ -217,6 +248,30 @@ public class Handler implements Handlables, Updatable, Renderable, IdentifiableL
         }
     }
 
+    /**
+     * Update components in parallel mode. Each {@link ComponentUpdaterParallel} read phase is completed before its
+     * apply phase, which is completed before next component update.
+     * 
+     * @param extrp The extrapolation value.
+     * @param current The parallel update reference.
+     */
+    private void updateParallel(double extrp, ParallelUpdate current)
+    {
+        for (final ComponentUpdater component : updaters)
+        {
+            if (component instanceof ComponentUpdaterParallel)
+            {
+                final ComponentUpdaterParallel phased = (ComponentUpdaterParallel) component;
+                phased.read(extrp, featurables, current);
+                phased.apply(extrp, featurables);
+            }
+            else
+            {
+                component.update(extrp, featurables);
+            }
+        }
+    }
+
     /*
      * Handlables
      */
@@ -248,9 +303,18 @@ public class Handler implements Handlables, Updatable, Renderable, IdentifiableL
     {
         updateRemove();
         updateAdd();
-        for (final ComponentUpdater component : updaters)
+
+        final ParallelUpdate current = parallel;
+        if (current == null)
+        {
+            for (final ComponentUpdater component : updaters)
+            {
+                component.update(extrp, featurables);
+            }
+        }
+        else
         {
-            component.update(extrp, featurables);
+            updateParallel(extrp, current);
         }
     }
 
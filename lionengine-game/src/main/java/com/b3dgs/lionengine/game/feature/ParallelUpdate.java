@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+
+/**
+ * Parallel update executor used by {@link Handler} parallel mode.
+ * Elements are split in chunks processed on a {@link ForkJoinPool}, and {@link #forEach(List, Consumer)} returns only
+ * once all chunks have been processed, acting as phase barrier.
+ * <p>
+ * This class is Thread-Safe.
+ * </p>
+ * 
+ * @see ComponentUpdaterParallel
+ */
+public final class ParallelUpdate
+{
+    /** Default chunk size. */
+    public static final int DEFAULT_CHUNK = 256;
+    /** Available processors. */
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+    /** Pool reference. */
+    private final ForkJoinPool pool;
+    /** Maximum number of elements processed by a single task. */
+    private final int chunk;
+    /** Serial flag, when tasks would only add their overhead. */
+    private final boolean serial;
+
+    /**
+     * Create a parallel update on common pool with {@link #DEFAULT_CHUNK} size.
+     */
+    public ParallelUpdate()
+    {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK);
+    }
+
+    /**
+     * Create a parallel update.
+     * 
+     * @param pool The pool reference (must not be <code>null</code>).
+     * @param chunk The maximum number of elements processed by a single task (must be strictly positive).
+     * @throws LionEngineException If invalid arguments.
+     */
+    public ParallelUpdate(ForkJoinPool pool, int chunk)
+    {
+        super();
+
+        Check.notNull(pool);
+        Check.superiorStrict(chunk, 0);
+
+        this.pool = pool;
+        this.chunk = chunk;
+        serial = PROCESSORS < 2 && pool.getParallelism() < 2;
+    }
+
+    /**
+     * Perform action on each element, by chunks executed in parallel. Returns once all elements have been processed.
+     * Elements count lower or equal than chunk size are processed on the caller thread, as well as all elements on a
+     * single processor with a single thread pool, such as the common pool.
+     * 
+     * @param <T> The element type.
+     * @param elements The elements to process (must not be modified during process).
+     * @param action The action performed on each element (must only modify the element own state).
+     */
+    public <T> void forEach(List<T> elements, Consumer<? super T> action)
+    {
+        final int size = elements.size();
+        if (size <= chunk || serial)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                action.accept(elements.get(i));
+            }
+        }
+        else
+        {
+            pool.invoke(new Chunk<>(elements, action, 0, size, chunk));
+        }
+    }
+
+    /**
+     * Get the pool parallelism level.
+     * 
+     * @return The parallelism level.
+     */
+    public int getParallelism()
+    {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Get the chunk size.
+     * 
+     * @return The maximum number of elements processed by a single task.
+     */
+    public int getChunk()
+    {
+        return chunk;
+    }
+
+    /**
+     * Recursive chunk task, split until elements count is lower or equal to chunk size.
+     * 
+     * @param <T> The element type.
+     */
+    private static final class Chunk<T> extends RecursiveAction
+    {
+        /** Serial UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** Elements reference. */
+        private final transient List<T> elements;
+        /** Action reference. */
+        private final transient Consumer<? super T> action;
+        /** First element index (included). */
+        private final int start;
+        /** Last element index (excluded). */
+        private final int end;
+        /** Chunk size. */
+        private final int chunk;
+
+        /**
+         * Create chunk.
+         * 
+         * @param elements The elements reference.
+         * @param action The action reference.
+         * @param start The first element index (included).
+         * @param end The last element index (excluded).
+         * @param chunk The chunk size.
+         */
+        Chunk(List<T> elements, Consumer<? super T> action, int start, int end, int chunk)
+        {
+            super();
+
+            this.elements = elements;
+            this.action = action;
+            this.start = start;
+            this.end = end;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (end - start <= chunk)
+            {
+                for (int i = start; i < end; i++)
+                {
+                    action.accept(elements.get(i));
+                }
+            }
+            else
+            {
+                final int middle = start + (end - start) / 2;
+                invokeAll(new Chunk<>(elements, action, start, middle, chunk),
+                          new Chunk<>(elements, action, middle, end, chunk));
+            }
+        }
+    }
+}
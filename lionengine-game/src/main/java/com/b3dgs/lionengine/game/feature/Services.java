@@ -19,6 +19,7 @@ package com.b3dgs.lionengine.game.feature;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Optional;
 
 import com.b3dgs.lionengine.Check;
 import com.b3dgs.lionengine.LionEngineException;
@@ -206,4 +207,32 @@ public class Services
         }
         throw new LionEngineException(ERROR_SERVICE_GET + service.getName());
     }
+
+    /**
+     * Get a service from its class if available.
+     * <p>
+     * Same as {@link #get(Class)}, but does not fail if service is not found.
+     * </p>
+     * 
+     * @param <S> The service type.
+     * @param service The service type.
+     * @return The service implementation found, empty if not found.
+     * @throws LionEngineException If service is <code>null</code>.
+     */
+    public <S> Optional<S> getOptional(Class<S> service)
+    {
+        Check.notNull(service);
+        for (final Object object : servicesSet)
+        {
+            if (service.isAssignableFrom(object.getClass()))
+            {
+                return Optional.of(service.cast(object));
+            }
+        }
+        if (service == getClass())
+        {
+            return Optional.of(service.cast(this));
+        }
+        return Optional.empty();
+    }
 }
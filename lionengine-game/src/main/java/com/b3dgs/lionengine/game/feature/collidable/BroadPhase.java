@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.collidable;
+
+/**
+ * Broad phase used by {@link ComponentCollision} to find candidate pairs before the exact collision check.
+ * Elements are identified by an index, and defined by their bounding box.
+ * <p>
+ * Queries do not modify the structure, so they can be performed concurrently as long as no element is updated or
+ * removed at the same time.
+ * </p>
+ * 
+ * @see BroadPhaseGrid
+ * @see BroadPhaseQuadtree
+ */
+public interface BroadPhase
+{
+    /**
+     * Insert element or update its bounds if already inserted.
+     * 
+     * @param index The element index (must be positive).
+     * @param x The horizontal bound location.
+     * @param y The vertical bound location.
+     * @param width The bound width.
+     * @param height The bound height.
+     */
+    void update(int index, double x, double y, double width, double height);
+
+    /**
+     * Remove element. Does nothing if not inserted.
+     * 
+     * @param index The element index.
+     */
+    void remove(int index);
+
+    /**
+     * Notify each element with bounds overlapping the element bounds. Only elements with a greater index are
+     * notified, so each pair is notified exactly once when querying all elements.
+     * 
+     * @param index The element index.
+     * @param listener The listener notified for each candidate.
+     */
+    void query(int index, BroadPhaseListener listener);
+
+    /**
+     * Remove all elements.
+     */
+    void clear();
+}
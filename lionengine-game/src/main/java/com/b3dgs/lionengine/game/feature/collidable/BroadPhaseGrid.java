@@ -0,0 +1,365 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.collidable;
+
+import java.util.Arrays;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+
+/**
+ * Uniform grid broad phase, where elements are referenced in each cell covered by their bounds.
+ * Cells are mapped to a fixed number of buckets by spatial hashing, so the grid is not bounded and does not need to
+ * know the world size. Storage is index based and only grows, so moving elements does not allocate.
+ * <p>
+ * A pair covering multiple cells is only reported from the first cell they share, and elements may cover any number of
+ * cells.
+ * </p>
+ */
+public final class BroadPhaseGrid implements BroadPhase
+{
+    /** Default cell size. */
+    public static final double DEFAULT_CELL_SIZE = 128.0;
+    /** Default buckets number. */
+    public static final int DEFAULT_BUCKETS = 4096;
+    /** Initial elements capacity. */
+    private static final int INITIAL_CAPACITY = 64;
+    /** Initial bucket capacity. */
+    private static final int BUCKET_CAPACITY = 4;
+    /** Horizontal hash prime. */
+    private static final int PRIME_X = 73_856_093;
+    /** Vertical hash prime. */
+    private static final int PRIME_Y = 19_349_663;
+    /** Values stored per element. */
+    private static final int STRIDE = 4;
+
+    /**
+     * Get the next power of two.
+     * 
+     * @param value The value.
+     * @return The power of two greater or equal to value.
+     */
+    private static int powerOfTwo(int value)
+    {
+        int power = 1;
+        while (power < value)
+        {
+            power <<= 1;
+        }
+        return power;
+    }
+
+    /** Cell size. */
+    private final double cellSize;
+    /** Buckets mask. */
+    private final int mask;
+    /** Buckets elements. */
+    private final int[][] buckets;
+    /** Buckets size. */
+    private final int[] sizes;
+    /** Elements cells (min x, min y, max x, max y). */
+    private int[] cells = new int[INITIAL_CAPACITY * STRIDE];
+    /** Elements bounds (min x, min y, max x, max y). */
+    private double[] bounds = new double[INITIAL_CAPACITY * STRIDE];
+    /** Elements inserted flag. */
+    private boolean[] inserted = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * Create grid with {@link #DEFAULT_CELL_SIZE} and {@link #DEFAULT_BUCKETS}.
+     */
+    public BroadPhaseGrid()
+    {
+        this(DEFAULT_CELL_SIZE, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Create grid.
+     * 
+     * @param cellSize The cell size (must be strictly positive).
+     * @param buckets The buckets number, rounded to next power of two (must be strictly positive).
+     * @throws LionEngineException If invalid arguments.
+     */
+    public BroadPhaseGrid(double cellSize, int buckets)
+    {
+        super();
+
+        Check.superiorStrict(cellSize, 0.0);
+        Check.superiorStrict(buckets, 0);
+
+        this.cellSize = cellSize;
+        final int count = powerOfTwo(buckets);
+        mask = count - 1;
+        this.buckets = new int[count][];
+        sizes = new int[count];
+    }
+
+    /**
+     * Get the cell size.
+     * 
+     * @return The cell size.
+     */
+    public double getCellSize()
+    {
+        return cellSize;
+    }
+
+    /**
+     * Get the bucket index of a cell.
+     * 
+     * @param cx The horizontal cell.
+     * @param cy The vertical cell.
+     * @return The bucket index.
+     */
+    private int getBucket(int cx, int cy)
+    {
+        return (cx * PRIME_X ^ cy * PRIME_Y) & mask;
+    }
+
+    /**
+     * Ensure storage can contain index.
+     * 
+     * @param index The element index.
+     */
+    private void ensureCapacity(int index)
+    {
+        if (index >= inserted.length)
+        {
+            final int capacity = powerOfTwo(index + 1);
+            cells = Arrays.copyOf(cells, capacity * STRIDE);
+            bounds = Arrays.copyOf(bounds, capacity * STRIDE);
+            inserted = Arrays.copyOf(inserted, capacity);
+        }
+    }
+
+    /**
+     * Get element position in bucket.
+     * 
+     * @param bucket The bucket index.
+     * @param index The element index.
+     * @return The element position in bucket, <code>-1</code> if not referenced.
+     */
+    private int indexOf(int bucket, int index)
+    {
+        final int[] elements = buckets[bucket];
+        final int size = sizes[bucket];
+        int i = 0;
+        while (i < size && elements[i] != index)
+        {
+            i++;
+        }
+        if (i < size)
+        {
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Add element to bucket, if not already referenced (different cells may share the same bucket).
+     * 
+     * @param bucket The bucket index.
+     * @param index The element index.
+     */
+    private void add(int bucket, int index)
+    {
+        if (buckets[bucket] == null)
+        {
+            buckets[bucket] = new int[BUCKET_CAPACITY];
+        }
+        if (indexOf(bucket, index) < 0)
+        {
+            final int size = sizes[bucket];
+            if (size == buckets[bucket].length)
+            {
+                buckets[bucket] = Arrays.copyOf(buckets[bucket], size * 2);
+            }
+            buckets[bucket][size] = index;
+            sizes[bucket] = size + 1;
+        }
+    }
+
+    /**
+     * Remove element from bucket. Does nothing if not referenced.
+     * 
+     * @param bucket The bucket index.
+     * @param index The element index.
+     */
+    private void remove(int bucket, int index)
+    {
+        final int i = indexOf(bucket, index);
+        if (i > -1)
+        {
+            final int last = sizes[bucket] - 1;
+            buckets[bucket][i] = buckets[bucket][last];
+            sizes[bucket] = last;
+        }
+    }
+
+    /**
+     * Reference element in all its cells buckets.
+     * 
+     * @param index The element index.
+     */
+    private void addCells(int index)
+    {
+        final int offset = index * STRIDE;
+        for (int cy = cells[offset + 1]; cy <= cells[offset + 3]; cy++)
+        {
+            for (int cx = cells[offset]; cx <= cells[offset + 2]; cx++)
+            {
+                add(getBucket(cx, cy), index);
+            }
+        }
+    }
+
+    /**
+     * Remove element from all its cells buckets.
+     * 
+     * @param index The element index.
+     */
+    private void removeCells(int index)
+    {
+        final int offset = index * STRIDE;
+        for (int cy = cells[offset + 1]; cy <= cells[offset + 3]; cy++)
+        {
+            for (int cx = cells[offset]; cx <= cells[offset + 2]; cx++)
+            {
+                remove(getBucket(cx, cy), index);
+            }
+        }
+    }
+
+    /**
+     * Check if other is a candidate of element in cell. Cell must be covered by both, and be the first shared cell to
+     * report pair only once.
+     * 
+     * @param offset The element offset.
+     * @param other The other offset.
+     * @param cx The horizontal cell.
+     * @param cy The vertical cell.
+     * @return <code>true</code> if candidate, <code>false</code> else.
+     */
+    private boolean isCandidate(int offset, int other, int cx, int cy)
+    {
+        return cx == Math.max(cells[offset], cells[other])
+               && cy == Math.max(cells[offset + 1], cells[other + 1])
+               && cx <= cells[other + 2]
+               && cy <= cells[other + 3]
+               && bounds[offset] <= bounds[other + 2]
+               && bounds[other] <= bounds[offset + 2]
+               && bounds[offset + 1] <= bounds[other + 3]
+               && bounds[other + 1] <= bounds[offset + 3];
+    }
+
+    /**
+     * Notify candidates of element in cell.
+     * 
+     * @param index The element index.
+     * @param offset The element offset.
+     * @param cx The horizontal cell.
+     * @param cy The vertical cell.
+     * @param listener The listener notified for each candidate.
+     */
+    private void query(int index, int offset, int cx, int cy, BroadPhaseListener listener)
+    {
+        final int bucket = getBucket(cx, cy);
+        final int[] elements = buckets[bucket];
+        final int size = sizes[bucket];
+        for (int i = 0; i < size; i++)
+        {
+            final int other = elements[i];
+            if (other > index && isCandidate(offset, other * STRIDE, cx, cy))
+            {
+                listener.notifyCandidate(index, other);
+            }
+        }
+    }
+
+    /*
+     * BroadPhase
+     */
+
+    @Override
+    public void update(int index, double x, double y, double width, double height)
+    {
+        ensureCapacity(index);
+
+        final int offset = index * STRIDE;
+        bounds[offset] = x;
+        bounds[offset + 1] = y;
+        bounds[offset + 2] = x + width;
+        bounds[offset + 3] = y + height;
+
+        final int minX = (int) Math.floor(x / cellSize);
+        final int minY = (int) Math.floor(y / cellSize);
+        final int maxX = (int) Math.floor((x + width) / cellSize);
+        final int maxY = (int) Math.floor((y + height) / cellSize);
+
+        final boolean same = inserted[index]
+                             && minX == cells[offset]
+                             && minY == cells[offset + 1]
+                             && maxX == cells[offset + 2]
+                             && maxY == cells[offset + 3];
+        if (!same)
+        {
+            if (inserted[index])
+            {
+                removeCells(index);
+            }
+            cells[offset] = minX;
+            cells[offset + 1] = minY;
+            cells[offset + 2] = maxX;
+            cells[offset + 3] = maxY;
+            addCells(index);
+            inserted[index] = true;
+        }
+    }
+
+    @Override
+    public void remove(int index)
+    {
+        if (index < inserted.length && inserted[index])
+        {
+            removeCells(index);
+            inserted[index] = false;
+        }
+    }
+
+    @Override
+    public void query(int index, BroadPhaseListener listener)
+    {
+        if (index < inserted.length && inserted[index])
+        {
+            final int offset = index * STRIDE;
+            for (int cy = cells[offset + 1]; cy <= cells[offset + 3]; cy++)
+            {
+                for (int cx = cells[offset]; cx <= cells[offset + 2]; cx++)
+                {
+                    query(index, offset, cx, cy, listener);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(sizes, 0);
+        Arrays.fill(inserted, false);
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.collidable;
+
+import java.util.Arrays;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+
+/**
+ * Loose quadtree broad phase over a fixed area. Nodes bounds are extended by half their size on each side, so an
+ * element is stored in a single node, selected from its size and center. Elements outside area or too large are stored
+ * in root node, which is always visited.
+ * <p>
+ * Nodes are stored as a complete tree in arrays, and storage only grows, so moving elements does not allocate.
+ * </p>
+ */
+public final class BroadPhaseQuadtree implements BroadPhase
+{
+    /** Default depth. */
+    public static final int DEFAULT_DEPTH = 5;
+    /** Maximum depth. */
+    public static final int MAX_DEPTH = 10;
+    /** Initial elements capacity. */
+    private static final int INITIAL_CAPACITY = 64;
+    /** Initial node capacity. */
+    private static final int NODE_CAPACITY = 4;
+    /** Values stored per element. */
+    private static final int STRIDE = 4;
+
+    /**
+     * Get the first node index of level.
+     * 
+     * @param level The level.
+     * @return The first node index.
+     */
+    private static int getLevelOffset(int level)
+    {
+        return ((1 << 2 * level) - 1) / 3;
+    }
+
+    /**
+     * Create owners array, filled with <code>-1</code> from start index.
+     * 
+     * @param owners The current owners (can be <code>null</code>).
+     * @param capacity The new capacity.
+     * @return The owners array.
+     */
+    private static int[] createOwners(int[] owners, int capacity)
+    {
+        final int[] array;
+        final int start;
+        if (owners == null)
+        {
+            array = new int[capacity];
+            start = 0;
+        }
+        else
+        {
+            array = Arrays.copyOf(owners, capacity);
+            start = owners.length;
+        }
+        Arrays.fill(array, start, capacity, -1);
+        return array;
+    }
+
+    /** Area horizontal location. */
+    private final double x;
+    /** Area vertical location. */
+    private final double y;
+    /** Area width. */
+    private final double width;
+    /** Area height. */
+    private final double height;
+    /** Tree depth. */
+    private final int depth;
+    /** Nodes elements. */
+    private final int[][] nodes;
+    /** Nodes size. */
+    private final int[] sizes;
+    /** Elements bounds (min x, min y, max x, max y). */
+    private double[] bounds = new double[INITIAL_CAPACITY * STRIDE];
+    /** Elements node (<code>-1</code> if not inserted). */
+    private int[] owners = createOwners(null, INITIAL_CAPACITY);
+
+    /**
+     * Create quadtree with {@link #DEFAULT_DEPTH}.
+     * 
+     * @param x The area horizontal location.
+     * @param y The area vertical location.
+     * @param width The area width (must be strictly positive).
+     * @param height The area height (must be strictly positive).
+     * @throws LionEngineException If invalid arguments.
+     */
+    public BroadPhaseQuadtree(double x, double y, double width, double height)
+    {
+        this(x, y, width, height, DEFAULT_DEPTH);
+    }
+
+    /**
+     * Create quadtree.
+     * 
+     * @param x The area horizontal location.
+     * @param y The area vertical location.
+     * @param width The area width (must be strictly positive).
+     * @param height The area height (must be strictly positive).
+     * @param depth The tree depth, root excluded (must be between 0 and {@link #MAX_DEPTH} included).
+     * @throws LionEngineException If invalid arguments.
+     */
+    public BroadPhaseQuadtree(double x, double y, double width, double height, int depth)
+    {
+        super();
+
+        Check.superiorStrict(width, 0.0);
+        Check.superiorStrict(height, 0.0);
+        Check.superiorOrEqual(depth, 0);
+        Check.inferiorOrEqual(depth, MAX_DEPTH);
+
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+
+        final int count = getLevelOffset(depth + 1);
+        nodes = new int[count][];
+        sizes = new int[count];
+    }
+
+    /**
+     * Ensure storage can contain index.
+     * 
+     * @param index The element index.
+     */
+    private void ensureCapacity(int index)
+    {
+        if (index >= owners.length)
+        {
+            int capacity = owners.length;
+            while (capacity <= index)
+            {
+                capacity <<= 1;
+            }
+            bounds = Arrays.copyOf(bounds, capacity * STRIDE);
+            owners = createOwners(owners, capacity);
+        }
+    }
+
+    /**
+     * Get the node able to contain the bounds.
+     * 
+     * @param offset The element offset.
+     * @return The node index.
+     */
+    private int getNode(int offset)
+    {
+        final double minX = bounds[offset];
+        final double minY = bounds[offset + 1];
+        final double sizeX = bounds[offset + 2] - minX;
+        final double sizeY = bounds[offset + 3] - minY;
+        final double centerX = minX + sizeX / 2.0 - x;
+        final double centerY = minY + sizeY / 2.0 - y;
+
+        int node = 0;
+        if (centerX >= 0.0 && centerY >= 0.0 && centerX < width && centerY < height)
+        {
+            int level = 0;
+            double cellWidth = width;
+            double cellHeight = height;
+            while (level < depth && sizeX <= cellWidth / 2.0 && sizeY <= cellHeight / 2.0)
+            {
+                level++;
+                cellWidth /= 2.0;
+                cellHeight /= 2.0;
+            }
+            final int cx = (int) (centerX / cellWidth);
+            final int cy = (int) (centerY / cellHeight);
+            node = getLevelOffset(level) + cy * (1 << level) + cx;
+        }
+        return node;
+    }
+
+    /**
+     * Add element to node.
+     * 
+     * @param node The node index.
+     * @param index The element index.
+     */
+    private void add(int node, int index)
+    {
+        if (nodes[node] == null)
+        {
+            nodes[node] = new int[NODE_CAPACITY];
+        }
+        final int size = sizes[node];
+        if (size == nodes[node].length)
+        {
+            nodes[node] = Arrays.copyOf(nodes[node], size * 2);
+        }
+        nodes[node][size] = index;
+        sizes[node] = size + 1;
+        owners[index] = node;
+    }
+
+    /**
+     * Remove element from its node.
+     * 
+     * @param index The element index.
+     */
+    private void removeFromNode(int index)
+    {
+        final int node = owners[index];
+        final int[] elements = nodes[node];
+        final int last = sizes[node] - 1;
+        int i = 0;
+        while (i < last && elements[i] != index)
+        {
+            i++;
+        }
+        elements[i] = elements[last];
+        sizes[node] = last;
+        owners[index] = -1;
+    }
+
+    /**
+     * Notify candidates of element in node and its children overlapping bounds.
+     * 
+     * @param index The element index.
+     * @param level The node level.
+     * @param nx The node horizontal index in level.
+     * @param ny The node vertical index in level.
+     * @param listener The listener notified for each candidate.
+     */
+    private void query(int index, int level, int nx, int ny, BroadPhaseListener listener)
+    {
+        final int offset = index * STRIDE;
+        final int node = getLevelOffset(level) + ny * (1 << level) + nx;
+        final int[] elements = nodes[node];
+        final int size = sizes[node];
+        for (int i = 0; i < size; i++)
+        {
+            final int other = elements[i];
+            if (other > index && overlaps(offset, other * STRIDE))
+            {
+                listener.notifyCandidate(index, other);
+            }
+        }
+        if (level < depth)
+        {
+            final int child = level + 1;
+            for (int cy = ny * 2; cy < ny * 2 + 2; cy++)
+            {
+                for (int cx = nx * 2; cx < nx * 2 + 2; cx++)
+                {
+                    if (overlapsLoose(offset, child, cx, cy))
+                    {
+                        query(index, child, cx, cy, listener);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if element bounds overlaps node loose bounds.
+     * 
+     * @param offset The element offset.
+     * @param level The node level.
+     * @param nx The node horizontal index in level.
+     * @param ny The node vertical index in level.
+     * @return <code>true</code> if overlap, <code>false</code> else.
+     */
+    private boolean overlapsLoose(int offset, int level, int nx, int ny)
+    {
+        final double cellWidth = width / (1 << level);
+        final double cellHeight = height / (1 << level);
+        final double minX = x + nx * cellWidth - cellWidth / 2.0;
+        final double minY = y + ny * cellHeight - cellHeight / 2.0;
+
+        return bounds[offset] <= minX + cellWidth * 2.0
+               && minX <= bounds[offset + 2]
+               && bounds[offset + 1] <= minY + cellHeight * 2.0
+               && minY <= bounds[offset + 3];
+    }
+
+    /**
+     * Check if elements bounds overlap.
+     * 
+     * @param offset The element offset.
+     * @param other The other offset.
+     * @return <code>true</code> if overlap, <code>false</code> else.
+     */
+    private boolean overlaps(int offset, int other)
+    {
+        return bounds[offset] <= bounds[other + 2]
+               && bounds[other] <= bounds[offset + 2]
+               && bounds[offset + 1] <= bounds[other + 3]
+               && bounds[other + 1] <= bounds[offset + 3];
+    }
+
+    /*
+     * BroadPhase
+     */
+
+    @Override
+    public void update(int index, double x, double y, double width, double height)
+    {
+        ensureCapacity(index);
+
+        final int offset = index * STRIDE;
+        bounds[offset] = x;
+        bounds[offset + 1] = y;
+        bounds[offset + 2] = x + width;
+        bounds[offset + 3] = y + height;
+
+        final int node = getNode(offset);
+        if (owners[index] != node)
+        {
+            if (owners[index] > -1)
+            {
+                removeFromNode(index);
+            }
+            add(node, index);
+        }
+    }
+
+    @Override
+    public void remove(int index)
+    {
+        if (index < owners.length && owners[index] > -1)
+        {
+            removeFromNode(index);
+        }
+    }
+
+    @Override
+    public void query(int index, BroadPhaseListener listener)
+    {
+        if (index < owners.length && owners[index] > -1)
+        {
+            query(index, 0, 0, 0, listener);
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(sizes, 0);
+        Arrays.fill(owners, -1);
+    }
+}
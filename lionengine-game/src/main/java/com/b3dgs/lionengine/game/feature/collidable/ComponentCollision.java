@@ -18,124 +18,235 @@
 package com.b3dgs.lionengine.game.feature.collidable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
-import com.b3dgs.lionengine.game.feature.ComponentUpdater;
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.game.feature.ComponentUpdaterParallel;
 import com.b3dgs.lionengine.game.feature.Featurable;
 import com.b3dgs.lionengine.game.feature.Handlables;
 import com.b3dgs.lionengine.game.feature.HandlerListener;
+import com.b3dgs.lionengine.game.feature.ParallelUpdate;
 import com.b3dgs.lionengine.game.feature.Transformable;
 import com.b3dgs.lionengine.game.feature.TransformableListener;
-import com.b3dgs.lionengine.geom.Point;
+import com.b3dgs.lionengine.geom.Area;
 
 /**
  * Default collision component implementation. Designed to check collision between {@link Collidable}.
  * Collision events are notified to {@link CollidableListener}.
+ * <p>
+ * Candidates are found with a {@link BroadPhase}, {@link BroadPhaseGrid} by default. Each pair is checked once per
+ * update, in both directions.
+ * </p>
+ * <p>
+ * Transformable modifications are recorded and applied at the beginning of the next update, so they can be safely
+ * notified during a parallel read phase. In parallel mode, collisions are checked concurrently during read phase, and
+ * notified during apply phase.
+ * </p>
  * 
  * @see Collidable
  * @see CollidableListener
  */
-public class ComponentCollision implements ComponentUpdater, HandlerListener, TransformableListener
+public class ComponentCollision implements ComponentUpdaterParallel, HandlerListener, TransformableListener
 {
-    /** Location reduce factor (the higher it is, the lower is the map division per location). */
-    static final double REDUCE_FACTOR = 128.0;
+    /** Initial elements capacity. */
+    private static final int INITIAL_CAPACITY = 64;
 
     /**
-     * Check others element at specified point.
+     * Get the element bounds from its collisions bounds. Use location and max size if no bound available.
      * 
-     * @param objectA The collidable reference.
-     * @param acceptedElements The current elements to check.
-     * @param point The point to check.
+     * @param element The element reference.
+     * @param broadPhase The broad phase to update.
      */
-    private static void checkPoint(Collidable objectA, Map<Point, List<Collidable>> acceptedElements, Point point)
+    private static void update(Element element, BroadPhase broadPhase)
     {
-        final List<Collidable> others = acceptedElements.get(point);
-        final int othersLength = others.size();
-
-        for (int k = 0; k < othersLength; k++)
+        final List<Area> areas = element.collidable.getCollisionBounds();
+        final int size = areas.size();
+        if (size == 0)
         {
-            final Collidable objectB = others.get(k);
-            if (objectA.collide(objectB) != null)
+            broadPhase.update(element.index,
+                              element.transformable.getX(),
+                              element.transformable.getY(),
+                              element.collidable.getMaxWidth(),
+                              element.collidable.getMaxHeight());
+        }
+        else
+        {
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < size; i++)
             {
-                objectA.notifyCollided(objectB);
+                final Area area = areas.get(i);
+                minX = Math.min(minX, area.getX());
+                minY = Math.min(minY, area.getY());
+                maxX = Math.max(maxX, area.getX() + area.getWidthReal());
+                maxY = Math.max(maxY, area.getY() + area.getHeightReal());
             }
+            broadPhase.update(element.index, minX, minY, maxX - minX, maxY - minY);
         }
     }
 
-    /** Mapping reduced. */
-    private final Map<Integer, Map<Point, List<Collidable>>> collidables = new HashMap<>();
+    /** Handled elements. */
+    private final Map<Transformable, Element> elements = new HashMap<>();
+    /** Active elements, used for iteration. */
+    private final List<Element> active = new ArrayList<>();
+    /** Collisions found during parallel read phase, notified during apply phase. */
+    private final Queue<Collidable[]> collided = new ConcurrentLinkedQueue<>();
+    /** Transformed elements count. */
+    private final AtomicInteger transformedCount = new AtomicInteger();
+    /** Candidates checker. */
+    private final BroadPhaseListener checker = this::check;
+    /** Element query. */
+    private final Consumer<Element> query = this::query;
+    /** Broad phase reference. */
+    private final BroadPhase broadPhase;
+    /** Elements by index. */
+    private Element[] slots = new Element[INITIAL_CAPACITY];
+    /** Transformed elements index since last update, applied at beginning of next update. */
+    private int[] transformed = new int[INITIAL_CAPACITY];
+    /** Free indexes. */
+    private int[] free = new int[INITIAL_CAPACITY];
+    /** Free indexes count. */
+    private int freeCount;
+    /** Released indexes, freed after transformed are applied. */
+    private int[] released = new int[INITIAL_CAPACITY];
+    /** Released indexes count. */
+    private int releasedCount;
+    /** Next never used index. */
+    private int next;
+    /** Deferred notification flag (<code>true</code> during parallel read phase). */
+    private boolean deferred;
 
     /**
-     * Create component.
+     * Create component with default {@link BroadPhaseGrid}.
      */
     public ComponentCollision()
+    {
+        this(new BroadPhaseGrid());
+    }
+
+    /**
+     * Create component.
+     * 
+     * @param broadPhase The broad phase used (must not be <code>null</code>).
+     * @throws LionEngineException If invalid argument.
+     */
+    public ComponentCollision(BroadPhase broadPhase)
     {
         super();
+
+        Check.notNull(broadPhase);
+
+        this.broadPhase = broadPhase;
     }
 
     /**
-     * Remove point. Remove list of no more collidable.
+     * Get a free index, growing storage if needed.
      * 
-     * @param point The point to remove.
-     * @param collidable The associated collidable.
+     * @return The free index.
+     */
+    private int acquire()
+    {
+        final int index;
+        if (freeCount > 0)
+        {
+            freeCount--;
+            index = free[freeCount];
+        }
+        else
+        {
+            index = next;
+            next++;
+            if (next > slots.length)
+            {
+                final int capacity = slots.length * 2;
+                slots = Arrays.copyOf(slots, capacity);
+                transformed = Arrays.copyOf(transformed, capacity);
+                free = Arrays.copyOf(free, capacity);
+                released = Arrays.copyOf(released, capacity);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Apply recorded transformations by updating the broad phase, and free released indexes.
      */
-    private void removePoint(Point point, Collidable collidable)
+    private void applyTransformed()
     {
-        final Integer group = collidable.getGroup();
-        if (collidables.containsKey(group))
+        final int count = transformedCount.getAndSet(0);
+        for (int i = 0; i < count; i++)
         {
-            final Map<Point, List<Collidable>> elements = collidables.get(group);
-            if (elements.containsKey(point))
+            final Element element = slots[transformed[i]];
+            if (element != null && element.transformed.getAndSet(false))
             {
-                removePoint(point, collidable, elements, group);
+                update(element, broadPhase);
             }
         }
+        System.arraycopy(released, 0, free, freeCount, releasedCount);
+        freeCount += releasedCount;
+        releasedCount = 0;
+    }
+
+    /**
+     * Query element candidates.
+     * 
+     * @param element The element to query.
+     */
+    private void query(Element element)
+    {
+        broadPhase.query(element.index, checker);
     }
 
     /**
-     * Remove point. Remove list of no more collidable.
+     * Check collision of candidates pair, in both directions.
      * 
-     * @param point The point to remove.
-     * @param collidable The associated collidable.
-     * @param elements The current group elements.
-     * @param group The current group.
+     * @param index The first element index.
+     * @param other The second element index.
      */
-    private void removePoint(Point point, Collidable collidable, Map<Point, List<Collidable>> elements, Integer group)
+    private void check(int index, int other)
     {
-        final List<Collidable> points = elements.get(point);
-        points.remove(collidable);
-        if (points.isEmpty())
+        final Collidable objectA = slots[index].collidable;
+        final Collidable objectB = slots[other].collidable;
+        if (objectA.collide(objectB) != null)
         {
-            elements.remove(point);
+            notifyCollided(objectA, objectB);
         }
-        if (elements.isEmpty())
+        if (objectB.collide(objectA) != null)
         {
-            collidables.remove(group);
+            notifyCollided(objectB, objectA);
         }
     }
 
     /**
-     * Add point. Create empty list of not existing.
+     * Notify collision, or record it if deferred.
      * 
-     * @param point The point to remove.
-     * @param collidable The associated collidable.
+     * @param objectA The collidable reference.
+     * @param objectB The collided reference.
      */
-    private void addPoint(Point point, Collidable collidable)
+    private void notifyCollided(Collidable objectA, Collidable objectB)
     {
-        final Integer group = collidable.getGroup();
-        if (!collidables.containsKey(group))
+        if (deferred)
         {
-            collidables.put(group, new HashMap<Point, List<Collidable>>());
+            collided.add(new Collidable[]
+            {
+                objectA, objectB
+            });
         }
-        final Map<Point, List<Collidable>> elements = collidables.get(group);
-        if (!elements.containsKey(point))
+        else
         {
-            elements.put(point, new ArrayList<Collidable>());
+            objectA.notifyCollided(objectB);
         }
-        elements.get(point).add(collidable);
     }
 
     /*
@@ -145,63 +256,35 @@ public class ComponentCollision implements ComponentUpdater, HandlerListener, Tr
     @Override
     public void update(double extrp, Handlables objects)
     {
-        for (final Map<Point, List<Collidable>> groups : collidables.values())
+        applyTransformed();
+        deferred = false;
+        final int size = active.size();
+        for (int i = 0; i < size; i++)
         {
-            for (final Entry<Point, List<Collidable>> current : groups.entrySet())
-            {
-                checkGroup(current);
-            }
+            query(active.get(i));
         }
     }
 
-    /**
-     * Check elements in group.
-     * 
-     * @param current The elements in group.
+    /*
+     * ComponentUpdaterParallel
      */
-    private void checkGroup(Entry<Point, List<Collidable>> current)
-    {
-        final List<Collidable> elements = current.getValue();
-        final int length = elements.size();
-        for (int i = 0; i < length; i++)
-        {
-            final Collidable objectA = elements.get(i);
-            checkOthers(objectA, current);
-        }
-    }
 
-    /**
-     * Check others element.
-     * 
-     * @param objectA The collidable reference.
-     * @param current The current group to check.
-     */
-    private void checkOthers(Collidable objectA, Entry<Point, List<Collidable>> current)
+    @Override
+    public void read(double extrp, Handlables featurables, ParallelUpdate parallel)
     {
-        for (final Integer acceptedGroup : objectA.getAccepted())
-        {
-            // Others to compare only in accepted group
-            if (collidables.containsKey(acceptedGroup))
-            {
-                checkOthers(objectA, current, acceptedGroup);
-            }
-        }
+        applyTransformed();
+        deferred = true;
+        parallel.forEach(active, query);
     }
 
-    /**
-     * Check others element.
-     * 
-     * @param objectA The collidable reference.
-     * @param current The current group to check.
-     * @param acceptedGroup The accepted group.
-     */
-    private void checkOthers(Collidable objectA, Entry<Point, List<Collidable>> current, Integer acceptedGroup)
+    @Override
+    public void apply(double extrp, Handlables featurables)
     {
-        final Map<Point, List<Collidable>> acceptedElements = collidables.get(acceptedGroup);
-        final Point point = current.getKey();
-        if (acceptedElements.containsKey(point))
+        Collidable[] current = collided.poll();
+        while (current != null)
         {
-            checkPoint(objectA, acceptedElements, point);
+            current[0].notifyCollided(current[1]);
+            current = collided.poll();
         }
     }
 
@@ -215,6 +298,12 @@ public class ComponentCollision implements ComponentUpdater, HandlerListener, Tr
         if (featurable.hasFeature(Collidable.class))
         {
             final Transformable transformable = featurable.getFeature(Transformable.class);
+            final Collidable collidable = featurable.getFeature(Collidable.class);
+            final Element element = new Element(acquire(), transformable, collidable);
+            element.position = active.size();
+            slots[element.index] = element;
+            active.add(element);
+            elements.put(transformable, element);
             transformable.addListener(this);
         }
     }
@@ -225,11 +314,21 @@ public class ComponentCollision implements ComponentUpdater, HandlerListener, Tr
         if (featurable.hasFeature(Collidable.class))
         {
             final Transformable transformable = featurable.getFeature(Transformable.class);
-            final Collidable collidable = transformable.getFeature(Collidable.class);
-
-            removePoints(transformable.getOldX(), transformable.getOldY(), collidable);
-            removePoints(transformable.getX(), transformable.getY(), collidable);
-
+            final Element element = elements.remove(transformable);
+            if (element != null)
+            {
+                final Element last = active.remove(active.size() - 1);
+                if (last != element)
+                {
+                    last.position = element.position;
+                    active.set(last.position, last);
+                }
+                element.transformed.set(false);
+                slots[element.index] = null;
+                broadPhase.remove(element.index);
+                released[releasedCount] = element.index;
+                releasedCount++;
+            }
             transformable.removeListener(this);
         }
     }
@@ -241,73 +340,43 @@ public class ComponentCollision implements ComponentUpdater, HandlerListener, Tr
     @Override
     public void notifyTransformed(Transformable transformable)
     {
-        final Collidable collidable = transformable.getFeature(Collidable.class);
-
-        removePoints(transformable.getOldX(), transformable.getOldY(), collidable);
-        addPoints(transformable.getX(), transformable.getY(), collidable);
-    }
-
-    /**
-     * Remove point and adjacent points depending of the collidable max collision size.
-     * 
-     * @param x The horizontal location.
-     * @param y The vertical location.
-     * @param collidable The collidable reference.
-     */
-    private void removePoints(double x, double y, Collidable collidable)
-    {
-        final int minX = (int) Math.floor(x / REDUCE_FACTOR);
-        final int minY = (int) Math.floor(y / REDUCE_FACTOR);
-        final int maxX = (int) Math.floor((x + collidable.getMaxWidth()) / REDUCE_FACTOR);
-        final int maxY = (int) Math.floor((y + collidable.getMaxHeight()) / REDUCE_FACTOR);
-
-        removePoint(new Point(minX, minY), collidable);
-
-        if (minX != maxX && minY == maxY)
-        {
-            removePoint(new Point(maxX, minY), collidable);
-        }
-        else if (minX == maxX && minY != maxY)
-        {
-            removePoint(new Point(minX, maxY), collidable);
-        }
-        else if (minX != maxX)
+        final Element element = elements.get(transformable);
+        if (element != null && element.transformed.compareAndSet(false, true))
         {
-            removePoint(new Point(minX, maxY), collidable);
-            removePoint(new Point(maxX, minY), collidable);
-            removePoint(new Point(maxX, maxY), collidable);
+            transformed[transformedCount.getAndIncrement()] = element.index;
         }
     }
 
     /**
-     * Add point and adjacent points depending of the collidable max collision size.
-     * 
-     * @param x The horizontal location.
-     * @param y The vertical location.
-     * @param collidable The collidable reference.
+     * Handled collidable element.
      */
-    private void addPoints(double x, double y, Collidable collidable)
+    private static final class Element
     {
-        final int minX = (int) Math.floor(x / REDUCE_FACTOR);
-        final int minY = (int) Math.floor(y / REDUCE_FACTOR);
-        final int maxX = (int) Math.floor((x + collidable.getMaxWidth()) / REDUCE_FACTOR);
-        final int maxY = (int) Math.floor((y + collidable.getMaxHeight()) / REDUCE_FACTOR);
-
-        addPoint(new Point(minX, minY), collidable);
+        /** Transformed since last update flag. */
+        private final AtomicBoolean transformed = new AtomicBoolean();
+        /** Broad phase index. */
+        private final int index;
+        /** Transformable reference. */
+        private final Transformable transformable;
+        /** Collidable reference. */
+        private final Collidable collidable;
+        /** Position in active list. */
+        private int position;
 
-        if (minX != maxX && minY == maxY)
+        /**
+         * Create element.
+         * 
+         * @param index The broad phase index.
+         * @param transformable The transformable reference.
+         * @param collidable The collidable reference.
+         */
+        Element(int index, Transformable transformable, Collidable collidable)
         {
-            addPoint(new Point(maxX, minY), collidable);
-        }
-        else if (minX == maxX && minY != maxY)
-        {
-            addPoint(new Point(minX, maxY), collidable);
-        }
-        else if (minX != maxX)
-        {
-            addPoint(new Point(minX, maxY), collidable);
-            addPoint(new Point(maxX, minY), collidable);
-            addPoint(new Point(maxX, maxY), collidable);
+            super();
+
+            this.index = index;
+            this.transformable = transformable;
+            this.collidable = collidable;
         }
     }
 }
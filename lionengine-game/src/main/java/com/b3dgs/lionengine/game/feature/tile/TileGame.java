@@ -164,17 +164,17 @@ public class TileGame extends FeaturableModel implements Tile
         {
             return true;
         }
-        if (object == null || object.getClass() != getClass())
+        if (!(object instanceof Tile))
         {
             return false;
         }
-        final TileGame other = (TileGame) object;
-        return number == other.number
-               && width == other.width
-               && height == other.height
-               && inTileX == other.inTileX
-               && inTileY == other.inTileY
-               && sheet.equals(other.sheet);
+        final Tile other = (Tile) object;
+        return number == other.getNumber()
+               && width == other.getWidth()
+               && height == other.getHeight()
+               && inTileX == other.getInTileX()
+               && inTileY == other.getInTileY()
+               && sheet.equals(other.getSheet());
     }
 
     @Override
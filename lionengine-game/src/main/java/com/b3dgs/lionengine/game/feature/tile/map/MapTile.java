@@ -125,6 +125,10 @@ public interface MapTile extends SurfaceTile, Featurable
     /**
      * Load map sheets (tiles surfaces) from directory. Must be called before rendering map.
      * Clears previous sheets if has.
+     * <p>
+     * If an atlas index exists next to the configuration (see {@link TileSheetsConfig#exportsAtlas(Media, int, int)}),
+     * sheets packed in it are taken from the atlas pages instead of being read one by one.
+     * </p>
      * 
      * @param sheetsConfig The file that define the sheets configuration.
      * @throws LionEngineException If error when reading sheets.
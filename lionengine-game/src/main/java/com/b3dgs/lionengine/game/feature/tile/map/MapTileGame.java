@@ -22,7 +22,6 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 
 import com.b3dgs.lionengine.Check;
@@ -38,12 +37,18 @@ import com.b3dgs.lionengine.game.feature.tile.Tile;
 import com.b3dgs.lionengine.game.feature.tile.TileGame;
 import com.b3dgs.lionengine.game.feature.tile.TilesExtractor;
 import com.b3dgs.lionengine.graphic.ImageBuffer;
+import com.b3dgs.lionengine.graphic.drawable.Atlas;
 import com.b3dgs.lionengine.graphic.drawable.Drawable;
 import com.b3dgs.lionengine.graphic.drawable.SpriteTiled;
 
 /**
- * Abstract representation of a standard tile based map. This class uses a List of List to store tiles, a TreeMap to
- * store sheets references ({@link SpriteTiled}), and collisions.
+ * Abstract representation of a standard tile based map. This class uses by default a List of List to store tiles, a
+ * TreeMap to store sheets references ({@link SpriteTiled}), and collisions.
+ * <p>
+ * A compact storage can be used for large maps with {@link #MapTileGame(boolean)}: tile sheet and number are stored
+ * in flat arrays, tile features in one array per feature type, and {@link Tile} are views materialized on demand.
+ * A view copies sheet and number on creation, like a stored tile, and only its features read the current map content.
+ * </p>
  * <p>
  * The way to prepare a map is the following:
  * </p>
@@ -70,6 +75,8 @@ public class MapTileGame extends FeaturableModel implements MapTile
     private final Collection<TileSetListener> tileSetListeners = new ArrayList<>();
     /** Sheets list. */
     private final Map<Integer, SpriteTiled> sheets = new HashMap<>();
+    /** Tiles storage. */
+    private final TileStorage tiles;
     /** Sheet configuration file. */
     private Media sheetsConfig;
     /** Tile width. */
@@ -82,50 +89,44 @@ public class MapTileGame extends FeaturableModel implements MapTile
     private int heightInTile;
     /** Map radius. */
     private int radius;
-    /** Tiles map. */
-    private List<List<Tile>> tiles;
 
     /**
      * Create a map tile.
      */
     public MapTileGame()
     {
-        super();
+        this(false);
     }
 
     /**
-     * Resize map with new size.
+     * Create a map tile.
      * 
-     * @param newWidth The new width in tile.
-     * @param newHeight The new height in tile.
+     * @param compact <code>true</code> to use compact tiles storage, <code>false</code> to store each tile as a full
+     *            object.
      */
-    final void resize(int newWidth, int newHeight)
+    public MapTileGame(boolean compact)
     {
-        final int oldWidth = widthInTile;
-        final int oldheight = heightInTile;
+        super();
 
-        // Adjust height
-        for (int v = 0; v < newHeight - oldheight; v++)
+        if (compact)
         {
-            tiles.add(new ArrayList<Tile>(newWidth));
+            tiles = new TileStorageFlat(this);
         }
-        // Adjust width
-        for (int v = 0; v < newHeight; v++)
+        else
         {
-            final int width;
-            if (v < oldheight)
-            {
-                width = newWidth - oldWidth;
-            }
-            else
-            {
-                width = newWidth;
-            }
-            for (int h = 0; h < width; h++)
-            {
-                tiles.get(v).add(null);
-            }
+            tiles = new TileStorageList();
         }
+    }
+
+    /**
+     * Resize map with new size.
+     * 
+     * @param newWidth The new width in tile.
+     * @param newHeight The new height in tile.
+     */
+    final void resize(int newWidth, int newHeight)
+    {
+        tiles.resize(newWidth, newHeight);
 
         widthInTile = newWidth;
         heightInTile = newHeight;
@@ -152,16 +153,7 @@ public class MapTileGame extends FeaturableModel implements MapTile
         this.heightInTile = heightInTile;
 
         radius = (int) Math.ceil(StrictMath.sqrt(widthInTile * widthInTile + heightInTile * (double) heightInTile));
-        tiles = new ArrayList<>(heightInTile);
-
-        for (int v = 0; v < heightInTile; v++)
-        {
-            tiles.add(v, new ArrayList<Tile>(widthInTile));
-            for (int h = 0; h < widthInTile; h++)
-            {
-                tiles.get(v).add(h, null);
-            }
-        }
+        tiles.create(widthInTile, heightInTile);
     }
 
     @Override
@@ -238,14 +230,24 @@ public class MapTileGame extends FeaturableModel implements MapTile
 
         final String path = sheetsConfig.getPath();
         final String folder = path.substring(0, path.length() - sheetsConfig.getFile().getName().length());
+        final Media index = Atlas.getIndex(sheetsConfig);
+        final Atlas atlas = index.exists() ? Atlas.load(index) : null;
         sheets.clear();
         int sheetId = 0;
         for (final String sheet : config.getSheets())
         {
-            final Media media = Medias.create(folder, sheet);
-            final SpriteTiled sprite = Drawable.loadSpriteTiled(media, tileWidth, tileHeight);
-            sprite.load();
-            sprite.prepare();
+            final SpriteTiled sprite;
+            if (atlas != null && atlas.hasRegion(sheet))
+            {
+                sprite = Drawable.loadSpriteTiled(atlas.getRegion(sheet), tileWidth, tileHeight);
+            }
+            else
+            {
+                final Media media = Medias.create(folder, sheet);
+                sprite = Drawable.loadSpriteTiled(media, tileWidth, tileHeight);
+                sprite.load();
+                sprite.prepare();
+            }
             sheets.put(Integer.valueOf(sheetId), sprite);
             sheetId++;
         }
@@ -254,12 +256,8 @@ public class MapTileGame extends FeaturableModel implements MapTile
     @Override
     public void clear()
     {
-        if (tiles != null)
+        if (tiles.isCreated())
         {
-            for (final List<Tile> list : tiles)
-            {
-                list.clear();
-            }
             tiles.clear();
             widthInTile = 0;
             heightInTile = 0;
@@ -286,11 +284,11 @@ public class MapTileGame extends FeaturableModel implements MapTile
         Check.inferiorStrict(tx, getInTileWidth());
         Check.inferiorStrict(ty, getInTileHeight());
 
-        tiles.get(ty).set(tx, tile);
+        final Tile stored = tiles.setTile(tile);
 
         for (final TileSetListener listener : tileSetListeners)
         {
-            listener.onTileSet(tile);
+            listener.onTileSet(stored);
         }
     }
 
@@ -301,7 +299,7 @@ public class MapTileGame extends FeaturableModel implements MapTile
         {
             return null;
         }
-        return tiles.get(ty).get(tx);
+        return tiles.getTile(tx, ty);
     }
 
     @Override
@@ -411,19 +409,7 @@ public class MapTileGame extends FeaturableModel implements MapTile
     @Override
     public int getTilesNumber()
     {
-        int tilesNumber = 0;
-        for (int ty = 0; ty < heightInTile; ty++)
-        {
-            for (int tx = 0; tx < widthInTile; tx++)
-            {
-                final Tile tile = getTile(tx, ty);
-                if (tile != null)
-                {
-                    tilesNumber++;
-                }
-            }
-        }
-        return tilesNumber;
+        return tiles.getTilesNumber();
     }
 
     @Override
@@ -459,7 +445,7 @@ public class MapTileGame extends FeaturableModel implements MapTile
     @Override
     public boolean isCreated()
     {
-        return tiles != null;
+        return tiles.isCreated();
     }
 
     /*
@@ -25,7 +25,12 @@ import com.b3dgs.lionengine.Check;
 import com.b3dgs.lionengine.Constant;
 import com.b3dgs.lionengine.LionEngineException;
 import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Medias;
 import com.b3dgs.lionengine.Xml;
+import com.b3dgs.lionengine.graphic.Graphics;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
+import com.b3dgs.lionengine.graphic.drawable.Atlas;
+import com.b3dgs.lionengine.graphic.drawable.AtlasPacker;
 
 /**
  * Represents the tile sheets data.
@@ -94,6 +99,39 @@ public final class TileSheetsConfig
         nodeSheets.save(configSheets);
     }
 
+    /**
+     * Pack the sheets of a configuration into an atlas, saved next to it (see {@link Atlas#getIndex(Media)}). Must be
+     * done again each time a sheet is modified.
+     * 
+     * @param configSheets The file that define the sheets configuration (must not be <code>null</code>).
+     * @param pageWidth The maximum atlas page width (must be strictly positive).
+     * @param pageHeight The maximum atlas page height (must be strictly positive).
+     * @throws LionEngineException If unable to read sheets or write atlas.
+     */
+    public static void exportsAtlas(Media configSheets, int pageWidth, int pageHeight)
+    {
+        Check.notNull(configSheets);
+
+        final TileSheetsConfig config = imports(configSheets);
+        final AtlasPacker packer = new AtlasPacker(pageWidth, pageHeight, 0);
+        final Collection<ImageBuffer> buffers = new ArrayList<>();
+        for (final String sheet : config.getSheets())
+        {
+            final ImageBuffer buffer = Graphics.getImageBuffer(Medias.create(configSheets.getParentPath(), sheet));
+            packer.add(sheet, buffer);
+            buffers.add(buffer);
+        }
+
+        final Atlas atlas = packer.pack();
+        atlas.save(Atlas.getIndex(configSheets));
+        atlas.dispose();
+
+        for (final ImageBuffer buffer : buffers)
+        {
+            buffer.dispose();
+        }
+    }
+
     /**
      * Import the defined sheets.
      * 
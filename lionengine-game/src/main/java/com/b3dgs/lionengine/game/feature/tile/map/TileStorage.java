@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map;
+
+import com.b3dgs.lionengine.game.feature.tile.Tile;
+
+/**
+ * Map tiles storage.
+ */
+interface TileStorage
+{
+    /**
+     * Create storage, all tiles are empty.
+     * 
+     * @param widthInTile The number of horizontal tiles.
+     * @param heightInTile The number of vertical tiles.
+     */
+    void create(int widthInTile, int heightInTile);
+
+    /**
+     * Resize storage, existing tiles are kept, new ones are empty.
+     * 
+     * @param newWidth The new width in tile.
+     * @param newHeight The new height in tile.
+     */
+    void resize(int newWidth, int newHeight);
+
+    /**
+     * Remove all tiles.
+     */
+    void clear();
+
+    /**
+     * Set tile at its location.
+     * 
+     * @param tile The tile reference.
+     * @return The stored tile.
+     */
+    Tile setTile(Tile tile);
+
+    /**
+     * Get tile at location.
+     * 
+     * @param tx The horizontal tile index (must be inside storage).
+     * @param ty The vertical tile index (must be inside storage).
+     * @return The tile, <code>null</code> if empty.
+     */
+    Tile getTile(int tx, int ty);
+
+    /**
+     * Get the number of non empty tiles.
+     * 
+     * @return The number of tiles.
+     */
+    int getTilesNumber();
+
+    /**
+     * Check if storage has been created.
+     * 
+     * @return <code>true</code> if created, <code>false</code> else.
+     */
+    boolean isCreated();
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.game.Feature;
+import com.b3dgs.lionengine.game.feature.Identifiable;
+import com.b3dgs.lionengine.game.feature.tile.Tile;
+
+/**
+ * Compact tiles storage.
+ * <p>
+ * Sheet and number are stored in flat primitive arrays indexed by tile (<code>ty * width + tx</code>), and tile
+ * features in one array per feature type. Tiles are views materialized on demand. A view keeps sheet, number and size
+ * read at its creation, like a stored tile, so its equality and hash code never change, and features are read from
+ * current storage content. Tile {@link Identifiable} is not stored.
+ * </p>
+ */
+final class TileStorageFlat implements TileStorage
+{
+    /** Empty tile sheet. */
+    private static final int NONE = -1;
+    /** Feature not found error. */
+    private static final String ERROR_FEATURE_NOT_FOUND = "Feature not found: ";
+
+    /** Features per type, indexed by tile. */
+    private final Map<Class<? extends Feature>, Feature[]> columns = new HashMap<>();
+    /** Map reference. */
+    private final MapTile map;
+    /** Sheet per tile, {@link #NONE} if empty. */
+    private int[] sheets;
+    /** Number per tile. */
+    private int[] numbers;
+    /** Number of horizontal tiles. */
+    private int widthInTile;
+    /** Number of vertical tiles. */
+    private int heightInTile;
+
+    /**
+     * Create storage.
+     * 
+     * @param map The map reference.
+     */
+    TileStorageFlat(MapTile map)
+    {
+        super();
+
+        this.map = map;
+    }
+
+    /**
+     * Store feature for all its types.
+     * 
+     * @param index The tile index.
+     * @param feature The feature to store.
+     */
+    private void putFeature(int index, Feature feature)
+    {
+        putFeature(index, feature.getClass(), feature);
+        for (final Class<?> type : feature.getClass().getInterfaces())
+        {
+            if (Feature.class.isAssignableFrom(type))
+            {
+                putFeature(index, type.asSubclass(Feature.class), feature);
+            }
+        }
+    }
+
+    /**
+     * Store feature for a type.
+     * 
+     * @param index The tile index.
+     * @param type The feature type.
+     * @param feature The feature to store.
+     */
+    private void putFeature(int index, Class<? extends Feature> type, Feature feature)
+    {
+        Feature[] column = columns.get(type);
+        if (column == null)
+        {
+            column = new Feature[sheets.length];
+            columns.put(type, column);
+        }
+        column[index] = feature;
+    }
+
+    /**
+     * Remove all features of tile.
+     * 
+     * @param index The tile index.
+     */
+    private void removeFeatures(int index)
+    {
+        for (final Feature[] column : columns.values())
+        {
+            column[index] = null;
+        }
+    }
+
+    /**
+     * Get tile feature.
+     * 
+     * @param <C> The feature type.
+     * @param index The tile index.
+     * @param type The feature type.
+     * @return The feature found.
+     * @throws LionEngineException If feature not found.
+     */
+    private <C extends Feature> C getFeature(int index, Class<C> type)
+    {
+        final Feature[] column = columns.get(type);
+        if (column != null && column[index] != null)
+        {
+            return type.cast(column[index]);
+        }
+        for (final Feature[] other : columns.values())
+        {
+            if (other[index] != null && type.isAssignableFrom(other[index].getClass()))
+            {
+                return type.cast(other[index]);
+            }
+        }
+        throw new LionEngineException(ERROR_FEATURE_NOT_FOUND + type.getName());
+    }
+
+    /**
+     * Check if tile has feature.
+     * 
+     * @param index The tile index.
+     * @param type The feature type.
+     * @return <code>true</code> if has feature, <code>false</code> else.
+     */
+    private boolean hasFeature(int index, Class<? extends Feature> type)
+    {
+        final Feature[] column = columns.get(type);
+        if (column != null && column[index] != null)
+        {
+            return true;
+        }
+        for (final Feature[] other : columns.values())
+        {
+            if (other[index] != null && type.isAssignableFrom(other[index].getClass()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get tile features.
+     * 
+     * @param index The tile index.
+     * @return The features found.
+     */
+    private Collection<Feature> getFeatures(int index)
+    {
+        final List<Feature> features = new ArrayList<>();
+        for (final Feature[] column : columns.values())
+        {
+            if (column[index] != null && !features.contains(column[index]))
+            {
+                features.add(column[index]);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Get tile features types.
+     * 
+     * @param index The tile index.
+     * @return The features types found.
+     */
+    private Collection<Class<? extends Feature>> getFeaturesType(int index)
+    {
+        final List<Class<? extends Feature>> types = new ArrayList<>();
+        for (final Map.Entry<Class<? extends Feature>, Feature[]> column : columns.entrySet())
+        {
+            if (column.getValue()[index] != null)
+            {
+                types.add(column.getKey());
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Copy array content to a resized array.
+     * 
+     * @param <T> The array type.
+     * @param source The source array.
+     * @param destination The destination array.
+     * @param newWidth The destination width.
+     * @return The destination array.
+     */
+    private <T> T copy(T source, T destination, int newWidth)
+    {
+        for (int ty = 0; ty < heightInTile; ty++)
+        {
+            System.arraycopy(source, ty * widthInTile, destination, ty * newWidth, widthInTile);
+        }
+        return destination;
+    }
+
+    /*
+     * TileStorage
+     */
+
+    @Override
+    public void create(int widthInTile, int heightInTile)
+    {
+        this.widthInTile = widthInTile;
+        this.heightInTile = heightInTile;
+
+        sheets = new int[widthInTile * heightInTile];
+        numbers = new int[widthInTile * heightInTile];
+        Arrays.fill(sheets, NONE);
+        columns.clear();
+    }
+
+    @Override
+    public void resize(int newWidth, int newHeight)
+    {
+        final int[] newSheets = new int[newWidth * newHeight];
+        Arrays.fill(newSheets, NONE);
+        sheets = copy(sheets, newSheets, newWidth);
+        numbers = copy(numbers, new int[newWidth * newHeight], newWidth);
+
+        for (final Map.Entry<Class<? extends Feature>, Feature[]> column : columns.entrySet())
+        {
+            column.setValue(copy(column.getValue(), new Feature[newWidth * newHeight], newWidth));
+        }
+
+        widthInTile = newWidth;
+        heightInTile = newHeight;
+    }
+
+    @Override
+    public void clear()
+    {
+        if (sheets != null)
+        {
+            create(0, 0);
+        }
+    }
+
+    @Override
+    public Tile setTile(Tile tile)
+    {
+        final int tx = tile.getInTileX();
+        final int ty = tile.getInTileY();
+        final int index = ty * widthInTile + tx;
+
+        final List<Feature> features = new ArrayList<>();
+        final List<Class<? extends Feature>> types = new ArrayList<>();
+        for (final Class<? extends Feature> type : tile.getFeaturesType())
+        {
+            final Feature feature = tile.getFeature(type);
+            if (!(feature instanceof Identifiable))
+            {
+                types.add(type);
+                features.add(feature);
+            }
+        }
+
+        removeFeatures(index);
+        sheets[index] = tile.getSheet().intValue();
+        numbers[index] = tile.getNumber();
+
+        final Tile view = new View(tx, ty);
+        final int n = types.size();
+        for (int i = 0; i < n; i++)
+        {
+            final Feature feature = features.get(i);
+            putFeature(index, types.get(i), feature);
+            if (features.indexOf(feature) == i)
+            {
+                feature.prepare(view);
+            }
+        }
+        return view;
+    }
+
+    @Override
+    public Tile getTile(int tx, int ty)
+    {
+        if (sheets[ty * widthInTile + tx] == NONE)
+        {
+            return null;
+        }
+        return new View(tx, ty);
+    }
+
+    @Override
+    public int getTilesNumber()
+    {
+        int tilesNumber = 0;
+        for (final int sheet : sheets)
+        {
+            if (sheet != NONE)
+            {
+                tilesNumber++;
+            }
+        }
+        return tilesNumber;
+    }
+
+    @Override
+    public boolean isCreated()
+    {
+        return sheets != null;
+    }
+
+    /**
+     * Tile view on storage.
+     */
+    private final class View implements Tile
+    {
+        /** Horizontal tile index. */
+        private final int tx;
+        /** Vertical tile index. */
+        private final int ty;
+        /** Tile sheet at creation. */
+        private final Integer sheet;
+        /** Tile number at creation. */
+        private final int number;
+        /** Tile width at creation. */
+        private final int width;
+        /** Tile height at creation. */
+        private final int height;
+
+        /**
+         * Create view.
+         * 
+         * @param tx The horizontal tile index.
+         * @param ty The vertical tile index.
+         */
+        View(int tx, int ty)
+        {
+            super();
+
+            this.tx = tx;
+            this.ty = ty;
+            sheet = Integer.valueOf(sheets[getIndex()]);
+            number = numbers[getIndex()];
+            width = map.getTileWidth();
+            height = map.getTileHeight();
+        }
+
+        /**
+         * Get the storage index.
+         * 
+         * @return The storage index.
+         */
+        private int getIndex()
+        {
+            return ty * widthInTile + tx;
+        }
+
+        /*
+         * Tile
+         */
+
+        @Override
+        public Integer getSheet()
+        {
+            return sheet;
+        }
+
+        @Override
+        public int getNumber()
+        {
+            return number;
+        }
+
+        @Override
+        public double getX()
+        {
+            return tx * (double) width;
+        }
+
+        @Override
+        public double getY()
+        {
+            return ty * (double) height;
+        }
+
+        @Override
+        public int getWidth()
+        {
+            return width;
+        }
+
+        @Override
+        public int getHeight()
+        {
+            return height;
+        }
+
+        @Override
+        public int getInTileX()
+        {
+            return tx;
+        }
+
+        @Override
+        public int getInTileY()
+        {
+            return ty;
+        }
+
+        @Override
+        public int getInTileWidth()
+        {
+            return 1;
+        }
+
+        @Override
+        public int getInTileHeight()
+        {
+            return 1;
+        }
+
+        @Override
+        public void addFeature(Feature feature)
+        {
+            feature.prepare(this);
+            putFeature(getIndex(), feature);
+        }
+
+        @Override
+        public <T extends Feature> T addFeatureAndGet(T feature)
+        {
+            addFeature(feature);
+            return feature;
+        }
+
+        @Override
+        public <C extends Feature> C getFeature(Class<C> feature)
+        {
+            return TileStorageFlat.this.getFeature(getIndex(), feature);
+        }
+
+        @Override
+        public Iterable<Feature> getFeatures()
+        {
+            return TileStorageFlat.this.getFeatures(getIndex());
+        }
+
+        @Override
+        public Iterable<Class<? extends Feature>> getFeaturesType()
+        {
+            return TileStorageFlat.this.getFeaturesType(getIndex());
+        }
+
+        @Override
+        public boolean hasFeature(Class<? extends Feature> feature)
+        {
+            return TileStorageFlat.this.hasFeature(getIndex(), feature);
+        }
+
+        @Override
+        public void checkListener(Object listener)
+        {
+            // Nothing to do
+        }
+
+        @Override
+        public Media getMedia()
+        {
+            return null;
+        }
+
+        /*
+         * Object
+         */
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + width;
+            result = prime * result + height;
+            result = prime * result + tx;
+            result = prime * result + ty;
+            result = prime * result + sheet.hashCode();
+            result = prime * result + number;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (this == object)
+            {
+                return true;
+            }
+            if (!(object instanceof Tile))
+            {
+                return false;
+            }
+            final Tile other = (Tile) object;
+            return number == other.getNumber()
+                   && width == other.getWidth()
+                   && height == other.getHeight()
+                   && tx == other.getInTileX()
+                   && ty == other.getInTileY()
+                   && sheet.equals(other.getSheet());
+        }
+
+        @Override
+        public String toString()
+        {
+            return new StringBuilder().append("sheet = ")
+                                      .append(getSheet())
+                                      .append(" | number = ")
+                                      .append(getNumber())
+                                      .append(" | tx = ")
+                                      .append(tx)
+                                      .append(" | ty = ")
+                                      .append(ty)
+                                      .toString();
+        }
+    }
+}
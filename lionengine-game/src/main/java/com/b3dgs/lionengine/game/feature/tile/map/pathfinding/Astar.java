@@ -39,6 +39,26 @@ public final class Astar
         return new PathFinderImpl(map, maxSearchDistance, heuristic);
     }
 
+    /**
+     * Create a hierarchical path finder, suited for long range searches on large maps.
+     * <p>
+     * Map is partitioned in clusters, and searches are done on the graph of their entrances, then refined inside each
+     * crossed cluster. Found paths are near optimal. Graph is updated on {@link MapTile#setTile} and
+     * {@link MapTilePath#addObjectId(int, int, Integer)} for the changed clusters only.
+     * </p>
+     * 
+     * @param map The map to be searched. Must have the
+     *            {@link com.b3dgs.lionengine.game.feature.tile.map.pathfinding.MapTilePath} feature.
+     * @param clusterSize The cluster size in tile (must be superior or equal to 2).
+     * @param heuristic The heuristic used to determine the search order of the map.
+     * @return The path finder instance.
+     * @throws LionEngineException If invalid arguments.
+     */
+    public static PathFinder createPathFinderHierarchical(MapTile map, int clusterSize, Heuristic heuristic)
+    {
+        return new PathFinderHierarchical(map, clusterSize, heuristic);
+    }
+
     /**
      * Create the closest heuristic.
      * 
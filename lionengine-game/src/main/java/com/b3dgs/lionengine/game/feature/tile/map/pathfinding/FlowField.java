@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Flow field toward a single destination, shared by all movers of the same profile.
+ * <p>
+ * It stores for each tile the cost to reach the destination (integration field) and the next tile to move to
+ * (direction field). Any mover can then follow it step by step, without running its own search. Fields are created
+ * and kept up to date by {@link FlowFieldService}: changed tiles are repaired on next access, only the tiles whose
+ * direction passed through them are computed again.
+ * </p>
+ */
+public final class FlowField
+{
+    /** Unreachable cost. */
+    static final double UNREACHABLE = Double.POSITIVE_INFINITY;
+
+    /** Cost to destination per tile. */
+    final double[] costs;
+    /** Next tile index per tile, {@link PathFinderImpl#NONE} if none. */
+    final int[] next;
+    /** Changed tiles not repaired yet. */
+    final BitSet dirty = new BitSet();
+    /** Owner service. */
+    private final FlowFieldService service;
+    /** Mover used to compute field. */
+    private final Pathfindable mover;
+    /** Ignore map references. */
+    private final boolean ignoreRef;
+    /** Map width in tile. */
+    private final int width;
+    /** Destination tile index. */
+    private final int goal;
+    /** Field version, updated on each computation. */
+    private int version;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param service The owner service.
+     * @param mover The mover used to compute field.
+     * @param ignoreRef The ignore map array reference checking (<code>true</code> to ignore references).
+     * @param width The map width in tile.
+     * @param height The map height in tile.
+     * @param goal The destination tile index.
+     */
+    FlowField(FlowFieldService service, Pathfindable mover, boolean ignoreRef, int width, int height, int goal)
+    {
+        super();
+
+        this.service = service;
+        this.mover = mover;
+        this.ignoreRef = ignoreRef;
+        this.width = width;
+        this.goal = goal;
+        costs = new double[width * height];
+        next = new int[width * height];
+    }
+
+    /**
+     * Reset field, all tiles are unreachable.
+     */
+    void reset()
+    {
+        Arrays.fill(costs, UNREACHABLE);
+        Arrays.fill(next, PathFinderImpl.NONE);
+        dirty.clear();
+        version++;
+    }
+
+    /**
+     * Mark tile as changed.
+     * 
+     * @param index The tile index.
+     */
+    void invalidate(int index)
+    {
+        dirty.set(index);
+    }
+
+    /**
+     * Mark field as repaired.
+     */
+    void repaired()
+    {
+        dirty.clear();
+        version++;
+    }
+
+    /**
+     * Get the mover used to compute field.
+     * 
+     * @return The mover reference.
+     */
+    Pathfindable getMover()
+    {
+        return mover;
+    }
+
+    /**
+     * Check if map references are ignored.
+     * 
+     * @return <code>true</code> if references ignored, <code>false</code> else.
+     */
+    boolean isIgnoreRef()
+    {
+        return ignoreRef;
+    }
+
+    /**
+     * Get the destination tile index.
+     * 
+     * @return The destination tile index.
+     */
+    int getGoal()
+    {
+        return goal;
+    }
+
+    /**
+     * Get the field version. It changes each time field is updated, so followers can detect that their path has to
+     * be read again.
+     * 
+     * @return The field version.
+     */
+    public int getVersion()
+    {
+        service.refresh(this);
+        return version;
+    }
+
+    /**
+     * Get the horizontal destination.
+     * 
+     * @return The horizontal destination tile.
+     */
+    public int getDestinationX()
+    {
+        return goal % width;
+    }
+
+    /**
+     * Get the vertical destination.
+     * 
+     * @return The vertical destination tile.
+     */
+    public int getDestinationY()
+    {
+        return goal / width;
+    }
+
+    /**
+     * Check if destination can be reached from location.
+     * 
+     * @param tx The horizontal tile index.
+     * @param ty The vertical tile index.
+     * @return <code>true</code> if reachable, <code>false</code> else.
+     */
+    public boolean isReachable(int tx, int ty)
+    {
+        return getCost(tx, ty) < UNREACHABLE;
+    }
+
+    /**
+     * Get the cost to reach destination from location.
+     * 
+     * @param tx The horizontal tile index.
+     * @param ty The vertical tile index.
+     * @return The cost to destination, {@link Double#POSITIVE_INFINITY} if unreachable.
+     */
+    public double getCost(int tx, int ty)
+    {
+        service.refresh(this);
+        return costs[ty * width + tx];
+    }
+
+    /**
+     * Get the next step toward destination.
+     * 
+     * @param tx The horizontal tile index.
+     * @param ty The vertical tile index.
+     * @return The next tile, <code>null</code> if unreachable or already on destination.
+     */
+    public CoordTile getNext(int tx, int ty)
+    {
+        service.refresh(this);
+        final int index = next[ty * width + tx];
+        if (index == PathFinderImpl.NONE)
+        {
+            return null;
+        }
+        return new CoordTile(index % width, index / width);
+    }
+
+    /**
+     * Read the path from location to destination by following the field.
+     * 
+     * @param tx The horizontal tile index.
+     * @param ty The vertical tile index.
+     * @return The path, starting at location, <code>null</code> if unreachable or already on destination.
+     */
+    public Path getPath(int tx, int ty)
+    {
+        service.refresh(this);
+        final int start = ty * width + tx;
+        if (next[start] == PathFinderImpl.NONE)
+        {
+            return null;
+        }
+
+        int count = 1;
+        for (int current = start; current != goal; current = next[current])
+        {
+            count++;
+        }
+        final Path path = new Path(count);
+        for (int current = start; current != PathFinderImpl.NONE; current = next[current])
+        {
+            path.appendStep(current % width, current / width);
+        }
+        return path;
+    }
+}
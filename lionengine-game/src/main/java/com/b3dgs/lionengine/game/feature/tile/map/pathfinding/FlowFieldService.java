@@ -0,0 +1,670 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.game.feature.Services;
+import com.b3dgs.lionengine.game.feature.tile.Tile;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+import com.b3dgs.lionengine.game.feature.tile.map.TileSetListener;
+
+/**
+ * Flow field service, suited for large groups moving to the same destination.
+ * <p>
+ * A single {@link FlowField} is computed from destination for all movers sharing the same profile (same categories
+ * costs, blocking and allowed movements), instead of one search per mover. Fields are cached by destination and
+ * profile, the least recently used ones are dropped when cache is full.
+ * </p>
+ * <p>
+ * Fields listen to {@link MapTile#setTile(Tile)} and, when references are not ignored, to
+ * {@link MapTilePath#addObjectId(int, int, Integer)} and {@link MapTilePath#removeObjectId(int, int, Integer)}.
+ * Changed tiles are repaired on next field access: only the tiles whose direction passed through a changed tile are
+ * computed again. A dropped field is not updated anymore.
+ * </p>
+ * <p>
+ * The {@link Services} must provide the following services:
+ * </p>
+ * <ul>
+ * <li>{@link MapTile}</li>
+ * </ul>
+ * 
+ * @see Pathfindable#setDestination(FlowField)
+ */
+public class FlowFieldService implements TileSetListener, MapTilePathListener
+{
+    /** Default number of cached fields. */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /** Cached fields by destination and profile. */
+    private final Map<FieldKey, FlowField> fields;
+    /** Map reference. */
+    private final MapTile map;
+    /** Map path reference. */
+    private final MapTilePath mapPath;
+    /** Mover profiles. */
+    private final PathProfile.Cache profiles;
+    /** Map data. */
+    private final PathGrid grid;
+    /** Map width in tile. */
+    private final int width;
+    /** Map height in tile. */
+    private final int height;
+    /** Position in heap per tile, {@link PathFinderImpl#NONE} if not in heap. */
+    private final int[] positions;
+    /** Open list binary heap of tile indexes. */
+    private final int[] heap;
+    /** Generation where tile has been marked for repair. */
+    private final int[] marks;
+    /** Tiles to repair. */
+    private final int[] affected;
+    /** Pass where tile data have been read. */
+    private final int[] reads;
+    /** Tile category, read once per pass. */
+    private final String[] categories;
+    /** Tile cost, read once per pass if needed ({@link Double#NaN} if not read). */
+    private final double[] steps;
+    /** Tile passable state, read once per pass if needed (<code>null</code> if not read). */
+    private final Boolean[] passables;
+    /** Field being computed. */
+    private FlowField field;
+    /** Current heap size. */
+    private int heapSize;
+    /** Current repair generation. */
+    private int generation;
+    /** Current computation or repair pass. */
+    private int pass;
+
+    /**
+     * Create service with default capacity.
+     * 
+     * @param services The services reference.
+     * @throws LionEngineException If missing {@link Services}.
+     */
+    public FlowFieldService(Services services)
+    {
+        this(services, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create service.
+     * 
+     * @param services The services reference.
+     * @param capacity The maximum number of cached fields (strictly positive).
+     * @throws LionEngineException If missing {@link Services} or invalid capacity.
+     */
+    public FlowFieldService(Services services, int capacity)
+    {
+        super();
+
+        Check.superiorStrict(capacity, 0);
+
+        map = services.get(MapTile.class);
+        mapPath = map.getFeature(MapTilePath.class);
+        profiles = new PathProfile.Cache(mapPath);
+        grid = new PathFinderImpl.MapGrid(map);
+        width = map.getInTileWidth();
+        height = map.getInTileHeight();
+        positions = new int[width * height];
+        heap = new int[width * height];
+        marks = new int[width * height];
+        affected = new int[width * height];
+        reads = new int[width * height];
+        categories = new String[width * height];
+        steps = new double[width * height];
+        passables = new Boolean[width * height];
+        Arrays.fill(positions, PathFinderImpl.NONE);
+        fields = new LinkedHashMap<FieldKey, FlowField>(capacity, 0.75F, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FieldKey, FlowField> eldest)
+            {
+                return size() > capacity;
+            }
+        };
+
+        map.addListener(this);
+        mapPath.addListener(this);
+    }
+
+    /**
+     * Get the flow field to destination for the mover profile. Field is computed if not cached.
+     * <p>
+     * If destination is blocking, the closest available tile around it is used instead.
+     * </p>
+     * 
+     * @param mover The mover reference.
+     * @param dtx The horizontal destination tile.
+     * @param dty The vertical destination tile.
+     * @param ignoreRef The ignore map array reference checking (<code>true</code> to ignore references).
+     * @return The flow field, <code>null</code> if no destination available.
+     */
+    public FlowField get(Pathfindable mover, int dtx, int dty, boolean ignoreRef)
+    {
+        int tx = dtx;
+        int ty = dty;
+        if (mapPath.isBlocked(mover, dtx, dty, true))
+        {
+            final CoordTile tile = mapPath.getClosestAvailableTile(mover, dtx, dty, dtx, dty, map.getInTileRadius());
+            if (tile == null)
+            {
+                return null;
+            }
+            tx = tile.getX();
+            ty = tile.getY();
+        }
+
+        final int goal = ty * width + tx;
+        final FieldKey key = new FieldKey(profiles.get(mover, ignoreRef), goal);
+        FlowField flow = fields.get(key);
+        if (flow == null)
+        {
+            flow = new FlowField(this, mover, ignoreRef, width, height, goal);
+            compute(flow);
+            fields.put(key, flow);
+        }
+        else
+        {
+            refresh(flow);
+        }
+        return flow;
+    }
+
+    /**
+     * Remove all cached fields.
+     */
+    public void clear()
+    {
+        fields.clear();
+    }
+
+    /**
+     * Repair field changed tiles if needed.
+     * 
+     * @param flow The field to repair.
+     */
+    void refresh(FlowField flow)
+    {
+        if (!flow.dirty.isEmpty())
+        {
+            repair(flow);
+        }
+    }
+
+    /**
+     * Compute the whole field from destination.
+     * 
+     * @param flow The field to compute.
+     */
+    private void compute(FlowField flow)
+    {
+        field = flow;
+        nextPass();
+        flow.reset();
+        heapSize = 0;
+        flow.costs[flow.getGoal()] = 0.0;
+        push(flow.getGoal());
+        propagate();
+        field = null;
+    }
+
+    /**
+     * Repair field changed tiles.
+     * <p>
+     * Changed tiles and tiles whose direction pass through them are reset, then they are seeded from their unchanged
+     * neighbors, and costs are propagated again. Propagation also updates unchanged tiles which can now be reached with
+     * a lower cost.
+     * </p>
+     * 
+     * @param flow The field to repair.
+     */
+    private void repair(FlowField flow)
+    {
+        field = flow;
+        heapSize = 0;
+        nextPass();
+        nextGeneration();
+
+        int count = 0;
+        for (int index = flow.dirty.nextSetBit(0); index >= 0; index = flow.dirty.nextSetBit(index + 1))
+        {
+            if (marks[index] != generation)
+            {
+                marks[index] = generation;
+                affected[count] = index;
+                count = markFollowers(flow, count + 1);
+            }
+        }
+        for (int i = 0; i < count; i++)
+        {
+            flow.costs[affected[i]] = FlowField.UNREACHABLE;
+            flow.next[affected[i]] = PathFinderImpl.NONE;
+        }
+        for (int i = 0; i < count; i++)
+        {
+            seed(affected[i]);
+        }
+        propagate();
+        flow.repaired();
+        field = null;
+    }
+
+    /**
+     * Mark all tiles whose direction pass through the last marked tiles.
+     * 
+     * @param flow The field reference.
+     * @param count The number of marked tiles.
+     * @return The new number of marked tiles.
+     */
+    private int markFollowers(FlowField flow, int count)
+    {
+        int total = count;
+        for (int i = count - 1; i < total; i++)
+        {
+            final int current = affected[i];
+            final int cx = current % width;
+            final int cy = current / width;
+            for (int y = Math.max(0, cy - 1); y <= Math.min(height - 1, cy + 1); y++)
+            {
+                for (int x = Math.max(0, cx - 1); x <= Math.min(width - 1, cx + 1); x++)
+                {
+                    final int index = y * width + x;
+                    if (marks[index] != generation && flow.next[index] == current)
+                    {
+                        marks[index] = generation;
+                        affected[total] = index;
+                        total++;
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Seed a reset tile from its unchanged neighbors, and add it to open list if it can be passed through.
+     * 
+     * @param index The tile index.
+     */
+    private void seed(int index)
+    {
+        if (index == field.getGoal())
+        {
+            field.costs[index] = 0.0;
+        }
+        else
+        {
+            final int cx = index % width;
+            final int cy = index / width;
+            for (int y = Math.max(0, cy - 1); y <= Math.min(height - 1, cy + 1); y++)
+            {
+                for (int x = Math.max(0, cx - 1); x <= Math.min(width - 1, cx + 1); x++)
+                {
+                    final int neighbor = y * width + x;
+                    if (marks[neighbor] != generation && isPassable(neighbor))
+                    {
+                        relax(index, neighbor);
+                    }
+                }
+            }
+        }
+        if (field.costs[index] < FlowField.UNREACHABLE && isPassable(index))
+        {
+            push(index);
+        }
+    }
+
+    /**
+     * Propagate costs from open list until empty.
+     */
+    private void propagate()
+    {
+        while (heapSize > 0)
+        {
+            final int current = pop();
+            final int cx = current % width;
+            final int cy = current / width;
+            for (int y = Math.max(0, cy - 1); y <= Math.min(height - 1, cy + 1); y++)
+            {
+                for (int x = Math.max(0, cx - 1); x <= Math.min(width - 1, cx + 1); x++)
+                {
+                    final int neighbor = y * width + x;
+                    if (neighbor != current && relax(neighbor, current) && isPassable(neighbor))
+                    {
+                        update(neighbor);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Update tile cost if moving to target is cheaper than its current direction.
+     * 
+     * @param index The tile index.
+     * @param target The neighbor tile to move to.
+     * @return <code>true</code> if updated, <code>false</code> else.
+     */
+    private boolean relax(int index, int target)
+    {
+        final int x = index % width;
+        final int y = index / width;
+        final Pathfindable mover = field.getMover();
+        boolean updated = false;
+
+        if (mover.isMovementAllowed(getCategory(index), MovementTile.from(target % width - x, target / width - y)))
+        {
+            final double cost = field.costs[target] + getCost(index);
+            if (cost < field.costs[index])
+            {
+                field.costs[index] = cost;
+                field.next[index] = target;
+                updated = true;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Check if tile can be passed through to reach destination.
+     * 
+     * @param index The tile index.
+     * @return <code>true</code> if passable, <code>false</code> else.
+     */
+    private boolean isPassable(int index)
+    {
+        if (index == field.getGoal())
+        {
+            return true;
+        }
+        read(index);
+        if (passables[index] == null)
+        {
+            final boolean blocked = grid.isBlocked(field.getMover(), index % width, index / width, field.isIgnoreRef());
+            passables[index] = Boolean.valueOf(!blocked);
+        }
+        return passables[index].booleanValue();
+    }
+
+    /**
+     * Get the tile category.
+     * 
+     * @param index The tile index.
+     * @return The tile category.
+     */
+    private String getCategory(int index)
+    {
+        read(index);
+        return categories[index];
+    }
+
+    /**
+     * Get the tile cost for the field mover.
+     * 
+     * @param index The tile index.
+     * @return The tile cost.
+     */
+    private double getCost(int index)
+    {
+        read(index);
+        if (Double.isNaN(steps[index]))
+        {
+            steps[index] = grid.getCost(field.getMover(), index % width, index / width);
+        }
+        return steps[index];
+    }
+
+    /**
+     * Read tile category once per pass, as each tile is checked from all its neighbors.
+     * 
+     * @param index The tile index.
+     */
+    private void read(int index)
+    {
+        if (reads[index] != pass)
+        {
+            reads[index] = pass;
+            categories[index] = grid.getCategory(index % width, index / width);
+            steps[index] = Double.NaN;
+            passables[index] = null;
+        }
+    }
+
+    /**
+     * Start a new computation or repair pass. Tiles data are reset only when pass counter overflows.
+     */
+    private void nextPass()
+    {
+        pass++;
+        if (pass == Integer.MAX_VALUE)
+        {
+            Arrays.fill(reads, 0);
+            pass = 1;
+        }
+    }
+
+    /**
+     * Start a new repair generation. Marks are reset only when generation counter overflows.
+     */
+    private void nextGeneration()
+    {
+        generation++;
+        if (generation == Integer.MAX_VALUE)
+        {
+            Arrays.fill(marks, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Add tile to open list, or move it up if already in.
+     * 
+     * @param index The tile index.
+     */
+    private void update(int index)
+    {
+        if (positions[index] == PathFinderImpl.NONE)
+        {
+            push(index);
+        }
+        else
+        {
+            siftUp(positions[index]);
+        }
+    }
+
+    /**
+     * Add tile to open list.
+     * 
+     * @param index The tile index.
+     */
+    private void push(int index)
+    {
+        heap[heapSize] = index;
+        positions[index] = heapSize;
+        heapSize++;
+        siftUp(heapSize - 1);
+    }
+
+    /**
+     * Remove the lowest cost tile from open list.
+     * 
+     * @return The removed tile index.
+     */
+    private int pop()
+    {
+        final int first = heap[0];
+        positions[first] = PathFinderImpl.NONE;
+        heapSize--;
+        if (heapSize > 0)
+        {
+            heap[0] = heap[heapSize];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return first;
+    }
+
+    /**
+     * Move heap element up until heap order is restored.
+     * 
+     * @param position The heap position.
+     */
+    private void siftUp(int position)
+    {
+        final double[] costs = field.costs;
+        final int index = heap[position];
+        final double cost = costs[index];
+        int child = position;
+        while (child > 0 && cost < costs[heap[(child - 1) >> 1]])
+        {
+            final int parent = (child - 1) >> 1;
+            heap[child] = heap[parent];
+            positions[heap[child]] = child;
+            child = parent;
+        }
+        heap[child] = index;
+        positions[index] = child;
+    }
+
+    /**
+     * Move heap element down until heap order is restored.
+     * 
+     * @param position The heap position.
+     */
+    private void siftDown(int position)
+    {
+        final double[] costs = field.costs;
+        final int index = heap[position];
+        final double cost = costs[index];
+        final int half = heapSize >> 1;
+        int parent = position;
+        boolean sorted = false;
+        while (parent < half && !sorted)
+        {
+            int child = (parent << 1) + 1;
+            if (child + 1 < heapSize && costs[heap[child + 1]] < costs[heap[child]])
+            {
+                child++;
+            }
+            if (costs[heap[child]] < cost)
+            {
+                heap[parent] = heap[child];
+                positions[heap[parent]] = parent;
+                parent = child;
+            }
+            else
+            {
+                sorted = true;
+            }
+        }
+        heap[parent] = index;
+        positions[index] = parent;
+    }
+
+    /*
+     * TileSetListener
+     */
+
+    @Override
+    public void onTileSet(Tile tile)
+    {
+        final int index = tile.getInTileY() * width + tile.getInTileX();
+        for (final FlowField flow : fields.values())
+        {
+            flow.invalidate(index);
+        }
+    }
+
+    /*
+     * MapTilePathListener
+     */
+
+    @Override
+    public void notifyObjectsIdChanged(int tx, int ty)
+    {
+        final int index = ty * width + tx;
+        for (final FlowField flow : fields.values())
+        {
+            if (!flow.isIgnoreRef())
+            {
+                flow.invalidate(index);
+            }
+        }
+    }
+
+    /**
+     * Cached field key, by mover profile and destination.
+     */
+    private static final class FieldKey
+    {
+        /** Mover profile. */
+        private final PathProfile profile;
+        /** Destination index. */
+        private final int goal;
+
+        /**
+         * Create key.
+         * 
+         * @param profile The mover profile.
+         * @param goal The destination index.
+         */
+        FieldKey(PathProfile profile, int goal)
+        {
+            super();
+
+            this.profile = profile;
+            this.goal = goal;
+        }
+
+        /*
+         * Object
+         */
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + goal;
+            result = prime * result + profile.hashCode();
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final FieldKey other = (FieldKey) obj;
+            return other.goal == goal && other.profile.equals(profile);
+        }
+    }
+}
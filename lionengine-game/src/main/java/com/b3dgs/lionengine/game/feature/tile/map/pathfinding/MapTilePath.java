@@ -36,6 +36,20 @@ public interface MapTilePath extends Feature
      */
     void loadPathfinding(Media pathfindingConfig);
 
+    /**
+     * Add a listener notified on path data changes.
+     * 
+     * @param listener The listener to add.
+     */
+    void addListener(MapTilePathListener listener);
+
+    /**
+     * Remove a listener.
+     * 
+     * @param listener The listener to remove.
+     */
+    void removeListener(MapTilePathListener listener);
+
     /**
      * Add object ID at this location.
      * 
@@ -17,6 +17,7 @@
  */
 package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -41,6 +42,8 @@ public class MapTilePathModel extends FeatureModel implements MapTilePath
 {
     /** Categories list. */
     private final Map<String, PathCategory> categories = new HashMap<>();
+    /** Listeners. */
+    private final Collection<MapTilePathListener> listeners = new ArrayList<>();
     /** Map reference. */
     private final MapTile map;
     /** Map group reference. */
@@ -230,6 +233,18 @@ public class MapTilePathModel extends FeatureModel implements MapTilePath
         }
     }
 
+    @Override
+    public void addListener(MapTilePathListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(MapTilePathListener listener)
+    {
+        listeners.remove(listener);
+    }
+
     @Override
     public void addObjectId(int tx, int ty, Integer id)
     {
@@ -238,6 +253,10 @@ public class MapTilePathModel extends FeatureModel implements MapTilePath
         {
             final TilePath tilePath = tile.getFeature(TilePath.class);
             tilePath.addObjectId(id);
+            for (final MapTilePathListener listener : listeners)
+            {
+                listener.notifyObjectsIdChanged(tx, ty);
+            }
         }
     }
 
@@ -249,6 +268,10 @@ public class MapTilePathModel extends FeatureModel implements MapTilePath
         {
             final TilePath tilePath = tile.getFeature(TilePath.class);
             tilePath.removeObjectId(id);
+            for (final MapTilePathListener listener : listeners)
+            {
+                listener.notifyObjectsIdChanged(tx, ty);
+            }
         }
     }
 
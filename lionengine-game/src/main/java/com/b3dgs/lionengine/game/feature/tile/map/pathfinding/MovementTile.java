@@ -44,6 +44,9 @@ public enum MovementTile implements Nameable
     /** No movement. */
     NONE(0, 0);
 
+    /** Movements cache, as {@link #values()} creates a copy on each call. */
+    private static final MovementTile[] VALUES = values();
+
     /** Horizontal movement side. */
     private final int sx;
     /** Vertical movement side. */
@@ -82,7 +85,7 @@ public enum MovementTile implements Nameable
      */
     public static MovementTile from(int sx, int sy)
     {
-        for (final MovementTile movement : values())
+        for (final MovementTile movement : VALUES)
         {
             if (movement.is(sx, sy))
             {
@@ -27,7 +27,7 @@ import java.util.List;
 public final class Path
 {
     /** List of steps. */
-    private final List<Step> steps = new ArrayList<>();
+    private final List<Step> steps;
 
     /**
      * Constructor.
@@ -35,6 +35,20 @@ public final class Path
     public Path()
     {
         super();
+
+        steps = new ArrayList<>();
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity The expected number of steps.
+     */
+    public Path(int capacity)
+    {
+        super();
+
+        steps = new ArrayList<>(capacity);
     }
 
     /**
@@ -48,6 +62,17 @@ public final class Path
         steps.add(0, new Step(x, y));
     }
 
+    /**
+     * Append a step to the path.
+     * 
+     * @param x The x coordinate of the new step.
+     * @param y The y coordinate of the new step.
+     */
+    public void appendStep(int x, int y)
+    {
+        steps.add(new Step(x, y));
+    }
+
     /**
      * Get the length of the path, i.e. the number of steps.
      * 
@@ -0,0 +1,811 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.game.feature.tile.Tile;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+import com.b3dgs.lionengine.game.feature.tile.map.TileSetListener;
+
+/**
+ * A hierarchical path finder implementation (HPA*).
+ * <p>
+ * Map is partitioned in square clusters. Entrances are placed on walkable cluster borders, and costs between entrances
+ * of a same cluster are computed with searches bounded to the cluster. A search connects start and destination to the
+ * entrances of their cluster, searches the abstract entrances graph, then refines each abstract step with a search
+ * bounded to its cluster.
+ * </p>
+ * <p>
+ * A graph is built lazily for each mover profile (categories blocking, cost and movements) and reference checking
+ * mode. {@link MapTile#setTile(Tile)} and {@link MapTilePath#addObjectId(int, int, Integer)} only invalidate the
+ * clusters containing the changed tile, which are rebuilt on next search.
+ * </p>
+ */
+final class PathFinderHierarchical implements PathFinder, TileSetListener, MapTilePathListener
+{
+    /** Default cluster size in tile. */
+    static final int DEFAULT_CLUSTER = 16;
+    /** Minimum entrance width where two transitions are placed instead of one. */
+    private static final int ENTRANCE_SPLIT = 6;
+
+    /** Graphs by mover profile. */
+    private final Map<PathProfile, Graph> graphs = new HashMap<>();
+    /** Abstract open list. */
+    private final PriorityQueue<Entrance> open = new PriorityQueue<>((a, b) -> Double.compare(a.score, b.score));
+    /** Abstract path found. */
+    private final List<Entrance> abstractPath = new ArrayList<>();
+    /** Entrances with a temporary edge to destination. */
+    private final List<Entrance> temporary = new ArrayList<>();
+    /** Map reference. */
+    private final MapTile map;
+    /** Map path reference. */
+    private final MapTilePath mapPath;
+    /** Mover profiles. */
+    private final PathProfile.Cache profiles;
+    /** Cluster bounded path finder. */
+    private final PathFinderImpl local;
+    /** Heuristic used. */
+    private final Heuristic heuristic;
+    /** Cluster size in tile. */
+    private final int size;
+    /** Number of horizontal clusters. */
+    private final int clustersX;
+    /** Number of vertical clusters. */
+    private final int clustersY;
+    /** Abstract search generation. */
+    private int generation;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param map The map to be searched. Must have the {@link MapTilePath} feature.
+     * @param size The cluster size in tile (must be superior or equal to 2).
+     * @param heuristic The heuristic used to determine the search order of the map.
+     * @throws LionEngineException If invalid arguments.
+     */
+    PathFinderHierarchical(MapTile map, int size, Heuristic heuristic)
+    {
+        super();
+
+        Check.superiorOrEqual(size, 2);
+
+        this.map = map;
+        this.size = size;
+        this.heuristic = heuristic;
+        mapPath = map.getFeature(MapTilePath.class);
+        profiles = new PathProfile.Cache(mapPath);
+        local = new PathFinderImpl(map, size * size, heuristic);
+        clustersX = (map.getInTileWidth() + size - 1) / size;
+        clustersY = (map.getInTileHeight() + size - 1) / size;
+
+        map.addListener(this);
+        mapPath.addListener(this);
+    }
+
+    /**
+     * Get the cluster index of a tile.
+     * 
+     * @param tx The horizontal tile index.
+     * @param ty The vertical tile index.
+     * @return The cluster index.
+     */
+    private int getCluster(int tx, int ty)
+    {
+        return ty / size * clustersX + tx / size;
+    }
+
+    /**
+     * Bound local search to a cluster.
+     * 
+     * @param cluster The cluster index.
+     */
+    private void setBounds(int cluster)
+    {
+        final int x = cluster % clustersX * size;
+        final int y = cluster / clustersX * size;
+        local.setBounds(x, y, x + size - 1, y + size - 1);
+    }
+
+    /**
+     * Search a path bounded to a cluster.
+     * 
+     * @param mover The mover reference.
+     * @param stx The x coordinate of the start location.
+     * @param sty The y coordinate of the start location.
+     * @param dtx The x coordinate of the destination location.
+     * @param dty The y coordinate of the destination location.
+     * @param cluster The cluster index.
+     * @param ignoreRef The ignore map array reference checking.
+     * @return <code>true</code> if found, <code>false</code> else.
+     */
+    private boolean searchLocal(Pathfindable mover, int stx, int sty, int dtx, int dty, int cluster, boolean ignoreRef)
+    {
+        setBounds(cluster);
+        return local.search(mover, stx, sty, dtx, dty, ignoreRef);
+    }
+
+    /**
+     * Find a path bounded to a cluster, with a single search.
+     * 
+     * @param mover The mover reference.
+     * @param stx The x coordinate of the start location.
+     * @param sty The y coordinate of the start location.
+     * @param dtx The x coordinate of the destination location.
+     * @param dty The y coordinate of the destination location.
+     * @param cluster The cluster index.
+     * @param ignoreRef The ignore map array reference checking.
+     * @return The path found, <code>null</code> if none.
+     */
+    private Path findLocal(Pathfindable mover, int stx, int sty, int dtx, int dty, int cluster, boolean ignoreRef)
+    {
+        setBounds(cluster);
+        return local.findPath(mover, stx, sty, dtx, dty, ignoreRef);
+    }
+
+    /**
+     * Get the cost between two tiles of a same cluster.
+     * 
+     * @param mover The mover reference.
+     * @param from The starting entrance.
+     * @param to The ending entrance.
+     * @param ignoreRef The ignore map array reference checking.
+     * @return The cost, negative if no path.
+     */
+    private double getCost(Pathfindable mover, Entrance from, Entrance to, boolean ignoreRef)
+    {
+        double cost = -1.0;
+        if (from.tx == to.tx && from.ty == to.ty)
+        {
+            cost = 0.0;
+        }
+        else if (searchLocal(mover, from.tx, from.ty, to.tx, to.ty, from.cluster, ignoreRef))
+        {
+            cost = local.getLastCost();
+        }
+        return cost;
+    }
+
+    /**
+     * Get the graph of the mover profile, updated with current map.
+     * 
+     * @param mover The mover reference.
+     * @param ignoreRef The ignore map array reference checking.
+     * @return The graph.
+     */
+    private Graph getGraph(Pathfindable mover, boolean ignoreRef)
+    {
+        final PathProfile profile = profiles.get(mover, ignoreRef);
+        Graph graph = graphs.get(profile);
+        if (graph == null)
+        {
+            graph = new Graph(ignoreRef);
+            graphs.put(profile, graph);
+        }
+        graph.refresh(mover);
+        return graph;
+    }
+
+    /**
+     * Search path with abstract graph.
+     * 
+     * @param mover The mover reference.
+     * @param stx The x coordinate of the start location.
+     * @param sty The y coordinate of the start location.
+     * @param dtx The x coordinate of the destination location.
+     * @param dty The y coordinate of the destination location.
+     * @param ignoreRef The ignore map array reference checking.
+     * @return The path found, <code>null</code> if none.
+     */
+    private Path searchHierarchical(Pathfindable mover, int stx, int sty, int dtx, int dty, boolean ignoreRef)
+    {
+        final Graph graph = getGraph(mover, ignoreRef);
+        final Entrance start = new Entrance(stx, sty, getCluster(stx, sty), -1);
+        final Entrance goal = new Entrance(dtx, dty, getCluster(dtx, dty), -1);
+
+        for (final Entrance entrance : graph.getEntrances(start.cluster))
+        {
+            final double cost = getCost(mover, start, entrance, ignoreRef);
+            if (cost >= 0.0)
+            {
+                start.edges.add(new Edge(entrance, cost, false));
+            }
+        }
+        for (final Entrance entrance : graph.getEntrances(goal.cluster))
+        {
+            final double cost = getCost(mover, entrance, goal, ignoreRef);
+            if (cost >= 0.0)
+            {
+                entrance.edges.add(new Edge(goal, cost, false));
+                temporary.add(entrance);
+            }
+        }
+
+        final boolean found = searchAbstract(start, goal);
+
+        for (final Entrance entrance : temporary)
+        {
+            entrance.edges.remove(entrance.edges.size() - 1);
+        }
+        temporary.clear();
+
+        Path path = null;
+        if (found)
+        {
+            path = refine(mover, ignoreRef);
+        }
+        abstractPath.clear();
+        return path;
+    }
+
+    /**
+     * Search the abstract graph, and store abstract path if found.
+     * 
+     * @param start The start entrance.
+     * @param goal The goal entrance.
+     * @return <code>true</code> if found, <code>false</code> else.
+     */
+    private boolean searchAbstract(Entrance start, Entrance goal)
+    {
+        generation++;
+        open.clear();
+        start.set(generation, null, 0.0, heuristic.getCost(start.tx, start.ty, goal.tx, goal.ty));
+        open.add(start);
+
+        boolean found = false;
+        while (!found && !open.isEmpty())
+        {
+            final Entrance current = open.poll();
+            if (current == goal)
+            {
+                found = true;
+            }
+            else if (!current.closed)
+            {
+                current.closed = true;
+                for (final Edge edge : current.edges)
+                {
+                    final Entrance next = edge.target;
+                    final double cost = current.cost + edge.cost;
+                    if (next.generation != generation || cost < next.cost)
+                    {
+                        next.set(generation, current, cost, heuristic.getCost(next.tx, next.ty, goal.tx, goal.ty));
+                        open.add(next);
+                    }
+                }
+            }
+        }
+        if (found)
+        {
+            Entrance current = goal;
+            while (current != null)
+            {
+                abstractPath.add(current);
+                current = current.parent;
+            }
+            Collections.reverse(abstractPath);
+        }
+        return found;
+    }
+
+    /**
+     * Refine abstract path into a tile path.
+     * 
+     * @param mover The mover reference.
+     * @param ignoreRef The ignore map array reference checking.
+     * @return The path, <code>null</code> if unable to refine.
+     */
+    private Path refine(Pathfindable mover, boolean ignoreRef)
+    {
+        Entrance previous = abstractPath.get(0);
+        final Path path = new Path();
+        path.appendStep(previous.tx, previous.ty);
+
+        boolean valid = true;
+        for (int i = 1; i < abstractPath.size() && valid; i++)
+        {
+            final Entrance next = abstractPath.get(i);
+            if (previous.cluster != next.cluster)
+            {
+                path.appendStep(next.tx, next.ty);
+            }
+            else if (previous.tx != next.tx || previous.ty != next.ty)
+            {
+                final Path segment = findLocal(mover,
+                                               previous.tx,
+                                               previous.ty,
+                                               next.tx,
+                                               next.ty,
+                                               previous.cluster,
+                                               ignoreRef);
+                valid = segment != null;
+                if (valid)
+                {
+                    for (int j = 1; j < segment.getLength(); j++)
+                    {
+                        path.appendStep(segment.getX(j), segment.getY(j));
+                    }
+                }
+            }
+            previous = next;
+        }
+        if (valid)
+        {
+            return path;
+        }
+        return null;
+    }
+
+    /**
+     * Invalidate graphs at location.
+     * 
+     * @param tx The horizontal tile index.
+     * @param ty The vertical tile index.
+     * @param objects <code>true</code> if objects id changed, <code>false</code> if tile changed.
+     */
+    private void invalidate(int tx, int ty, boolean objects)
+    {
+        for (final Graph graph : graphs.values())
+        {
+            if (!objects || !graph.ignoreRef)
+            {
+                graph.invalidate(tx, ty);
+            }
+        }
+    }
+
+    /*
+     * PathFinder
+     */
+
+    @Override
+    public Path findPath(Pathfindable mover, int dtx, int dty, boolean ignoreRef)
+    {
+        final int stx = mover.getInTileX();
+        final int sty = mover.getInTileY();
+        final int destination = local.getDestination(mover, stx, sty, dtx, dty, ignoreRef);
+
+        Path path = null;
+        if (destination != PathFinderImpl.NONE)
+        {
+            final int gx = destination % map.getInTileWidth();
+            final int gy = destination / map.getInTileWidth();
+            final int cluster = getCluster(stx, sty);
+            if (cluster == getCluster(gx, gy))
+            {
+                path = findLocal(mover, stx, sty, gx, gy, cluster, ignoreRef);
+            }
+            if (path == null && (stx != gx || sty != gy))
+            {
+                path = searchHierarchical(mover, stx, sty, gx, gy, ignoreRef);
+            }
+        }
+        return path;
+    }
+
+    /*
+     * TileSetListener
+     */
+
+    @Override
+    public void onTileSet(Tile tile)
+    {
+        invalidate(tile.getInTileX(), tile.getInTileY(), false);
+    }
+
+    /*
+     * MapTilePathListener
+     */
+
+    @Override
+    public void notifyObjectsIdChanged(int tx, int ty)
+    {
+        invalidate(tx, ty, true);
+    }
+
+    /**
+     * Abstract graph of a mover profile.
+     */
+    private final class Graph
+    {
+        /** Entrances per cluster. */
+        private final List<List<Entrance>> entrances = new ArrayList<>();
+        /** Dirty clusters, where entrances costs must be computed. */
+        private final boolean[] clusters;
+        /** Dirty borders, two per cluster (next horizontal, next vertical). */
+        private final boolean[] borders;
+        /** Ignore map array reference checking. */
+        private final boolean ignoreRef;
+
+        /**
+         * Create graph. All clusters are dirty.
+         * 
+         * @param ignoreRef The ignore map array reference checking.
+         */
+        Graph(boolean ignoreRef)
+        {
+            super();
+
+            this.ignoreRef = ignoreRef;
+            clusters = new boolean[clustersX * clustersY];
+            borders = new boolean[clusters.length * 2];
+            for (int i = 0; i < clusters.length; i++)
+            {
+                entrances.add(new ArrayList<>());
+                clusters[i] = true;
+                borders[i * 2] = true;
+                borders[i * 2 + 1] = true;
+            }
+        }
+
+        /**
+         * Get the cluster entrances.
+         * 
+         * @param cluster The cluster index.
+         * @return The cluster entrances.
+         */
+        List<Entrance> getEntrances(int cluster)
+        {
+            return entrances.get(cluster);
+        }
+
+        /**
+         * Invalidate cluster at location, and its borders if location is on it.
+         * 
+         * @param tx The horizontal tile index.
+         * @param ty The vertical tile index.
+         */
+        void invalidate(int tx, int ty)
+        {
+            final int cx = tx / size;
+            final int cy = ty / size;
+            final int cluster = cy * clustersX + cx;
+            clusters[cluster] = true;
+
+            if (tx % size == size - 1)
+            {
+                borders[cluster * 2] = true;
+            }
+            if (cx > 0 && tx % size == 0)
+            {
+                borders[(cluster - 1) * 2] = true;
+            }
+            if (ty % size == size - 1)
+            {
+                borders[cluster * 2 + 1] = true;
+            }
+            if (cy > 0 && ty % size == 0)
+            {
+                borders[(cluster - clustersX) * 2 + 1] = true;
+            }
+        }
+
+        /**
+         * Rebuild dirty borders and clusters.
+         * 
+         * @param mover The mover reference.
+         */
+        void refresh(Pathfindable mover)
+        {
+            for (int border = 0; border < borders.length; border++)
+            {
+                if (borders[border])
+                {
+                    borders[border] = false;
+                    buildBorder(mover, border);
+                }
+            }
+            for (int cluster = 0; cluster < clusters.length; cluster++)
+            {
+                if (clusters[cluster])
+                {
+                    clusters[cluster] = false;
+                    buildCluster(mover, cluster);
+                }
+            }
+        }
+
+        /**
+         * Build border entrances, between a cluster and its next one.
+         * 
+         * @param mover The mover reference.
+         * @param border The border index.
+         */
+        private void buildBorder(Pathfindable mover, int border)
+        {
+            final int cluster = border / 2;
+            final boolean horizontal = border % 2 == 0;
+            final int cx = cluster % clustersX;
+            final int cy = cluster / clustersX;
+
+            if (horizontal && cx + 1 < clustersX || !horizontal && cy + 1 < clustersY)
+            {
+                final int next;
+                if (horizontal)
+                {
+                    next = cluster + 1;
+                }
+                else
+                {
+                    next = cluster + clustersX;
+                }
+                entrances.get(cluster).removeIf(entrance -> entrance.border == border);
+                entrances.get(next).removeIf(entrance -> entrance.border == border);
+                clusters[cluster] = true;
+                clusters[next] = true;
+
+                final int ox = cx * size;
+                final int oy = cy * size;
+                final int length;
+                if (horizontal)
+                {
+                    length = Math.min(size, map.getInTileHeight() - oy);
+                }
+                else
+                {
+                    length = Math.min(size, map.getInTileWidth() - ox);
+                }
+
+                int first = -1;
+                for (int i = 0; i <= length; i++)
+                {
+                    final boolean free = i < length && isFree(mover, border, ox, oy, i);
+                    if (free && first < 0)
+                    {
+                        first = i;
+                    }
+                    else if (!free && first >= 0)
+                    {
+                        addEntrances(mover, border, ox, oy, first, i - 1);
+                        first = -1;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Check if both sides of a border are free.
+         * 
+         * @param mover The mover reference.
+         * @param border The border index.
+         * @param ox The cluster horizontal origin.
+         * @param oy The cluster vertical origin.
+         * @param i The offset on border.
+         * @return <code>true</code> if free, <code>false</code> else.
+         */
+        private boolean isFree(Pathfindable mover, int border, int ox, int oy, int i)
+        {
+            final int tx;
+            final int ty;
+            final int dx;
+            final int dy;
+            if (border % 2 == 0)
+            {
+                tx = ox + size - 1;
+                ty = oy + i;
+                dx = 1;
+                dy = 0;
+            }
+            else
+            {
+                tx = ox + i;
+                ty = oy + size - 1;
+                dx = 0;
+                dy = 1;
+            }
+            return !mapPath.isBlocked(mover, tx, ty, ignoreRef) && !mapPath.isBlocked(mover, tx + dx, ty + dy, ignoreRef);
+        }
+
+        /**
+         * Add the transitions of a free border range.
+         * 
+         * @param mover The mover reference.
+         * @param border The border index.
+         * @param ox The cluster horizontal origin.
+         * @param oy The cluster vertical origin.
+         * @param first The first free offset.
+         * @param last The last free offset.
+         */
+        private void addEntrances(Pathfindable mover, int border, int ox, int oy, int first, int last)
+        {
+            if (last - first + 1 >= ENTRANCE_SPLIT)
+            {
+                addTransition(mover, border, ox, oy, first);
+                addTransition(mover, border, ox, oy, last);
+            }
+            else
+            {
+                addTransition(mover, border, ox, oy, (first + last) / 2);
+            }
+        }
+
+        /**
+         * Add a transition, as an entrance on each side of the border.
+         * 
+         * @param mover The mover reference.
+         * @param border The border index.
+         * @param ox The cluster horizontal origin.
+         * @param oy The cluster vertical origin.
+         * @param i The offset on border.
+         */
+        private void addTransition(Pathfindable mover, int border, int ox, int oy, int i)
+        {
+            final int cluster = border / 2;
+            final Entrance from;
+            final Entrance to;
+            if (border % 2 == 0)
+            {
+                from = new Entrance(ox + size - 1, oy + i, cluster, border);
+                to = new Entrance(ox + size, oy + i, cluster + 1, border);
+            }
+            else
+            {
+                from = new Entrance(ox + i, oy + size - 1, cluster, border);
+                to = new Entrance(ox + i, oy + size, cluster + clustersX, border);
+            }
+            link(mover, from, to);
+            link(mover, to, from);
+            entrances.get(from.cluster).add(from);
+            entrances.get(to.cluster).add(to);
+        }
+
+        /**
+         * Link two adjacent entrances if movement is allowed.
+         * 
+         * @param mover The mover reference.
+         * @param from The starting entrance.
+         * @param to The ending entrance.
+         */
+        private void link(Pathfindable mover, Entrance from, Entrance to)
+        {
+            final TilePath tilePath = map.getTile(from.tx, from.ty).getFeature(TilePath.class);
+            final MovementTile movement = MovementTile.from(to.tx - from.tx, to.ty - from.ty);
+            if (mover.isMovementAllowed(tilePath.getCategory(), movement))
+            {
+                from.edges.add(new Edge(to, mapPath.getCost(mover, from.tx, from.ty), true));
+            }
+        }
+
+        /**
+         * Compute costs between the entrances of a cluster.
+         * 
+         * @param mover The mover reference.
+         * @param cluster The cluster index.
+         */
+        private void buildCluster(Pathfindable mover, int cluster)
+        {
+            final List<Entrance> current = entrances.get(cluster);
+            for (final Entrance entrance : current)
+            {
+                entrance.edges.removeIf(edge -> !edge.inter);
+            }
+            for (final Entrance from : current)
+            {
+                for (final Entrance to : current)
+                {
+                    if (from != to)
+                    {
+                        final double cost = getCost(mover, from, to, ignoreRef);
+                        if (cost >= 0.0)
+                        {
+                            from.edges.add(new Edge(to, cost, false));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Abstract graph node, located on a cluster border.
+     */
+    private static final class Entrance
+    {
+        /** Outgoing edges. */
+        private final List<Edge> edges = new ArrayList<>();
+        /** Horizontal tile index. */
+        private final int tx;
+        /** Vertical tile index. */
+        private final int ty;
+        /** Cluster index. */
+        private final int cluster;
+        /** Border index. */
+        private final int border;
+        /** Search parent. */
+        private Entrance parent;
+        /** Search cost from start. */
+        private double cost;
+        /** Search estimated total cost. */
+        private double score;
+        /** Search generation. */
+        private int generation;
+        /** Search closed flag. */
+        private boolean closed;
+
+        /**
+         * Create entrance.
+         * 
+         * @param tx The horizontal tile index.
+         * @param ty The vertical tile index.
+         * @param cluster The cluster index.
+         * @param border The border index.
+         */
+        Entrance(int tx, int ty, int cluster, int border)
+        {
+            super();
+
+            this.tx = tx;
+            this.ty = ty;
+            this.cluster = cluster;
+            this.border = border;
+        }
+
+        /**
+         * Set search data.
+         * 
+         * @param generation The search generation.
+         * @param parent The parent entrance.
+         * @param cost The cost from start.
+         * @param estimate The estimated cost to goal.
+         */
+        void set(int generation, Entrance parent, double cost, double estimate)
+        {
+            this.generation = generation;
+            this.parent = parent;
+            this.cost = cost;
+            score = cost + estimate;
+            closed = false;
+        }
+    }
+
+    /**
+     * Abstract graph edge.
+     */
+    private static final class Edge
+    {
+        /** Target entrance. */
+        private final Entrance target;
+        /** Edge cost. */
+        private final double cost;
+        /** Inter cluster edge flag. */
+        private final boolean inter;
+
+        /**
+         * Create edge.
+         * 
+         * @param target The target entrance.
+         * @param cost The edge cost.
+         * @param inter <code>true</code> if inter cluster edge, <code>false</code> if inside cluster.
+         */
+        Edge(Entrance target, double cost, boolean inter)
+        {
+            super();
+
+            this.target = target;
+            this.cost = cost;
+            this.inter = inter;
+        }
+    }
+}
@@ -17,10 +17,7 @@
  */
 package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.NavigableSet;
-import java.util.TreeSet;
+import java.util.Arrays;
 
 import com.b3dgs.lionengine.UtilMath;
 import com.b3dgs.lionengine.game.feature.tile.Tile;
@@ -28,23 +25,63 @@ import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
 
 /**
  * A path finder implementation that uses the AStar heuristic based algorithm to determine a path.
+ * <p>
+ * Search state is stored in primitive arrays indexed by tile (<code>ty * width + tx</code>). The open list is an
+ * indexed binary heap supporting decrease-key, and open / closed membership is stamped with a search generation, so
+ * nothing has to be cleared or allocated between searches. Only the returned {@link Path} is allocated.
+ * </p>
  */
 final class PathFinderImpl implements PathFinder
 {
-    /** Closed list. */
-    private final Collection<Node> closed = new HashSet<>();
-    /** Open list. */
-    private final NavigableSet<Node> open = new TreeSet<>();
+    /** No index. */
+    static final int NONE = -1;
+
     /** Map reference. */
     private final MapTile map;
     /** Map path reference. */
     private final MapTilePath mapPath;
+    /** Searched data. */
+    private final PathGrid grid;
     /** Max distance to search. */
     private final int maxSearchDistance;
-    /** Nodes array. */
-    private final Node[][] nodes;
     /** Heuristic used. */
     private final Heuristic heuristic;
+    /** Map width in tile. */
+    private final int width;
+    /** Map height in tile. */
+    private final int height;
+    /** Cost from start per tile. */
+    private final double[] costs;
+    /** Total estimated cost (cost + heuristic) per tile. */
+    private final double[] scores;
+    /** Parent tile index per tile. */
+    private final int[] parents;
+    /** Search depth per tile. */
+    private final int[] depths;
+    /** Generation where tile has been reached. */
+    private final int[] reached;
+    /** Generation where tile has been closed. */
+    private final int[] closed;
+    /** Position in heap per tile. */
+    private final int[] positions;
+    /** Open list binary heap of tile indexes. */
+    private final int[] heap;
+    /** Path trace buffer used on reconstruction. */
+    private final int[] trace;
+    /** Search area minimum horizontal tile. */
+    private int minX;
+    /** Search area minimum vertical tile. */
+    private int minY;
+    /** Search area maximum horizontal tile. */
+    private int maxX;
+    /** Search area maximum vertical tile. */
+    private int maxY;
+    /** Cost of the last path found. */
+    private double lastCost;
+    /** Current heap size. */
+    private int heapSize;
+    /** Current search generation. */
+    private int generation;
 
     /**
      * Internal constructor.
@@ -54,22 +91,67 @@ final class PathFinderImpl implements PathFinder
      * @param heuristic The heuristic used to determine the search order of the map.
      */
     PathFinderImpl(MapTile map, int maxSearchDistance, Heuristic heuristic)
+    {
+        this(map, new MapGrid(map), maxSearchDistance, heuristic);
+    }
+
+    /**
+     * Internal constructor.
+     * 
+     * @param map The map reference. Must have the {@link MapTilePath} feature.
+     * @param grid The searched data.
+     * @param maxSearchDistance The maximum depth we'll search before giving up.
+     * @param heuristic The heuristic used to determine the search order of the map.
+     */
+    PathFinderImpl(MapTile map, PathGrid grid, int maxSearchDistance, Heuristic heuristic)
     {
         super();
 
         this.heuristic = heuristic;
         this.map = map;
+        this.grid = grid;
         this.maxSearchDistance = maxSearchDistance;
         mapPath = map.getFeature(MapTilePath.class);
-        nodes = new Node[map.getInTileHeight()][map.getInTileWidth()];
+        width = map.getInTileWidth();
+        height = map.getInTileHeight();
 
-        for (int ty = 0; ty < map.getInTileHeight(); ty++)
-        {
-            for (int tx = 0; tx < map.getInTileWidth(); tx++)
-            {
-                nodes[ty][tx] = new Node(tx, ty);
-            }
-        }
+        final int size = width * height;
+        costs = new double[size];
+        scores = new double[size];
+        parents = new int[size];
+        depths = new int[size];
+        reached = new int[size];
+        closed = new int[size];
+        positions = new int[size];
+        heap = new int[size];
+        trace = new int[size];
+        setBounds(0, 0, width - 1, height - 1);
+    }
+
+    /**
+     * Restrict searches to an area. Whole map is searched by default.
+     * 
+     * @param minX The minimum horizontal tile included.
+     * @param minY The minimum vertical tile included.
+     * @param maxX The maximum horizontal tile included.
+     * @param maxY The maximum vertical tile included.
+     */
+    void setBounds(int minX, int minY, int maxX, int maxY)
+    {
+        this.minX = Math.max(0, minX);
+        this.minY = Math.max(0, minY);
+        this.maxX = Math.min(width - 1, maxX);
+        this.maxY = Math.min(height - 1, maxY);
+    }
+
+    /**
+     * Get the cost of the last path found.
+     * 
+     * @return The last path cost.
+     */
+    double getLastCost()
+    {
+        return lastCost;
     }
 
     /**
@@ -82,7 +164,7 @@ final class PathFinderImpl implements PathFinder
      */
     public double getMovementCost(Pathfindable pathfindable, int tx, int ty)
     {
-        return mapPath.getCost(pathfindable, tx, ty);
+        return grid.getCost(pathfindable, tx, ty);
     }
 
     /**
@@ -99,6 +181,21 @@ final class PathFinderImpl implements PathFinder
         return heuristic.getCost(stx, sty, dtx, dty);
     }
 
+    /**
+     * Start a new search generation. Stamps are reset only when generation counter overflows.
+     */
+    private void nextGeneration()
+    {
+        generation++;
+        if (generation == Integer.MAX_VALUE)
+        {
+            Arrays.fill(reached, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        heapSize = 0;
+    }
+
     /**
      * Check if a given location is valid for the supplied mover.
      * 
@@ -107,16 +204,16 @@ final class PathFinderImpl implements PathFinder
      * @param sty The starting y coordinate.
      * @param dtx The x coordinate of the location to check.
      * @param dty The y coordinate of the location to check.
-     * @param ignoreRef The ignore map reference array checking.
+     * @param ignoreRef The ignore map reference checking.
      * @return <code>true</code> if the location is valid for the given mover, <code>false</code> else.
      */
     private boolean isValidLocation(Pathfindable mover, int stx, int sty, int dtx, int dty, boolean ignoreRef)
     {
-        boolean invalid = dtx < 0 || dty < 0 || dtx >= map.getInTileWidth() || dty >= map.getInTileHeight();
+        boolean invalid = dtx < minX || dty < minY || dtx > maxX || dty > maxY;
 
         if (!invalid && (stx != dtx || sty != dty))
         {
-            invalid = mapPath.isBlocked(mover, dtx, dty, ignoreRef);
+            invalid = grid.isBlocked(mover, dtx, dty, ignoreRef);
         }
 
         return !invalid;
@@ -131,7 +228,7 @@ final class PathFinderImpl implements PathFinder
      * @param dtx The x coordinate of the destination location.
      * @param dty The y coordinate of the destination location.
      * @param ignoreRef The ignore map array reference checking (<code>true</code> to ignore references).
-     * @param current The current node.
+     * @param current The current tile index.
      * @param maxDepth The last max depth.
      * @return The next max depth.
      */
@@ -141,19 +238,24 @@ final class PathFinderImpl implements PathFinder
                            int dtx,
                            int dty,
                            boolean ignoreRef,
-                           Node current,
+                           int current,
                            int maxDepth)
     {
         int depth = maxDepth;
-        final Tile tile = map.getTile(current.getX(), current.getY());
-        final TilePath tilePath = tile.getFeature(TilePath.class);
+        final int cx = current % width;
+        final int cy = current / width;
+        final String category = grid.getCategory(cx, cy);
+        final double nextStepCost = costs[current] + getMovementCost(mover, cx, cy);
+
         for (int y = -1; y < 2; y++)
         {
             for (int x = -1; x < 2; x++)
             {
-                if (!(x == 0 && y == 0))
+                if (!(x == 0 && y == 0)
+                    && mover.isMovementAllowed(category, MovementTile.from(x, y))
+                    && isValidLocation(mover, stx, sty, cx + x, cy + y, ignoreRef))
                 {
-                    depth = check(tilePath, depth, x, y, mover, stx, sty, dtx, dty, ignoreRef, current, maxDepth);
+                    depth = Math.max(depth, updateNeighbour(dtx, dty, current, cx + x, cy + y, nextStepCost));
                 }
             }
         }
@@ -161,139 +263,340 @@ final class PathFinderImpl implements PathFinder
     }
 
     /**
-     * Update the open and closed list to find the path.
+     * Update the current neighbor on search.
+     * 
+     * @param dtx The x coordinate of the destination location.
+     * @param dty The y coordinate of the destination location.
+     * @param current The current tile index.
+     * @param xp The x coordinate of the neighbor location.
+     * @param yp The y coordinate of the neighbor location.
+     * @param nextStepCost The cost to reach neighbor from current.
+     * @return The neighbor depth if updated, <code>0</code> else.
+     */
+    private int updateNeighbour(int dtx, int dty, int current, int xp, int yp, double nextStepCost)
+    {
+        final int neighbour = yp * width + xp;
+        int depth = 0;
+
+        if (reached[neighbour] != generation)
+        {
+            reached[neighbour] = generation;
+            depth = setNode(neighbour, current, nextStepCost, getHeuristicCost(xp, yp, dtx, dty));
+            push(neighbour);
+        }
+        else if (nextStepCost < costs[neighbour])
+        {
+            depth = setNode(neighbour, current, nextStepCost, scores[neighbour] - costs[neighbour]);
+            if (closed[neighbour] == generation)
+            {
+                closed[neighbour] = 0;
+                push(neighbour);
+            }
+            else
+            {
+                siftUp(positions[neighbour]);
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * Set node search data.
+     * 
+     * @param index The tile index.
+     * @param parent The parent tile index.
+     * @param cost The cost from start.
+     * @param estimate The heuristic cost to destination.
+     * @return The node depth.
+     */
+    private int setNode(int index, int parent, double cost, double estimate)
+    {
+        costs[index] = cost;
+        scores[index] = cost + estimate;
+        parents[index] = parent;
+        depths[index] = depths[parent] + 1;
+        return depths[index];
+    }
+
+    /**
+     * Add tile to open list.
+     * 
+     * @param index The tile index.
+     */
+    private void push(int index)
+    {
+        heap[heapSize] = index;
+        positions[index] = heapSize;
+        heapSize++;
+        siftUp(heapSize - 1);
+    }
+
+    /**
+     * Remove the lowest score tile from open list.
+     * 
+     * @return The removed tile index.
+     */
+    private int pop()
+    {
+        final int first = heap[0];
+        heapSize--;
+        if (heapSize > 0)
+        {
+            heap[0] = heap[heapSize];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return first;
+    }
+
+    /**
+     * Move heap element up until heap order is restored.
+     * 
+     * @param position The heap position.
+     */
+    private void siftUp(int position)
+    {
+        final int index = heap[position];
+        final double score = scores[index];
+        int child = position;
+        while (child > 0 && score < scores[heap[(child - 1) >> 1]])
+        {
+            final int parent = (child - 1) >> 1;
+            heap[child] = heap[parent];
+            positions[heap[child]] = child;
+            child = parent;
+        }
+        heap[child] = index;
+        positions[index] = child;
+    }
+
+    /**
+     * Move heap element down until heap order is restored.
+     * 
+     * @param position The heap position.
+     */
+    private void siftDown(int position)
+    {
+        final int index = heap[position];
+        final double score = scores[index];
+        final int half = heapSize >> 1;
+        int parent = position;
+        boolean sorted = false;
+        while (parent < half && !sorted)
+        {
+            int child = (parent << 1) + 1;
+            if (child + 1 < heapSize && scores[heap[child + 1]] < scores[heap[child]])
+            {
+                child++;
+            }
+            if (scores[heap[child]] < score)
+            {
+                heap[parent] = heap[child];
+                positions[heap[parent]] = parent;
+                parent = child;
+            }
+            else
+            {
+                sorted = true;
+            }
+        }
+        heap[parent] = index;
+        positions[index] = parent;
+    }
+
+    /**
+     * Build path by walking parents from destination to start.
+     * 
+     * @param start The start tile index.
+     * @param destination The destination tile index.
+     * @return The built path.
+     */
+    private Path createPath(int start, int destination)
+    {
+        int count = 0;
+        int current = destination;
+        while (current != start)
+        {
+            trace[count] = current;
+            count++;
+            current = parents[current];
+        }
+
+        final Path path = new Path(count + 1);
+        path.appendStep(start % width, start / width);
+        for (int i = count - 1; i >= 0; i--)
+        {
+            path.appendStep(trace[i] % width, trace[i] / width);
+        }
+        return path;
+    }
+
+    /**
+     * Get the destination to search, using the closest available tile if destination is blocked. Must be called from
+     * the thread owning the map.
      * 
-     * @param tilePath The current tile.
-     * @param nextDepth The next depth value.
-     * @param x The current horizontal movement.
-     * @param y The current vertical movement.
      * @param mover The entity that will be moving along the path.
      * @param stx The x coordinate of the start location.
      * @param sty The y coordinate of the start location.
-     * @param dtx The x coordinate of the destination location.
-     * @param dty The y coordinate of the destination location.
+     * @param dtx The x coordinate of the requested destination location.
+     * @param dty The y coordinate of the requested destination location.
      * @param ignoreRef The ignore map array reference checking (<code>true</code> to ignore references).
-     * @param current The current node.
-     * @param maxDepth The last max depth.
-     * @return The next max depth.
+     * @return The destination tile index, {@link #NONE} if no destination available.
      */
-    private int check(TilePath tilePath,
-                      int nextDepth,
-                      int x,
-                      int y,
-                      Pathfindable mover,
-                      int stx,
-                      int sty,
-                      int dtx,
-                      int dty,
-                      boolean ignoreRef,
-                      Node current,
-                      int maxDepth)
+    int getDestination(Pathfindable mover, int stx, int sty, int dtx, int dty, boolean ignoreRef)
     {
-        final MovementTile movement = MovementTile.from(x, y);
-        if (mover.isMovementAllowed(tilePath.getCategory(), movement))
+        int destination = NONE;
+        if (!mapPath.isBlocked(mover, dtx, dty, false) || UtilMath.getDistance(stx, sty, dtx, dty) > 1)
         {
-            final int xp = x + current.getX();
-            final int yp = y + current.getY();
-
-            if (isValidLocation(mover, stx, sty, xp, yp, ignoreRef))
+            if (mapPath.isBlocked(mover, dtx, dty, ignoreRef))
+            {
+                final CoordTile tile = mapPath.getClosestAvailableTile(mover,
+                                                                       dtx,
+                                                                       dty,
+                                                                       stx,
+                                                                       sty,
+                                                                       map.getInTileRadius());
+                if (tile != null)
+                {
+                    destination = getDestination(mover, stx, sty, tile.getX(), tile.getY(), ignoreRef);
+                }
+            }
+            else
             {
-                return updateNeighbour(mover, dtx, dty, current, xp, yp, maxDepth);
+                destination = dty * width + dtx;
             }
         }
-        return nextDepth;
+        return destination;
     }
 
     /**
-     * Update the current neighbor on search.
+     * Search a path between two locations without building it. Destination is expected to be resolved with
+     * {@link #getDestination(Pathfindable, int, int, int, int, boolean)}.
      * 
      * @param mover The entity that will be moving along the path.
+     * @param stx The x coordinate of the start location.
+     * @param sty The y coordinate of the start location.
      * @param dtx The x coordinate of the destination location.
      * @param dty The y coordinate of the destination location.
-     * @param current The current node.
-     * @param xp The x coordinate of the destination location.
-     * @param yp The y coordinate of the destination location.
-     * @param maxDepth The last max depth.
-     * @return The next max depth.
+     * @param ignoreRef The ignore map array reference checking (<code>true</code> to ignore references).
+     * @return <code>true</code> if found, its cost is available with {@link #getLastCost()}, <code>false</code> else.
      */
-    private int updateNeighbour(Pathfindable mover, int dtx, int dty, Node current, int xp, int yp, int maxDepth)
+    boolean search(Pathfindable mover, int stx, int sty, int dtx, int dty, boolean ignoreRef)
     {
-        int nextDepth = maxDepth;
-        final double nextStepCost = current.getCost() + getMovementCost(mover, current.getX(), current.getY());
-        final Node neighbour = nodes[yp][xp];
+        final int start = sty * width + stx;
+        final int destination = dty * width + dtx;
+
+        nextGeneration();
+        reached[start] = generation;
+        costs[start] = 0.0;
+        scores[start] = 0.0;
+        parents[start] = NONE;
+        depths[start] = 0;
+        push(start);
+
+        int maxDepth = 0;
+        while (maxDepth < maxSearchDistance && heapSize > 0 && heap[0] != destination)
+        {
+            final int current = pop();
+            closed[current] = generation;
+            maxDepth = updateList(mover, stx, sty, dtx, dty, ignoreRef, current, maxDepth);
+        }
 
-        if (nextStepCost < neighbour.getCost())
+        final boolean found = start != destination && reached[destination] == generation;
+        if (found)
         {
-            open.remove(neighbour);
-            closed.remove(neighbour);
+            lastCost = costs[destination];
         }
-        if (!open.contains(neighbour) && !closed.contains(neighbour))
+        return found;
+    }
+
+    /**
+     * Search a path between two locations. Destination is expected to be resolved with
+     * {@link #getDestination(Pathfindable, int, int, int, int, boolean)}.
+     * 
+     * @param mover The entity that will be moving along the path.
+     * @param stx The x coordinate of the start location.
+     * @param sty The y coordinate of the start location.
+     * @param dtx The x coordinate of the destination location.
+     * @param dty The y coordinate of the destination location.
+     * @param ignoreRef The ignore map array reference checking (<code>true</code> to ignore references).
+     * @return The path found from start to end, or <code>null</code> if no path can be found.
+     */
+    Path findPath(Pathfindable mover, int stx, int sty, int dtx, int dty, boolean ignoreRef)
+    {
+        if (search(mover, stx, sty, dtx, dty, ignoreRef))
         {
-            neighbour.setCost(nextStepCost);
-            neighbour.setHeuristic(getHeuristicCost(xp, yp, dtx, dty));
-            nextDepth = Math.max(maxDepth, neighbour.setParent(current));
-            open.add(neighbour);
+            return createPath(sty * width + stx, dty * width + dtx);
         }
-        return nextDepth;
+        return null;
     }
 
     /*
      * PathFinder
      */
 
-    @Override // CHECKSTYLE IGNORE LINE: TrailingComment|ReturnCount
+    @Override
     public Path findPath(Pathfindable mover, int dtx, int dty, boolean ignoreRef)
     {
         final int stx = mover.getInTileX();
         final int sty = mover.getInTileY();
+        final int destination = getDestination(mover, stx, sty, dtx, dty, ignoreRef);
 
-        if (mapPath.isBlocked(mover, dtx, dty, false) && UtilMath.getDistance(stx, sty, dtx, dty) <= 1)
+        if (destination == NONE)
         {
             return null;
         }
-        if (mapPath.isBlocked(mover, dtx, dty, ignoreRef))
+        return findPath(mover, stx, sty, destination % width, destination / width, ignoreRef);
+    }
+
+    /**
+     * Search data read from map.
+     */
+    static final class MapGrid implements PathGrid
+    {
+        /** Map reference. */
+        private final MapTile map;
+        /** Map path reference. */
+        private final MapTilePath mapPath;
+
+        /**
+         * Create grid.
+         * 
+         * @param map The map reference.
+         */
+        MapGrid(MapTile map)
         {
-            final CoordTile tile = mapPath.getClosestAvailableTile(mover, dtx, dty, stx, sty, map.getInTileRadius());
-            if (tile == null)
-            {
-                return null;
-            }
-            return findPath(mover, tile.getX(), tile.getY(), ignoreRef);
+            super();
+
+            this.map = map;
+            mapPath = map.getFeature(MapTilePath.class);
         }
 
-        nodes[sty][stx].setCost(0);
-        nodes[sty][stx].setDepth(0);
-        closed.clear();
-        open.clear();
-        open.add(nodes[sty][stx]);
-        nodes[dty][dtx].setParent(null);
+        /*
+         * PathGrid
+         */
 
-        int maxDepth = 0;
-        while (maxDepth < maxSearchDistance && !open.isEmpty())
+        @Override
+        public String getCategory(int tx, int ty)
         {
-            final Node current = open.first();
-            if (current == nodes[dty][dtx])
+            final Tile tile = map.getTile(tx, ty);
+            if (tile == null)
             {
-                break;
+                return null;
             }
-            open.remove(current);
-            closed.add(current);
-            maxDepth = updateList(mover, stx, sty, dtx, dty, ignoreRef, current, maxDepth);
+            return tile.getFeature(TilePath.class).getCategory();
         }
-        if (nodes[dty][dtx].getParent() == null)
+
+        @Override
+        public double getCost(Pathfindable mover, int tx, int ty)
         {
-            return null;
+            return mapPath.getCost(mover, tx, ty);
         }
-        final Path path = new Path();
-        Node target = nodes[dty][dtx];
 
-        while (target != nodes[sty][stx])
+        @Override
+        public boolean isBlocked(Pathfindable mover, int tx, int ty, boolean ignoreObjectsId)
         {
-            path.prependStep(target.getX(), target.getY());
-            target = target.getParent();
+            return mapPath.isBlocked(mover, tx, ty, ignoreObjectsId);
         }
-        path.prependStep(stx, sty);
-
-        return path;
     }
 }
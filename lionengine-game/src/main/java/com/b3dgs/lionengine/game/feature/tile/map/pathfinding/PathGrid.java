@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+/**
+ * Pathfinding data read by the path finder during a search.
+ */
+interface PathGrid
+{
+    /**
+     * Get the tile category.
+     * 
+     * @param tx The horizontal tile index.
+     * @param ty The vertical tile index.
+     * @return The tile category, <code>null</code> if no tile.
+     */
+    String getCategory(int tx, int ty);
+
+    /**
+     * Get the cost to move through a given location.
+     * 
+     * @param mover The object moving on map.
+     * @param tx The horizontal tile index.
+     * @param ty The vertical tile index.
+     * @return The cost of movement through the given tile.
+     */
+    double getCost(Pathfindable mover, int tx, int ty);
+
+    /**
+     * Check if area if blocked.
+     * 
+     * @param mover The object moving on map.
+     * @param tx The horizontal tile index.
+     * @param ty The vertical tile index.
+     * @param ignoreObjectsId <code>true</code> to ignore objects ids from checking.
+     * @return <code>true</code> if blocked, <code>false</code> else.
+     */
+    boolean isBlocked(Pathfindable mover, int tx, int ty, boolean ignoreObjectsId);
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.b3dgs.lionengine.LionEngineException;
+
+/**
+ * Mover profile (categories blocking, cost and movements) and reference checking mode. Movers with the same profile
+ * share the same hierarchical graph and flow fields.
+ */
+final class PathProfile
+{
+    /** Profile separator. */
+    private static final char SEPARATOR = ';';
+    /** Unknown category profile. */
+    private static final char UNKNOWN = '?';
+
+    /**
+     * Get the mover categories signature.
+     * 
+     * @param mapPath The map path reference.
+     * @param mover The mover reference.
+     * @return The mover signature.
+     */
+    private static String getSignature(MapTilePath mapPath, Pathfindable mover)
+    {
+        final StringBuilder signature = new StringBuilder();
+        for (final String category : mapPath.getCategories())
+        {
+            signature.append(SEPARATOR).append(category).append(SEPARATOR).append(mover.isBlocking(category));
+            try
+            {
+                signature.append(SEPARATOR).append(mover.getCost(category)).append(SEPARATOR);
+                for (final MovementTile movement : MovementTile.values())
+                {
+                    signature.append(mover.isMovementAllowed(category, movement) ? 1 : 0);
+                }
+            }
+            catch (final LionEngineException exception)
+            {
+                signature.append(UNKNOWN);
+            }
+        }
+        return signature.toString();
+    }
+
+    /** Categories signature. */
+    private final String signature;
+    /** Ignore map array reference checking. */
+    private final boolean ignoreRef;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param signature The categories signature.
+     * @param ignoreRef The ignore map array reference checking.
+     */
+    private PathProfile(String signature, boolean ignoreRef)
+    {
+        super();
+
+        this.signature = signature;
+        this.ignoreRef = ignoreRef;
+    }
+
+    /*
+     * Object
+     */
+
+    @Override
+    public int hashCode()
+    {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + (ignoreRef ? 1231 : 1237);
+        result = prime * result + signature.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final PathProfile other = (PathProfile) obj;
+        return other.ignoreRef == ignoreRef && other.signature.equals(signature);
+    }
+
+    /**
+     * Profiles computed once per mover. Mover categories are read from its setup and do not change, so its profile is
+     * kept until the mover is garbage collected.
+     */
+    static final class Cache
+    {
+        /** Profiles by mover, checking references. */
+        private final Map<Pathfindable, PathProfile> strict = new WeakHashMap<>();
+        /** Profiles by mover, ignoring references. */
+        private final Map<Pathfindable, PathProfile> ignored = new WeakHashMap<>();
+        /** Map path reference. */
+        private final MapTilePath mapPath;
+
+        /**
+         * Create cache.
+         * 
+         * @param mapPath The map path reference.
+         */
+        Cache(MapTilePath mapPath)
+        {
+            super();
+
+            this.mapPath = mapPath;
+        }
+
+        /**
+         * Get the mover profile, computed on first call only.
+         * 
+         * @param mover The mover reference.
+         * @param ignoreRef The ignore map array reference checking.
+         * @return The mover profile.
+         */
+        PathProfile get(Pathfindable mover, boolean ignoreRef)
+        {
+            final Map<Pathfindable, PathProfile> profiles;
+            if (ignoreRef)
+            {
+                profiles = ignored;
+            }
+            else
+            {
+                profiles = strict;
+            }
+            PathProfile profile = profiles.get(mover);
+            if (profile == null)
+            {
+                final String signature = getSignature(mapPath, mover);
+                strict.put(mover, new PathProfile(signature, false));
+                ignored.put(mover, new PathProfile(signature, true));
+                profile = profiles.get(mover);
+            }
+            return profile;
+        }
+    }
+}
@@ -0,0 +1,510 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Updatable;
+import com.b3dgs.lionengine.Viewer;
+import com.b3dgs.lionengine.game.feature.Services;
+import com.b3dgs.lionengine.game.feature.Setup;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+
+/**
+ * Asynchronous path request service.
+ * <p>
+ * When added to the {@link Services} before creating objects, {@link PathfindableModel} will queue its first path
+ * request here instead of searching it during its update. On each {@link #update(double)}:
+ * </p>
+ * <ul>
+ * <li>results of the previous batch are delivered, closest to viewer first, until frame budget is consumed (the
+ * destination is assigned, and {@link PathfindableListener#notifyStartMove()} is called),</li>
+ * <li>when no batch is running, queued requests are resolved, identical ones (same start, destination and
+ * {@link Setup}) are merged, map categories are captured, and searches are run on worker threads.</li>
+ * </ul>
+ * <p>
+ * The {@link Services} must provide the following services:
+ * </p>
+ * <ul>
+ * <li>{@link MapTile}</li>
+ * <li>{@link Viewer}</li>
+ * </ul>
+ * <p>
+ * {@link #close()} must be called when service is not used anymore.
+ * </p>
+ */
+public class PathRequestService implements Updatable
+{
+    /** Default frame budget in nano seconds. */
+    public static final long DEFAULT_BUDGET = 2_000_000L;
+    /** Closed service error. */
+    static final String ERROR_CLOSED = "Path request service closed !";
+
+    /**
+     * Get the default number of worker threads.
+     * 
+     * @return The default number of threads.
+     */
+    private static int getDefaultThreads()
+    {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /** Pending requests, the last one per mover. */
+    private final Map<PathfindableModel, Request> pending = new LinkedHashMap<>();
+    /** Requests of the running batch. */
+    private final List<Request> requests = new ArrayList<>();
+    /** Unique searches of the running batch. */
+    private final List<Search> searches = new ArrayList<>();
+    /** Searches merging cache. */
+    private final Map<Search, Search> unique = new HashMap<>();
+    /** Remaining worker tasks of running batch. */
+    private final AtomicInteger remaining = new AtomicInteger();
+    /** Worker threads. */
+    private final ExecutorService executor;
+    /** Number of worker threads. */
+    private final int threads;
+    /** Map reference. */
+    private final MapTile map;
+    /** Viewer reference. */
+    private final Viewer viewer;
+    /** Map snapshot searched by workers. */
+    private PathSnapshot snapshot;
+    /** Path finders, one per worker. */
+    private PathFinderImpl[] finders;
+    /** Frame budget in nano seconds. */
+    private long budget = DEFAULT_BUDGET;
+    /** Next request to deliver. */
+    private int delivered;
+    /** Batch running flag. */
+    private boolean running;
+    /** Closed flag. */
+    private boolean closed;
+
+    /**
+     * Create service with default threads.
+     * 
+     * @param services The services reference.
+     * @throws LionEngineException If services not found.
+     */
+    public PathRequestService(Services services)
+    {
+        this(services, getDefaultThreads());
+    }
+
+    /**
+     * Create service.
+     * 
+     * @param services The services reference.
+     * @param threads The number of worker threads (must be strictly positive).
+     * @throws LionEngineException If invalid arguments or services not found.
+     */
+    public PathRequestService(Services services, int threads)
+    {
+        super();
+
+        Check.notNull(services);
+        Check.superiorStrict(threads, 0);
+
+        map = services.get(MapTile.class);
+        viewer = services.get(Viewer.class);
+        this.threads = threads;
+        executor = Executors.newFixedThreadPool(threads, runnable ->
+        {
+            final Thread thread = new Thread(runnable, PathRequestService.class.getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Set the main thread frame budget, used to deliver results. At least one result is delivered per update.
+     * 
+     * @param budget The budget in nano seconds (must be positive).
+     * @throws LionEngineException If invalid argument.
+     */
+    public void setBudget(long budget)
+    {
+        Check.superiorOrEqual(budget, 0L);
+
+        this.budget = budget;
+    }
+
+    /**
+     * Check if there is no more pending or running request.
+     * 
+     * @return <code>true</code> if idle, <code>false</code> else.
+     */
+    public boolean isIdle()
+    {
+        return !running && pending.isEmpty();
+    }
+
+    /**
+     * Check if service has been closed.
+     * 
+     * @return <code>true</code> if closed, <code>false</code> else.
+     */
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * Stop worker threads. Pending and running requests are dropped, service is idle and does not accept requests
+     * anymore.
+     */
+    public void close()
+    {
+        closed = true;
+        executor.shutdownNow();
+
+        pending.clear();
+        requests.clear();
+        searches.clear();
+        unique.clear();
+        remaining.set(0);
+        delivered = 0;
+        running = false;
+    }
+
+    /**
+     * Queue a path request, replacing any pending request of this mover.
+     * 
+     * @param mover The mover reference.
+     * @param setup The mover setup, used to merge identical requests.
+     * @param stx The x coordinate of the start location.
+     * @param sty The y coordinate of the start location.
+     * @param dtx The x coordinate of the destination location.
+     * @param dty The y coordinate of the destination location.
+     * @throws LionEngineException If service closed.
+     */
+    void request(PathfindableModel mover, Setup setup, int stx, int sty, int dtx, int dty)
+    {
+        if (closed)
+        {
+            throw new LionEngineException(ERROR_CLOSED);
+        }
+        final double dx = (stx + 0.5) * map.getTileWidth() - (viewer.getX() + viewer.getWidth() / 2.0);
+        final double dy = (sty + 0.5) * map.getTileHeight() - (viewer.getY() + viewer.getHeight() / 2.0);
+        pending.put(mover, new Request(mover, setup, stx, sty, dtx, dty, dx * dx + dy * dy));
+    }
+
+    /**
+     * Deliver results of the finished batch until budget is consumed.
+     * 
+     * @param start The update start time.
+     */
+    private void deliver(long start)
+    {
+        do
+        {
+            requests.get(delivered).deliver();
+            delivered++;
+        }
+        while (delivered < requests.size() && System.nanoTime() - start < budget);
+
+        if (delivered == requests.size())
+        {
+            requests.clear();
+            searches.clear();
+            delivered = 0;
+            running = false;
+        }
+    }
+
+    /**
+     * Start a new batch with pending requests.
+     */
+    private void dispatch()
+    {
+        requests.addAll(pending.values());
+        pending.clear();
+        requests.sort((a, b) -> Double.compare(a.priority, b.priority));
+
+        if (snapshot == null || !snapshot.isValid())
+        {
+            createFinders();
+        }
+        snapshot.capture();
+
+        for (final Request request : requests)
+        {
+            final int destination = finders[0].getDestination(request.mover,
+                                                               request.stx,
+                                                               request.sty,
+                                                               request.dtx,
+                                                               request.dty,
+                                                               true);
+            if (destination != PathFinderImpl.NONE)
+            {
+                final Search search = new Search(request,
+                                                 destination % map.getInTileWidth(),
+                                                 destination / map.getInTileWidth());
+                final Search existing = unique.putIfAbsent(search, search);
+                if (existing == null)
+                {
+                    searches.add(search);
+                    request.search = search;
+                }
+                else
+                {
+                    request.search = existing;
+                }
+            }
+        }
+        unique.clear();
+
+        final int tasks = Math.min(threads, searches.size());
+        running = true;
+        remaining.set(tasks);
+        for (int i = 0; i < tasks; i++)
+        {
+            final PathFinderImpl finder = finders[i];
+            final int first = i;
+            executor.execute(() ->
+            {
+                try
+                {
+                    for (int j = first; j < searches.size(); j += tasks)
+                    {
+                        searches.get(j).find(finder);
+                    }
+                }
+                finally
+                {
+                    remaining.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * Create snapshot and path finders for current map size.
+     */
+    private void createFinders()
+    {
+        snapshot = new PathSnapshot(map);
+        finders = new PathFinderImpl[threads];
+
+        final int range = (int) Math.sqrt(map.getInTileWidth() * map.getInTileWidth()
+                                          + map.getInTileHeight() * (double) map.getInTileHeight());
+        for (int i = 0; i < threads; i++)
+        {
+            finders[i] = new PathFinderImpl(map, snapshot, range, Astar.createHeuristicClosest());
+        }
+    }
+
+    /*
+     * Updatable
+     */
+
+    @Override
+    public void update(double extrp)
+    {
+        final long start = System.nanoTime();
+
+        if (running && remaining.get() == 0)
+        {
+            deliver(start);
+        }
+        if (!running && !pending.isEmpty())
+        {
+            dispatch();
+        }
+    }
+
+    /**
+     * Path request of a mover.
+     */
+    private static final class Request
+    {
+        /** Mover reference. */
+        private final PathfindableModel mover;
+        /** Mover setup. */
+        private final Setup setup;
+        /** Start horizontal tile. */
+        private final int stx;
+        /** Start vertical tile. */
+        private final int sty;
+        /** Requested horizontal destination. */
+        private final int dtx;
+        /** Requested vertical destination. */
+        private final int dty;
+        /** Priority, lowest first. */
+        private final double priority;
+        /** Associated search, <code>null</code> if no destination available. */
+        private Search search;
+
+        /**
+         * Create request.
+         * 
+         * @param mover The mover reference.
+         * @param setup The mover setup.
+         * @param stx The start horizontal tile.
+         * @param sty The start vertical tile.
+         * @param dtx The requested horizontal destination.
+         * @param dty The requested vertical destination.
+         * @param priority The priority, lowest first.
+         */
+        Request(PathfindableModel mover, Setup setup, int stx, int sty, int dtx, int dty, double priority)
+        {
+            super();
+
+            this.mover = mover;
+            this.setup = setup;
+            this.stx = stx;
+            this.sty = sty;
+            this.dtx = dtx;
+            this.dty = dty;
+            this.priority = priority;
+        }
+
+        /**
+         * Deliver result to mover.
+         */
+        void deliver()
+        {
+            if (search == null)
+            {
+                mover.onPathFound(dtx, dty, null);
+            }
+            else
+            {
+                mover.onPathFound(dtx, dty, search.take());
+            }
+        }
+    }
+
+    /**
+     * Unique path search, shared by identical requests.
+     */
+    private static final class Search
+    {
+        /** Searching mover. */
+        private final PathfindableModel mover;
+        /** Mover setup. */
+        private final Setup setup;
+        /** Start horizontal tile. */
+        private final int stx;
+        /** Start vertical tile. */
+        private final int sty;
+        /** Resolved horizontal destination. */
+        private final int dtx;
+        /** Resolved vertical destination. */
+        private final int dty;
+        /** Path found. */
+        private Path path;
+        /** Path taken flag. */
+        private boolean taken;
+
+        /**
+         * Create search.
+         * 
+         * @param request The first request.
+         * @param dtx The resolved horizontal destination.
+         * @param dty The resolved vertical destination.
+         */
+        Search(Request request, int dtx, int dty)
+        {
+            super();
+
+            mover = request.mover;
+            setup = request.setup;
+            stx = request.stx;
+            sty = request.sty;
+            this.dtx = dtx;
+            this.dty = dty;
+        }
+
+        /**
+         * Search path. Called from worker thread.
+         * 
+         * @param finder The worker finder.
+         */
+        void find(PathFinderImpl finder)
+        {
+            path = finder.findPath(mover, stx, sty, dtx, dty, true);
+        }
+
+        /**
+         * Get the path found. First call returns the path itself, next ones a copy.
+         * 
+         * @return The path found, <code>null</code> if none.
+         */
+        Path take()
+        {
+            if (path == null || !taken)
+            {
+                taken = true;
+                return path;
+            }
+            final Path copy = new Path(path.getLength());
+            for (int i = 0; i < path.getLength(); i++)
+            {
+                copy.appendStep(path.getX(i), path.getY(i));
+            }
+            return copy;
+        }
+
+        /*
+         * Object
+         */
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + setup.hashCode();
+            result = prime * result + stx;
+            result = prime * result + sty;
+            result = prime * result + dtx;
+            result = prime * result + dty;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (this == object)
+            {
+                return true;
+            }
+            if (object == null || object.getClass() != getClass())
+            {
+                return false;
+            }
+            final Search other = (Search) object;
+            return stx == other.stx
+                   && sty == other.sty
+                   && dtx == other.dtx
+                   && dty == other.dty
+                   && setup == other.setup;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+import com.b3dgs.lionengine.game.feature.tile.Tile;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+
+/**
+ * Copy of the map tile categories, allowing path searches outside of the main thread.
+ * <p>
+ * Objects id are not part of the snapshot and are always ignored, as for a first path request.
+ * </p>
+ */
+final class PathSnapshot implements PathGrid
+{
+    /** Map reference. */
+    private final MapTile map;
+    /** Map width in tile. */
+    private final int width;
+    /** Map height in tile. */
+    private final int height;
+    /** Captured tile existence. */
+    private final boolean[] tiles;
+    /** Captured tile categories. */
+    private final String[] categories;
+
+    /**
+     * Create snapshot.
+     * 
+     * @param map The map reference.
+     */
+    PathSnapshot(MapTile map)
+    {
+        super();
+
+        this.map = map;
+        width = map.getInTileWidth();
+        height = map.getInTileHeight();
+        tiles = new boolean[width * height];
+        categories = new String[width * height];
+    }
+
+    /**
+     * Capture current map categories. Must be called from the thread owning the map.
+     */
+    void capture()
+    {
+        for (int ty = 0; ty < height; ty++)
+        {
+            for (int tx = 0; tx < width; tx++)
+            {
+                final int index = ty * width + tx;
+                final Tile tile = map.getTile(tx, ty);
+                tiles[index] = tile != null;
+                if (tile == null)
+                {
+                    categories[index] = null;
+                }
+                else
+                {
+                    categories[index] = tile.getFeature(TilePath.class).getCategory();
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if snapshot still fits the map size.
+     * 
+     * @return <code>true</code> if same size as map, <code>false</code> else.
+     */
+    boolean isValid()
+    {
+        return width == map.getInTileWidth() && height == map.getInTileHeight();
+    }
+
+    /*
+     * PathGrid
+     */
+
+    @Override
+    public String getCategory(int tx, int ty)
+    {
+        return categories[ty * width + tx];
+    }
+
+    @Override
+    public double getCost(Pathfindable mover, int tx, int ty)
+    {
+        final int index = ty * width + tx;
+        if (tiles[index])
+        {
+            return mover.getCost(categories[index]);
+        }
+        return 0.0;
+    }
+
+    @Override
+    public boolean isBlocked(Pathfindable mover, int tx, int ty, boolean ignoreObjectsId)
+    {
+        boolean blocked = true;
+        if (ty >= 0 && tx >= 0 && ty < height && tx < width)
+        {
+            final int index = ty * width + tx;
+            if (tiles[index])
+            {
+                blocked = mover.isBlocking(categories[index]);
+            }
+        }
+        return blocked;
+    }
+}
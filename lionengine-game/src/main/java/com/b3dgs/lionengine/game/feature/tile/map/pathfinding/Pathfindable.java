@@ -116,6 +116,15 @@ public interface Pathfindable extends Feature, Tiled, Orientable, Updatable, Ren
      */
     boolean setDestination(int tx, int ty);
 
+    /**
+     * Assign a flow field destination. Will move automatically until reach it after this call, by following the field
+     * instead of searching a path. Path is read again from field each time it changes.
+     * 
+     * @param field The flow field to follow (see {@link FlowFieldService}).
+     * @return <code>true</code> if destination reachable, <code>false</code> else.
+     */
+    boolean setDestination(FlowField field);
+
     /**
      * Set specified location in tile.
      * 
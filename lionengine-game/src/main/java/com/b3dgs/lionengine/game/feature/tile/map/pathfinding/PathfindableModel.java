@@ -74,12 +74,20 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
     private final MapTilePath mapPath;
     /** Pathfinder reference. */
     private final PathFinder pathfinder;
+    /** Path request service reference, <code>null</code> if synchronous requests. */
+    private final PathRequestService requests;
+    /** Setup reference. */
+    private final Setup setup;
     /** List of categories. */
     private final Map<String, PathData> categories;
     /** Transformable model. */
     private Transformable transformable;
     /** Orientable model. */
     private final OrientableModel orientable;
+    /** Followed flow field, <code>null</code> if none. */
+    private FlowField flow;
+    /** Flow field version when path has been read. */
+    private int flowVersion;
     /** Last valid path found. */
     private Path path;
     /** Text debug rendering. */
@@ -108,6 +116,8 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
     private boolean pathStopped;
     /** Moving flag. */
     private boolean moving;
+    /** Path request pending flag. */
+    private boolean pending;
     /** Skip flag. Used to skip one loop of update. */
     private boolean skip;
     /** Rechecks ref flag. */
@@ -135,6 +145,10 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
      * <li>{@link Viewer}</li>
      * </ul>
      * <p>
+     * If the {@link Services} provides a {@link PathRequestService}, first path requests are computed asynchronously,
+     * until service is closed.
+     * </p>
+     * <p>
      * If the {@link Featurable} is a {@link PathfindableListener}, it will automatically
      * {@link #addListener(PathfindableListener)} on it.
      * </p>
@@ -148,7 +162,9 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
 
         map = services.get(MapTile.class);
         viewer = services.get(Viewer.class);
+        requests = services.getOptional(PathRequestService.class).orElse(null);
         mapPath = map.getFeature(MapTilePath.class);
+        this.setup = setup;
         categories = PathfindableConfig.imports(setup);
         orientable = new OrientableModel(services);
 
@@ -348,6 +364,10 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
             // Check if a new path has been assigned (this allow the object to change its path before finishing it)
             if (currentStep > 0 && !skip)
             {
+                if (isFlowChanged())
+                {
+                    pathFoundChanged = true;
+                }
                 checkPathfinderChanges();
             }
         }
@@ -406,7 +426,14 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
             {
                 path.clear();
             }
-            path = pathfinder.findPath(this, destX, destY, false);
+            if (flow == null)
+            {
+                path = pathfinder.findPath(this, destX, destY, false);
+            }
+            else
+            {
+                path = getFlowPath();
+            }
             pathFoundChanged = false;
             currentStep = 0;
             skip = false;
@@ -425,6 +452,54 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
         }
     }
 
+    /**
+     * Read path from the followed flow field.
+     * 
+     * @return The path read, <code>null</code> if none or if destination is next and used by another object.
+     */
+    private Path getFlowPath()
+    {
+        flowVersion = flow.getVersion();
+        Path found = flow.getPath(getInTileX(), getInTileY());
+
+        // Destination taken by another object, stop next to it
+        if (found != null && found.getLength() == 2 && !checkObjectId(destX, destY))
+        {
+            found = null;
+        }
+        return found;
+    }
+
+    /**
+     * Check if the followed flow field changed the remaining path after the current step.
+     * 
+     * @return <code>true</code> if path has to be read again, <code>false</code> else.
+     */
+    private boolean isFlowChanged()
+    {
+        boolean changed = false;
+        if (flow != null && flow.getVersion() != flowVersion)
+        {
+            flowVersion = flow.getVersion();
+            final int max = getMaxStep();
+            if (currentStep < max)
+            {
+                final CoordTile next = flow.getNext(path.getX(currentStep), path.getY(currentStep));
+                if (currentStep + 1 < max)
+                {
+                    changed = next == null
+                              || next.getX() != path.getX(currentStep + 1)
+                              || next.getY() != path.getY(currentStep + 1);
+                }
+                else
+                {
+                    changed = next != null;
+                }
+            }
+        }
+        return changed;
+    }
+
     /**
      * Check if the object id location is available for the pathfindable.
      * 
@@ -532,6 +607,28 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
         return 0;
     }
 
+    /**
+     * Called by {@link PathRequestService} when requested path has been found.
+     * 
+     * @param tx The requested horizontal destination.
+     * @param ty The requested vertical destination.
+     * @param found The path found, <code>null</code> if none.
+     */
+    void onPathFound(int tx, int ty, Path found)
+    {
+        if (pending && path == null && destX == tx && destY == ty)
+        {
+            pending = false;
+            currentStep = 0;
+            path = found;
+            pathFoundChanged = false;
+            for (final PathfindableListener listener : listeners)
+            {
+                listener.notifyStartMove();
+            }
+        }
+    }
+
     /*
      * Pathfindable
      */
@@ -578,6 +675,8 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
     @Override
     public void stopMoves()
     {
+        pending = false;
+        flow = null;
         pathStoppedRequested = true;
     }
 
@@ -696,17 +795,31 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
     {
         if (getInTileX() != tx || getInTileY() != ty)
         {
+            if (flow != null && (flow.getDestinationX() != tx || flow.getDestinationY() != ty))
+            {
+                flow = null;
+            }
             // New first path, when object is not moving
             if (path == null)
             {
-                currentStep = 0;
-                path = pathfinder.findPath(this, tx, ty, true);
-                pathFoundChanged = false;
-                for (final PathfindableListener listener : listeners)
+                if (requests == null || requests.isClosed())
                 {
-                    listener.notifyStartMove();
+                    currentStep = 0;
+                    path = pathfinder.findPath(this, tx, ty, true);
+                    pathFoundChanged = false;
+                    for (final PathfindableListener listener : listeners)
+                    {
+                        listener.notifyStartMove();
+                    }
+                    prepareDestination(tx, ty);
+                }
+                // Computed asynchronously, notified on result
+                else
+                {
+                    prepareDestination(tx, ty);
+                    pending = true;
+                    requests.request(this, setup, getInTileX(), getInTileY(), tx, ty);
                 }
-                prepareDestination(tx, ty);
                 return true;
             }
             // Next path, while object is moving, change takes effect when the object reached a step point
@@ -716,6 +829,37 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
         return false;
     }
 
+    @Override
+    public boolean setDestination(FlowField field)
+    {
+        final boolean reachable = field.getNext(getInTileX(), getInTileY()) != null;
+        if (reachable)
+        {
+            flow = field;
+            // New first path, when object is not moving
+            if (path == null)
+            {
+                pending = false;
+                currentStep = 0;
+                flowVersion = field.getVersion();
+                path = field.getPath(getInTileX(), getInTileY());
+                pathFoundChanged = false;
+                prepareDestination(field.getDestinationX(), field.getDestinationY());
+                for (final PathfindableListener listener : listeners)
+                {
+                    listener.notifyStartMove();
+                }
+            }
+            // Next path, while object is moving, change takes effect when the object reached a step point
+            else
+            {
+                prepareDestination(field.getDestinationX(), field.getDestinationY());
+                pathFoundChanged = true;
+            }
+        }
+        return reachable;
+    }
+
     @Override
     public void setLocation(CoordTile coord)
     {
@@ -872,6 +1016,8 @@ public class PathfindableModel extends FeatureModel implements Pathfindable, Rec
         speedY = 1.0;
         destinationReached = true;
         renderDebug = false;
+        pending = false;
+        flow = null;
         skip = false;
         moving = false;
         pathStopped = false;
@@ -0,0 +1,492 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.persister;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.b3dgs.lionengine.Constant;
+import com.b3dgs.lionengine.game.feature.tile.Tile;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+import com.b3dgs.lionengine.io.FileReading;
+import com.b3dgs.lionengine.io.FileWriting;
+
+/**
+ * Chunked map format header and index. Map is split in square chunks of tiles, each one encoded (and optionally
+ * compressed) independently, so any chunk can be decoded alone from its index entry. Data are stored this way:
+ * 
+ * <pre>
+ * <code>(int)</code> {@link #MAGIC}
+ * <code>(byte)</code> {@link #VERSION}
+ * <code>(int)</code> tile width
+ * <code>(int)</code> tile height
+ * <code>(int)</code> width in tiles
+ * <code>(int)</code> height in tiles
+ * <code>(boolean)</code> has sheets configuration
+ *   <code>(String)</code> sheets configuration file
+ * <code>(int)</code> chunk size in tiles
+ * <code>(boolean)</code> compressed
+ * for each chunk (row by row)
+ *   <code>(int)</code> chunk data offset from file beginning
+ *   <code>(int)</code> chunk data length (0 if chunk has no tile)
+ * for each chunk (row by row)
+ *   chunk data, for each tile (row by row)
+ *     <code>(int)</code> sheet number ({@value #EMPTY} if no tile)
+ *     tile data (only if tile defined), by default:
+ *       <code>(int)</code> index number inside sheet
+ * </pre>
+ */
+final class ChunkIndex
+{
+    /** Chunked format magic number, negative to never match a legacy tile width. */
+    static final int MAGIC = 0xB3D6C4E1;
+    /** Chunked format version. */
+    static final byte VERSION = 1;
+    /** Empty tile sheet value. */
+    static final int EMPTY = -1;
+    /** Error version message. */
+    static final String ERROR_VERSION = "Unsupported map format version: ";
+    /** Error sheet missing message. */
+    static final String ERROR_SHEET_MISSING = "Sheet missing: ";
+    /** Index entry size in bytes (offset and length). */
+    private static final int ENTRY_SIZE = 8;
+
+    /**
+     * Create index from map.
+     * 
+     * @param map The map reference.
+     * @param chunkSize The chunk size in tiles.
+     * @param compressed <code>true</code> to compress chunks, <code>false</code> else.
+     * @return The created index.
+     */
+    static ChunkIndex create(MapTile map, int chunkSize, boolean compressed)
+    {
+        final String config;
+        if (map.getMedia() != null)
+        {
+            config = map.getMedia().getPath();
+        }
+        else
+        {
+            config = null;
+        }
+        return new ChunkIndex(map.getTileWidth(),
+                              map.getTileHeight(),
+                              map.getInTileWidth(),
+                              map.getInTileHeight(),
+                              config,
+                              chunkSize,
+                              compressed);
+    }
+
+    /**
+     * Read index from input, just after {@link #MAGIC}.
+     * 
+     * @param input The input reference.
+     * @return The read index.
+     * @throws IOException If error on reading or unsupported version.
+     */
+    static ChunkIndex read(FileReading input) throws IOException
+    {
+        final byte version = input.readByte();
+        if (version != VERSION)
+        {
+            throw new IOException(ERROR_VERSION + version);
+        }
+
+        final int tileWidth = input.readInteger();
+        final int tileHeight = input.readInteger();
+        final int widthInTile = input.readInteger();
+        final int heightInTile = input.readInteger();
+        final String config;
+        if (input.readBoolean())
+        {
+            config = input.readString();
+        }
+        else
+        {
+            config = null;
+        }
+        final int chunkSize = input.readInteger();
+        final boolean compressed = input.readBoolean();
+
+        final ChunkIndex index = new ChunkIndex(tileWidth,
+                                                tileHeight,
+                                                widthInTile,
+                                                heightInTile,
+                                                config,
+                                                chunkSize,
+                                                compressed);
+        for (int i = 0; i < index.offsets.length; i++)
+        {
+            index.offsets[i] = input.readInteger();
+            index.lengths[i] = input.readInteger();
+        }
+        return index;
+    }
+
+    /** Tile width. */
+    final int tileWidth;
+    /** Tile height. */
+    final int tileHeight;
+    /** Width in tiles. */
+    final int widthInTile;
+    /** Height in tiles. */
+    final int heightInTile;
+    /** Sheets configuration path (<code>null</code> if none). */
+    final String config;
+    /** Chunk size in tiles. */
+    final int chunkSize;
+    /** Compressed chunks flag. */
+    final boolean compressed;
+    /** Horizontal chunks number. */
+    final int chunksX;
+    /** Vertical chunks number. */
+    final int chunksY;
+    /** Chunks data offset from file beginning. */
+    final int[] offsets;
+    /** Chunks data length. */
+    final int[] lengths;
+
+    /**
+     * Create index.
+     * 
+     * @param tileWidth The tile width.
+     * @param tileHeight The tile height.
+     * @param widthInTile The width in tiles.
+     * @param heightInTile The height in tiles.
+     * @param config The sheets configuration path (<code>null</code> if none).
+     * @param chunkSize The chunk size in tiles.
+     * @param compressed <code>true</code> if chunks are compressed, <code>false</code> else.
+     */
+    private ChunkIndex(int tileWidth,
+                       int tileHeight,
+                       int widthInTile,
+                       int heightInTile,
+                       String config,
+                       int chunkSize,
+                       boolean compressed)
+    {
+        super();
+
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.widthInTile = widthInTile;
+        this.heightInTile = heightInTile;
+        this.config = config;
+        this.chunkSize = chunkSize;
+        this.compressed = compressed;
+        chunksX = (widthInTile + chunkSize - 1) / chunkSize;
+        chunksY = (heightInTile + chunkSize - 1) / chunkSize;
+        offsets = new int[chunksX * chunksY];
+        lengths = new int[chunksX * chunksY];
+    }
+
+    /**
+     * Write index and chunks data to output.
+     * 
+     * @param output The output reference.
+     * @param chunks The encoded chunks data, row by row (empty array for chunk without tile).
+     * @throws IOException If error on writing.
+     */
+    void write(FileWriting output, byte[][] chunks) throws IOException
+    {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream header = new DataOutputStream(buffer))
+        {
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+            header.writeInt(tileWidth);
+            header.writeInt(tileHeight);
+            header.writeInt(widthInTile);
+            header.writeInt(heightInTile);
+            header.writeBoolean(config != null);
+            if (config != null)
+            {
+                header.writeUTF(config);
+            }
+            header.writeInt(chunkSize);
+            header.writeBoolean(compressed);
+        }
+        output.writeBytes(buffer.toByteArray());
+
+        int offset = buffer.size() + offsets.length * ENTRY_SIZE;
+        for (int i = 0; i < offsets.length; i++)
+        {
+            offsets[i] = offset;
+            lengths[i] = chunks[i].length;
+            offset += lengths[i];
+            output.writeInteger(offsets[i]);
+            output.writeInteger(lengths[i]);
+        }
+        for (final byte[] chunk : chunks)
+        {
+            output.writeBytes(chunk);
+        }
+    }
+
+    /**
+     * Get the chunk width in tiles (last column may be narrower).
+     * 
+     * @param cx The horizontal chunk index.
+     * @return The chunk width in tiles.
+     */
+    int getChunkWidth(int cx)
+    {
+        return Math.min(chunkSize, widthInTile - cx * chunkSize);
+    }
+
+    /**
+     * Get the chunk height in tiles (last row may be narrower).
+     * 
+     * @param cy The vertical chunk index.
+     * @return The chunk height in tiles.
+     */
+    int getChunkHeight(int cy)
+    {
+        return Math.min(chunkSize, heightInTile - cy * chunkSize);
+    }
+
+    /**
+     * Encode chunk tiles.
+     * 
+     * @param map The map reference.
+     * @param cx The horizontal chunk index.
+     * @param cy The vertical chunk index.
+     * @param writer The tile data writer.
+     * @return The encoded chunk, empty if chunk has no tile.
+     * @throws IOException If error on encoding.
+     */
+    byte[] encode(MapTile map, int cx, int cy, TileWriter writer) throws IOException
+    {
+        final int width = getChunkWidth(cx);
+        final int height = getChunkHeight(cy);
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        boolean empty = true;
+
+        try (DataOutputStream data = new DataOutputStream(wrap(buffer)))
+        {
+            for (int y = 0; y < height; y++)
+            {
+                for (int x = 0; x < width; x++)
+                {
+                    final Tile tile = map.getTile(cx * chunkSize + x, cy * chunkSize + y);
+                    if (tile == null)
+                    {
+                        data.writeInt(EMPTY);
+                    }
+                    else
+                    {
+                        data.writeInt(tile.getSheet().intValue());
+                        writer.write(data, tile);
+                        empty = false;
+                    }
+                }
+            }
+        }
+        if (empty)
+        {
+            return new byte[0];
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Decode chunk tiles and set them to map.
+     * 
+     * @param map The map reference.
+     * @param cx The horizontal chunk index.
+     * @param cy The vertical chunk index.
+     * @param chunk The encoded chunk.
+     * @param reader The tile data reader.
+     * @throws IOException If error on decoding or a tile sheet is missing.
+     */
+    void load(MapTile map, int cx, int cy, byte[] chunk, TileReader reader) throws IOException
+    {
+        if (chunk.length == 0)
+        {
+            return;
+        }
+        final int width = getChunkWidth(cx);
+        final int height = getChunkHeight(cy);
+        try (DataInputStream data = new DataInputStream(wrap(new ByteArrayInputStream(chunk))))
+        {
+            for (int y = 0; y < height; y++)
+            {
+                for (int x = 0; x < width; x++)
+                {
+                    final int sheet = data.readInt();
+                    if (sheet != EMPTY)
+                    {
+                        if (sheet > map.getSheetsNumber())
+                        {
+                            throw new IOException(ERROR_SHEET_MISSING + Constant.DOUBLE_DOT + sheet);
+                        }
+                        map.setTile(reader.read(data, Integer.valueOf(sheet), cx * chunkSize + x, cy * chunkSize + y));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode chunk tiles with default tile data.
+     * 
+     * @param cx The horizontal chunk index.
+     * @param cy The vertical chunk index.
+     * @param chunk The encoded chunk.
+     * @return The decoded tiles, as sheet and number pairs row by row ({@value #EMPTY} sheet if no tile).
+     * @throws IOException If error on decoding.
+     */
+    int[] decode(int cx, int cy, byte[] chunk) throws IOException
+    {
+        final int count = getChunkWidth(cx) * getChunkHeight(cy);
+        final int[] tiles = new int[count * 2];
+
+        if (chunk.length == 0)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                tiles[i * 2] = EMPTY;
+            }
+            return tiles;
+        }
+
+        try (DataInputStream data = new DataInputStream(wrap(new ByteArrayInputStream(chunk))))
+        {
+            for (int i = 0; i < count; i++)
+            {
+                final int sheet = data.readInt();
+                tiles[i * 2] = sheet;
+                if (sheet != EMPTY)
+                {
+                    tiles[i * 2 + 1] = data.readInt();
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Apply decoded chunk tiles to map.
+     * 
+     * @param map The map reference.
+     * @param cx The horizontal chunk index.
+     * @param cy The vertical chunk index.
+     * @param tiles The decoded tiles.
+     * @throws IOException If a tile sheet is missing.
+     */
+    void apply(MapTile map, int cx, int cy, int[] tiles) throws IOException
+    {
+        final int width = getChunkWidth(cx);
+        final int height = getChunkHeight(cy);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                final int i = (y * width + x) * 2;
+                final int sheet = tiles[i];
+                if (sheet != EMPTY)
+                {
+                    if (sheet > map.getSheetsNumber())
+                    {
+                        throw new IOException(ERROR_SHEET_MISSING + Constant.DOUBLE_DOT + sheet);
+                    }
+                    final int tx = cx * chunkSize + x;
+                    final int ty = cy * chunkSize + y;
+                    map.setTile(map.createTile(Integer.valueOf(sheet),
+                                               tiles[i + 1],
+                                               tx * (double) tileWidth,
+                                               ty * (double) tileHeight));
+                }
+            }
+        }
+    }
+
+    /**
+     * Wrap output with compression if enabled.
+     * 
+     * @param output The output to wrap.
+     * @return The wrapped output.
+     */
+    private OutputStream wrap(OutputStream output)
+    {
+        if (compressed)
+        {
+            return new DeflaterOutputStream(output);
+        }
+        return output;
+    }
+
+    /**
+     * Wrap input with decompression if enabled.
+     * 
+     * @param input The input to wrap.
+     * @return The wrapped input.
+     */
+    private InputStream wrap(InputStream input)
+    {
+        if (compressed)
+        {
+            return new InflaterInputStream(input);
+        }
+        return input;
+    }
+
+    /**
+     * Tile data writer, called after tile sheet number.
+     */
+    interface TileWriter
+    {
+        /**
+         * Write tile data.
+         * 
+         * @param output The chunk output.
+         * @param tile The tile to write.
+         * @throws IOException If error on writing.
+         */
+        void write(DataOutput output, Tile tile) throws IOException;
+    }
+
+    /**
+     * Tile data reader, called after tile sheet number.
+     */
+    interface TileReader
+    {
+        /**
+         * Read tile data and create tile.
+         * 
+         * @param input The chunk input.
+         * @param sheet The tile sheet number.
+         * @param tx The horizontal tile index.
+         * @param ty The vertical tile index.
+         * @return The created tile.
+         * @throws IOException If error on reading.
+         */
+        Tile read(DataInput input, Integer sheet, int tx, int ty) throws IOException;
+    }
+}
@@ -17,10 +17,13 @@
  */
 package com.b3dgs.lionengine.game.feature.tile.map.persister;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 
 import com.b3dgs.lionengine.Check;
 import com.b3dgs.lionengine.Constant;
+import com.b3dgs.lionengine.LionEngineException;
 import com.b3dgs.lionengine.Medias;
 import com.b3dgs.lionengine.game.feature.FeatureModel;
 import com.b3dgs.lionengine.game.feature.Services;
@@ -31,16 +34,29 @@ import com.b3dgs.lionengine.io.FileWriting;
 
 /**
  * Handle the map persistence by providing saving and loading functions.
+ * <p>
+ * Maps are saved in a chunked format (see {@link #save(FileWriting)}), which can also be streamed region by region
+ * with {@link MapTileRegionLoader}. Files saved in the previous bloc format are still loaded.
+ * </p>
+ * <p>
+ * Tile data can be customized by overriding {@link #saveTile(DataOutput, Tile)} and
+ * {@link #loadTile(DataInput, Integer, int, int)} together. Maps saved with custom tile data must be loaded by the
+ * same persister, as {@link MapTileRegionLoader} only reads the default tile data.
+ * </p>
  */
 public class MapTilePersisterModel extends FeatureModel implements MapTilePersister
 {
-    /** Error sheet missing message. */
-    private static final String ERROR_SHEET_MISSING = "Sheet missing: ";
-    /** Number of horizontal tiles to make a bloc. Used to reduce saved map file size. */
+    /** Default chunk size in tiles. */
+    public static final int DEFAULT_CHUNK_SIZE = 32;
+    /** Number of horizontal tiles to make a bloc (legacy format). */
     private static final int BLOC_SIZE = 256;
 
     /** The services reference. */
     private final MapTile map;
+    /** Chunk size in tiles. */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    /** Compressed chunks flag. */
+    private boolean compressed = true;
 
     /**
      * Create the persister.
@@ -61,29 +77,66 @@ public class MapTilePersisterModel extends FeatureModel implements MapTilePersis
     }
 
     /**
-     * Save tile. Data are saved this way:
+     * Set the chunk size used on save.
+     * 
+     * @param chunkSize The chunk size in tiles (must be strictly positive).
+     * @throws LionEngineException If invalid argument.
+     */
+    public void setChunkSize(int chunkSize)
+    {
+        Check.superiorStrict(chunkSize, 0);
+
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Set the chunks compression used on save.
+     * 
+     * @param compressed <code>true</code> to compress chunks, <code>false</code> else.
+     */
+    public void setCompressed(boolean compressed)
+    {
+        this.compressed = compressed;
+    }
+
+    /**
+     * Save tile data in its chunk, after its sheet number. Data are saved this way:
      * 
      * <pre>
-     * (integer) sheet number
      * (integer) index number inside sheet
-     * (integer) tile location x % MapTile.BLOC_SIZE
-     * (integer tile location y
      * </pre>
      * 
-     * @param file The file writer reference.
+     * @param output The chunk output.
      * @param tile The tile to save.
      * @throws IOException If error on writing.
      */
-    protected void saveTile(FileWriting file, Tile tile) throws IOException
+    protected void saveTile(DataOutput output, Tile tile) throws IOException
+    {
+        output.writeInt(tile.getNumber());
+    }
+
+    /**
+     * Load tile data from its chunk, after its sheet number. Data are loaded this way:
+     * 
+     * <pre>
+     * (integer) index number inside sheet
+     * </pre>
+     * 
+     * @param input The chunk input.
+     * @param sheet The tile sheet number.
+     * @param tx The horizontal tile index.
+     * @param ty The vertical tile index.
+     * @return The loaded tile.
+     * @throws IOException If error on reading.
+     */
+    protected Tile loadTile(DataInput input, Integer sheet, int tx, int ty) throws IOException
     {
-        file.writeInteger(tile.getSheet().intValue());
-        file.writeInteger(tile.getNumber());
-        file.writeInteger(tile.getInTileX() % BLOC_SIZE);
-        file.writeInteger(tile.getInTileY());
+        final int number = input.readInt();
+        return map.createTile(sheet, number, tx * (double) map.getTileWidth(), ty * (double) map.getTileHeight());
     }
 
     /**
-     * Load tile. Data are loaded this way:
+     * Load tile from legacy bloc format. Data are loaded this way:
      * 
      * <pre>
      * (integer) sheet number
@@ -109,49 +162,76 @@ public class MapTilePersisterModel extends FeatureModel implements MapTilePersis
     }
 
     /**
-     * Count the active tiles.
+     * Load map from chunked format, just after the format magic.
      * 
-     * @param widthInTile The horizontal tiles.
-     * @param step The step number.
-     * @param s The s value.
-     * @return The active tiles.
+     * @param input The input level file.
+     * @throws IOException If error on reading.
      */
-    private int countTiles(int widthInTile, int step, int s)
+    private void loadChunked(FileReading input) throws IOException
     {
-        int count = 0;
-        for (int tx = 0; tx < widthInTile; tx++)
+        final ChunkIndex index = ChunkIndex.read(input);
+        map.create(index.tileWidth, index.tileHeight, index.widthInTile, index.heightInTile);
+        if (index.config != null)
         {
-            for (int ty = 0; ty < map.getInTileHeight(); ty++)
+            map.loadSheets(Medias.create(index.config));
+        }
+
+        for (int cy = 0; cy < index.chunksY; cy++)
+        {
+            for (int cx = 0; cx < index.chunksX; cx++)
             {
-                if (map.getTile(tx + s * step, ty) != null)
-                {
-                    count++;
-                }
+                final byte[] chunk = new byte[index.lengths[cy * index.chunksX + cx]];
+                input.readBytes(chunk);
+                index.load(map, cx, cy, chunk, this::loadTile);
             }
         }
-        return count;
     }
 
     /**
-     * Save the active tiles.
+     * Load map from legacy bloc format, just after the tile width.
+     * <p>
+     * Data are loaded this way:
+     * </p>
      * 
-     * @param file The output file.
-     * @param widthInTile The horizontal tiles.
-     * @param step The step number.
-     * @param s The s value.
-     * @throws IOException If error on saving.
+     * <pre>
+     * <code>(int)</code> tile width (already read)
+     * <code>(int)</code> tile height
+     * <code>(int)</code> width in tiles
+     * <code>(int)</code> height in tiles
+     * <code>(boolean)</code> has sheets configuration
+     *   <code>(String)</code> sheets configuration file
+     * <code>(short)</code> number of {@value #BLOC_SIZE} horizontal blocs (widthInTile / {@value #BLOC_SIZE})
+     * for each blocs tile
+     *   <code>(short)</code> number of tiles in this bloc
+     *   for each tile in this bloc
+     *     call {@link #loadTile(FileReading, int)}
+     *     call setTile(...) to update map with this new tile
+     * </pre>
+     * 
+     * @param input The input level file.
+     * @param tileWidth The read tile width.
+     * @throws IOException If error on reading.
      */
-    private void saveTiles(FileWriting file, int widthInTile, int step, int s) throws IOException
+    private void loadLegacy(FileReading input, int tileWidth) throws IOException
     {
-        for (int tx = 0; tx < widthInTile; tx++)
+        map.create(tileWidth, input.readInteger(), input.readInteger(), input.readInteger());
+        if (input.readBoolean())
+        {
+            map.loadSheets(Medias.create(input.readString()));
+        }
+
+        final int t = input.readShort();
+        for (int v = 0; v < t; v++)
         {
-            for (int ty = 0; ty < map.getInTileHeight(); ty++)
+            final int n = input.readShort();
+            for (int h = 0; h < n; h++)
             {
-                final Tile tile = map.getTile(tx + s * step, ty);
-                if (tile != null)
+                final Tile tile = loadTile(input, v);
+                if (tile.getSheet().intValue() > map.getSheetsNumber())
                 {
-                    saveTile(file, tile);
+                    throw new IOException(ChunkIndex.ERROR_SHEET_MISSING + Constant.DOUBLE_DOT + tile.getSheet());
                 }
+                map.setTile(tile);
             }
         }
     }
@@ -161,19 +241,27 @@ public class MapTilePersisterModel extends FeatureModel implements MapTilePersis
      */
 
     /**
-     * Save map to specified file as binary data. Data are saved this way (using specific types to save space):
+     * Save map to specified file as binary data, split in chunks of {@link #setChunkSize(int)} tiles, optionally
+     * compressed (see {@link #setCompressed(boolean)}). Data are saved this way:
      * 
      * <pre>
-     * <code>(String)</code> sheets configuration file
-     * <code>(short)</code> width in tiles
-     * <code>(short)</code> height in tiles
-     * <code>(byte)</code> tile width (use of byte because tile width &lt; 255)
-     * <code>(byte)</code> tile height (use of byte because tile height &lt; 255)
-     * <code>(short)</code> number of {@value #BLOC_SIZE} horizontal blocs (widthInTile / {@value #BLOC_SIZE})
-     * for each blocs tile
-     *   <code>(short)</code> number of tiles in this bloc
-     *   for each tile in this bloc
-     *     call tile.save(file)
+     * <code>(int)</code> format magic
+     * <code>(byte)</code> format version
+     * <code>(int)</code> tile width
+     * <code>(int)</code> tile height
+     * <code>(int)</code> width in tiles
+     * <code>(int)</code> height in tiles
+     * <code>(boolean)</code> has sheets configuration
+     *   <code>(String)</code> sheets configuration file
+     * <code>(int)</code> chunk size in tiles
+     * <code>(boolean)</code> compressed
+     * for each chunk
+     *   <code>(int)</code> chunk data offset
+     *   <code>(int)</code> chunk data length
+     * for each chunk
+     *   for each tile in this chunk
+     *     <code>(int)</code> sheet number (-1 if no tile)
+     *     call {@link #saveTile(DataOutput, Tile)} if tile defined
      * </pre>
      * 
      * @param output The output level file.
@@ -182,80 +270,38 @@ public class MapTilePersisterModel extends FeatureModel implements MapTilePersis
     @Override
     public void save(FileWriting output) throws IOException
     {
-        final int widthInTile = map.getInTileWidth();
-
-        // Header
-        output.writeInteger(map.getTileWidth());
-        output.writeInteger(map.getTileHeight());
-        output.writeInteger(widthInTile);
-        output.writeInteger(map.getInTileHeight());
-
-        final boolean hasConfig = map.getMedia() != null;
-        output.writeBoolean(hasConfig);
-        if (hasConfig)
+        final ChunkIndex index = ChunkIndex.create(map, chunkSize, compressed);
+        final byte[][] chunks = new byte[index.chunksX * index.chunksY][];
+        for (int cy = 0; cy < index.chunksY; cy++)
         {
-            output.writeString(map.getMedia().getPath());
-        }
-
-        final int step = BLOC_SIZE;
-        final int x = Math.min(step, widthInTile);
-        final int t = (int) Math.ceil(widthInTile / (double) step);
-
-        output.writeShort((short) t);
-        for (int s = 0; s < t; s++)
-        {
-            final int count = countTiles(x, step, s);
-            output.writeShort((short) count);
-            saveTiles(output, Math.min(widthInTile, BLOC_SIZE), step, s);
+            for (int cx = 0; cx < index.chunksX; cx++)
+            {
+                chunks[cy * index.chunksX + cx] = index.encode(map, cx, cy, this::saveTile);
+            }
         }
+        index.write(output, chunks);
     }
 
     /**
      * Load a map from a specified file as binary data.
      * <p>
-     * Data are loaded this way (see {@link #save(FileWriting)} order):
+     * Chunked format (see {@link #save(FileWriting)}) and legacy bloc format are both supported.
      * </p>
      * 
-     * <pre>
-     * <code>(String)</code> sheets file configuration
-     * <code>(short)</code> width in tiles
-     * <code>(short)</code> height in tiles
-     * <code>(byte)</code> tile width
-     * <code>(byte)</code> tile height
-     * <code>(short)</code> number of {@value #BLOC_SIZE} horizontal blocs (widthInTile / {@value #BLOC_SIZE})
-     * for each blocs tile
-     *   <code>(short)</code> number of tiles in this bloc
-     *   for each tile in this bloc
-     *     create blank tile
-     *     call load(file)
-     *     call setTile(...) to update map with this new tile
-     * </pre>
-     * 
      * @param input The input level file.
      * @throws IOException If error on reading.
      */
     @Override
     public void load(FileReading input) throws IOException
     {
-        map.create(input.readInteger(), input.readInteger(), input.readInteger(), input.readInteger());
-        if (input.readBoolean())
+        final int magic = input.readInteger();
+        if (magic == ChunkIndex.MAGIC)
         {
-            map.loadSheets(Medias.create(input.readString()));
+            loadChunked(input);
         }
-
-        final int t = input.readShort();
-        for (int v = 0; v < t; v++)
+        else
         {
-            final int n = input.readShort();
-            for (int h = 0; h < n; h++)
-            {
-                final Tile tile = loadTile(input, v);
-                if (tile.getSheet().intValue() > map.getSheetsNumber())
-                {
-                    throw new IOException(ERROR_SHEET_MISSING + Constant.DOUBLE_DOT + tile.getSheet());
-                }
-                map.setTile(tile);
-            }
+            loadLegacy(input, magic);
         }
     }
 }
@@ -0,0 +1,431 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.persister;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.Updatable;
+import com.b3dgs.lionengine.Viewer;
+import com.b3dgs.lionengine.game.feature.Services;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+import com.b3dgs.lionengine.io.FileReading;
+
+/**
+ * Stream a chunked map (see {@link MapTilePersisterModel#save(com.b3dgs.lionengine.io.FileWriting)}) region by
+ * region, around the {@link Viewer}.
+ * <p>
+ * Only the header and the chunk index are read on creation, map file is memory mapped. On each update, chunks
+ * visible by the viewer are decoded and applied immediately if not already loaded, and chunks in the margin around
+ * the view are decoded in background, then applied on a following update. Map is only modified from the update
+ * thread.
+ * </p>
+ * <p>
+ * Only default tile data are read: maps saved with an overridden
+ * {@link MapTilePersisterModel#saveTile(java.io.DataOutput, com.b3dgs.lionengine.game.feature.tile.Tile)} must be
+ * loaded by their persister.
+ * </p>
+ */
+public class MapTileRegionLoader implements Updatable
+{
+    /** Default prefetch margin in chunks. */
+    public static final int DEFAULT_MARGIN = 1;
+    /** Error format message. */
+    static final String ERROR_FORMAT = "Not a chunked map";
+
+    /**
+     * Read map index.
+     * 
+     * @param level The level media.
+     * @return The map index.
+     * @throws LionEngineException If error on reading or not a chunked map.
+     */
+    private static ChunkIndex readIndex(Media level)
+    {
+        try (FileReading input = new FileReading(level))
+        {
+            if (input.readInteger() != ChunkIndex.MAGIC)
+            {
+                throw new LionEngineException(level, ERROR_FORMAT);
+            }
+            return ChunkIndex.read(input);
+        }
+        catch (final IOException exception)
+        {
+            throw new LionEngineException(exception, level);
+        }
+    }
+
+    /**
+     * Map level file in memory.
+     * 
+     * @param level The level media.
+     * @return The mapped file.
+     * @throws LionEngineException If error on mapping.
+     */
+    private static ByteBuffer mapFile(Media level)
+    {
+        try (FileChannel channel = FileChannel.open(level.getFile().toPath(), StandardOpenOption.READ))
+        {
+            final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0L, channel.size());
+            return buffer.asReadOnlyBuffer();
+        }
+        catch (final IOException exception)
+        {
+            throw new LionEngineException(exception, level);
+        }
+    }
+
+    /** Pending decoded chunks, by chunk index. */
+    private final Map<Integer, Future<int[]>> pending = new HashMap<>();
+    /** Level media. */
+    private final Media level;
+    /** Map reference. */
+    private final MapTile map;
+    /** Viewer reference. */
+    private final Viewer viewer;
+    /** Mapped file. */
+    private final ByteBuffer file;
+    /** Map index. */
+    private final ChunkIndex index;
+    /** Applied chunks. */
+    private final boolean[] loaded;
+    /** Prefetch margin in chunks. */
+    private final int margin;
+    /** Background decoder. */
+    private final ExecutorService executor;
+    /** Applied chunks count. */
+    private int count;
+
+    /**
+     * Create loader with {@link #DEFAULT_MARGIN}.
+     * 
+     * @param services The services reference.
+     * @param level The chunked level file (must not be <code>null</code>).
+     * @throws LionEngineException If invalid arguments, services not found or error on reading.
+     */
+    public MapTileRegionLoader(Services services, Media level)
+    {
+        this(services, level, DEFAULT_MARGIN);
+    }
+
+    /**
+     * Create loader. The map is created and its sheets loaded, without any tile.
+     * <p>
+     * The {@link Services} must provide:
+     * </p>
+     * <ul>
+     * <li>{@link MapTile}</li>
+     * <li>{@link Viewer}</li>
+     * </ul>
+     * 
+     * @param services The services reference.
+     * @param level The chunked level file (must not be <code>null</code>).
+     * @param margin The prefetch margin in chunks (must be positive).
+     * @throws LionEngineException If invalid arguments, services not found or error on reading.
+     */
+    public MapTileRegionLoader(Services services, Media level, int margin)
+    {
+        super();
+
+        Check.notNull(services);
+        Check.notNull(level);
+        Check.superiorOrEqual(margin, 0);
+
+        map = services.get(MapTile.class);
+        viewer = services.get(Viewer.class);
+        this.level = level;
+        this.margin = margin;
+        index = readIndex(level);
+        file = mapFile(level);
+        loaded = new boolean[index.chunksX * index.chunksY];
+        executor = Executors.newSingleThreadExecutor(runnable ->
+        {
+            final Thread thread = new Thread(runnable, MapTileRegionLoader.class.getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        map.create(index.tileWidth, index.tileHeight, index.widthInTile, index.heightInTile);
+        if (index.config != null)
+        {
+            map.loadSheets(Medias.create(index.config));
+        }
+    }
+
+    /**
+     * Load chunk immediately if not already loaded.
+     * 
+     * @param cx The horizontal chunk index.
+     * @param cy The vertical chunk index.
+     * @throws LionEngineException If invalid chunk or error on decoding.
+     */
+    public void load(int cx, int cy)
+    {
+        Check.superiorOrEqual(cx, 0);
+        Check.superiorOrEqual(cy, 0);
+        Check.inferiorStrict(cx, index.chunksX);
+        Check.inferiorStrict(cy, index.chunksY);
+
+        final int i = cy * index.chunksX + cx;
+        if (!loaded[i])
+        {
+            final Future<int[]> future = pending.remove(Integer.valueOf(i));
+            if (future != null)
+            {
+                apply(i, get(future));
+            }
+            else
+            {
+                apply(i, decode(i));
+            }
+        }
+    }
+
+    /**
+     * Check if chunk has been loaded.
+     * 
+     * @param cx The horizontal chunk index.
+     * @param cy The vertical chunk index.
+     * @return <code>true</code> if loaded, <code>false</code> else.
+     */
+    public boolean isLoaded(int cx, int cy)
+    {
+        return loaded[cy * index.chunksX + cx];
+    }
+
+    /**
+     * Check if all chunks have been loaded.
+     * 
+     * @return <code>true</code> if fully loaded, <code>false</code> else.
+     */
+    public boolean isComplete()
+    {
+        return count == loaded.length;
+    }
+
+    /**
+     * Get the chunk size in tiles.
+     * 
+     * @return The chunk size in tiles.
+     */
+    public int getChunkSize()
+    {
+        return index.chunkSize;
+    }
+
+    /**
+     * Get the horizontal chunks number.
+     * 
+     * @return The horizontal chunks number.
+     */
+    public int getChunksHorizontal()
+    {
+        return index.chunksX;
+    }
+
+    /**
+     * Get the vertical chunks number.
+     * 
+     * @return The vertical chunks number.
+     */
+    public int getChunksVertical()
+    {
+        return index.chunksY;
+    }
+
+    /**
+     * Stop background decoder. Already loaded chunks remain in map.
+     */
+    public void close()
+    {
+        executor.shutdownNow();
+        pending.clear();
+    }
+
+    /**
+     * Decode chunk from mapped file.
+     * 
+     * @param i The chunk index.
+     * @return The decoded tiles.
+     * @throws IOException If error on decoding.
+     */
+    private int[] read(int i) throws IOException
+    {
+        final byte[] chunk = new byte[index.lengths[i]];
+        final ByteBuffer data = file.duplicate();
+        data.position(index.offsets[i]);
+        data.get(chunk);
+        return index.decode(i % index.chunksX, i / index.chunksX, chunk);
+    }
+
+    /**
+     * Decode chunk on current thread.
+     * 
+     * @param i The chunk index.
+     * @return The decoded tiles.
+     * @throws LionEngineException If error on decoding.
+     */
+    private int[] decode(int i)
+    {
+        try
+        {
+            return read(i);
+        }
+        catch (final IOException exception)
+        {
+            throw new LionEngineException(exception, level);
+        }
+    }
+
+    /**
+     * Wait for background decoded chunk.
+     * 
+     * @param future The decoding task.
+     * @return The decoded tiles.
+     * @throws LionEngineException If error on decoding.
+     */
+    private int[] get(Future<int[]> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (final ExecutionException exception)
+        {
+            throw new LionEngineException(exception.getCause(), level);
+        }
+        catch (final InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new LionEngineException(exception, level);
+        }
+    }
+
+    /**
+     * Apply decoded chunk to map.
+     * 
+     * @param i The chunk index.
+     * @param tiles The decoded tiles.
+     * @throws LionEngineException If a tile sheet is missing.
+     */
+    private void apply(int i, int[] tiles)
+    {
+        try
+        {
+            index.apply(map, i % index.chunksX, i / index.chunksX, tiles);
+        }
+        catch (final IOException exception)
+        {
+            throw new LionEngineException(exception, level);
+        }
+        loaded[i] = true;
+        count++;
+    }
+
+    /**
+     * Apply background decoded chunks which are done.
+     */
+    private void applyDone()
+    {
+        final Iterator<Map.Entry<Integer, Future<int[]>>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            final Map.Entry<Integer, Future<int[]>> entry = iterator.next();
+            if (entry.getValue().isDone())
+            {
+                iterator.remove();
+                apply(entry.getKey().intValue(), get(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Queue background decoding of chunks not loaded in area.
+     * 
+     * @param minX The minimum horizontal chunk index.
+     * @param minY The minimum vertical chunk index.
+     * @param maxX The maximum horizontal chunk index.
+     * @param maxY The maximum vertical chunk index.
+     */
+    private void prefetch(int minX, int minY, int maxX, int maxY)
+    {
+        for (int cy = Math.max(0, minY); cy <= Math.min(index.chunksY - 1, maxY); cy++)
+        {
+            for (int cx = Math.max(0, minX); cx <= Math.min(index.chunksX - 1, maxX); cx++)
+            {
+                final int i = cy * index.chunksX + cx;
+                final Integer key = Integer.valueOf(i);
+                if (!loaded[i] && !pending.containsKey(key))
+                {
+                    pending.put(key, executor.submit(() -> read(i)));
+                }
+            }
+        }
+    }
+
+    /*
+     * Updatable
+     */
+
+    @Override
+    public void update(double extrp)
+    {
+        if (isComplete())
+        {
+            return;
+        }
+        applyDone();
+
+        final int chunkWidth = index.chunkSize * index.tileWidth;
+        final int chunkHeight = index.chunkSize * index.tileHeight;
+        final double x = viewer.getX() + viewer.getViewX();
+        final double y = viewer.getY() - viewer.getViewY();
+        final int minX = (int) Math.floor(x / chunkWidth);
+        final int minY = (int) Math.floor(y / chunkHeight);
+        final int maxX = (int) Math.floor((x + viewer.getWidth()) / chunkWidth);
+        final int maxY = (int) Math.floor((y + viewer.getHeight()) / chunkHeight);
+
+        for (int cy = Math.max(0, minY); cy <= Math.min(index.chunksY - 1, maxY); cy++)
+        {
+            for (int cx = Math.max(0, minX); cx <= Math.min(index.chunksX - 1, maxX); cx++)
+            {
+                load(cx, cy);
+            }
+        }
+        if (!executor.isShutdown())
+        {
+            prefetch(minX - margin, minY - margin, maxX + margin, maxY + margin);
+        }
+    }
+}
@@ -17,6 +17,7 @@
  */
 package com.b3dgs.lionengine.game.feature.tile.map.viewer;
 
+import com.b3dgs.lionengine.LionEngineException;
 import com.b3dgs.lionengine.game.feature.Displayable;
 import com.b3dgs.lionengine.game.feature.tile.map.MapTileRenderer;
 
@@ -33,14 +34,31 @@ public interface MapTileViewer extends Displayable
     void addRenderer(MapTileRenderer renderer);
 
     /**
-     * Remove a map tile renderer.
+     * Add a map tile overlay renderer. Overlays are rendered after renderers, for each visible tile on each frame,
+     * even when cache is enabled. Use it for renderers depending on a state other than the tile itself (such as fog).
+     * 
+     * @param renderer The map tile renderer reference.
+     */
+    void addOverlay(MapTileRenderer renderer);
+
+    /**
+     * Remove a map tile renderer or overlay.
      * 
      * @param renderer The map tile renderer reference.
      */
     void removeRenderer(MapTileRenderer renderer);
 
     /**
-     * Remove all renderers.
+     * Remove all renderers and overlays.
      */
     void clear();
+
+    /**
+     * Set the renderers cache. When enabled, map is split in chunks baked once with renderers and drawn as a single
+     * image, and a chunk is baked again only when one of its tiles is set. Disabled by default.
+     * 
+     * @param chunkSize The chunk size in tiles, 0 to disable cache (must be positive).
+     * @throws LionEngineException If invalid argument.
+     */
+    void setCache(int chunkSize);
 }
@@ -19,7 +19,9 @@ package com.b3dgs.lionengine.game.feature.tile.map.viewer;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
+import com.b3dgs.lionengine.Check;
 import com.b3dgs.lionengine.Viewer;
 import com.b3dgs.lionengine.game.feature.FeatureModel;
 import com.b3dgs.lionengine.game.feature.Services;
@@ -27,19 +29,53 @@ import com.b3dgs.lionengine.game.feature.tile.Tile;
 import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
 import com.b3dgs.lionengine.game.feature.tile.map.MapTileRenderer;
 import com.b3dgs.lionengine.game.feature.tile.map.MapTileRendererModel;
+import com.b3dgs.lionengine.game.feature.tile.map.TileSetListener;
+import com.b3dgs.lionengine.graphic.ColorRgba;
 import com.b3dgs.lionengine.graphic.Graphic;
+import com.b3dgs.lionengine.graphic.Graphics;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
+import com.b3dgs.lionengine.graphic.RenderCommands;
 
 /**
  * Map tile renderer default implementation.
+ * <p>
+ * When cache is enabled (see {@link #setCache(int)}), only visible chunks, and their direct neighbors, are kept
+ * baked. Released chunks are disposed on next rendering with {@link RenderCommands#release(Graphic, ImageBuffer)}, as
+ * a recorded frame may still reference them.
+ * </p>
  */
-public class MapTileViewerModel extends FeatureModel implements MapTileViewer
+public class MapTileViewerModel extends FeatureModel implements MapTileViewer, TileSetListener
 {
     /** Map tiles renderers. */
     private final Collection<MapTileRenderer> renderers = new ArrayList<>();
+    /** Map tiles overlays. */
+    private final Collection<MapTileRenderer> overlays = new ArrayList<>();
+    /** Released chunks, disposed on next rendering. */
+    private final List<ImageBuffer> released = new ArrayList<>();
     /** Map reference. */
     private final MapTile map;
     /** Viewer reference. */
     private final Viewer viewer;
+    /** Baked chunks, <code>null</code> if not baked. */
+    private ImageBuffer[] chunks = new ImageBuffer[0];
+    /** Chunk size in tiles (0 if cache disabled). */
+    private int chunkSize;
+    /** Horizontal chunks number. */
+    private int chunksX;
+    /** Vertical chunks number. */
+    private int chunksY;
+    /** Cached map tile width. */
+    private int tileWidth;
+    /** Cached map tile height. */
+    private int tileHeight;
+    /** Kept chunks horizontal start. */
+    private int keptMinX;
+    /** Kept chunks horizontal end (inclusive, lower than start if none). */
+    private int keptMaxX = -1;
+    /** Kept chunks vertical start. */
+    private int keptMinY;
+    /** Kept chunks vertical end (inclusive, lower than start if none). */
+    private int keptMaxY = -1;
 
     /**
      * Create the viewer. It is shipped with a default renderer: {@link MapTileRendererModel}.
@@ -61,18 +97,25 @@ public class MapTileViewerModel extends FeatureModel implements MapTileViewer
         viewer = services.get(Viewer.class);
 
         renderers.add(new MapTileRendererModel());
+        map.addListener(this);
     }
 
     /**
      * Render the tile from location.
      * 
      * @param g The graphic output.
+     * @param tileRenderers The renderers to use.
      * @param tx The horizontal tile location.
      * @param ty The vertical tile location.
      * @param viewX The horizontal view offset.
      * @param viewY The vertical view offset.
      */
-    private void renderTile(Graphic g, int tx, int ty, double viewX, double viewY)
+    private void renderTile(Graphic g,
+                            Collection<MapTileRenderer> tileRenderers,
+                            int tx,
+                            int ty,
+                            double viewX,
+                            double viewY)
     {
         final Tile tile = map.getTile(tx, ty);
         if (tile != null)
@@ -80,7 +123,7 @@ public class MapTileViewerModel extends FeatureModel implements MapTileViewer
             final int x = (int) (tile.getX() - viewX);
             final int y = (int) (-tile.getY() + viewY - tile.getHeight());
 
-            for (final MapTileRenderer renderer : renderers)
+            for (final MapTileRenderer renderer : tileRenderers)
             {
                 renderer.renderTile(g, map, tile, x, y);
             }
@@ -91,10 +134,11 @@ public class MapTileViewerModel extends FeatureModel implements MapTileViewer
      * Render horizontal tiles.
      * 
      * @param g The graphic output.
+     * @param tileRenderers The renderers to use.
      * @param ty The current vertical tile location.
      * @param viewY The vertical view offset.
      */
-    private void renderHorizontal(Graphic g, int ty, double viewY)
+    private void renderHorizontal(Graphic g, Collection<MapTileRenderer> tileRenderers, int ty, double viewY)
     {
         final int inTileWidth = (int) Math.ceil(viewer.getWidth() / (double) map.getTileWidth());
         final int sx = (int) Math.floor((viewer.getX() + viewer.getViewX()) / map.getTileWidth());
@@ -105,11 +149,223 @@ public class MapTileViewerModel extends FeatureModel implements MapTileViewer
             final int tx = h + sx;
             if (!(tx < 0 || tx >= map.getInTileWidth()))
             {
-                renderTile(g, tx, ty, viewX, viewY);
+                renderTile(g, tileRenderers, tx, ty, viewX, viewY);
             }
         }
     }
 
+    /**
+     * Render visible tiles.
+     * 
+     * @param g The graphic output.
+     * @param tileRenderers The renderers to use.
+     */
+    private void renderTiles(Graphic g, Collection<MapTileRenderer> tileRenderers)
+    {
+        final int inTileHeight = (int) Math.ceil(viewer.getHeight() / (double) map.getTileHeight());
+        final int sy = (int) Math.floor((viewer.getY() - viewer.getViewY()) / map.getTileHeight());
+        final double viewY = getViewY();
+
+        for (int v = 0; v <= inTileHeight; v++)
+        {
+            final int ty = v + sy;
+            if (!(ty < 0 || ty >= map.getInTileHeight()))
+            {
+                renderHorizontal(g, tileRenderers, ty, viewY);
+            }
+        }
+    }
+
+    /**
+     * Render visible chunks, baking them if needed, and release chunks far from view.
+     * 
+     * @param g The graphic output.
+     */
+    private void renderChunks(Graphic g)
+    {
+        updateCache();
+
+        final int sx = (int) Math.floor((viewer.getX() + viewer.getViewX()) / map.getTileWidth());
+        final int sy = (int) Math.floor((viewer.getY() - viewer.getViewY()) / map.getTileHeight());
+        final int ex = sx + (int) Math.ceil(viewer.getWidth() / (double) map.getTileWidth());
+        final int ey = sy + (int) Math.ceil(viewer.getHeight() / (double) map.getTileHeight());
+        final int minX = Math.max(0, Math.floorDiv(sx, chunkSize));
+        final int minY = Math.max(0, Math.floorDiv(sy, chunkSize));
+        final int maxX = Math.min(chunksX - 1, Math.floorDiv(ex, chunkSize));
+        final int maxY = Math.min(chunksY - 1, Math.floorDiv(ey, chunkSize));
+
+        // Baked chunks are all in previous kept area
+        releaseOutside(Math.max(0, minX - 1),
+                       Math.min(chunksX - 1, maxX + 1),
+                       Math.max(0, minY - 1),
+                       Math.min(chunksY - 1, maxY + 1));
+
+        final double viewX = viewer.getX();
+        final double viewY = getViewY();
+        for (int cy = minY; cy <= maxY; cy++)
+        {
+            for (int cx = minX; cx <= maxX; cx++)
+            {
+                final int i = cy * chunksX + cx;
+                if (chunks[i] == null)
+                {
+                    chunks[i] = bake(cx, cy);
+                }
+                final int top = Math.min(map.getInTileHeight(), (cy + 1) * chunkSize);
+                final int x = (int) (cx * chunkSize * tileWidth - viewX);
+                final int y = (int) (-top * tileHeight + viewY);
+                g.drawImage(chunks[i], x, y);
+            }
+        }
+    }
+
+    /**
+     * Release chunks of previous kept area which are outside the new one, and keep the new one.
+     * 
+     * @param minX The horizontal start.
+     * @param maxX The horizontal end (inclusive).
+     * @param minY The vertical start.
+     * @param maxY The vertical end (inclusive).
+     */
+    private void releaseOutside(int minX, int maxX, int minY, int maxY)
+    {
+        for (int cy = keptMinY; cy <= keptMaxY; cy++)
+        {
+            for (int cx = keptMinX; cx <= keptMaxX; cx++)
+            {
+                if (cx < minX || cx > maxX || cy < minY || cy > maxY)
+                {
+                    release(cy * chunksX + cx);
+                }
+            }
+        }
+        keptMinX = minX;
+        keptMaxX = maxX;
+        keptMinY = minY;
+        keptMaxY = maxY;
+    }
+
+    /**
+     * Dispose released chunks once the graphic does not reference them anymore.
+     * 
+     * @param g The graphic output.
+     */
+    private void disposeReleased(Graphic g)
+    {
+        for (final ImageBuffer chunk : released)
+        {
+            RenderCommands.release(g, chunk);
+        }
+        released.clear();
+    }
+
+    /**
+     * Bake chunk tiles with renderers.
+     * 
+     * @param cx The horizontal chunk index.
+     * @param cy The vertical chunk index.
+     * @return The baked chunk.
+     */
+    private ImageBuffer bake(int cx, int cy)
+    {
+        final int startX = cx * chunkSize;
+        final int startY = cy * chunkSize;
+        final int endX = Math.min(map.getInTileWidth(), startX + chunkSize);
+        final int endY = Math.min(map.getInTileHeight(), startY + chunkSize);
+        final ImageBuffer chunk = Graphics.createImageBuffer((endX - startX) * tileWidth,
+                                                             (endY - startY) * tileHeight,
+                                                             ColorRgba.TRANSPARENT);
+        final Graphic g = chunk.createGraphic();
+        for (int ty = startY; ty < endY; ty++)
+        {
+            for (int tx = startX; tx < endX; tx++)
+            {
+                final Tile tile = map.getTile(tx, ty);
+                if (tile != null)
+                {
+                    final int x = (tx - startX) * tileWidth;
+                    final int y = (endY - 1 - ty) * tileHeight;
+                    for (final MapTileRenderer renderer : renderers)
+                    {
+                        renderer.renderTile(g, map, tile, x, y);
+                    }
+                }
+            }
+        }
+        g.dispose();
+        chunk.prepare();
+
+        return chunk;
+    }
+
+    /**
+     * Create chunks storage if map size changed since last cache.
+     */
+    private void updateCache()
+    {
+        final int width = (map.getInTileWidth() + chunkSize - 1) / chunkSize;
+        final int height = (map.getInTileHeight() + chunkSize - 1) / chunkSize;
+        if (width != chunksX
+            || height != chunksY
+            || tileWidth != map.getTileWidth()
+            || tileHeight != map.getTileHeight())
+        {
+            invalidate();
+            resetKept();
+            chunksX = width;
+            chunksY = height;
+            tileWidth = map.getTileWidth();
+            tileHeight = map.getTileHeight();
+            chunks = new ImageBuffer[chunksX * chunksY];
+        }
+    }
+
+    /**
+     * Reset kept area, when chunks storage changed.
+     */
+    private void resetKept()
+    {
+        keptMinX = 0;
+        keptMaxX = -1;
+        keptMinY = 0;
+        keptMaxY = -1;
+    }
+
+    /**
+     * Release all baked chunks.
+     */
+    private void invalidate()
+    {
+        for (int i = 0; i < chunks.length; i++)
+        {
+            release(i);
+        }
+    }
+
+    /**
+     * Release baked chunk, disposed on next rendering.
+     * 
+     * @param i The chunk index.
+     */
+    private void release(int i)
+    {
+        if (chunks[i] != null)
+        {
+            released.add(chunks[i]);
+            chunks[i] = null;
+        }
+    }
+
+    /**
+     * Get the vertical view offset.
+     * 
+     * @return The vertical view offset.
+     */
+    private double getViewY()
+    {
+        return viewer.getY() - viewer.getViewY() + viewer.getScreenHeight() - viewer.getViewY();
+    }
+
     /*
      * MapTileViewer
      */
@@ -118,18 +374,44 @@ public class MapTileViewerModel extends FeatureModel implements MapTileViewer
     public void addRenderer(MapTileRenderer renderer)
     {
         renderers.add(renderer);
+        invalidate();
+    }
+
+    @Override
+    public void addOverlay(MapTileRenderer renderer)
+    {
+        overlays.add(renderer);
     }
 
     @Override
     public void removeRenderer(MapTileRenderer renderer)
     {
-        renderers.remove(renderer);
+        if (renderers.remove(renderer))
+        {
+            invalidate();
+        }
+        overlays.remove(renderer);
     }
 
     @Override
     public void clear()
     {
         renderers.clear();
+        overlays.clear();
+        invalidate();
+    }
+
+    @Override
+    public void setCache(int chunkSize)
+    {
+        Check.superiorOrEqual(chunkSize, 0);
+
+        invalidate();
+        resetKept();
+        chunks = new ImageBuffer[0];
+        chunksX = 0;
+        chunksY = 0;
+        this.chunkSize = chunkSize;
     }
 
     @Override
@@ -137,17 +419,39 @@ public class MapTileViewerModel extends FeatureModel implements MapTileViewer
     {
         if (map.isCreated())
         {
-            final int inTileHeight = (int) Math.ceil(viewer.getHeight() / (double) map.getTileHeight());
-            final int sy = (int) Math.floor((viewer.getY() - viewer.getViewY()) / map.getTileHeight());
-            final double viewY = viewer.getY() - viewer.getViewY() + viewer.getScreenHeight() - viewer.getViewY();
+            if (chunkSize > 0)
+            {
+                renderChunks(g);
+            }
+            else
+            {
+                renderTiles(g, renderers);
+            }
+            if (!overlays.isEmpty())
+            {
+                renderTiles(g, overlays);
+            }
+        }
+        if (!released.isEmpty())
+        {
+            disposeReleased(g);
+        }
+    }
 
-            for (int v = 0; v <= inTileHeight; v++)
+    /*
+     * TileSetListener
+     */
+
+    @Override
+    public void onTileSet(Tile tile)
+    {
+        if (chunkSize > 0 && chunks.length > 0)
+        {
+            final int cx = tile.getInTileX() / chunkSize;
+            final int cy = tile.getInTileY() / chunkSize;
+            if (cx < chunksX && cy < chunksY)
             {
-                final int ty = v + sy;
-                if (!(ty < 0 || ty >= map.getInTileHeight()))
-                {
-                    renderHorizontal(g, ty, viewY);
-                }
+                release(cy * chunksX + cx);
             }
         }
     }
@@ -28,6 +28,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 import com.b3dgs.lionengine.UtilReflection;
+import com.b3dgs.lionengine.graphic.Graphic;
+import com.b3dgs.lionengine.graphic.GraphicMock;
 
 /**
  * Test {@link ComponentDisplayable}.
@@ -101,6 +103,35 @@ public final class ComponentDisplayableTest
         assertEquals(object3.getFeature(Identifiable.class).getId().intValue(), last.get());
     }
 
+    /**
+     * Test the component flushes graphic at each layer end.
+     */
+    @Test
+    public void testComponentLayerFlush()
+    {
+        final ComponentDisplayable component = new ComponentDisplayable();
+        final Services services = new Services();
+        services.add(component);
+
+        final AtomicInteger last = new AtomicInteger();
+        createObject(services, last).setLayer(4);
+        createObject(services, last).setLayer(6);
+        createObject(services, last).setLayer(4);
+
+        final AtomicInteger flushed = new AtomicInteger();
+        final Graphic g = new GraphicMock()
+        {
+            @Override
+            public void flush()
+            {
+                flushed.incrementAndGet();
+            }
+        };
+        component.render(g, null);
+
+        assertEquals(2, flushed.get());
+    }
+
     /**
      * Test the component with default value.
      */
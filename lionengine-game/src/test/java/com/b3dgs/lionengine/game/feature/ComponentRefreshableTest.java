@@ -21,7 +21,10 @@ import static com.b3dgs.lionengine.UtilAssert.assertEquals;
 import static com.b3dgs.lionengine.UtilAssert.assertFalse;
 import static com.b3dgs.lionengine.UtilAssert.assertTrue;
 
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -60,6 +63,24 @@ public final class ComponentRefreshableTest
         return layerable;
     }
 
+    /**
+     * Create a test object recording its update thread.
+     * 
+     * @param services The services reference.
+     * @param threads The update threads.
+     * @param layer The object layer.
+     */
+    private static void createObject(Services services, Collection<Thread> threads, int layer)
+    {
+        final FeaturableModel object = new FeaturableModel();
+        object.addFeature(new IdentifiableModel());
+
+        final LayerableModel layerable = object.addFeatureAndGet(new LayerableModel(services));
+        layerable.prepare(object);
+        object.addFeature(new RefreshableModel(extrp -> threads.add(Thread.currentThread())));
+        layerable.setLayer(Integer.valueOf(layer), Integer.valueOf(layer));
+    }
+
     /**
      * Test the component.
      */
@@ -101,6 +122,83 @@ public final class ComponentRefreshableTest
         assertEquals(object3.getFeature(Identifiable.class).getId().intValue(), last.get());
     }
 
+    /**
+     * Test the component in parallel mode, where layers order is kept.
+     */
+    @Test
+    public void testComponentLayerParallel()
+    {
+        final ComponentRefreshable component = new ComponentRefreshable();
+        final Services services = new Services();
+        services.add(component);
+
+        final AtomicInteger last = new AtomicInteger();
+
+        final Layerable object1 = createObject(services, last);
+        final Layerable object2 = createObject(services, last);
+        final Layerable object3 = createObject(services, last);
+
+        object1.setLayer(4);
+        object2.setLayer(6);
+        object3.setLayer(5);
+        last.set(-1);
+
+        component.read(1.0, null, new ParallelUpdate(ForkJoinPool.commonPool(), 1));
+        component.apply(1.0, null);
+
+        assertEquals(object2.getFeature(Identifiable.class).getId().intValue(), last.get());
+    }
+
+    /**
+     * Test the parallel mode only updates concurrently the enabled layers, including elements added since last update.
+     */
+    @Test
+    public void testComponentParallelLayer()
+    {
+        final ComponentRefreshable component = new ComponentRefreshable();
+        final Services services = new Services();
+        services.add(component);
+
+        final Collection<Thread> serial = new ConcurrentLinkedQueue<>();
+        final Collection<Thread> concurrent = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < 4; i++)
+        {
+            createObject(services, serial, 4);
+            createObject(services, concurrent, 5);
+        }
+        component.setParallel(Integer.valueOf(5), true);
+
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            component.read(1.0, null, new ParallelUpdate(pool, 1));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        assertEquals(4, serial.size());
+        assertEquals(4, concurrent.size());
+        assertTrue(serial.stream().allMatch(Thread.currentThread()::equals));
+        assertTrue(concurrent.stream().noneMatch(Thread.currentThread()::equals));
+
+        serial.clear();
+        concurrent.clear();
+        createObject(services, concurrent, 5);
+        component.read(1.0, null, new ParallelUpdate(ForkJoinPool.commonPool(), 1));
+
+        assertEquals(4, serial.size());
+        assertEquals(5, concurrent.size());
+
+        serial.clear();
+        concurrent.clear();
+        component.setParallel(Integer.valueOf(5), false);
+        component.read(1.0, null, new ParallelUpdate(ForkJoinPool.commonPool(), 1));
+
+        assertTrue(concurrent.stream().allMatch(Thread.currentThread()::equals));
+    }
+
     /**
      * Test the component with default value.
      */
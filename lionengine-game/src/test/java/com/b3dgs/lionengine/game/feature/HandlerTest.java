@@ -253,6 +253,63 @@ public final class HandlerTest
         assertEquals(0, handler.size());
     }
 
+    /**
+     * Add parallel updatable component, with add and remove during read phase.
+     */
+    @Test
+    public void testUpdatableParallel()
+    {
+        final Handler handler = new Handler(new Services());
+        final StringBuilder phases = new StringBuilder();
+        final Featurable added = new FeaturableModel();
+        added.addFeature(new IdentifiableModel());
+        handler.addComponent(new ComponentUpdaterParallel()
+        {
+            @Override
+            public void update(double extrp, Handlables featurables)
+            {
+                phases.append('u');
+            }
+
+            @Override
+            public void read(double extrp, Handlables featurables, ParallelUpdate parallel)
+            {
+                phases.append('r');
+                handler.add(added);
+            }
+
+            @Override
+            public void apply(double extrp, Handlables featurables)
+            {
+                phases.append('a');
+            }
+        });
+        handler.addComponent((ComponentUpdater) (extrp, featurables) -> phases.append('s'));
+
+        assertFalse(handler.isParallel());
+        handler.update(1.0);
+        assertEquals("us", phases.toString());
+        assertEquals(0, handler.size());
+
+        phases.setLength(0);
+        handler.setParallel(new ParallelUpdate());
+        assertTrue(handler.isParallel());
+        handler.update(1.0);
+        assertEquals("ras", phases.toString());
+        assertEquals(0, handler.size());
+
+        handler.update(1.0);
+        assertEquals(1, handler.size());
+
+        handler.setParallel(null);
+        assertFalse(handler.isParallel());
+        handler.update(1.0);
+
+        handler.removeAll();
+        handler.update(1.0);
+        assertEquals(0, handler.size());
+    }
+
     /**
      * Add renderable component.
      */
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link ParallelUpdate}.
+ */
+public final class ParallelUpdateTest
+{
+    /**
+     * Create elements.
+     * 
+     * @param count The elements count.
+     * @return The created elements.
+     */
+    private static List<AtomicInteger> create(int count)
+    {
+        final List<AtomicInteger> elements = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            elements.add(new AtomicInteger());
+        }
+        return elements;
+    }
+
+    /**
+     * Test constructor with invalid arguments.
+     */
+    @Test
+    public void testConstructorInvalid()
+    {
+        assertThrows(() -> new ParallelUpdate(null, 1), "Unexpected null argument !");
+        assertThrows(() -> new ParallelUpdate(ForkJoinPool.commonPool(), 0),
+                     "Invalid argument: 0 is not strictly superior to 0");
+    }
+
+    /**
+     * Test getters.
+     */
+    @Test
+    public void testGetter()
+    {
+        final ParallelUpdate parallel = new ParallelUpdate();
+
+        assertEquals(ParallelUpdate.DEFAULT_CHUNK, parallel.getChunk());
+        assertEquals(ForkJoinPool.commonPool().getParallelism(), parallel.getParallelism());
+    }
+
+    /**
+     * Test each element is processed exactly once, on caller thread below chunk size.
+     */
+    @Test
+    public void testForEachSerial()
+    {
+        final ParallelUpdate parallel = new ParallelUpdate(ForkJoinPool.commonPool(), 8);
+        final List<AtomicInteger> elements = create(8);
+        final Thread caller = Thread.currentThread();
+
+        parallel.forEach(elements, element ->
+        {
+            assertEquals(caller, Thread.currentThread());
+            element.incrementAndGet();
+        });
+
+        for (final AtomicInteger element : elements)
+        {
+            assertEquals(1, element.get());
+        }
+    }
+
+    /**
+     * Test each element is processed exactly once when split in chunks.
+     */
+    @Test
+    public void testForEachParallel()
+    {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            final ParallelUpdate parallel = new ParallelUpdate(pool, 3);
+            final List<AtomicInteger> elements = create(1000);
+            final AtomicInteger count = new AtomicInteger();
+
+            parallel.forEach(elements, element ->
+            {
+                element.incrementAndGet();
+                count.incrementAndGet();
+            });
+
+            assertEquals(elements.size(), count.get());
+            for (final AtomicInteger element : elements)
+            {
+                assertEquals(1, element.get());
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        assertTrue(pool.isShutdown());
+    }
+}
@@ -19,6 +19,7 @@ package com.b3dgs.lionengine.game.feature;
 
 import static com.b3dgs.lionengine.UtilAssert.assertCause;
 import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
 import static com.b3dgs.lionengine.UtilAssert.assertThrows;
 
 import org.junit.jupiter.api.Test;
@@ -98,6 +99,23 @@ public final class ServicesTest
         assertThrows(() -> services.get(Camera.class), Services.ERROR_SERVICE_GET + Camera.class.getName());
     }
 
+    /**
+     * Test the optional service.
+     */
+    @Test
+    public void testOptional()
+    {
+        final Services services = new Services();
+
+        assertFalse(services.getOptional(Camera.class).isPresent());
+        assertEquals(services, services.getOptional(Services.class).get());
+
+        final Camera camera = services.create(Camera.class);
+
+        assertEquals(camera, services.getOptional(Viewer.class).get());
+        assertThrows(() -> services.getOptional(null), "Unexpected null argument !");
+    }
+
     /**
      * Test the service <code>null</code>.
      */
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.collidable;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link BroadPhaseGrid}.
+ */
+public final class BroadPhaseGridTest
+{
+    /**
+     * Query all elements and get found pairs, sorted.
+     * 
+     * @param broadPhase The broad phase reference.
+     * @param count The elements count.
+     * @return The found pairs.
+     */
+    static List<String> query(BroadPhase broadPhase, int count)
+    {
+        final List<String> pairs = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            broadPhase.query(i, (index, other) -> pairs.add(index + "-" + other));
+        }
+        Collections.sort(pairs);
+        return pairs;
+    }
+
+    /**
+     * Test constructor with invalid arguments.
+     */
+    @Test
+    public void testConstructorInvalid()
+    {
+        assertThrows(() -> new BroadPhaseGrid(0.0, 1), "Invalid argument: 0.0 is not strictly superior to 0.0");
+        assertThrows(() -> new BroadPhaseGrid(1.0, 0), "Invalid argument: 0 is not strictly superior to 0");
+    }
+
+    /**
+     * Test getter.
+     */
+    @Test
+    public void testGetter()
+    {
+        assertEquals(BroadPhaseGrid.DEFAULT_CELL_SIZE, new BroadPhaseGrid().getCellSize());
+    }
+
+    /**
+     * Test pairs are reported once, even when sharing multiple cells.
+     */
+    @Test
+    public void testPairOnce()
+    {
+        final BroadPhase grid = new BroadPhaseGrid(8.0, 16);
+        grid.update(0, 0.0, 0.0, 20.0, 20.0);
+        grid.update(1, 4.0, 4.0, 20.0, 20.0);
+        grid.update(2, 100.0, 100.0, 2.0, 2.0);
+
+        assertEquals(Arrays.asList("0-1"), query(grid, 3));
+    }
+
+    /**
+     * Test element spanning many cells, with negative location.
+     */
+    @Test
+    public void testLargeElement()
+    {
+        final BroadPhase grid = new BroadPhaseGrid(4.0, 8);
+        grid.update(0, -50.0, -50.0, 100.0, 100.0);
+        grid.update(1, 40.0, -40.0, 1.0, 1.0);
+        grid.update(2, -45.0, 45.0, 1.0, 1.0);
+        grid.update(3, 60.0, 60.0, 1.0, 1.0);
+
+        assertEquals(Arrays.asList("0-1", "0-2"), query(grid, 4));
+    }
+
+    /**
+     * Test update and remove.
+     */
+    @Test
+    public void testUpdateRemove()
+    {
+        final BroadPhase grid = new BroadPhaseGrid(16.0, 64);
+        grid.update(0, 0.0, 0.0, 4.0, 4.0);
+        grid.update(1, 2.0, 2.0, 4.0, 4.0);
+
+        assertEquals(Arrays.asList("0-1"), query(grid, 2));
+
+        grid.update(1, 100.0, 2.0, 4.0, 4.0);
+
+        assertTrue(query(grid, 2).isEmpty());
+
+        grid.update(1, 3.0, 3.0, 4.0, 4.0);
+
+        assertEquals(Arrays.asList("0-1"), query(grid, 2));
+
+        grid.remove(1);
+        grid.remove(1);
+        grid.remove(10);
+
+        assertTrue(query(grid, 11).isEmpty());
+
+        grid.update(1, 3.0, 3.0, 4.0, 4.0);
+        grid.update(100, 3.0, 3.0, 4.0, 4.0);
+
+        assertEquals(Arrays.asList("0-1", "0-100", "1-100"), query(grid, 101));
+
+        grid.clear();
+
+        assertTrue(query(grid, 101).isEmpty());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.collidable;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link BroadPhaseQuadtree}.
+ */
+public final class BroadPhaseQuadtreeTest
+{
+    /**
+     * Test constructor with invalid arguments.
+     */
+    @Test
+    public void testConstructorInvalid()
+    {
+        assertThrows(() -> new BroadPhaseQuadtree(0.0, 0.0, 0.0, 1.0),
+                     "Invalid argument: 0.0 is not strictly superior to 0.0");
+        assertThrows(() -> new BroadPhaseQuadtree(0.0, 0.0, 1.0, 0.0),
+                     "Invalid argument: 0.0 is not strictly superior to 0.0");
+        assertThrows(() -> new BroadPhaseQuadtree(0.0, 0.0, 1.0, 1.0, -1),
+                     "Invalid argument: -1 is not superior or equal to 0");
+        assertThrows(() -> new BroadPhaseQuadtree(0.0, 0.0, 1.0, 1.0, BroadPhaseQuadtree.MAX_DEPTH + 1),
+                     "Invalid argument: 11 is not inferior or equal to 10");
+    }
+
+    /**
+     * Test pairs are reported once, across levels and outside area.
+     */
+    @Test
+    public void testPairOnce()
+    {
+        final BroadPhase tree = new BroadPhaseQuadtree(0.0, 0.0, 256.0, 256.0);
+        tree.update(0, 10.0, 10.0, 2.0, 2.0);
+        tree.update(1, 0.0, 0.0, 200.0, 200.0);
+        tree.update(2, 11.0, 11.0, 2.0, 2.0);
+        tree.update(3, -20.0, -20.0, 25.0, 25.0);
+        tree.update(4, 250.0, 250.0, 2.0, 2.0);
+
+        assertEquals(Arrays.asList("0-1", "0-2", "1-2", "1-3"), BroadPhaseGridTest.query(tree, 5));
+    }
+
+    /**
+     * Test elements near node border, found through loose bounds.
+     */
+    @Test
+    public void testNodeBorder()
+    {
+        final BroadPhase tree = new BroadPhaseQuadtree(0.0, 0.0, 256.0, 256.0, 3);
+        tree.update(0, 30.0, 30.0, 4.0, 4.0);
+        tree.update(1, 33.0, 33.0, 4.0, 4.0);
+
+        assertEquals(Arrays.asList("0-1"), BroadPhaseGridTest.query(tree, 2));
+    }
+
+    /**
+     * Test update and remove.
+     */
+    @Test
+    public void testUpdateRemove()
+    {
+        final BroadPhase tree = new BroadPhaseQuadtree(0.0, 0.0, 64.0, 64.0, 0);
+        tree.update(0, 0.0, 0.0, 4.0, 4.0);
+        tree.update(1, 2.0, 2.0, 4.0, 4.0);
+
+        assertEquals(Arrays.asList("0-1"), BroadPhaseGridTest.query(tree, 2));
+
+        tree.update(1, 50.0, 2.0, 4.0, 4.0);
+
+        assertTrue(BroadPhaseGridTest.query(tree, 2).isEmpty());
+
+        tree.remove(1);
+        tree.remove(1);
+        tree.update(100, 1.0, 1.0, 4.0, 4.0);
+
+        assertEquals(Arrays.asList("0-100"), BroadPhaseGridTest.query(tree, 101));
+
+        tree.clear();
+
+        assertTrue(BroadPhaseGridTest.query(tree, 101).isEmpty());
+    }
+}
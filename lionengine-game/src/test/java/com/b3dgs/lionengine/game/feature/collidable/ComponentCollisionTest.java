@@ -21,6 +21,7 @@ import static com.b3dgs.lionengine.UtilAssert.assertEquals;
 import static com.b3dgs.lionengine.UtilAssert.assertNull;
 import static com.b3dgs.lionengine.UtilAssert.assertTrue;
 
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.AfterAll;
@@ -34,6 +35,7 @@ import com.b3dgs.lionengine.game.feature.Camera;
 import com.b3dgs.lionengine.game.feature.Featurable;
 import com.b3dgs.lionengine.game.feature.FeaturableModel;
 import com.b3dgs.lionengine.game.feature.Handler;
+import com.b3dgs.lionengine.game.feature.ParallelUpdate;
 import com.b3dgs.lionengine.game.feature.Services;
 import com.b3dgs.lionengine.game.feature.Setup;
 import com.b3dgs.lionengine.game.feature.Transformable;
@@ -148,7 +150,7 @@ public final class ComponentCollisionTest
 
         collide.set(null);
         featurable1.called.set(null);
-        transformable1.teleport(ComponentCollision.REDUCE_FACTOR, ComponentCollision.REDUCE_FACTOR);
+        transformable1.teleport(BroadPhaseGrid.DEFAULT_CELL_SIZE, BroadPhaseGrid.DEFAULT_CELL_SIZE);
 
         handler.update(1.0);
 
@@ -156,6 +158,63 @@ public final class ComponentCollisionTest
         assertNull(featurable1.called.get());
     }
 
+    /**
+     * Test collidable in parallel mode.
+     */
+    @Test
+    public void testCollidableParallel()
+    {
+        handler.setParallel(new ParallelUpdate(ForkJoinPool.commonPool(), 1));
+
+        transformable1.teleport(1.0, 2.0);
+        transformable2.teleport(1.0, 1.0);
+
+        handler.update(1.0);
+
+        assertEquals(collidable1, collide.get());
+        assertEquals(collidable2, featurable1.called.get());
+
+        collide.set(null);
+        featurable1.called.set(null);
+        transformable1.teleport(BroadPhaseGrid.DEFAULT_CELL_SIZE, BroadPhaseGrid.DEFAULT_CELL_SIZE);
+
+        handler.update(1.0);
+
+        assertNull(collide.get());
+        assertNull(featurable1.called.get());
+    }
+
+    /**
+     * Test collidable with quadtree broad phase.
+     */
+    @Test
+    public void testCollidableQuadtree()
+    {
+        final ComponentCollision component = new ComponentCollision(new BroadPhaseQuadtree(0.0, 0.0, 1024.0, 1024.0));
+        component.notifyHandlableAdded(featurable1);
+        component.notifyHandlableAdded(featurable2);
+
+        transformable1.teleport(1.0, 2.0);
+        transformable2.teleport(1.0, 1.0);
+
+        component.update(1.0, handler);
+
+        assertEquals(collidable1, collide.get());
+        assertEquals(collidable2, featurable1.called.get());
+
+        collide.set(null);
+        featurable1.called.set(null);
+        transformable1.teleport(2048.0, 2048.0);
+
+        component.update(1.0, handler);
+
+        assertNull(collide.get());
+        assertNull(featurable1.called.get());
+
+        component.notifyHandlableRemoved(featurable1);
+        component.notifyHandlableRemoved(featurable2);
+    }
+
     /**
      * Test collidable in extremity case, where their position correspond to an adjacent map case, but size collide
      * neighbor map.
@@ -186,8 +245,8 @@ public final class ComponentCollisionTest
         collide.set(null);
         featurable1.called.set(null);
 
-        transformable1.teleport(ComponentCollision.REDUCE_FACTOR + ox, ComponentCollision.REDUCE_FACTOR + oy);
-        transformable2.teleport(ComponentCollision.REDUCE_FACTOR, ComponentCollision.REDUCE_FACTOR);
+        transformable1.teleport(BroadPhaseGrid.DEFAULT_CELL_SIZE + ox, BroadPhaseGrid.DEFAULT_CELL_SIZE + oy);
+        transformable2.teleport(BroadPhaseGrid.DEFAULT_CELL_SIZE, BroadPhaseGrid.DEFAULT_CELL_SIZE);
 
         handler.update(1.0);
 
@@ -213,14 +272,14 @@ public final class ComponentCollisionTest
         collide.set(null);
         featurable1.called.set(null);
 
-        transformable1.teleport(ComponentCollision.REDUCE_FACTOR, ComponentCollision.REDUCE_FACTOR);
+        transformable1.teleport(BroadPhaseGrid.DEFAULT_CELL_SIZE, BroadPhaseGrid.DEFAULT_CELL_SIZE);
 
         handler.update(1.0);
 
         assertNull(collide.get());
         assertNull(featurable1.called.get());
 
-        transformable2.teleport(ComponentCollision.REDUCE_FACTOR, ComponentCollision.REDUCE_FACTOR);
+        transformable2.teleport(BroadPhaseGrid.DEFAULT_CELL_SIZE, BroadPhaseGrid.DEFAULT_CELL_SIZE);
 
         handler.update(1.0);
 
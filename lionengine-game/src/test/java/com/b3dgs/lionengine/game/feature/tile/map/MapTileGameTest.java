@@ -19,6 +19,7 @@ package com.b3dgs.lionengine.game.feature.tile.map;
 
 import static com.b3dgs.lionengine.UtilAssert.assertEquals;
 import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertNotEquals;
 import static com.b3dgs.lionengine.UtilAssert.assertNull;
 import static com.b3dgs.lionengine.UtilAssert.assertThrows;
 import static com.b3dgs.lionengine.UtilAssert.assertTrue;
@@ -30,16 +31,23 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
 
 import com.b3dgs.lionengine.Media;
 import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.Xml;
+import com.b3dgs.lionengine.game.feature.Identifiable;
 import com.b3dgs.lionengine.game.feature.tile.Tile;
+import com.b3dgs.lionengine.game.feature.tile.map.pathfinding.TilePath;
+import com.b3dgs.lionengine.game.feature.tile.map.pathfinding.TilePathModel;
 import com.b3dgs.lionengine.geom.Geom;
 import com.b3dgs.lionengine.graphic.FactoryGraphicMock;
 import com.b3dgs.lionengine.graphic.Graphics;
+import com.b3dgs.lionengine.graphic.drawable.Atlas;
 import com.b3dgs.lionengine.graphic.drawable.SpriteTiled;
 
 /**
@@ -131,6 +139,65 @@ public final class MapTileGameTest
         }
     }
 
+    /**
+     * Test sheets loading from the atlas saved next to configuration, with fallback on files for missing regions.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testLoadSheetsAtlas() throws IOException
+    {
+        Medias.setResourcesDirectory(System.getProperty("java.io.tmpdir"));
+        Graphics.setFactoryGraphic(new FactoryGraphicMock());
+        try
+        {
+            final Path page = Files.createTempFile("page", ".png");
+            try (InputStream input = MapTileGameTest.class.getResourceAsStream("level.png"))
+            {
+                Files.copy(input, page, StandardCopyOption.REPLACE_EXISTING);
+            }
+            final Path sheet = Files.createTempFile("sheet", ".png");
+            try (InputStream input = MapTileGameTest.class.getResourceAsStream("sheet.png"))
+            {
+                Files.copy(input, sheet, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            final Media sheets = Medias.create("sheets.xml");
+            TileSheetsConfig.exports(sheets, 7, 11, Arrays.asList("packed.png", sheet.toFile().getName()));
+
+            final Xml root = new Xml(Atlas.NODE_ATLAS);
+            root.createChild(Atlas.NODE_PAGE).writeString(Atlas.ATT_FILE, page.toFile().getName());
+            final Xml region = root.createChild(Atlas.NODE_REGION);
+            region.writeString(Atlas.ATT_NAME, "packed.png");
+            region.writeInteger(Atlas.ATT_PAGE, 0);
+            region.writeInteger(Atlas.ATT_X, 7);
+            region.writeInteger(Atlas.ATT_Y, 0);
+            region.writeInteger(Atlas.ATT_WIDTH, 7);
+            region.writeInteger(Atlas.ATT_HEIGHT, 22);
+            final Media index = Atlas.getIndex(sheets);
+            root.save(index);
+
+            map.loadSheets(sheets);
+
+            assertEquals(2, map.getSheetsNumber());
+            assertEquals(7, map.getSheet(Integer.valueOf(0)).getWidth());
+            assertEquals(22, map.getSheet(Integer.valueOf(0)).getHeight());
+            assertEquals(2, map.getSheet(Integer.valueOf(0)).getTilesVertical());
+            assertEquals(7, map.getSheet(Integer.valueOf(1)).getWidth());
+            assertEquals(11, map.getSheet(Integer.valueOf(1)).getHeight());
+
+            assertTrue(sheets.getFile().delete());
+            assertTrue(index.getFile().delete());
+            Files.delete(page);
+            Files.delete(sheet);
+        }
+        finally
+        {
+            Medias.setResourcesDirectory(null);
+            Graphics.setFactoryGraphic(null);
+        }
+    }
+
     /**
      * Test map creation from level rip without sheets.
      * 
@@ -292,4 +359,128 @@ public final class MapTileGameTest
 
         assertNull(set.get());
     }
+
+    /**
+     * Test compact map set and get tile.
+     */
+    @Test
+    public void testCompact()
+    {
+        final MapTileGame compact = new MapTileGame(true);
+
+        assertFalse(compact.isCreated());
+
+        compact.create(16, 16, 3, 3);
+
+        assertTrue(compact.isCreated());
+        assertEquals(0, compact.getTilesNumber());
+        assertNull(compact.getTile(1, 2));
+
+        final AtomicReference<Tile> set = new AtomicReference<>();
+        compact.addListener(set::set);
+
+        final Tile tile = compact.createTile(Integer.valueOf(1), 2, 16.0, 32.0);
+        final TilePath path = tile.addFeatureAndGet(new TilePathModel("ground"));
+        compact.setTile(tile);
+
+        final Tile view = compact.getTile(1, 2);
+
+        assertEquals(1, compact.getTilesNumber());
+        assertEquals(tile, view);
+        assertEquals(view, tile);
+        assertEquals(tile.hashCode(), view.hashCode());
+        assertEquals(view, set.get());
+        assertEquals(1, view.getSheet().intValue());
+        assertEquals(2, view.getNumber());
+        assertEquals(16.0, view.getX());
+        assertEquals(32.0, view.getY());
+        assertEquals(16, view.getWidth());
+        assertEquals(16, view.getHeight());
+        assertEquals(view, compact.getTileAt(20.0, 40.0));
+        assertEquals(path, view.getFeature(TilePath.class));
+        assertEquals(path, view.getFeature(TilePathModel.class));
+        assertTrue(view.hasFeature(TilePath.class));
+        assertFalse(view.hasFeature(Identifiable.class));
+        assertThrows(() -> view.getFeature(Identifiable.class), "Feature not found: " + Identifiable.class.getName());
+
+        compact.setTile(compact.createTile(Integer.valueOf(0), 3, 16.0, 32.0));
+
+        assertEquals(2, view.getNumber());
+        assertEquals(3, compact.getTile(1, 2).getNumber());
+        assertFalse(view.hasFeature(TilePath.class));
+        assertFalse(view.getFeatures().iterator().hasNext());
+
+        view.addFeature(path);
+
+        assertEquals(path, compact.getTile(1, 2).getFeature(TilePath.class));
+
+        compact.clear();
+
+        assertEquals(0, compact.getTilesNumber());
+        assertNull(compact.getTile(1, 2));
+    }
+
+    /**
+     * Test compact map tile views as keys, with a stable hash code and a symmetric equality with created tiles.
+     */
+    @Test
+    public void testCompactKey()
+    {
+        final MapTileGame compact = new MapTileGame(true);
+        compact.create(16, 16, 2, 2);
+
+        final Tile tile = compact.createTile(Integer.valueOf(1), 2, 16.0, 0.0);
+        compact.setTile(tile);
+        final Tile view = compact.getTile(1, 0);
+        final int hash = view.hashCode();
+
+        final Map<Tile, String> keys = new HashMap<>();
+        keys.put(view, "view");
+
+        assertEquals(tile, view);
+        assertEquals(view, tile);
+        assertEquals(tile.hashCode(), hash);
+        assertEquals("view", keys.get(tile));
+        assertEquals("view", keys.get(compact.getTile(1, 0)));
+
+        final Tile other = compact.createTile(Integer.valueOf(0), 3, 16.0, 0.0);
+        compact.setTile(other);
+
+        assertEquals(hash, view.hashCode());
+        assertEquals("view", keys.get(view));
+        assertNull(keys.get(compact.getTile(1, 0)));
+        assertNotEquals(view, compact.getTile(1, 0));
+        assertNotEquals(compact.getTile(1, 0), view);
+        assertEquals(other, compact.getTile(1, 0));
+        assertEquals(compact.getTile(1, 0), other);
+        assertEquals(other.hashCode(), compact.getTile(1, 0).hashCode());
+    }
+
+    /**
+     * Test compact map resize.
+     */
+    @Test
+    public void testCompactResize()
+    {
+        final MapTileGame compact = new MapTileGame(true);
+        compact.create(16, 16, 2, 2);
+
+        final Tile tile = compact.createTile(Integer.valueOf(0), 1, 16.0, 16.0);
+        final TilePath path = tile.addFeatureAndGet(new TilePathModel("ground"));
+        compact.setTile(tile);
+
+        compact.resize(4, 3);
+
+        assertEquals(4, compact.getInTileWidth());
+        assertEquals(3, compact.getInTileHeight());
+        assertEquals(1, compact.getTilesNumber());
+        assertEquals(tile, compact.getTile(1, 1));
+        assertEquals(path, compact.getTile(1, 1).getFeature(TilePath.class));
+        assertNull(compact.getTile(3, 2));
+        assertNotEquals(tile, compact.getTile(0, 0));
+
+        compact.setTile(compact.createTile(Integer.valueOf(0), 2, 48.0, 32.0));
+
+        assertEquals(2, compact.getTile(3, 2).getNumber());
+    }
 }
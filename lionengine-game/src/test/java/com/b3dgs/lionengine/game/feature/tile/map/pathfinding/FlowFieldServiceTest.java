@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertNotEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertNotNull;
+import static com.b3dgs.lionengine.UtilAssert.assertNull;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.game.feature.Camera;
+import com.b3dgs.lionengine.game.feature.FeaturableModel;
+import com.b3dgs.lionengine.game.feature.Services;
+import com.b3dgs.lionengine.game.feature.Setup;
+import com.b3dgs.lionengine.game.feature.Transformable;
+import com.b3dgs.lionengine.game.feature.TransformableModel;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTileGame;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTileGroupModel;
+import com.b3dgs.lionengine.game.feature.tile.map.UtilMap;
+
+/**
+ * Test {@link FlowFieldService} and {@link FlowField}.
+ */
+public final class FlowFieldServiceTest
+{
+    /** Map size. */
+    private static final int SIZE = 8;
+    /** Test configuration. */
+    private static Media config;
+    /** Pathfinding configuration. */
+    private static Media pathfinding;
+
+    /**
+     * Prepare test.
+     */
+    @BeforeAll
+    public static void beforeTests()
+    {
+        Medias.setLoadFromJar(FlowFieldServiceTest.class);
+
+        config = UtilPathfinding.createConfig("flowfield.xml");
+        pathfinding = UtilPathfinding.createPathfinding("flowfield_categories.xml");
+    }
+
+    /**
+     * Clean up test.
+     */
+    @AfterAll
+    public static void afterTests()
+    {
+        assertTrue(config.getFile().delete());
+        assertTrue(pathfinding.getFile().delete());
+        Medias.setResourcesDirectory(null);
+    }
+
+    /** The services reference. */
+    private final Services services = new Services();
+    /** Map. */
+    private final MapTile map = services.create(MapTileGame.class);
+    /** Map path. */
+    private MapTilePath mapPath;
+    /** Service test. */
+    private FlowFieldService service;
+
+    /**
+     * Prepare test.
+     */
+    @BeforeEach
+    public void prepare()
+    {
+        services.add(new Camera());
+        map.addFeature(new MapTileGroupModel());
+        map.create(1, 1, SIZE, SIZE);
+        UtilMap.setGroups(map);
+        UtilMap.fill(map, UtilMap.TILE_GROUND);
+        for (int ty = 0; ty < SIZE - 1; ty++)
+        {
+            map.setTile(map.createTile(UtilMap.SHEET, UtilMap.TILE_TREE, 3, ty));
+        }
+        mapPath = map.addFeatureAndGet(new MapTilePathModel(services));
+        mapPath.prepare(map);
+        mapPath.loadPathfinding(pathfinding);
+        service = new FlowFieldService(services);
+    }
+
+    /**
+     * Test invalid capacity.
+     */
+    @Test
+    public void testInvalidCapacity()
+    {
+        assertThrows(() -> new FlowFieldService(services, 0), "Invalid argument: 0 is not strictly superior to 0");
+    }
+
+    /**
+     * Test field computation against path finder.
+     */
+    @Test
+    public void testField()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final FlowField field = service.get(mover, 6, 0, false);
+
+        assertEquals(6, field.getDestinationX());
+        assertEquals(0, field.getDestinationY());
+        assertEquals(0.0, field.getCost(6, 0));
+        assertNull(field.getNext(6, 0));
+        assertNull(field.getPath(6, 0));
+
+        final CoordTile next = field.getNext(5, 0);
+        assertEquals(6, next.getX());
+        assertEquals(0, next.getY());
+
+        final PathFinder finder = Astar.createPathFinder(map, SIZE * SIZE, Astar.createHeuristicClosest());
+        for (int ty = 0; ty < SIZE; ty++)
+        {
+            for (int tx = 0; tx < 3; tx++)
+            {
+                mover.setLocation(tx, ty);
+                final Path path = field.getPath(tx, ty);
+
+                assertNotNull(path);
+                assertPath(path, tx, ty, 6, 0);
+                assertEquals(finder.findPath(mover, 6, 0, false).getLength(), path.getLength());
+                assertEquals(path.getLength() - 1.0, field.getCost(tx, ty));
+            }
+        }
+    }
+
+    /**
+     * Test field cache.
+     */
+    @Test
+    public void testCache()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final FlowField field = service.get(mover, 6, 0, false);
+
+        assertEquals(field, service.get(createObject(1, 1), 6, 0, false));
+        assertNotEquals(field, service.get(mover, 6, 0, true));
+        assertNotEquals(field, service.get(mover, 6, 1, false));
+
+        service.clear();
+
+        assertNotEquals(field, service.get(mover, 6, 0, false));
+
+        final FlowFieldService single = new FlowFieldService(services, 1);
+        final FlowField first = single.get(mover, 6, 0, false);
+
+        assertEquals(first, single.get(mover, 6, 0, false));
+
+        single.get(mover, 6, 1, false);
+
+        assertNotEquals(first, single.get(mover, 6, 0, false));
+    }
+
+    /**
+     * Test blocking destination uses closest available tile.
+     */
+    @Test
+    public void testBlockedDestination()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final FlowField field = service.get(mover, 3, 2, false);
+
+        assertNotNull(field);
+        assertFalse(mapPath.isBlocked(mover, field.getDestinationX(), field.getDestinationY(), false));
+    }
+
+    /**
+     * Test field update on tile change.
+     */
+    @Test
+    public void testTileChanged()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final FlowField field = service.get(mover, 6, 0, false);
+        final int version = field.getVersion();
+
+        assertTrue(field.isReachable(0, 0));
+
+        UtilPathfinding.setTile(map, 3, SIZE - 1, true);
+
+        assertFalse(field.isReachable(0, 0));
+        assertTrue(field.isReachable(5, 5));
+        assertNotEquals(version, field.getVersion());
+
+        UtilPathfinding.setTile(map, 3, SIZE - 1, false);
+
+        assertTrue(field.isReachable(0, 0));
+        assertEquals(15, field.getPath(0, 0).getLength());
+    }
+
+    /**
+     * Test field update on object reference change.
+     */
+    @Test
+    public void testObjectsId()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final FlowField field = service.get(mover, 6, 0, false);
+        final FlowField ignore = service.get(mover, 6, 0, true);
+        final int version = ignore.getVersion();
+
+        mapPath.addObjectId(3, SIZE - 1, Integer.valueOf(-1));
+
+        assertFalse(field.isReachable(0, 0));
+        assertTrue(ignore.isReachable(0, 0));
+        assertEquals(version, ignore.getVersion());
+
+        mapPath.removeObjectId(3, SIZE - 1, Integer.valueOf(-1));
+
+        assertTrue(field.isReachable(0, 0));
+        assertEquals(15, field.getPath(0, 0).getLength());
+    }
+
+    /**
+     * Test repaired field is the same as a computed one.
+     */
+    @Test
+    public void testRepair()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final FlowField field = service.get(mover, 6, 0, false);
+        final Random random = new Random(42L);
+
+        for (int i = 0; i < 100; i++)
+        {
+            final int tx = random.nextInt(SIZE);
+            final int ty = random.nextInt(SIZE);
+            if (mapPath.getObjectsId(tx, ty).isEmpty())
+            {
+                mapPath.addObjectId(tx, ty, Integer.valueOf(-1));
+            }
+            else
+            {
+                mapPath.removeObjectId(tx, ty, Integer.valueOf(-1));
+            }
+
+            final FlowField expected = new FlowFieldService(services).get(mover, 6, 0, false);
+            for (int y = 0; y < SIZE; y++)
+            {
+                for (int x = 0; x < SIZE; x++)
+                {
+                    assertEquals(expected.getCost(x, y), field.getCost(x, y));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test mover following a field.
+     */
+    @Test
+    public void testFollow()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final FlowField field = service.get(mover, 6, 0, false);
+
+        assertTrue(mover.setDestination(field));
+
+        for (int i = 0; i < SIZE * SIZE && !mover.isDestinationReached(); i++)
+        {
+            mover.update(1.0);
+        }
+
+        assertTrue(mover.isDestinationReached());
+        assertEquals(6, mover.getInTileX());
+        assertEquals(0, mover.getInTileY());
+        assertFalse(mover.setDestination(field));
+    }
+
+    /**
+     * Test movers following the same field.
+     */
+    @Test
+    public void testFollowGroup()
+    {
+        final Pathfindable first = createObject(0, 0);
+        final Pathfindable second = createObject(0, 2);
+        final FlowField field = service.get(first, 6, 0, true);
+
+        assertTrue(first.setDestination(field));
+        assertTrue(second.setDestination(field));
+
+        for (int i = 0; i < SIZE * SIZE && !(first.isDestinationReached() && second.isDestinationReached()); i++)
+        {
+            first.update(1.0);
+            second.update(1.0);
+        }
+
+        assertTrue(first.isDestinationReached());
+        assertTrue(second.isDestinationReached());
+        assertEquals(1, Math.max(getDistance(first, 6, 0), getDistance(second, 6, 0)));
+        assertEquals(0, Math.min(getDistance(first, 6, 0), getDistance(second, 6, 0)));
+    }
+
+    /**
+     * Check path continuity and walkability.
+     * 
+     * @param path The path to check.
+     * @param sx The expected start horizontal location.
+     * @param sy The expected start vertical location.
+     * @param dx The expected destination horizontal location.
+     * @param dy The expected destination vertical location.
+     */
+    private void assertPath(Path path, int sx, int sy, int dx, int dy)
+    {
+        final int last = path.getLength() - 1;
+        assertEquals(sx, path.getX(0));
+        assertEquals(sy, path.getY(0));
+        assertEquals(dx, path.getX(last));
+        assertEquals(dy, path.getY(last));
+
+        for (int i = 1; i <= last; i++)
+        {
+            assertTrue(Math.abs(path.getX(i) - path.getX(i - 1)) <= 1);
+            assertTrue(Math.abs(path.getY(i) - path.getY(i - 1)) <= 1);
+            assertFalse(path.getX(i) == 3 && path.getY(i) < SIZE - 1);
+        }
+    }
+
+    /**
+     * Get the distance in tile between mover and location.
+     * 
+     * @param mover The mover reference.
+     * @param tx The horizontal tile location.
+     * @param ty The vertical tile location.
+     * @return The distance in tile.
+     */
+    private static int getDistance(Pathfindable mover, int tx, int ty)
+    {
+        return Math.max(Math.abs(mover.getInTileX() - tx), Math.abs(mover.getInTileY() - ty));
+    }
+
+    /**
+     * Create object test.
+     * 
+     * @param tx The horizontal tile location.
+     * @param ty The vertical tile location.
+     * @return The object test.
+     */
+    private Pathfindable createObject(int tx, int ty)
+    {
+        final Setup setup = new Setup(config);
+        final FeaturableModel object = new FeaturableModel();
+
+        final Transformable transformable = object.addFeatureAndGet(new TransformableModel(setup));
+        transformable.setSize(1, 1);
+
+        final Pathfindable pathfindable = object.addFeatureAndGet(new PathfindableModel(services, setup));
+        pathfindable.setLocation(tx, ty);
+
+        return pathfindable;
+    }
+}
@@ -20,6 +20,9 @@ package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
 import static com.b3dgs.lionengine.UtilAssert.assertEquals;
 import static com.b3dgs.lionengine.UtilAssert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -131,6 +134,32 @@ public final class MapTilePathModelTest
         assertEquals(2, coord.getY());
     }
 
+    /**
+     * Test the listener notification on objects id change.
+     */
+    @Test
+    public void testListener()
+    {
+        final List<CoordTile> changed = new ArrayList<>();
+        final MapTilePathListener listener = (tx, ty) -> changed.add(new CoordTile(tx, ty));
+        mapPath.addListener(listener);
+
+        mapPath.addObjectId(1, 2, Integer.valueOf(1));
+        mapPath.removeObjectId(1, 2, Integer.valueOf(1));
+
+        assertEquals(2, changed.size());
+        for (final CoordTile coord : changed)
+        {
+            assertEquals(1, coord.getX());
+            assertEquals(2, coord.getY());
+        }
+
+        mapPath.removeListener(listener);
+        mapPath.addObjectId(0, 0, Integer.valueOf(1));
+
+        assertEquals(2, changed.size());
+    }
+
     /**
      * Create object test.
      * 
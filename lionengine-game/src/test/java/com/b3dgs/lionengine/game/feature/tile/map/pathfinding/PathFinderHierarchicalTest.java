@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertNotNull;
+import static com.b3dgs.lionengine.UtilAssert.assertNull;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.game.feature.Camera;
+import com.b3dgs.lionengine.game.feature.FeaturableModel;
+import com.b3dgs.lionengine.game.feature.Services;
+import com.b3dgs.lionengine.game.feature.Setup;
+import com.b3dgs.lionengine.game.feature.Transformable;
+import com.b3dgs.lionengine.game.feature.TransformableModel;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTileGame;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTileGroupModel;
+import com.b3dgs.lionengine.game.feature.tile.map.UtilMap;
+
+/**
+ * Test {@link PathFinderHierarchical}.
+ */
+public final class PathFinderHierarchicalTest
+{
+    /** Map size. */
+    private static final int SIZE = 32;
+    /** Cluster size. */
+    private static final int CLUSTER = 8;
+    /** Wall horizontal location. */
+    private static final int WALL = 12;
+    /** Wall gap vertical location. */
+    private static final int GAP = SIZE - 3;
+    /** Test configuration. */
+    private static Media config;
+    /** Pathfinding configuration. */
+    private static Media pathfinding;
+
+    /**
+     * Prepare test.
+     */
+    @BeforeAll
+    public static void beforeTests()
+    {
+        Medias.setLoadFromJar(PathFinderHierarchicalTest.class);
+
+        config = UtilPathfinding.createConfig("hierarchical.xml");
+        pathfinding = UtilPathfinding.createPathfinding("hierarchical_categories.xml");
+    }
+
+    /**
+     * Clean up test.
+     */
+    @AfterAll
+    public static void afterTests()
+    {
+        assertTrue(config.getFile().delete());
+        assertTrue(pathfinding.getFile().delete());
+        Medias.setResourcesDirectory(null);
+    }
+
+    /** The services reference. */
+    private final Services services = new Services();
+    /** Map. */
+    private final MapTile map = services.create(MapTileGame.class);
+    /** Map path. */
+    private MapTilePath mapPath;
+
+    /**
+     * Prepare test.
+     */
+    @BeforeEach
+    public void prepare()
+    {
+        services.add(new Camera());
+        map.addFeature(new MapTileGroupModel());
+        map.create(1, 1, SIZE, SIZE);
+        UtilMap.setGroups(map);
+        UtilMap.fill(map, UtilMap.TILE_GROUND);
+        for (int ty = 0; ty < GAP; ty++)
+        {
+            map.setTile(map.createTile(UtilMap.SHEET, UtilMap.TILE_TREE, WALL, ty));
+        }
+        mapPath = map.addFeatureAndGet(new MapTilePathModel(services));
+        mapPath.prepare(map);
+        mapPath.loadPathfinding(pathfinding);
+    }
+
+    /**
+     * Test invalid cluster size.
+     */
+    @Test
+    public void testInvalidCluster()
+    {
+        assertThrows(() -> Astar.createPathFinderHierarchical(map, 1, Astar.createHeuristicClosest()),
+                     "Invalid argument: 1 is not superior or equal to 2");
+    }
+
+    /**
+     * Test path inside a single cluster.
+     */
+    @Test
+    public void testLocal()
+    {
+        final Pathfindable mover = createObject(1, 1);
+        final PathFinder finder = Astar.createPathFinderHierarchical(map, CLUSTER, Astar.createHeuristicClosest());
+        final Path path = finder.findPath(mover, 5, 1, false);
+
+        assertNotNull(path);
+        assertEquals(5, path.getLength());
+        assertPath(path, 1, 1, 5, 1);
+    }
+
+    /**
+     * Test long path crossing clusters through the wall gap.
+     */
+    @Test
+    public void testAround()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final PathFinder finder = Astar.createPathFinderHierarchical(map, CLUSTER, Astar.createHeuristicClosest());
+        final Path path = finder.findPath(mover, SIZE - 2, 0, false);
+
+        assertNotNull(path);
+        assertPath(path, 0, 0, SIZE - 2, 0);
+
+        final Path optimal = Astar.createPathFinder(map, SIZE * SIZE, Astar.createHeuristicClosest())
+                                  .findPath(mover, SIZE - 2, 0, false);
+        assertTrue(path.getLength() >= optimal.getLength());
+        assertTrue(path.getLength() <= optimal.getLength() * 5 / 4, String.valueOf(path.getLength()));
+    }
+
+    /**
+     * Test graph update on tile change.
+     */
+    @Test
+    public void testTileChanged()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final PathFinder finder = Astar.createPathFinderHierarchical(map, CLUSTER, Astar.createHeuristicClosest());
+
+        assertNotNull(finder.findPath(mover, SIZE - 2, 0, false));
+
+        for (int ty = GAP; ty < SIZE; ty++)
+        {
+            UtilPathfinding.setTile(map, WALL, ty, true);
+        }
+
+        assertNull(finder.findPath(mover, SIZE - 2, 0, false));
+
+        UtilPathfinding.setTile(map, WALL, SIZE - 1, false);
+        final Path path = finder.findPath(mover, SIZE - 2, 0, false);
+
+        assertNotNull(path);
+        assertPath(path, 0, 0, SIZE - 2, 0);
+    }
+
+    /**
+     * Test graph update on object reference change.
+     */
+    @Test
+    public void testObjectsId()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final PathFinder finder = Astar.createPathFinderHierarchical(map, CLUSTER, Astar.createHeuristicClosest());
+
+        assertNotNull(finder.findPath(mover, SIZE - 2, 0, false));
+
+        for (int ty = GAP; ty < SIZE; ty++)
+        {
+            mapPath.addObjectId(WALL, ty, Integer.valueOf(-1));
+        }
+
+        assertNull(finder.findPath(mover, SIZE - 2, 0, false));
+        assertNotNull(finder.findPath(mover, SIZE - 2, 0, true));
+
+        for (int ty = GAP; ty < SIZE; ty++)
+        {
+            mapPath.removeObjectId(WALL, ty, Integer.valueOf(-1));
+        }
+
+        final Path path = finder.findPath(mover, SIZE - 2, 0, false);
+
+        assertNotNull(path);
+        assertPath(path, 0, 0, SIZE - 2, 0);
+    }
+
+    /**
+     * Check path continuity and walkability.
+     * 
+     * @param path The path to check.
+     * @param sx The expected start horizontal location.
+     * @param sy The expected start vertical location.
+     * @param dx The expected destination horizontal location.
+     * @param dy The expected destination vertical location.
+     */
+    private void assertPath(Path path, int sx, int sy, int dx, int dy)
+    {
+        final int last = path.getLength() - 1;
+        assertEquals(sx, path.getX(0));
+        assertEquals(sy, path.getY(0));
+        assertEquals(dx, path.getX(last));
+        assertEquals(dy, path.getY(last));
+
+        for (int i = 1; i <= last; i++)
+        {
+            assertTrue(Math.abs(path.getX(i) - path.getX(i - 1)) <= 1);
+            assertTrue(Math.abs(path.getY(i) - path.getY(i - 1)) <= 1);
+            assertFalse(path.getX(i) == path.getX(i - 1) && path.getY(i) == path.getY(i - 1));
+            assertFalse(path.getX(i) == WALL && path.getY(i) < GAP);
+        }
+    }
+
+    /**
+     * Create object test.
+     * 
+     * @param tx The horizontal tile location.
+     * @param ty The vertical tile location.
+     * @return The object test.
+     */
+    private Pathfindable createObject(int tx, int ty)
+    {
+        final Setup setup = new Setup(config);
+        final FeaturableModel object = new FeaturableModel();
+
+        final Transformable transformable = object.addFeatureAndGet(new TransformableModel(setup));
+        transformable.setSize(1, 1);
+
+        final Pathfindable pathfindable = object.addFeatureAndGet(new PathfindableModel(services, setup));
+        pathfindable.setLocation(tx, ty);
+
+        return pathfindable;
+    }
+}
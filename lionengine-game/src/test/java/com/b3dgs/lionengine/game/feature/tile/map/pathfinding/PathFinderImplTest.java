@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertNotNull;
+import static com.b3dgs.lionengine.UtilAssert.assertNull;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.game.feature.Camera;
+import com.b3dgs.lionengine.game.feature.FeaturableModel;
+import com.b3dgs.lionengine.game.feature.Services;
+import com.b3dgs.lionengine.game.feature.Setup;
+import com.b3dgs.lionengine.game.feature.Transformable;
+import com.b3dgs.lionengine.game.feature.TransformableModel;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTileGame;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTileGroupModel;
+import com.b3dgs.lionengine.game.feature.tile.map.UtilMap;
+
+/**
+ * Test {@link PathFinderImpl}.
+ */
+public final class PathFinderImplTest
+{
+    /** Map size. */
+    private static final int SIZE = 8;
+    /** Test configuration. */
+    private static Media config;
+    /** Pathfinding configuration. */
+    private static Media pathfinding;
+
+    /**
+     * Prepare test.
+     */
+    @BeforeAll
+    public static void beforeTests()
+    {
+        Medias.setLoadFromJar(PathFinderImplTest.class);
+
+        config = UtilPathfinding.createConfig("pathfinder.xml");
+        pathfinding = UtilPathfinding.createPathfinding("pathfinder_categories.xml");
+    }
+
+    /**
+     * Clean up test.
+     */
+    @AfterAll
+    public static void afterTests()
+    {
+        assertTrue(config.getFile().delete());
+        assertTrue(pathfinding.getFile().delete());
+        Medias.setResourcesDirectory(null);
+    }
+
+    /** The services reference. */
+    private final Services services = new Services();
+    /** Map. */
+    private final MapTile map = services.create(MapTileGame.class);
+    /** Map path. */
+    private MapTilePath mapPath;
+
+    /**
+     * Prepare test.
+     */
+    @BeforeEach
+    public void prepare()
+    {
+        services.add(new Camera());
+        map.addFeature(new MapTileGroupModel());
+        map.create(1, 1, SIZE, SIZE);
+        UtilMap.setGroups(map);
+        UtilMap.fill(map, UtilMap.TILE_GROUND);
+        for (int ty = 0; ty < SIZE - 1; ty++)
+        {
+            map.setTile(map.createTile(UtilMap.SHEET, UtilMap.TILE_TREE, 3, ty));
+        }
+        mapPath = map.addFeatureAndGet(new MapTilePathModel(services));
+        mapPath.prepare(map);
+        mapPath.loadPathfinding(pathfinding);
+    }
+
+    /**
+     * Test straight path.
+     */
+    @Test
+    public void testStraight()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final PathFinder finder = Astar.createPathFinder(map, SIZE * SIZE, Astar.createHeuristicClosest());
+        final Path path = finder.findPath(mover, 2, 0, false);
+
+        assertNotNull(path);
+        assertEquals(3, path.getLength());
+        for (int i = 0; i < path.getLength(); i++)
+        {
+            assertEquals(i, path.getX(i));
+            assertEquals(0, path.getY(i));
+        }
+    }
+
+    /**
+     * Test path around blocking tiles.
+     */
+    @Test
+    public void testAround()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final PathFinder finder = Astar.createPathFinder(map, SIZE * SIZE, Astar.createHeuristicClosest());
+        final Path path = finder.findPath(mover, 6, 0, false);
+
+        assertNotNull(path);
+        assertEquals(0, path.getX(0));
+        assertEquals(0, path.getY(0));
+        assertEquals(6, path.getX(path.getLength() - 1));
+        assertEquals(0, path.getY(path.getLength() - 1));
+
+        boolean gap = false;
+        for (int i = 1; i < path.getLength(); i++)
+        {
+            assertTrue(Math.abs(path.getX(i) - path.getX(i - 1)) <= 1);
+            assertTrue(Math.abs(path.getY(i) - path.getY(i - 1)) <= 1);
+            if (path.getX(i) == 3)
+            {
+                assertEquals(SIZE - 1, path.getY(i));
+                gap = true;
+            }
+        }
+        assertTrue(gap);
+        assertEquals(15, path.getLength());
+    }
+
+    /**
+     * Test path search reuse with updated object references.
+     */
+    @Test
+    public void testReuse()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final PathFinder finder = Astar.createPathFinder(map, SIZE * SIZE, Astar.createHeuristicClosest());
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals(15, finder.findPath(mover, 6, 0, false).getLength());
+            assertEquals(3, finder.findPath(mover, 2, 2, false).getLength());
+        }
+
+        mapPath.addObjectId(3, SIZE - 1, Integer.valueOf(-1));
+
+        assertNull(finder.findPath(mover, 6, 0, false));
+        assertEquals(15, finder.findPath(mover, 6, 0, true).getLength());
+
+        mapPath.removeObjectId(3, SIZE - 1, Integer.valueOf(-1));
+
+        assertEquals(15, finder.findPath(mover, 6, 0, false).getLength());
+    }
+
+    /**
+     * Test no path cases.
+     */
+    @Test
+    public void testNoPath()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        final PathFinder finder = Astar.createPathFinder(map, SIZE * SIZE, Astar.createHeuristicClosest());
+
+        assertNull(finder.findPath(mover, 0, 0, false));
+        assertNull(Astar.createPathFinder(map, 2, Astar.createHeuristicClosest()).findPath(mover, 6, 0, false));
+    }
+
+    /**
+     * Test path search on compact map storage.
+     */
+    @Test
+    public void testCompact()
+    {
+        final Services compactServices = new Services();
+        compactServices.add(new Camera());
+        final MapTile compact = compactServices.add(new MapTileGame(true));
+        compact.addFeature(new MapTileGroupModel());
+        compact.create(1, 1, SIZE, SIZE);
+        UtilMap.setGroups(compact);
+        UtilMap.fill(compact, UtilMap.TILE_GROUND);
+        for (int ty = 0; ty < SIZE - 1; ty++)
+        {
+            compact.setTile(compact.createTile(UtilMap.SHEET, UtilMap.TILE_TREE, 3, ty));
+        }
+        final MapTilePath compactPath = compact.addFeatureAndGet(new MapTilePathModel(compactServices));
+        compactPath.prepare(compact);
+        compactPath.loadPathfinding(pathfinding);
+
+        final Setup setup = new Setup(config);
+        final FeaturableModel object = new FeaturableModel();
+        object.addFeatureAndGet(new TransformableModel(setup)).setSize(1, 1);
+        final Pathfindable mover = object.addFeatureAndGet(new PathfindableModel(compactServices, setup));
+        mover.setLocation(0, 0);
+
+        final PathFinder finder = Astar.createPathFinder(compact, SIZE * SIZE, Astar.createHeuristicClosest());
+
+        assertEquals(15, finder.findPath(mover, 6, 0, false).getLength());
+
+        compactPath.addObjectId(3, SIZE - 1, Integer.valueOf(-1));
+
+        assertNull(finder.findPath(mover, 6, 0, false));
+    }
+
+    /**
+     * Create object test.
+     * 
+     * @param tx The horizontal tile location.
+     * @param ty The vertical tile location.
+     * @return The object test.
+     */
+    private Pathfindable createObject(int tx, int ty)
+    {
+        final Setup setup = new Setup(config);
+        final FeaturableModel object = new FeaturableModel();
+
+        final Transformable transformable = object.addFeatureAndGet(new TransformableModel(setup));
+        transformable.setSize(1, 1);
+
+        final Pathfindable pathfindable = object.addFeatureAndGet(new PathfindableModel(services, setup));
+        pathfindable.setLocation(tx, ty);
+
+        return pathfindable;
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.UtilTests;
+import com.b3dgs.lionengine.game.feature.Camera;
+import com.b3dgs.lionengine.game.feature.FeaturableModel;
+import com.b3dgs.lionengine.game.feature.Services;
+import com.b3dgs.lionengine.game.feature.Setup;
+import com.b3dgs.lionengine.game.feature.Transformable;
+import com.b3dgs.lionengine.game.feature.TransformableModel;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTileGame;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTileGroupModel;
+import com.b3dgs.lionengine.game.feature.tile.map.UtilMap;
+
+/**
+ * Test {@link PathRequestService}.
+ */
+public final class PathRequestServiceTest
+{
+    /** Map size. */
+    private static final int SIZE = 8;
+    /** Test configuration. */
+    private static Media config;
+    /** Pathfinding configuration. */
+    private static Media pathfinding;
+
+    /**
+     * Prepare test.
+     */
+    @BeforeAll
+    public static void beforeTests()
+    {
+        Medias.setLoadFromJar(PathRequestServiceTest.class);
+
+        config = UtilPathfinding.createConfig("requests.xml");
+        pathfinding = UtilPathfinding.createPathfinding("requests_categories.xml");
+    }
+
+    /**
+     * Clean up test.
+     */
+    @AfterAll
+    public static void afterTests()
+    {
+        assertTrue(config.getFile().delete());
+        assertTrue(pathfinding.getFile().delete());
+        Medias.setResourcesDirectory(null);
+    }
+
+    /** The services reference. */
+    private final Services services = new Services();
+    /** Map. */
+    private final MapTile map = services.create(MapTileGame.class);
+    /** Started movers. */
+    private final List<Pathfindable> started = new ArrayList<>();
+    /** Service test. */
+    private PathRequestService service;
+    /** Setup shared by movers. */
+    private Setup setup;
+
+    /**
+     * Prepare test.
+     */
+    @BeforeEach
+    public void prepare()
+    {
+        final Camera camera = services.add(new Camera());
+        camera.setView(0, 0, 2, 2, 2);
+        map.addFeature(new MapTileGroupModel());
+        map.create(1, 1, SIZE, SIZE);
+        UtilMap.setGroups(map);
+        UtilMap.fill(map, UtilMap.TILE_GROUND);
+        for (int ty = 0; ty < SIZE / 2; ty++)
+        {
+            map.setTile(map.createTile(UtilMap.SHEET, UtilMap.TILE_TREE, 3, ty));
+        }
+        final MapTilePath mapPath = map.addFeatureAndGet(new MapTilePathModel(services));
+        mapPath.prepare(map);
+        mapPath.loadPathfinding(pathfinding);
+
+        service = services.add(new PathRequestService(services, 2));
+        setup = new Setup(config);
+    }
+
+    /**
+     * Clean test.
+     */
+    @AfterEach
+    public void clean()
+    {
+        service.close();
+    }
+
+    /**
+     * Test asynchronous request until arrival.
+     */
+    @Test
+    public void testRequest()
+    {
+        final Pathfindable mover = createObject(0, 0);
+
+        assertTrue(service.isIdle());
+        assertTrue(mover.setDestination(6, 0));
+        assertFalse(service.isIdle());
+        assertTrue(started.isEmpty());
+
+        service.update(1.0);
+
+        assertTrue(started.isEmpty());
+
+        awaitIdle();
+
+        assertEquals(Arrays.asList(mover), started);
+
+        for (int i = 0; i < SIZE * SIZE && !mover.isDestinationReached(); i++)
+        {
+            mover.update(1.0);
+        }
+
+        assertTrue(mover.isDestinationReached());
+        assertEquals(6, mover.getInTileX());
+        assertEquals(0, mover.getInTileY());
+    }
+
+    /**
+     * Test identical requests, and delivery priority with budget.
+     */
+    @Test
+    public void testPriority()
+    {
+        service.setBudget(0L);
+
+        final Pathfindable far = createObject(1, 5);
+        final Pathfindable near = createObject(0, 0);
+        final Pathfindable same = createObject(0, 0);
+
+        far.setDestination(6, 0);
+        near.setDestination(6, 0);
+        same.setDestination(6, 0);
+
+        service.update(1.0);
+        while (started.isEmpty())
+        {
+            UtilTests.pause(1L);
+            service.update(1.0);
+        }
+
+        assertEquals(1, started.size());
+
+        service.update(1.0);
+        service.update(1.0);
+
+        assertTrue(service.isIdle());
+        assertEquals(Arrays.asList(near, same, far), started);
+    }
+
+    /**
+     * Test outdated request ignored.
+     */
+    @Test
+    public void testReplaced()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        mover.setDestination(6, 0);
+        service.update(1.0);
+        mover.setDestination(2, 2);
+
+        awaitIdle();
+
+        assertEquals(Arrays.asList(mover), started);
+
+        for (int i = 0; i < SIZE * SIZE && !mover.isDestinationReached(); i++)
+        {
+            mover.update(1.0);
+        }
+
+        assertEquals(2, mover.getInTileX());
+        assertEquals(2, mover.getInTileY());
+    }
+
+    /**
+     * Test close with a running batch.
+     */
+    @Test
+    public void testClose()
+    {
+        final Pathfindable mover = createObject(0, 0);
+        mover.setDestination(6, 0);
+        service.update(1.0);
+        createObject(1, 5).setDestination(6, 0);
+
+        assertFalse(service.isIdle());
+
+        service.close();
+
+        assertTrue(service.isClosed());
+        assertTrue(service.isIdle());
+        assertThrows(() -> service.request(null, setup, 0, 0, 1, 1), PathRequestService.ERROR_CLOSED);
+
+        final Pathfindable other = createObject(0, 0);
+        assertTrue(other.setDestination(6, 0));
+
+        assertTrue(service.isIdle());
+        assertEquals(Arrays.asList(other), started);
+    }
+
+    /**
+     * Test invalid arguments.
+     */
+    @Test
+    public void testInvalid()
+    {
+        assertThrows(() -> new PathRequestService(services, 0), "Invalid argument: 0 is not strictly superior to 0");
+        assertThrows(() -> service.setBudget(-1L), "Invalid argument: -1.0 is not superior or equal to 0.0");
+    }
+
+    /**
+     * Update service until idle.
+     */
+    private void awaitIdle()
+    {
+        while (!service.isIdle())
+        {
+            UtilTests.pause(1L);
+            service.update(1.0);
+        }
+    }
+
+    /**
+     * Create object test.
+     * 
+     * @param tx The horizontal tile location.
+     * @param ty The vertical tile location.
+     * @return The object test.
+     */
+    private Pathfindable createObject(int tx, int ty)
+    {
+        final FeaturableModel object = new FeaturableModel();
+
+        final Transformable transformable = object.addFeatureAndGet(new TransformableModel(setup));
+        transformable.setSize(1, 1);
+
+        final Pathfindable pathfindable = object.addFeatureAndGet(new PathfindableModel(services, setup));
+        pathfindable.setLocation(tx, ty);
+        pathfindable.addListener(new PathfindableListener()
+        {
+            @Override
+            public void notifyStartMove()
+            {
+                started.add(pathfindable);
+            }
+
+            @Override
+            public void notifyMoving()
+            {
+                // Nothing to do
+            }
+
+            @Override
+            public void notifyArrived()
+            {
+                // Nothing to do
+            }
+        });
+
+        return pathfindable;
+    }
+}
@@ -42,4 +42,26 @@ public final class PathTest
         assertEquals(1, path.getX(0));
         assertEquals(2, path.getY(0));
     }
+
+    /**
+     * Test the path append.
+     */
+    @Test
+    public void testAppend()
+    {
+        final Path path = new Path(2);
+
+        path.appendStep(1, 2);
+        path.appendStep(3, 4);
+        path.prependStep(0, 0);
+
+        assertEquals(3, path.getLength());
+        assertEquals(0, path.getX(0));
+        assertEquals(1, path.getX(1));
+        assertEquals(4, path.getY(2));
+
+        path.clear();
+
+        assertEquals(0, path.getLength());
+    }
 }
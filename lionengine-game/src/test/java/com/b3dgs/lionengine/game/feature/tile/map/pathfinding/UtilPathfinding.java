@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.pathfinding;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.Xml;
+import com.b3dgs.lionengine.game.feature.FeaturableConfig;
+import com.b3dgs.lionengine.game.feature.tile.Tile;
+import com.b3dgs.lionengine.game.feature.tile.TileGroupsConfig;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+import com.b3dgs.lionengine.game.feature.tile.map.UtilMap;
+
+/**
+ * Pathfinding test utility. Ground is walkable, tree is blocking.
+ */
+public final class UtilPathfinding
+{
+    /**
+     * Create the pathfindable object configuration.
+     * 
+     * @param name The configuration file name.
+     * @return The configuration media.
+     */
+    public static Media createConfig(String name)
+    {
+        final Map<String, PathData> data = new HashMap<>();
+        data.put(UtilMap.GROUND, new PathData(UtilMap.GROUND, 1.0, false, Arrays.asList(MovementTile.values())));
+        data.put(UtilMap.TREE, new PathData(UtilMap.TREE, 1.0, true, Arrays.asList(MovementTile.values())));
+
+        final Xml root = new Xml("test");
+        root.add(FeaturableConfig.exportClass("class"));
+        root.add(FeaturableConfig.exportSetup("setup"));
+        root.add(PathfindableConfig.exports(data));
+
+        final Media config = Medias.create(name);
+        root.save(config);
+
+        return config;
+    }
+
+    /**
+     * Create the map pathfinding configuration, with a category per group.
+     * 
+     * @param name The configuration file name.
+     * @return The configuration media.
+     */
+    public static Media createPathfinding(String name)
+    {
+        final Xml categories = new Xml(PathfindingConfig.PATHFINDING);
+        for (final String category : Arrays.asList(UtilMap.GROUND, UtilMap.TREE))
+        {
+            final Xml node = categories.createChild(PathfindingConfig.TILE_PATH);
+            node.writeString(PathfindingConfig.CATEGORY, category);
+            node.createChild(TileGroupsConfig.NODE_GROUP).setText(category);
+        }
+
+        final Media pathfinding = Medias.create(name);
+        categories.save(pathfinding);
+
+        return pathfinding;
+    }
+
+    /**
+     * Set a tile with its path feature, on a map with loaded pathfinding.
+     * 
+     * @param map The map reference.
+     * @param tx The horizontal tile index.
+     * @param ty The vertical tile index.
+     * @param tree <code>true</code> for a tree, <code>false</code> for ground.
+     */
+    public static void setTile(MapTile map, int tx, int ty, boolean tree)
+    {
+        final Tile tile;
+        if (tree)
+        {
+            tile = map.createTile(UtilMap.SHEET, UtilMap.TILE_TREE, tx, ty);
+            tile.addFeature(new TilePathModel(UtilMap.TREE));
+        }
+        else
+        {
+            tile = map.createTile(UtilMap.SHEET, UtilMap.TILE_GROUND, tx, ty);
+            tile.addFeature(new TilePathModel(UtilMap.GROUND));
+        }
+        map.setTile(tile);
+    }
+}
@@ -19,12 +19,15 @@ package com.b3dgs.lionengine.game.feature.tile.map.persister;
 
 import static com.b3dgs.lionengine.UtilAssert.assertEquals;
 import static com.b3dgs.lionengine.UtilAssert.assertNotNull;
-import static com.b3dgs.lionengine.UtilAssert.assertNull;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
 import static com.b3dgs.lionengine.UtilAssert.assertThrowsIo;
 import static com.b3dgs.lionengine.UtilAssert.assertTrue;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -37,6 +40,9 @@ import com.b3dgs.lionengine.game.feature.tile.Tile;
 import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
 import com.b3dgs.lionengine.game.feature.tile.map.MapTileGame;
 import com.b3dgs.lionengine.game.feature.tile.map.TileSheetsConfig;
+import com.b3dgs.lionengine.graphic.drawable.SpriteTiled;
+import com.b3dgs.lionengine.io.FileReading;
+import com.b3dgs.lionengine.io.FileWriting;
 
 /**
  * Test {@link MapTilePersisterModel}.
@@ -83,29 +89,111 @@ public final class MapTilePersisterModelTest
         assertEquals(map.getInTileHeight(), mapLoaded.getInTileHeight());
         assertEquals(map.getWidth(), mapLoaded.getWidth());
         assertEquals(map.getHeight(), mapLoaded.getHeight());
-        for (int x = 0; x < mapLoaded.getInTileWidth(); x++)
+        UtilMapTilePersister.assertTiles(mapLoaded);
+        assertEquals(map.getTilesNumber(), mapLoaded.getTilesNumber());
+        assertTrue(level.getFile().delete());
+    }
+
+    /**
+     * Test the save and load map from file with small uncompressed chunks.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testSaveLoadUncompressed() throws IOException
+    {
+        final MapTile map = UtilMapTilePersister.createMap();
+        final MapTilePersisterModel persister = map.getFeature(MapTilePersisterModel.class);
+        persister.setChunkSize(2);
+        persister.setCompressed(false);
+
+        final Media level = Medias.create("level");
+        UtilMapTilePersister.saveMap(map, level);
+        final MapTile mapLoaded = UtilMapTilePersister.loadMap(level);
+
+        UtilMapTilePersister.assertTiles(mapLoaded);
+        assertEquals(map.getTilesNumber(), mapLoaded.getTilesNumber());
+        assertTrue(level.getFile().delete());
+    }
+
+    /**
+     * Test the save and load map from file with overridden tile data.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testSaveLoadTileHooks() throws IOException
+    {
+        final MapTile source = UtilMapTilePersister.createMap();
+        final AtomicInteger saved = new AtomicInteger();
+        final AtomicInteger loaded = new AtomicInteger();
+
+        final Services services = new Services();
+        final MapTile map = services.create(MapTileGame.class);
+        final MapTilePersister persister = new MapTilePersisterMarker(services, saved, loaded);
+        map.create(16, 32, 3, 3);
+        map.loadSheets(new ArrayList<SpriteTiled>());
+        for (int x = 0; x < source.getInTileWidth(); x++)
         {
-            for (int y = 0; y < mapLoaded.getInTileHeight(); y++)
+            for (int y = 1; y < source.getInTileHeight(); y++)
             {
-                final Tile tile = mapLoaded.getTile(x, y);
-                if (y == 0)
-                {
-                    assertNull(tile);
-                }
-                else
-                {
-                    assertNotNull(tile);
-                    assertEquals(0, tile.getSheet().intValue());
-                    assertEquals(x * y, tile.getNumber());
-                    assertEquals(x * mapLoaded.getTileWidth(), tile.getX());
-                    assertEquals(y * mapLoaded.getTileHeight(), tile.getY());
-                }
+                map.setTile(source.getTile(x, y));
             }
         }
+
+        final Media level = Medias.create("level");
+        try (FileWriting output = new FileWriting(level))
+        {
+            persister.save(output);
+        }
+
+        final Services servicesLoaded = new Services();
+        final MapTile mapLoaded = servicesLoaded.create(MapTileGame.class);
+        final MapTilePersister persisterLoaded = new MapTilePersisterMarker(servicesLoaded, saved, loaded);
+        try (FileReading input = new FileReading(level))
+        {
+            persisterLoaded.load(input);
+        }
+
+        UtilMapTilePersister.assertTiles(mapLoaded);
+        assertEquals(source.getTilesNumber(), saved.get());
+        assertEquals(source.getTilesNumber(), loaded.get());
+        assertTrue(level.getFile().delete());
+    }
+
+    /**
+     * Test the load map from legacy bloc format file.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testLoadLegacy() throws IOException
+    {
+        final MapTile map = UtilMapTilePersister.createMap();
+        final Media level = Medias.create("level");
+        UtilMapTilePersister.saveLegacy(map, level);
+        final MapTile mapLoaded = UtilMapTilePersister.loadMap(level);
+
+        assertEquals(map.getInTileWidth(), mapLoaded.getInTileWidth());
+        assertEquals(map.getInTileHeight(), mapLoaded.getInTileHeight());
+        UtilMapTilePersister.assertTiles(mapLoaded);
         assertEquals(map.getTilesNumber(), mapLoaded.getTilesNumber());
         assertTrue(level.getFile().delete());
     }
 
+    /**
+     * Test the invalid chunk size.
+     */
+    @Test
+    public void testInvalidChunkSize()
+    {
+        final Services services = new Services();
+        services.create(MapTileGame.class);
+        final MapTilePersisterModel persister = new MapTilePersisterModel(services);
+
+        assertThrows(() -> persister.setChunkSize(0), "Invalid argument: 0 is not strictly superior to 0");
+    }
+
     /**
      * Test the save and load map from file with sheet config.
      * 
@@ -164,4 +252,50 @@ public final class MapTilePersisterModelTest
 
         mapPersister.prepare(map);
     }
+
+    /**
+     * Persister writing a marker after each tile number.
+     */
+    private static final class MapTilePersisterMarker extends MapTilePersisterModel
+    {
+        /** Tile marker. */
+        private static final int MARKER = 42;
+
+        /** Saved tiles counter. */
+        private final AtomicInteger saved;
+        /** Loaded tiles counter. */
+        private final AtomicInteger loaded;
+
+        /**
+         * Create persister.
+         * 
+         * @param services The services reference.
+         * @param saved The saved tiles counter.
+         * @param loaded The loaded tiles counter.
+         */
+        MapTilePersisterMarker(Services services, AtomicInteger saved, AtomicInteger loaded)
+        {
+            super(services);
+
+            this.saved = saved;
+            this.loaded = loaded;
+        }
+
+        @Override
+        protected void saveTile(DataOutput output, Tile tile) throws IOException
+        {
+            super.saveTile(output, tile);
+            output.writeInt(MARKER);
+            saved.incrementAndGet();
+        }
+
+        @Override
+        protected Tile loadTile(DataInput input, Integer sheet, int tx, int ty) throws IOException
+        {
+            final Tile tile = super.loadTile(input, sheet, tx, ty);
+            assertEquals(MARKER, input.readInt());
+            loaded.incrementAndGet();
+            return tile;
+        }
+    }
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.game.feature.tile.map.persister;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertNotNull;
+import static com.b3dgs.lionengine.UtilAssert.assertNull;
+import static com.b3dgs.lionengine.UtilAssert.assertThrows;
+import static com.b3dgs.lionengine.UtilAssert.assertTimeout;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.game.feature.Camera;
+import com.b3dgs.lionengine.game.feature.Services;
+import com.b3dgs.lionengine.game.feature.tile.Tile;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTile;
+import com.b3dgs.lionengine.game.feature.tile.map.MapTileGame;
+import com.b3dgs.lionengine.graphic.drawable.SpriteTiled;
+
+/**
+ * Test {@link MapTileRegionLoader}.
+ */
+public final class MapTileRegionLoaderTest
+{
+    /**
+     * Prepare tests.
+     */
+    @BeforeAll
+    public static void beforeTests()
+    {
+        Medias.setResourcesDirectory(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Clean tests.
+     */
+    @AfterAll
+    public static void afterTests()
+    {
+        Medias.setResourcesDirectory(null);
+    }
+
+    /**
+     * Assert chunk tiles are loaded.
+     * 
+     * @param map The map reference.
+     * @param cx The horizontal chunk index.
+     * @param cy The vertical chunk index.
+     */
+    private static void assertChunk(MapTile map, int cx, int cy)
+    {
+        for (int tx = cx * 2; tx < cx * 2 + 2; tx++)
+        {
+            for (int ty = cy * 2; ty < cy * 2 + 2; ty++)
+            {
+                final Tile tile = map.getTile(tx, ty);
+                assertNotNull(tile);
+                assertEquals(tx + ty * 8, tile.getNumber());
+            }
+        }
+    }
+
+    /** Services reference. */
+    private final Services services = new Services();
+    /** Camera reference. */
+    private final Camera camera = services.add(new Camera());
+    /** Map reference. */
+    private final MapTile map = services.add(new MapTileGame());
+    /** Level file. */
+    private final Media level = Medias.create("level");
+
+    /**
+     * Prepare test.
+     * 
+     * @throws IOException If error.
+     */
+    @BeforeEach
+    public void prepare() throws IOException
+    {
+        final Services source = new Services();
+        final MapTile saved = source.create(MapTileGame.class);
+        final MapTilePersisterModel persister = new MapTilePersisterModel(source);
+        persister.setChunkSize(2);
+        saved.addFeature(persister);
+        saved.create(16, 16, 8, 8);
+        saved.loadSheets(new ArrayList<SpriteTiled>());
+        for (int tx = 0; tx < 8; tx++)
+        {
+            for (int ty = 0; ty < 8; ty++)
+            {
+                saved.setTile(saved.createTile(Integer.valueOf(0), tx + ty * 8, tx * 16.0, ty * 16.0));
+            }
+        }
+        UtilMapTilePersister.saveMap(saved, level);
+
+        camera.setView(0, 0, 32, 32, 32);
+    }
+
+    /**
+     * Clean test.
+     */
+    @AfterEach
+    public void clean()
+    {
+        assertTrue(level.getFile().delete());
+    }
+
+    /**
+     * Test visible chunks loading only.
+     */
+    @Test
+    public void testLoadVisible()
+    {
+        final MapTileRegionLoader loader = new MapTileRegionLoader(services, level, 0);
+
+        assertEquals(2, loader.getChunkSize());
+        assertEquals(4, loader.getChunksHorizontal());
+        assertEquals(4, loader.getChunksVertical());
+        assertEquals(8, map.getInTileWidth());
+        assertEquals(0, map.getTilesNumber());
+
+        camera.teleport(8.0, 8.0);
+        loader.update(1.0);
+
+        assertTrue(loader.isLoaded(0, 0));
+        assertTrue(loader.isLoaded(1, 1));
+        assertFalse(loader.isLoaded(2, 2));
+        assertChunk(map, 0, 0);
+        assertChunk(map, 1, 1);
+        assertNull(map.getTile(4, 4));
+        assertEquals(16, map.getTilesNumber());
+
+        camera.teleport(96.0, 96.0);
+        loader.update(1.0);
+
+        assertTrue(loader.isLoaded(3, 3));
+        assertChunk(map, 3, 3);
+
+        loader.load(2, 0);
+
+        assertChunk(map, 2, 0);
+        assertFalse(loader.isComplete());
+
+        loader.close();
+    }
+
+    /**
+     * Test background prefetch around view.
+     */
+    @Test
+    public void testPrefetch()
+    {
+        final MapTileRegionLoader loader = new MapTileRegionLoader(services, level);
+        loader.update(1.0);
+
+        assertTrue(loader.isLoaded(0, 0));
+
+        assertTimeout(1000L, () ->
+        {
+            while (!loader.isLoaded(2, 2))
+            {
+                loader.update(1.0);
+                Thread.yield();
+            }
+        });
+        assertChunk(map, 2, 2);
+        assertFalse(loader.isLoaded(3, 3));
+
+        for (int cx = 0; cx < loader.getChunksHorizontal(); cx++)
+        {
+            for (int cy = 0; cy < loader.getChunksVertical(); cy++)
+            {
+                loader.load(cx, cy);
+            }
+        }
+
+        assertTrue(loader.isComplete());
+        assertEquals(64, map.getTilesNumber());
+
+        loader.close();
+    }
+
+    /**
+     * Test legacy format is not streamable.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testLegacy() throws IOException
+    {
+        UtilMapTilePersister.saveLegacy(UtilMapTilePersister.createMap(), level);
+
+        assertThrows(() -> new MapTileRegionLoader(services, level), "[level] " + MapTileRegionLoader.ERROR_FORMAT);
+    }
+}
@@ -17,6 +17,10 @@
  */
 package com.b3dgs.lionengine.game.feature.tile.map.persister;
 
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertNotNull;
+import static com.b3dgs.lionengine.UtilAssert.assertNull;
+
 import java.io.IOException;
 import java.util.ArrayList;
 
@@ -62,6 +66,69 @@ final class UtilMapTilePersister
         return map;
     }
 
+    /**
+     * Assert loaded map tiles match {@link #createMap()}.
+     * 
+     * @param map The loaded map.
+     */
+    public static void assertTiles(MapTile map)
+    {
+        for (int x = 0; x < map.getInTileWidth(); x++)
+        {
+            for (int y = 0; y < map.getInTileHeight(); y++)
+            {
+                final Tile tile = map.getTile(x, y);
+                if (y == 0)
+                {
+                    assertNull(tile);
+                }
+                else
+                {
+                    assertNotNull(tile);
+                    assertEquals(0, tile.getSheet().intValue());
+                    assertEquals(x * y, tile.getNumber());
+                    assertEquals(x * map.getTileWidth(), tile.getX());
+                    assertEquals(y * map.getTileHeight(), tile.getY());
+                }
+            }
+        }
+    }
+
+    /**
+     * Save map to file with legacy bloc format (single bloc).
+     * 
+     * @param map The map to save.
+     * @param level The level media.
+     * @throws IOException If error.
+     */
+    public static void saveLegacy(MapTile map, Media level) throws IOException
+    {
+        try (FileWriting output = new FileWriting(level))
+        {
+            output.writeInteger(map.getTileWidth());
+            output.writeInteger(map.getTileHeight());
+            output.writeInteger(map.getInTileWidth());
+            output.writeInteger(map.getInTileHeight());
+            output.writeBoolean(false);
+            output.writeShort((short) 1);
+            output.writeShort((short) map.getTilesNumber());
+            for (int tx = 0; tx < map.getInTileWidth(); tx++)
+            {
+                for (int ty = 0; ty < map.getInTileHeight(); ty++)
+                {
+                    final Tile tile = map.getTile(tx, ty);
+                    if (tile != null)
+                    {
+                        output.writeInteger(tile.getSheet().intValue());
+                        output.writeInteger(tile.getNumber());
+                        output.writeInteger(tx);
+                        output.writeInteger(ty);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Save map to file.
      * 
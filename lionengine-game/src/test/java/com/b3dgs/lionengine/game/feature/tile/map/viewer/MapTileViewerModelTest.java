@@ -17,12 +17,16 @@
  */
 package com.b3dgs.lionengine.game.feature.tile.map.viewer;
 
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
 import static com.b3dgs.lionengine.UtilAssert.assertFalse;
 import static com.b3dgs.lionengine.UtilAssert.assertTrue;
 
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -31,9 +35,14 @@ import com.b3dgs.lionengine.game.feature.Camera;
 import com.b3dgs.lionengine.game.feature.Services;
 import com.b3dgs.lionengine.game.feature.tile.map.MapTileGame;
 import com.b3dgs.lionengine.game.feature.tile.map.MapTileRenderer;
+import com.b3dgs.lionengine.graphic.ColorRgba;
+import com.b3dgs.lionengine.graphic.FactoryGraphicMock;
 import com.b3dgs.lionengine.graphic.Graphic;
 import com.b3dgs.lionengine.graphic.GraphicMock;
+import com.b3dgs.lionengine.graphic.Graphics;
+import com.b3dgs.lionengine.graphic.ImageBuffer;
 import com.b3dgs.lionengine.graphic.ImageBufferMock;
+import com.b3dgs.lionengine.graphic.RenderCommands;
 import com.b3dgs.lionengine.graphic.drawable.Drawable;
 
 /**
@@ -41,6 +50,24 @@ import com.b3dgs.lionengine.graphic.drawable.Drawable;
  */
 public final class MapTileViewerModelTest
 {
+    /**
+     * Prepare tests.
+     */
+    @BeforeAll
+    public static void beforeTests()
+    {
+        Graphics.setFactoryGraphic(new FactoryGraphicMock());
+    }
+
+    /**
+     * Clean tests.
+     */
+    @AfterAll
+    public static void afterTests()
+    {
+        Graphics.setFactoryGraphic(null);
+    }
+
     private final Services services = new Services();
     private MapTileViewer mapViewer;
 
@@ -99,4 +126,136 @@ public final class MapTileViewerModelTest
 
         assertFalse(rendered.get());
     }
+
+    /**
+     * Test the viewer with chunks cache and overlay.
+     */
+    @Test
+    public void testCache()
+    {
+        final Services services = new Services();
+        services.add(new Camera()).setView(0, 0, 32, 32, 32);
+
+        final MapTileGame map = services.add(new MapTileGame());
+        map.create(16, 16, 8, 8);
+        map.loadSheets(Arrays.asList(Drawable.loadSpriteTiled(new ImageBufferMock(16, 16), 16, 16)));
+        for (int tx = 0; tx < map.getInTileWidth(); tx++)
+        {
+            for (int ty = 0; ty < map.getInTileHeight(); ty++)
+            {
+                map.setTile(map.createTile(Integer.valueOf(0), 0, tx * 16.0, ty * 16.0));
+            }
+        }
+
+        final MapTileViewer viewer = new MapTileViewerModel(services);
+        viewer.prepare(map);
+        viewer.clear();
+
+        final AtomicInteger baked = new AtomicInteger();
+        final AtomicInteger overlaid = new AtomicInteger();
+        viewer.addRenderer((g, m, tile, x, y) -> baked.incrementAndGet());
+        viewer.addOverlay((g, m, tile, x, y) -> overlaid.incrementAndGet());
+        viewer.setCache(2);
+
+        final Graphic g = new GraphicMock();
+        viewer.render(g);
+
+        assertEquals(16, baked.get());
+        assertEquals(9, overlaid.get());
+
+        viewer.render(g);
+
+        assertEquals(16, baked.get());
+        assertEquals(18, overlaid.get());
+
+        map.setTile(map.createTile(Integer.valueOf(0), 1, 0.0, 0.0));
+        viewer.render(g);
+
+        assertEquals(20, baked.get());
+
+        viewer.setCache(0);
+        viewer.render(g);
+
+        assertEquals(29, baked.get());
+        assertEquals(36, overlaid.get());
+    }
+
+    /**
+     * Test chunks far from view are released, and disposed once recorded commands are cleared.
+     */
+    @Test
+    public void testCacheRelease()
+    {
+        final AtomicInteger disposed = new AtomicInteger();
+        Graphics.setFactoryGraphic(new FactoryGraphicMock()
+        {
+            @Override
+            public ImageBuffer createImageBuffer(int width, int height, ColorRgba transparency)
+            {
+                return new ImageBufferMock(width, height)
+                {
+                    @Override
+                    public void dispose()
+                    {
+                        disposed.incrementAndGet();
+                    }
+                };
+            }
+        });
+        try
+        {
+            final Services services = new Services();
+            final Camera camera = services.add(new Camera());
+            camera.setView(0, 0, 32, 32, 32);
+
+            final MapTileGame map = services.add(new MapTileGame());
+            map.create(16, 16, 16, 16);
+            map.loadSheets(Arrays.asList(Drawable.loadSpriteTiled(new ImageBufferMock(16, 16), 16, 16)));
+            for (int tx = 0; tx < map.getInTileWidth(); tx++)
+            {
+                for (int ty = 0; ty < map.getInTileHeight(); ty++)
+                {
+                    map.setTile(map.createTile(Integer.valueOf(0), 0, tx * 16.0, ty * 16.0));
+                }
+            }
+
+            final MapTileViewer viewer = new MapTileViewerModel(services);
+            viewer.prepare(map);
+            viewer.setCache(2);
+
+            final RenderCommands commands = new RenderCommands();
+            viewer.render(commands);
+            final int visible = commands.getCount();
+
+            assertTrue(visible > 0, String.valueOf(visible));
+
+            // Neighbor chunk kept
+            camera.teleport(32.0, 0.0);
+            commands.clear();
+            viewer.render(commands);
+
+            assertEquals(0, disposed.get());
+
+            // Far chunks released, still referenced by last recorded frame
+            camera.teleport(192.0, 192.0);
+            viewer.render(commands);
+
+            assertEquals(0, disposed.get());
+
+            commands.clear();
+
+            assertTrue(disposed.get() >= visible, String.valueOf(disposed.get()));
+
+            // Released immediately when not recording
+            final int released = disposed.get();
+            map.setTile(map.createTile(Integer.valueOf(0), 1, 192.0, 192.0));
+            viewer.render(new GraphicMock());
+
+            assertEquals(released + 1, disposed.get());
+        }
+        finally
+        {
+            Graphics.setFactoryGraphic(new FactoryGraphicMock());
+        }
+    }
 }
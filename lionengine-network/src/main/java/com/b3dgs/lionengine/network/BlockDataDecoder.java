@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.nio.ByteBuffer;
+
+/**
+ * Unwrap the block data records of an object stream, appending their content to a frame decoder.
+ * <p>
+ * Only the stream header, block data records and reset are expected, as written by an {@link ObjectOutputStream}
+ * used for primitive data only. Headers and records can be split anywhere across received buffers.
+ * </p>
+ */
+final class BlockDataDecoder
+{
+    /** Unsupported record error. */
+    static final String ERROR_RECORD = "Unsupported stream record: ";
+    /** Invalid stream header error. */
+    static final String ERROR_HEADER = "Invalid stream header";
+    /** Stream header size. */
+    private static final int STREAM_HEADER = 4;
+
+    /** Unwrapped data receiver. */
+    private final FrameDecoder decoder;
+    /** Stream header received flag. */
+    private boolean header;
+    /** Remaining bytes of current block data record. */
+    private int block;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param decoder The unwrapped data receiver.
+     */
+    BlockDataDecoder(FrameDecoder decoder)
+    {
+        super();
+
+        this.decoder = decoder;
+    }
+
+    /**
+     * Unwrap block data records from received bytes. Incomplete stream header or record header are left in buffer.
+     * 
+     * @param in The received bytes, consumed.
+     * @throws IOException If invalid stream header or unsupported record.
+     */
+    void unwrap(ByteBuffer in) throws IOException
+    {
+        while (in.hasRemaining())
+        {
+            if (!header)
+            {
+                if (in.remaining() < STREAM_HEADER)
+                {
+                    return;
+                }
+                if (in.getShort() != ObjectStreamConstants.STREAM_MAGIC
+                    || in.getShort() != ObjectStreamConstants.STREAM_VERSION)
+                {
+                    throw new IOException(ERROR_HEADER);
+                }
+                header = true;
+            }
+            else if (block > 0)
+            {
+                final int length = Math.min(block, in.remaining());
+                decoder.append(in, length);
+                block -= length;
+            }
+            else if (!readRecord(in))
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read the next record header.
+     * 
+     * @param in The received bytes.
+     * @return <code>true</code> if read, <code>false</code> if not fully received.
+     * @throws IOException If unsupported record.
+     */
+    private boolean readRecord(ByteBuffer in) throws IOException
+    {
+        in.mark();
+        final byte record = in.get();
+        if (record == ObjectStreamConstants.TC_BLOCKDATA)
+        {
+            if (!in.hasRemaining())
+            {
+                in.reset();
+                return false;
+            }
+            block = in.get() & 0xFF;
+        }
+        else if (record == ObjectStreamConstants.TC_BLOCKDATALONG)
+        {
+            if (in.remaining() < Integer.BYTES)
+            {
+                in.reset();
+                return false;
+            }
+            block = in.getInt();
+        }
+        else if (record != ObjectStreamConstants.TC_RESET)
+        {
+            throw new IOException(ERROR_RECORD + record);
+        }
+        return true;
+    }
+}
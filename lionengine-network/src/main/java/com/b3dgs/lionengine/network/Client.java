@@ -66,5 +66,12 @@ interface Client extends Networker<ConnectionListener>
      * 
      * @return The client id.
      */
-    byte getId();
+    int getId();
+
+    /**
+     * Get the metrics of the connection to the server.
+     * 
+     * @return The connection metrics snapshot.
+     */
+    NetworkMetrics getMetrics();
 }
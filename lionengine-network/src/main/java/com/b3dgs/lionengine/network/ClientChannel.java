@@ -0,0 +1,379 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import com.b3dgs.lionengine.Verbose;
+
+/**
+ * Client channel (non blocking bridge between server and client).
+ * <p>
+ * Client side still uses object streams, so received bytes are {@link BlockDataDecoder unwrapped} from their block
+ * data records before being split into messages, and sent bytes are wrapped the same way by an
+ * {@link ObjectOutputStream} writing to a direct buffer, drained to the channel when writable.
+ * </p>
+ * <p>
+ * Encoded messages are appended to the pending direct buffer after the flushed stream output, so records are always
+ * sent in order with a single write. Pending output is limited: a client not reading its data fails on next
+ * {@link #flush()}, and is kicked by server.
+ * </p>
+ */
+final class ClientChannel implements ServerClient
+{
+    /** Pending output overflow error. */
+    static final String ERROR_OVERFLOW = "Client pending output overflow: ";
+
+    /** Client channel. */
+    private final SocketChannel channel;
+    /** Selection key. */
+    private final SelectionKey key;
+    /** Received bytes, not yet unwrapped. */
+    private final ByteBuffer in;
+    /** Received messages. */
+    private final FrameDecoder decoder;
+    /** Received block data. */
+    private final BlockDataDecoder blocks;
+    /** Pending output. */
+    private final ChannelOutput output;
+    /** Output stream. */
+    private final ObjectOutputStream out;
+    /** Client id. */
+    private final int clientId;
+    /** Connection metrics. */
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+    /** State. */
+    private StateConnection state;
+    /** Name. */
+    private String name;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param id The client id.
+     * @param channel The channel reference, registered on selector.
+     * @param key The selection key.
+     * @param capacity The buffers initial capacity.
+     * @param maxPending The maximum pending output in bytes.
+     * @throws IOException If error on output stream creation.
+     */
+    ClientChannel(int id, SocketChannel channel, SelectionKey key, int capacity, int maxPending) throws IOException
+    {
+        super();
+
+        clientId = id;
+        this.channel = channel;
+        this.key = key;
+        in = ByteBuffer.allocateDirect(capacity);
+        decoder = new FrameDecoder();
+        blocks = new BlockDataDecoder(decoder);
+        output = new ChannelOutput(capacity, maxPending);
+        out = new ObjectOutputStream(output);
+        name = null;
+    }
+
+    /**
+     * Read all available bytes from channel.
+     * 
+     * @return <code>true</code> if channel still open, <code>false</code> if end of stream reached.
+     * @throws IOException If error when reading.
+     */
+    boolean read() throws IOException
+    {
+        int read = channel.read(in);
+        while (read > 0)
+        {
+            in.flip();
+            blocks.unwrap(in);
+            in.compact();
+            read = channel.read(in);
+        }
+        return read == 0;
+    }
+
+    /**
+     * Get the next complete received message.
+     * 
+     * @return The message stream, <code>null</code> if none.
+     * @throws IOException If invalid message.
+     * @see FrameDecoder#next()
+     */
+    DataInputStream next() throws IOException
+    {
+        return decoder.next();
+    }
+
+    /*
+     * ServerClient
+     */
+
+    @Override
+    public void setState(StateConnection state)
+    {
+        this.state = state;
+    }
+
+    @Override
+    public StateConnection getState()
+    {
+        return state;
+    }
+
+    @Override
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public void terminate()
+    {
+        try
+        {
+            out.close();
+            flush();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception);
+        }
+        key.cancel();
+        try
+        {
+            channel.close();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception);
+        }
+        state = StateConnection.DISCONNECTED;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The byte is only queued, and sent on next {@link #flush()} with the other pending data.
+     * </p>
+     */
+    @Override
+    public void sendMessage(byte data)
+    {
+        try
+        {
+            out.write(data);
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception);
+        }
+    }
+
+    @Override
+    public void send(ByteBuffer record) throws IOException
+    {
+        output.write(record.array(), record.arrayOffset() + record.position(), record.remaining());
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        out.flush();
+        if (output.isOverflow())
+        {
+            throw new IOException(ERROR_OVERFLOW + clientId);
+        }
+        final ByteBuffer pending = output.prepareWrite();
+        try
+        {
+            while (pending.hasRemaining() && channel.write(pending) > 0)
+            {
+                continue;
+            }
+        }
+        finally
+        {
+            output.endWrite();
+        }
+        if (!key.isValid())
+        {
+            return;
+        }
+        if (output.hasPending())
+        {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+        else
+        {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    @Override
+    public ObjectOutputStream getOut()
+    {
+        return out;
+    }
+
+    @Override
+    public int getQueueDepth()
+    {
+        return output.getPending();
+    }
+
+    @Override
+    public ConnectionMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    @Override
+    public int getId()
+    {
+        return clientId;
+    }
+
+    /**
+     * Output stream appending to a direct buffer, grown if necessary up to the maximum pending size.
+     */
+    private static final class ChannelOutput extends OutputStream
+    {
+        /** Maximum pending size. */
+        private final int maxPending;
+        /** Pending data. */
+        private ByteBuffer buffer;
+        /** Overflow flag, data are dropped once set. */
+        private boolean overflow;
+
+        /**
+         * Internal constructor.
+         * 
+         * @param capacity The initial capacity.
+         * @param maxPending The maximum pending size.
+         */
+        ChannelOutput(int capacity, int maxPending)
+        {
+            super();
+
+            this.maxPending = maxPending;
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+
+        /**
+         * Check if maximum pending size has been exceeded.
+         * 
+         * @return <code>true</code> if overflow, <code>false</code> else.
+         */
+        boolean isOverflow()
+        {
+            return overflow;
+        }
+
+        /**
+         * Prepare pending data to be written. {@link #endWrite()} must be called once written.
+         * 
+         * @return The pending data, ready to be read.
+         */
+        ByteBuffer prepareWrite()
+        {
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * Keep data not written as pending, ready to append new data.
+         */
+        void endWrite()
+        {
+            buffer.compact();
+        }
+
+        /**
+         * Check if data are still pending.
+         * 
+         * @return <code>true</code> if data are still pending, <code>false</code> if all written.
+         */
+        boolean hasPending()
+        {
+            return buffer.position() > 0;
+        }
+
+        /**
+         * Get the pending data size.
+         * 
+         * @return The pending bytes.
+         */
+        int getPending()
+        {
+            return buffer.position();
+        }
+
+        /**
+         * Ensure enough space to append data.
+         * 
+         * @param length The length to append.
+         * @throws IOException If maximum pending size exceeded.
+         */
+        private void ensureCapacity(int length) throws IOException
+        {
+            if (overflow || length > maxPending - buffer.position())
+            {
+                overflow = true;
+                throw new IOException(ERROR_OVERFLOW + (buffer.position() + (long) length));
+            }
+            if (buffer.remaining() < length)
+            {
+                final int capacity = (int) Math.min(maxPending, Math.max(buffer.capacity() * 2L,
+                                                                         buffer.position() + (long) length));
+                final ByteBuffer bigger = ByteBuffer.allocateDirect(capacity);
+                buffer.flip();
+                bigger.put(buffer);
+                buffer = bigger;
+            }
+        }
+
+        /*
+         * OutputStream
+         */
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            ensureCapacity(1);
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            ensureCapacity(len);
+            buffer.put(b, off, len);
+        }
+    }
+}
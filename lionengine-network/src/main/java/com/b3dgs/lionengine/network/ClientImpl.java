@@ -17,15 +17,16 @@
  */
 package com.b3dgs.lionengine.network;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketAddress;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
 
 import com.b3dgs.lionengine.Check;
 import com.b3dgs.lionengine.Constant;
@@ -34,26 +35,40 @@ import com.b3dgs.lionengine.Timing;
 import com.b3dgs.lionengine.Verbose;
 import com.b3dgs.lionengine.network.message.NetworkMessage;
 import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
+import com.b3dgs.lionengine.network.message.UtilVarint;
 
 /**
  * Client implementation.
  */
 final class ClientImpl extends NetworkModel<ConnectionListener> implements Client
 {
+    /** Object stream header size (magic and version). */
+    private static final int STREAM_HEADER = 4;
+
     /** Ping timer. */
     private final Timing pingTimer;
     /** Ping request timer. */
     private final Timing pingRequestTimer;
     /** Average bandwidth. */
     private final Timing bandwidthTimer;
+    /** Datagram messages encoder. */
+    private final MessageEncoder datagramEncoder;
+    /** Datagram hello packet. */
+    private final ByteBuffer hello;
+    /** Connection metrics. */
+    private final ConnectionMetrics metrics;
+    /** Datagram connection (<code>null</code> if none). */
+    private DatagramConnection connection;
+    /** Datagram hello acknowledged. */
+    private boolean helloAcked;
     /** Socket. */
     private Socket socket;
     /** Output stream. */
     private ObjectOutputStream out;
-    /** Input stream. */
+    /** Input stream (<code>null</code> until server stream header is received). */
     private ObjectInputStream in;
     /** Client id. */
-    private byte clientId;
+    private int clientId;
     /** Client name. */
     private String clientName;
     /** Disconnect flag. */
@@ -76,6 +91,9 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
         pingTimer = new Timing();
         pingRequestTimer = new Timing();
         bandwidthTimer = new Timing();
+        datagramEncoder = new MessageEncoder();
+        hello = ByteBuffer.allocate(1 + UtilVarint.MAX_SIZE + Integer.BYTES);
+        metrics = new ConnectionMetrics();
         connected = false;
         clientId = -1;
         clientName = null;
@@ -101,13 +119,17 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
         {
             Verbose.exception(exception, "Error on closing output");
         }
-        try
+        if (in != null)
         {
-            in.close();
-        }
-        catch (final IOException exception)
-        {
-            Verbose.exception(exception, "Error on closing input");
+            try
+            {
+                in.close();
+            }
+            catch (final IOException exception)
+            {
+                Verbose.exception(exception, "Error on closing input");
+            }
+            in = null;
         }
         try
         {
@@ -117,15 +139,32 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
         {
             Verbose.exception(exception, "Error on closing socket");
         }
+        closeDatagram();
         for (final ConnectionListener listener : listeners)
         {
-            listener.notifyConnectionTerminated(Byte.valueOf(getId()));
+            listener.notifyConnectionTerminated(Integer.valueOf(getId()));
         }
         listeners.clear();
         connected = false;
         Verbose.info("Disconnected from the server !");
     }
 
+    /**
+     * Open the input stream once the server stream header is fully received, so connection never waits for the
+     * server to be updated.
+     * 
+     * @return <code>true</code> if input stream is opened, <code>false</code> if header not yet received.
+     * @throws IOException If error when reading header.
+     */
+    private boolean openInput() throws IOException
+    {
+        if (in == null && socket.getInputStream().available() >= STREAM_HEADER)
+        {
+            in = new ObjectInputStream(socket.getInputStream());
+        }
+        return in != null;
+    }
+
     /**
      * Get the name value read from the stream.
      * 
@@ -164,6 +203,7 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
                 break;
             case NetworkMessageSystemId.PING:
                 ping = (int) pingTimer.elapsed();
+                metrics.roundTrip(ping);
                 break;
             case NetworkMessageSystemId.KICKED:
                 kick();
@@ -180,6 +220,9 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
             case NetworkMessageSystemId.USER_MESSAGE:
                 updateUserMessage();
                 break;
+            case NetworkMessageSystemId.DATAGRAM:
+                updateDatagram();
+                break;
             default:
                 break;
         }
@@ -192,13 +235,25 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
      */
     private void updateConnecting() throws IOException
     {
+        final int version = in.readUnsignedByte();
+        if (version != PROTOCOL_VERSION)
+        {
+            Verbose.warning(ClientImpl.class,
+                            "updateConnecting",
+                            "Unsupported server protocol version: ",
+                            String.valueOf(version));
+            kick();
+            return;
+        }
+        final int id = UtilVarint.read(in);
         if (clientId == -1)
         {
             // Receive id
-            clientId = in.readByte();
+            clientId = id;
             // Send the name
             out.writeByte(NetworkMessageSystemId.CONNECTING);
-            out.writeByte(clientId);
+            UtilVarint.write(out, clientId);
+            out.writeByte(PROTOCOL_VERSION);
             final byte[] data = clientName.getBytes(NetworkMessage.CHARSET);
             out.writeByte(data.length);
             out.write(data);
@@ -214,7 +269,7 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
      */
     private void updateConnected() throws IOException
     {
-        byte cid = in.readByte();
+        int cid = UtilVarint.read(in);
         // Ensure the client id is the same
         if (cid != clientId)
         {
@@ -222,23 +277,23 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
         }
         for (final ConnectionListener listener : listeners)
         {
-            listener.notifyConnectionEstablished(Byte.valueOf(clientId), clientName);
+            listener.notifyConnectionEstablished(Integer.valueOf(clientId), clientName);
         }
         // Read the client list
-        final int clientsNumber = in.readByte();
+        final int clientsNumber = UtilVarint.read(in);
         for (int i = 0; i < clientsNumber; i++)
         {
-            cid = in.readByte();
+            cid = UtilVarint.read(in);
             final String cname = readString();
             for (final ConnectionListener listener : listeners)
             {
-                listener.notifyClientConnected(Byte.valueOf(cid), cname);
+                listener.notifyClientConnected(Integer.valueOf(cid), cname);
             }
         }
         // Message of the day if has
-        if (in.available() > 0)
+        final String motd = readString();
+        if (motd != null)
         {
-            final String motd = readString();
             for (final ConnectionListener listener : listeners)
             {
                 listener.notifyMessageOfTheDay(motd);
@@ -246,7 +301,7 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
         }
         // Send the last answer
         out.write(NetworkMessageSystemId.CONNECTED);
-        out.write(clientId);
+        UtilVarint.write(out, clientId);
         out.flush();
         Verbose.info("Client: Connected to the server !");
     }
@@ -258,11 +313,11 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
      */
     private void updateOtherClientConnected() throws IOException
     {
-        final byte cid = in.readByte();
+        final int cid = UtilVarint.read(in);
         final String cname = readString();
         for (final ConnectionListener listener : listeners)
         {
-            listener.notifyClientConnected(Byte.valueOf(cid), cname);
+            listener.notifyClientConnected(Integer.valueOf(cid), cname);
         }
     }
 
@@ -273,11 +328,11 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
      */
     private void updateOtherClientDisconnected() throws IOException
     {
-        final byte cid = in.readByte();
+        final int cid = UtilVarint.read(in);
         final String cname = readString();
         for (final ConnectionListener listener : listeners)
         {
-            listener.notifyClientDisconnected(Byte.valueOf(cid), cname);
+            listener.notifyClientDisconnected(Integer.valueOf(cid), cname);
         }
     }
 
@@ -288,11 +343,11 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
      */
     private void updateOtherClientRenamed() throws IOException
     {
-        final byte cid = in.readByte();
+        final int cid = UtilVarint.read(in);
         final String cname = readString();
         for (final ConnectionListener listener : listeners)
         {
-            listener.notifyClientNameChanged(Byte.valueOf(cid), cname);
+            listener.notifyClientNameChanged(Integer.valueOf(cid), cname);
         }
     }
 
@@ -303,23 +358,145 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
      */
     private void updateUserMessage() throws IOException
     {
-        final byte from = in.readByte();
-        final byte dest = in.readByte();
-        final byte type = in.readByte();
         final int size = in.readInt();
         if (size > 0)
         {
             final byte[] data = new byte[size];
-            if (in.read(data) != -1)
+            in.readFully(data);
+            decodePayload(ByteBuffer.wrap(data), -1, metrics);
+        }
+        final int headerSize = 5;
+        bandwidth += headerSize + size;
+        metrics.received(headerSize + size);
+    }
+
+    /**
+     * Decode a message received by datagram.
+     * 
+     * @param payload The message payload.
+     * @throws IOException If error on decoding.
+     */
+    private void receivePayload(ByteBuffer payload) throws IOException
+    {
+        metrics.received(payload.remaining());
+        decodePayload(payload, -1, metrics);
+    }
+
+    /**
+     * Update the datagram case, opening the datagram channel to the server.
+     * 
+     * @throws IOException If error when opening channel.
+     */
+    private void updateDatagram() throws IOException
+    {
+        final int token = in.readInt();
+        if (datagram == null)
+        {
+            final SocketAddress remote = new InetSocketAddress(socket.getInetAddress(), socket.getPort());
+            setDatagram(Datagram.connect(remote));
+            connection = new DatagramConnection(datagram, remote, this::receivePayload, metrics);
+            hello.clear();
+            hello.put(Datagram.HELLO);
+            UtilVarint.write(hello, clientId);
+            hello.putInt(token);
+            hello.flip();
+            helloAcked = false;
+        }
+    }
+
+    /**
+     * Close datagram channel if opened.
+     */
+    private void closeDatagram()
+    {
+        if (datagram != null)
+        {
+            datagram.close();
+            setDatagram(null);
+            connection = null;
+            helloAcked = false;
+        }
+    }
+
+    /**
+     * Send message over datagram if it has a delivery mode and fits.
+     * 
+     * @param message The message to send.
+     * @return <code>true</code> if sent, <code>false</code> if must be sent over stream.
+     * @throws IOException If error on encoding.
+     */
+    private boolean sendDatagram(NetworkMessage message) throws IOException
+    {
+        final DatagramMode mode = getDatagramMode(message.getType());
+        if (mode == null || !helloAcked)
+        {
+            return false;
+        }
+        datagramEncoder.reset();
+        final ByteBuffer payload = MessageEncoder.payload(datagramEncoder.encode(message));
+        if (!DatagramConnection.fits(payload.remaining()))
+        {
+            return false;
+        }
+        recordSent(payload);
+        connection.send(mode, payload);
+        bandwidth += payload.remaining();
+        metrics.sent(message.getType(), payload.remaining());
+        return true;
+    }
+
+    /**
+     * Send pending datagrams, or hello until acknowledged.
+     */
+    private void flushDatagram()
+    {
+        try
+        {
+            if (helloAcked)
             {
-                try (DataInputStream buffer = new DataInputStream(new ByteArrayInputStream(data)))
+                connection.flush();
+            }
+            else
+            {
+                datagram.send(hello.duplicate(), connection.getRemote());
+            }
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Unable to send datagram for client: ", String.valueOf(clientId));
+        }
+        datagram.update();
+    }
+
+    /**
+     * Receive pending datagrams.
+     */
+    private void receiveDatagrams()
+    {
+        try
+        {
+            while (datagram.receive() != null)
+            {
+                final ByteBuffer packet = datagram.getReceived();
+                if (packet.hasRemaining())
                 {
-                    decodeMessage(type, from, dest, buffer);
+                    final byte kind = packet.get();
+                    if (Datagram.HELLO_ACK == kind)
+                    {
+                        helloAcked = true;
+                    }
+                    else if (Datagram.DATA == kind)
+                    {
+                        connection.receive(packet);
+                    }
                 }
             }
         }
-        final int headerSize = 4;
-        bandwidth += headerSize + size;
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Unable to receive datagram for client: ", String.valueOf(clientId));
+        }
+        datagram.update();
     }
 
     /**
@@ -332,18 +509,18 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
         try (ByteArrayOutputStream encode = message.encode())
         {
             final byte[] encoded = encode.toByteArray();
+            recordSent(ByteBuffer.wrap(encoded));
             // Message header
             out.writeByte(NetworkMessageSystemId.USER_MESSAGE);
-            out.writeByte(message.getClientId());
-            out.writeByte(message.getClientDestId());
-            out.writeByte(message.getType());
+            UtilVarint.write(out, clientId);
             // Message content
             out.writeInt(encoded.length);
             out.write(encoded);
             out.flush();
 
-            final int headerSize = 8;
+            final int headerSize = 1 + UtilVarint.size(clientId) + Integer.BYTES;
             bandwidth += headerSize + encoded.length;
+            metrics.sent(message.getType(), headerSize + encoded.length);
         }
         catch (final IOException exception)
         {
@@ -366,7 +543,7 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
         {
             socket = new Socket(InetAddress.getByName(ip), port);
             out = new ObjectOutputStream(socket.getOutputStream());
-            in = new ObjectInputStream(socket.getInputStream());
+            in = null;
             connected = true;
             clientId = -1;
             pingRequestTimer.start();
@@ -395,7 +572,7 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
         try
         {
             out.write(NetworkMessageSystemId.OTHER_CLIENT_RENAMED);
-            out.write(clientId);
+            UtilVarint.write(out, clientId);
             final byte[] data = clientName.getBytes(NetworkMessage.CHARSET);
             out.writeByte(data.length);
             out.write(data);
@@ -426,11 +603,17 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
     }
 
     @Override
-    public byte getId()
+    public int getId()
     {
         return clientId;
     }
 
+    @Override
+    public NetworkMetrics getMetrics()
+    {
+        return metrics.snapshot(clientId, clientName);
+    }
+
     /*
      * Network
      */
@@ -441,7 +624,7 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
         try
         {
             out.write(NetworkMessageSystemId.OTHER_CLIENT_DISCONNECTED);
-            out.write(clientId);
+            UtilVarint.write(out, clientId);
             out.flush();
             kick();
         }
@@ -471,11 +654,12 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
             try
             {
                 out.writeByte(NetworkMessageSystemId.PING);
-                out.writeByte(clientId);
+                UtilVarint.write(out, clientId);
                 out.flush();
                 pingTimer.restart();
                 pingRequestTimer.restart();
-                bandwidth += 2;
+                bandwidth += 1 + UtilVarint.size(clientId);
+                metrics.sent(1 + UtilVarint.size(clientId));
             }
             catch (final IOException exception)
             {
@@ -485,7 +669,21 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
         // Send messages
         for (final NetworkMessage message : messagesOut)
         {
-            sendMessage(message);
+            try
+            {
+                if (datagram == null || !sendDatagram(message))
+                {
+                    sendMessage(message);
+                }
+            }
+            catch (final IOException exception)
+            {
+                Verbose.exception(exception, "Unable to send the message for client: ", String.valueOf(clientId));
+            }
+        }
+        if (datagram != null)
+        {
+            flushDatagram();
         }
         final long bandwidthMilli = 1000L;
         if (bandwidthTimer.elapsed(bandwidthMilli))
@@ -494,6 +692,7 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
             bandwidth = 0;
             bandwidthTimer.stop();
             bandwidthTimer.start();
+            notifyMetrics(metrics, clientId, clientName);
         }
         messagesOut.clear();
     }
@@ -506,14 +705,22 @@ final class ClientImpl extends NetworkModel<ConnectionListener> implements Clien
             return;
         }
         messagesIn.clear();
+        recordTick();
         try
         {
-            if (in.available() == 0)
+            if (!openInput())
             {
                 return;
             }
-            final byte messageSystemId = in.readByte();
-            updateMessage(messageSystemId);
+            while (connected && in.available() > 0)
+            {
+                final byte messageSystemId = in.readByte();
+                updateMessage(messageSystemId);
+            }
+            if (datagram != null)
+            {
+                receiveDatagrams();
+            }
         }
         catch (final IOException exception)
         {
@@ -17,10 +17,13 @@
  */
 package com.b3dgs.lionengine.network;
 
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 
 import com.b3dgs.lionengine.LionEngineException;
 import com.b3dgs.lionengine.Verbose;
@@ -28,16 +31,22 @@ import com.b3dgs.lionengine.Verbose;
 /**
  * Client socket (bridge between server and client).
  */
-final class ClientSocket
+final class ClientSocket implements ServerClient
 {
     /** Client socket. */
     private final Socket socket;
+    /** Buffered socket output, shared by output stream and encoded messages. */
+    private final BufferedOutputStream output;
     /** Output stream. */
     private final ObjectOutputStream out;
     /** Input stream. */
     private final ObjectInputStream in;
+    /** Received messages. */
+    private final FrameDecoder decoder;
     /** Client id. */
-    private final byte clientId;
+    private final int clientId;
+    /** Connection metrics. */
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
     /** State. */
     private StateConnection state;
     /** Name. */
@@ -50,14 +59,17 @@ final class ClientSocket
      * @param socket The socket reference.
      * @throws LionEngineException If error on client socket.
      */
-    ClientSocket(final byte id, final Socket socket)
+    ClientSocket(final int id, final Socket socket)
     {
         clientId = id;
         this.socket = socket;
         name = null;
+        decoder = new FrameDecoder();
         try
         {
-            out = new ObjectOutputStream(socket.getOutputStream());
+            output = new BufferedOutputStream(socket.getOutputStream());
+            out = new ObjectOutputStream(output);
+            out.flush();
             in = new ObjectInputStream(socket.getInputStream());
         }
         catch (final IOException exception)
@@ -67,48 +79,89 @@ final class ClientSocket
     }
 
     /**
-     * Set the connection state.
+     * Read all available data from the client, without blocking.
      * 
-     * @param state The connection state.
+     * @throws IOException If error when reading.
      */
-    public void setState(StateConnection state)
+    public void read() throws IOException
     {
-        this.state = state;
+        int size = in.available();
+        while (size > 0)
+        {
+            decoder.append(in, size);
+            size = in.available();
+        }
     }
 
     /**
-     * Get the current connection state.
+     * Get the next complete received message.
      * 
-     * @return The connection state.
+     * @return The message stream, <code>null</code> if none.
+     * @throws IOException If invalid message.
+     * @see FrameDecoder#next()
      */
-    public StateConnection getState()
+    public DataInputStream next() throws IOException
     {
-        return state;
+        return decoder.next();
     }
 
     /**
-     * Set the client name.
+     * Send message to the client.
      * 
-     * @param name The client name.
+     * @param data The messages data.
      */
-    public void setName(String name)
+    public void sendMessages(byte[] data)
     {
-        this.name = name;
+        try
+        {
+            out.write(data);
+            out.flush();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception);
+        }
     }
 
     /**
-     * Get the client name.
+     * Get the input stream.
      * 
-     * @return The client name.
+     * @return The input stream.
+     */
+    public ObjectInputStream getIn()
+    {
+        return in;
+    }
+
+    /*
+     * ServerClient
      */
+
+    @Override
+    public void setState(StateConnection state)
+    {
+        this.state = state;
+    }
+
+    @Override
+    public StateConnection getState()
+    {
+        return state;
+    }
+
+    @Override
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    @Override
     public String getName()
     {
         return name;
     }
 
-    /**
-     * Terminate client.
-     */
+    @Override
     public void terminate()
     {
         try
@@ -138,40 +191,7 @@ final class ClientSocket
         state = StateConnection.DISCONNECTED;
     }
 
-    /**
-     * Receive messages data from the client.
-     * 
-     * @return The messages data.
-     */
-    public byte[] receiveMessages()
-    {
-        try
-        {
-            final byte[] data;
-            final int size = in.available();
-            if (size <= 0)
-            {
-                data = null;
-            }
-            else
-            {
-                data = new byte[size];
-                in.readFully(data);
-            }
-            return data;
-        }
-        catch (final IOException exception)
-        {
-            Verbose.exception(exception);
-            return new byte[0];
-        }
-    }
-
-    /**
-     * Send message to the client.
-     * 
-     * @param data The messages data.
-     */
+    @Override
     public void sendMessage(byte data)
     {
         try
@@ -185,50 +205,39 @@ final class ClientSocket
         }
     }
 
-    /**
-     * Send message to the client.
-     * 
-     * @param data The messages data.
-     */
-    public void sendMessages(byte[] data)
+    @Override
+    public void send(ByteBuffer record) throws IOException
     {
-        try
-        {
-            out.write(data);
-            out.flush();
-        }
-        catch (final IOException exception)
-        {
-            Verbose.exception(exception);
-        }
+        output.write(record.array(), record.arrayOffset() + record.position(), record.remaining());
     }
 
-    /**
-     * Get the output stream.
-     * 
-     * @return The output stream.
-     */
+    @Override
+    public void flush() throws IOException
+    {
+        output.flush();
+    }
+
+    @Override
     public ObjectOutputStream getOut()
     {
         return out;
     }
 
-    /**
-     * Get the input stream.
-     * 
-     * @return The input stream.
-     */
-    public ObjectInputStream getIn()
+    @Override
+    public int getQueueDepth()
     {
-        return in;
+        // Written synchronously
+        return 0;
     }
 
-    /**
-     * Get the client id.
-     * 
-     * @return The client id.
-     */
-    public byte getId()
+    @Override
+    public ConnectionMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    @Override
+    public int getId()
     {
         return clientId;
     }
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+
+/**
+ * Counters of a single connection, written by the network thread only and readable from any thread.
+ * <p>
+ * Counters are updated with {@link AtomicLongArray#lazySet(int, long)}: as there is a single writer, no lock nor
+ * compare and set is needed on the hot path, while readers always see complete values.
+ * </p>
+ */
+final class ConnectionMetrics
+{
+    /** Message types number. */
+    static final int TYPES = 1 << Byte.SIZE;
+    /** Bytes received index. */
+    private static final int BYTES_IN = 0;
+    /** Bytes sent index. */
+    private static final int BYTES_OUT = 1;
+    /** Frames dropped index. */
+    private static final int DROPPED = 2;
+    /** Decoded messages index. */
+    private static final int DECODED = 3;
+    /** Decode time index. */
+    private static final int DECODE_NANOS = 4;
+    /** Send queue depth index. */
+    private static final int QUEUE_DEPTH = 5;
+    /** Counters number. */
+    private static final int COUNTERS = 6;
+
+    /**
+     * Add a value to a single writer counter.
+     * 
+     * @param array The counters.
+     * @param index The counter index.
+     * @param value The value to add.
+     */
+    private static void add(AtomicLongArray array, int index, long value)
+    {
+        array.lazySet(index, array.get(index) + value);
+    }
+
+    /**
+     * Copy counters.
+     * 
+     * @param array The counters.
+     * @return The counters copy.
+     */
+    private static long[] copy(AtomicLongArray array)
+    {
+        final long[] values = new long[array.length()];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = array.get(i);
+        }
+        return values;
+    }
+
+    /** Counters. */
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTERS);
+    /** Received messages per type. */
+    private final AtomicLongArray typesIn = new AtomicLongArray(TYPES);
+    /** Sent messages per type. */
+    private final AtomicLongArray typesOut = new AtomicLongArray(TYPES);
+    /** Round trip time histogram. */
+    private final AtomicLongArray rtt = new AtomicLongArray(NetworkMetrics.RTT_BUCKETS);
+
+    /**
+     * Internal constructor.
+     */
+    ConnectionMetrics()
+    {
+        super();
+    }
+
+    /**
+     * Count received bytes.
+     * 
+     * @param bytes The bytes number.
+     */
+    void received(int bytes)
+    {
+        add(counters, BYTES_IN, bytes);
+    }
+
+    /**
+     * Count a decoded message.
+     * 
+     * @param message The decoded message (<code>null</code> if rejected, counted as dropped).
+     * @param nanos The decode time in nano seconds.
+     */
+    void decoded(NetworkMessage message, long nanos)
+    {
+        if (message == null)
+        {
+            add(counters, DROPPED, 1L);
+        }
+        else
+        {
+            add(typesIn, message.getType() & 0xFF, 1L);
+        }
+        add(counters, DECODED, 1L);
+        add(counters, DECODE_NANOS, nanos);
+    }
+
+    /**
+     * Count sent bytes.
+     * 
+     * @param bytes The bytes number.
+     */
+    void sent(int bytes)
+    {
+        add(counters, BYTES_OUT, bytes);
+    }
+
+    /**
+     * Count a sent message.
+     * 
+     * @param type The message type.
+     * @param bytes The bytes number.
+     */
+    void sent(byte type, int bytes)
+    {
+        add(typesOut, type & 0xFF, 1L);
+        add(counters, BYTES_OUT, bytes);
+    }
+
+    /**
+     * Count a dropped frame.
+     */
+    void dropped()
+    {
+        add(counters, DROPPED, 1L);
+    }
+
+    /**
+     * Count a round trip time sample.
+     * 
+     * @param millis The round trip time in milliseconds.
+     */
+    void roundTrip(long millis)
+    {
+        add(rtt, NetworkMetrics.getRttBucket(millis), 1L);
+    }
+
+    /**
+     * Set the send queue depth.
+     * 
+     * @param bytes The bytes waiting to be sent.
+     */
+    void setQueueDepth(int bytes)
+    {
+        counters.lazySet(QUEUE_DEPTH, bytes);
+    }
+
+    /**
+     * Take a snapshot of current values.
+     * 
+     * @param id The client id.
+     * @param name The client name (may be <code>null</code>).
+     * @return The metrics snapshot.
+     */
+    NetworkMetrics snapshot(int id, String name)
+    {
+        final long[] values = copy(counters);
+        return new NetworkMetrics(id,
+                                  name,
+                                  values[BYTES_IN],
+                                  values[BYTES_OUT],
+                                  values[DROPPED],
+                                  values[DECODED],
+                                  values[DECODE_NANOS],
+                                  (int) values[QUEUE_DEPTH],
+                                  copy(typesIn),
+                                  copy(typesOut),
+                                  copy(rtt));
+    }
+}
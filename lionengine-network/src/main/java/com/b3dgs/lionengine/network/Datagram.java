@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+
+import com.b3dgs.lionengine.Verbose;
+
+/**
+ * Non blocking datagram channel, with an optional loss and latency injector applied on sent packets.
+ */
+final class Datagram
+{
+    /** Maximum packet size, below common path MTU. */
+    static final int MTU = 1200;
+    /** Hello packet (client id and token). */
+    static final byte HELLO = 1;
+    /** Hello acknowledge packet. */
+    static final byte HELLO_ACK = 2;
+    /** Data packet. */
+    static final byte DATA = 3;
+    /** Nano to milli. */
+    private static final long NANO_MILLI = 1_000_000L;
+
+    /**
+     * Get the current time in milliseconds.
+     * 
+     * @return The current time.
+     */
+    static long now()
+    {
+        return System.nanoTime() / NANO_MILLI;
+    }
+
+    /**
+     * Open a datagram channel bound to the port.
+     * 
+     * @param port The local port.
+     * @return The datagram.
+     * @throws IOException If unable to open.
+     */
+    static Datagram bind(int port) throws IOException
+    {
+        final DatagramChannel channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.bind(new InetSocketAddress(port));
+        return new Datagram(channel);
+    }
+
+    /**
+     * Open a datagram channel to a remote address.
+     * 
+     * @param remote The remote address.
+     * @return The datagram.
+     * @throws IOException If unable to open.
+     */
+    static Datagram connect(SocketAddress remote) throws IOException
+    {
+        final DatagramChannel channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(remote);
+        return new Datagram(channel);
+    }
+
+    /** Datagram channel. */
+    private final DatagramChannel channel;
+    /** Received packet buffer. */
+    private final ByteBuffer received = ByteBuffer.allocate(MTU);
+    /** Delayed packets, by due time. */
+    private final Queue<Delayed> delayed = new PriorityQueue<>();
+    /** Delayed packets pool. */
+    private final Deque<Delayed> pool = new ArrayDeque<>();
+    /** Random generator. */
+    private final Random random = new Random();
+    /** Simulated loss ratio. */
+    private double loss;
+    /** Simulated latency in milliseconds. */
+    private int latency;
+    /** Simulated jitter in milliseconds. */
+    private int jitter;
+    /** Delayed packets order. */
+    private long order;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param channel The datagram channel.
+     */
+    private Datagram(DatagramChannel channel)
+    {
+        super();
+
+        this.channel = channel;
+    }
+
+    /**
+     * Set simulated network conditions on sent packets.
+     * 
+     * @param loss The loss ratio in <code>[0, 1]</code>.
+     * @param latency The latency in milliseconds.
+     * @param jitter The latency variation in milliseconds.
+     */
+    void setConditions(double loss, int latency, int jitter)
+    {
+        this.loss = loss;
+        this.latency = latency;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Send a packet, applying simulated conditions.
+     * 
+     * @param packet The packet to send, from position to limit.
+     * @param remote The remote address.
+     * @throws IOException If error on sending.
+     */
+    void send(ByteBuffer packet, SocketAddress remote) throws IOException
+    {
+        if (loss > 0.0 && random.nextDouble() < loss)
+        {
+            return;
+        }
+        if (latency > 0 || jitter > 0)
+        {
+            Delayed packetDelayed = pool.poll();
+            if (packetDelayed == null)
+            {
+                packetDelayed = new Delayed();
+            }
+            packetDelayed.set(packet, remote, now() + latency + random.nextInt(jitter + 1), order++);
+            delayed.add(packetDelayed);
+        }
+        else
+        {
+            channel.send(packet, remote);
+        }
+    }
+
+    /**
+     * Send delayed packets which are due.
+     */
+    void update()
+    {
+        final long now = now();
+        while (!delayed.isEmpty() && delayed.peek().due <= now)
+        {
+            final Delayed packet = delayed.poll();
+            try
+            {
+                channel.send(packet.data, packet.remote);
+            }
+            catch (final IOException exception)
+            {
+                Verbose.exception(exception);
+            }
+            pool.add(packet);
+        }
+    }
+
+    /**
+     * Receive next packet.
+     * 
+     * @return The packet source, <code>null</code> if none.
+     * @throws IOException If error on receiving.
+     * @see #getReceived()
+     */
+    SocketAddress receive() throws IOException
+    {
+        received.clear();
+        final SocketAddress remote = channel.receive(received);
+        received.flip();
+        return remote;
+    }
+
+    /**
+     * Get the last received packet.
+     * 
+     * @return The last received packet.
+     */
+    ByteBuffer getReceived()
+    {
+        return received;
+    }
+
+    /**
+     * Get the local address.
+     * 
+     * @return The local address.
+     * @throws IOException If error.
+     */
+    SocketAddress getAddress() throws IOException
+    {
+        return channel.getLocalAddress();
+    }
+
+    /**
+     * Close channel.
+     */
+    void close()
+    {
+        try
+        {
+            channel.close();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception);
+        }
+    }
+
+    /**
+     * Delayed packet.
+     */
+    private static final class Delayed implements Comparable<Delayed>
+    {
+        /** Packet data. */
+        private final ByteBuffer data = ByteBuffer.allocate(MTU);
+        /** Destination. */
+        private SocketAddress remote;
+        /** Due time. */
+        private long due;
+        /** Insertion order. */
+        private long order;
+
+        /**
+         * Create delayed packet.
+         */
+        Delayed()
+        {
+            super();
+        }
+
+        /**
+         * Set packet data.
+         * 
+         * @param packet The packet to copy.
+         * @param remote The destination.
+         * @param due The due time.
+         * @param order The insertion order.
+         */
+        void set(ByteBuffer packet, SocketAddress remote, long due, long order)
+        {
+            data.clear();
+            data.put(packet);
+            data.flip();
+            this.remote = remote;
+            this.due = due;
+            this.order = order;
+        }
+
+        /*
+         * Comparable
+         */
+
+        @Override
+        public int compareTo(Delayed other)
+        {
+            final int compare = Long.compare(due, other.due);
+            if (compare == 0)
+            {
+                return Long.compare(order, other.order);
+            }
+            return compare;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            return this == object;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(this);
+        }
+    }
+}
@@ -0,0 +1,578 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Datagram connection with a remote, sequencing packets and handling per message delivery mode.
+ * <p>
+ * Each packet starts with a sequence number and acknowledges the last received sequence with a bitset of the 32
+ * previous ones. Reliable messages are resent until a packet containing them is acknowledged. Queued messages are
+ * coalesced in as few packets as possible, up to {@link Datagram#MTU}.
+ * </p>
+ * <p>
+ * Packet: <code>[DATA][u16 sequence][u16 ack][int ack bits]</code> followed by records
+ * <code>[mode][u16 id if not unreliable][u16 length][payload]</code>.
+ * </p>
+ */
+final class DatagramConnection
+{
+    /** Packet header size. */
+    private static final int PACKET_HEADER = 9;
+    /** Maximum record header size. */
+    private static final int RECORD_HEADER = 5;
+    /** Maximum payload size. */
+    private static final int MAX_PAYLOAD = Datagram.MTU - PACKET_HEADER - RECORD_HEADER;
+    /** Sequence mask. */
+    private static final int SEQUENCE = 0xFFFF;
+    /** Half sequence range, used to compare wrapped sequences. */
+    private static final int HALF = 0x8000;
+    /** Number of acknowledged sequences per packet. */
+    private static final int ACK_BITS = Integer.SIZE;
+    /** Sent packets history size. */
+    private static final int HISTORY = 256;
+    /** Minimum resend delay in milliseconds. */
+    private static final long RESEND_MIN = 50L;
+    /** Modes. */
+    private static final DatagramMode[] MODES = DatagramMode.values();
+
+    /**
+     * Check if payload can be sent on a datagram connection.
+     * 
+     * @param length The payload length.
+     * @return <code>true</code> if fits in a single packet, <code>false</code> else.
+     */
+    static boolean fits(int length)
+    {
+        return length <= MAX_PAYLOAD;
+    }
+
+    /**
+     * Check if sequence is more recent than the other one.
+     * 
+     * @param sequence The sequence to check.
+     * @param other The other sequence.
+     * @return <code>true</code> if more recent, <code>false</code> else.
+     */
+    private static boolean isNewer(int sequence, int other)
+    {
+        final int diff = sequence - other & SEQUENCE;
+        return diff > 0 && diff < HALF;
+    }
+
+    /** Datagram channel. */
+    private final Datagram datagram;
+    /** Remote address. */
+    private final SocketAddress remote;
+    /** Received payload listener. */
+    private final PayloadListener listener;
+    /** Connection metrics. */
+    private final ConnectionMetrics metrics;
+    /** Packet buffer. */
+    private final ByteBuffer packet = ByteBuffer.allocate(Datagram.MTU);
+    /** Sent packets history. */
+    private final Sent[] sent = new Sent[HISTORY];
+    /** Reliable messages not acknowledged. */
+    private final List<Pending> pending = new ArrayList<>();
+    /** Received reliable messages ids. */
+    private final BitSet received = new BitSet(SEQUENCE + 1);
+    /** Ordered messages received in advance. */
+    private final Map<Integer, byte[]> early = new HashMap<>();
+    /** Unreliable messages queue (<code>[u16 length][payload]</code>). */
+    private ByteBuffer queued = ByteBuffer.allocate(Datagram.MTU);
+    /** Current packet history. */
+    private Sent current;
+    /** Next local sequence. */
+    private int sequence;
+    /** Next reliable id. */
+    private int reliableId;
+    /** Next ordered id. */
+    private int orderedId;
+    /** Next expected ordered id. */
+    private int orderedExpected;
+    /** Last remote sequence. */
+    private int remoteSequence = -1;
+    /** Previous remote sequences received. */
+    private int remoteBits;
+    /** Acknowledge to send. */
+    private boolean ack;
+    /** Smoothed round trip time in milliseconds. */
+    private long rtt;
+
+    /**
+     * Create connection.
+     * 
+     * @param datagram The datagram channel.
+     * @param remote The remote address.
+     * @param listener The received payload listener.
+     * @param metrics The connection metrics, counting dropped packets and round trip times.
+     */
+    DatagramConnection(Datagram datagram, SocketAddress remote, PayloadListener listener, ConnectionMetrics metrics)
+    {
+        super();
+
+        this.datagram = datagram;
+        this.remote = remote;
+        this.listener = listener;
+        this.metrics = metrics;
+        for (int i = 0; i < HISTORY; i++)
+        {
+            sent[i] = new Sent();
+        }
+    }
+
+    /**
+     * Get the remote address.
+     * 
+     * @return The remote address.
+     */
+    SocketAddress getRemote()
+    {
+        return remote;
+    }
+
+    /**
+     * Get the smoothed round trip time.
+     * 
+     * @return The round trip time in milliseconds.
+     */
+    long getRoundTripTime()
+    {
+        return rtt;
+    }
+
+    /**
+     * Queue a payload, sent on next {@link #flush()}.
+     * 
+     * @param mode The delivery mode.
+     * @param payload The payload, from position to limit (must {@link #fits(int)}), not consumed.
+     */
+    void send(DatagramMode mode, ByteBuffer payload)
+    {
+        final int length = payload.remaining();
+        if (DatagramMode.UNRELIABLE == mode)
+        {
+            if (queued.remaining() < Short.BYTES + length)
+            {
+                final ByteBuffer grown = ByteBuffer.allocate(queued.capacity() * 2 + length);
+                queued.flip();
+                grown.put(queued);
+                queued = grown;
+            }
+            queued.putShort((short) length);
+            queued.put(payload.duplicate());
+        }
+        else
+        {
+            final int id;
+            if (DatagramMode.ORDERED == mode)
+            {
+                id = orderedId;
+                orderedId = orderedId + 1 & SEQUENCE;
+            }
+            else
+            {
+                id = reliableId;
+                reliableId = reliableId + 1 & SEQUENCE;
+            }
+            final byte[] data = new byte[length];
+            payload.duplicate().get(data);
+            pending.add(new Pending(mode, id, data));
+        }
+    }
+
+    /**
+     * Send queued messages, reliable messages due to be resent, and acknowledge if needed.
+     * 
+     * @throws IOException If error on sending.
+     */
+    void flush() throws IOException
+    {
+        final long now = Datagram.now();
+        final long resend = Math.max(RESEND_MIN, rtt * 2);
+        begin();
+        for (final Pending message : pending)
+        {
+            if (message.time < 0L || now - message.time >= resend)
+            {
+                if (packet.remaining() < RECORD_HEADER + message.data.length)
+                {
+                    end(now);
+                    begin();
+                }
+                packet.put((byte) message.mode.ordinal());
+                packet.putShort((short) message.id);
+                packet.putShort((short) message.data.length);
+                packet.put(message.data);
+                message.time = now;
+                current.reliables.add(message);
+            }
+        }
+        queued.flip();
+        while (queued.hasRemaining())
+        {
+            final int length = queued.getShort() & SEQUENCE;
+            if (packet.remaining() < RECORD_HEADER + length)
+            {
+                end(now);
+                begin();
+            }
+            packet.put((byte) DatagramMode.UNRELIABLE.ordinal());
+            packet.putShort((short) length);
+            final int limit = queued.limit();
+            queued.limit(queued.position() + length);
+            packet.put(queued);
+            queued.limit(limit);
+        }
+        queued.clear();
+        if (packet.position() > PACKET_HEADER || ack)
+        {
+            end(now);
+        }
+    }
+
+    /**
+     * Receive a data packet.
+     * 
+     * @param data The packet, positioned after its kind.
+     * @throws IOException If error on reading payload.
+     */
+    void receive(ByteBuffer data) throws IOException
+    {
+        if (data.remaining() < PACKET_HEADER - 1)
+        {
+            throw new IOException("Truncated datagram header !");
+        }
+        final int remoteSeq = data.getShort() & SEQUENCE;
+        acknowledge(data.getShort() & SEQUENCE, data.getInt());
+
+        final boolean latest;
+        if (remoteSequence < 0)
+        {
+            remoteSequence = remoteSeq;
+            latest = true;
+        }
+        else if (isNewer(remoteSeq, remoteSequence))
+        {
+            final int diff = remoteSeq - remoteSequence & SEQUENCE;
+            if (diff > ACK_BITS)
+            {
+                remoteBits = 0;
+            }
+            else
+            {
+                remoteBits = (int) ((long) remoteBits << diff | 1L << diff - 1);
+            }
+            remoteSequence = remoteSeq;
+            latest = true;
+        }
+        else
+        {
+            final int back = remoteSequence - remoteSeq & SEQUENCE;
+            final int bit = 1 << back - 1;
+            if (back == 0 || back <= ACK_BITS && (remoteBits & bit) != 0)
+            {
+                // Duplicated
+                metrics.dropped();
+                return;
+            }
+            if (back <= ACK_BITS)
+            {
+                remoteBits |= bit;
+            }
+            latest = false;
+        }
+        ack = true;
+
+        while (data.hasRemaining())
+        {
+            final int ordinal = data.get();
+            if (ordinal < 0 || ordinal >= MODES.length)
+            {
+                throw new IOException("Invalid datagram mode: " + ordinal);
+            }
+            final DatagramMode mode = MODES[ordinal];
+            if (data.remaining() < (DatagramMode.UNRELIABLE == mode ? Short.BYTES : Integer.BYTES))
+            {
+                throw new IOException("Truncated datagram record !");
+            }
+            final int id = DatagramMode.UNRELIABLE == mode ? -1 : data.getShort() & SEQUENCE;
+            final int length = data.getShort() & SEQUENCE;
+            final int limit = data.limit();
+            final int next = data.position() + length;
+            if (next > limit)
+            {
+                throw new IOException("Truncated datagram record !");
+            }
+            data.limit(next);
+            if (DatagramMode.UNRELIABLE == mode)
+            {
+                // Older than last received
+                if (latest)
+                {
+                    listener.notifyPayload(data.slice());
+                }
+                else
+                {
+                    metrics.dropped();
+                }
+            }
+            else if (DatagramMode.RELIABLE == mode)
+            {
+                receiveReliable(id, data);
+            }
+            else
+            {
+                receiveOrdered(id, data);
+            }
+            data.limit(limit);
+            data.position(next);
+        }
+    }
+
+    /**
+     * Receive a reliable payload, ignored if already received.
+     * 
+     * @param id The message id.
+     * @param payload The payload.
+     * @throws IOException If error on reading payload.
+     */
+    private void receiveReliable(int id, ByteBuffer payload) throws IOException
+    {
+        if (!received.get(id))
+        {
+            received.set(id);
+            // Keep half range available for ids after wrap
+            received.clear(id + HALF & SEQUENCE);
+            listener.notifyPayload(payload.slice());
+        }
+        else
+        {
+            metrics.dropped();
+        }
+    }
+
+    /**
+     * Receive an ordered payload, delivered only once all previous ones have been.
+     * 
+     * @param id The message id.
+     * @param payload The payload.
+     * @throws IOException If error on reading payload.
+     */
+    private void receiveOrdered(int id, ByteBuffer payload) throws IOException
+    {
+        if (id == orderedExpected)
+        {
+            listener.notifyPayload(payload.slice());
+            orderedExpected = orderedExpected + 1 & SEQUENCE;
+            byte[] next = early.remove(Integer.valueOf(orderedExpected));
+            while (next != null)
+            {
+                listener.notifyPayload(ByteBuffer.wrap(next));
+                orderedExpected = orderedExpected + 1 & SEQUENCE;
+                next = early.remove(Integer.valueOf(orderedExpected));
+            }
+        }
+        else if (isNewer(id, orderedExpected))
+        {
+            final byte[] data = new byte[payload.remaining()];
+            payload.duplicate().get(data);
+            early.put(Integer.valueOf(id), data);
+        }
+        else
+        {
+            metrics.dropped();
+        }
+    }
+
+    /**
+     * Acknowledge sent packets.
+     * 
+     * @param last The last sequence received by remote.
+     * @param bits The previous sequences received by remote.
+     */
+    private void acknowledge(int last, int bits)
+    {
+        final long now = Datagram.now();
+        boolean acked = acknowledge(last, now);
+        for (int i = 0; i < ACK_BITS; i++)
+        {
+            if ((bits & 1 << i) != 0)
+            {
+                acked |= acknowledge(last - 1 - i & SEQUENCE, now);
+            }
+        }
+        if (acked)
+        {
+            final Iterator<Pending> iterator = pending.iterator();
+            while (iterator.hasNext())
+            {
+                if (iterator.next().acked)
+                {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Acknowledge a sent packet.
+     * 
+     * @param acked The acknowledged sequence.
+     * @param now The current time.
+     * @return <code>true</code> if reliable messages have been acknowledged, <code>false</code> else.
+     */
+    private boolean acknowledge(int acked, long now)
+    {
+        final Sent packetSent = sent[acked % HISTORY];
+        if (packetSent.sequence != acked || packetSent.acked)
+        {
+            return false;
+        }
+        packetSent.acked = true;
+        final long sample = now - packetSent.time;
+        metrics.roundTrip(sample);
+        if (rtt == 0L)
+        {
+            rtt = sample;
+        }
+        else
+        {
+            rtt = (rtt * 7 + sample) / 8;
+        }
+        final boolean reliables = !packetSent.reliables.isEmpty();
+        for (final Pending message : packetSent.reliables)
+        {
+            message.acked = true;
+        }
+        packetSent.reliables.clear();
+        return reliables;
+    }
+
+    /**
+     * Start a new packet.
+     */
+    private void begin()
+    {
+        packet.clear();
+        packet.position(PACKET_HEADER);
+        current = sent[sequence % HISTORY];
+        current.sequence = sequence;
+        current.acked = false;
+        current.reliables.clear();
+    }
+
+    /**
+     * Complete and send current packet.
+     * 
+     * @param now The current time.
+     * @throws IOException If error on sending.
+     */
+    private void end(long now) throws IOException
+    {
+        packet.put(0, Datagram.DATA);
+        packet.putShort(1, (short) sequence);
+        // Nothing received yet acknowledges the sequence before first
+        packet.putShort(3, (short) (remoteSequence < 0 ? SEQUENCE : remoteSequence));
+        packet.putInt(5, remoteBits);
+        packet.flip();
+        datagram.send(packet, remote);
+        current.time = now;
+        sequence = sequence + 1 & SEQUENCE;
+        ack = false;
+    }
+
+    /**
+     * Received payload listener.
+     */
+    interface PayloadListener
+    {
+        /**
+         * Notify payload received.
+         * 
+         * @param payload The payload, starting with message type, client source and destination.
+         * @throws IOException If error on reading payload.
+         */
+        void notifyPayload(ByteBuffer payload) throws IOException;
+    }
+
+    /**
+     * Sent packet history.
+     */
+    private static final class Sent
+    {
+        /** Reliable messages sent. */
+        private final List<Pending> reliables = new ArrayList<>();
+        /** Packet sequence. */
+        private int sequence = -1;
+        /** Sent time. */
+        private long time;
+        /** Acknowledged flag. */
+        private boolean acked;
+
+        /**
+         * Create history.
+         */
+        Sent()
+        {
+            super();
+        }
+    }
+
+    /**
+     * Reliable message waiting acknowledge.
+     */
+    private static final class Pending
+    {
+        /** Delivery mode. */
+        private final DatagramMode mode;
+        /** Message id. */
+        private final int id;
+        /** Payload. */
+        private final byte[] data;
+        /** Last sent time (negative if never). */
+        private long time = -1L;
+        /** Acknowledged flag. */
+        private boolean acked;
+
+        /**
+         * Create pending message.
+         * 
+         * @param mode The delivery mode.
+         * @param id The message id.
+         * @param data The payload.
+         */
+        Pending(DatagramMode mode, int id, byte[] data)
+        {
+            super();
+
+            this.mode = mode;
+            this.id = id;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.b3dgs.lionengine.network.message.UtilVarint;
+
+/**
+ * Accumulate received bytes and split them into complete messages. The length of each message is deduced from its
+ * system id, so it can be extracted only once fully received. The same input stream is reused for each message.
+ * <p>
+ * Each message starts with its system id and the client id as variable length integer. An unknown system id, a
+ * malformed client id or a message longer than {@link #MAX_LENGTH} cannot be split reliably, and are rejected as
+ * invalid stream: the client must then be terminated.
+ * </p>
+ */
+final class FrameDecoder
+{
+    /** Maximum message length in bytes. */
+    static final int MAX_LENGTH = 1 << 20;
+    /** Unknown system id error. */
+    static final String ERROR_SYSTEM_ID = "Unknown message system id: ";
+    /** Malformed client id error. */
+    static final String ERROR_CLIENT_ID = "Malformed message client id";
+    /** Invalid length error. */
+    static final String ERROR_LENGTH = "Invalid message length: ";
+    /** Default capacity. */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /** Frame input. */
+    private final FrameInput input = new FrameInput();
+    /** Reused frame stream. */
+    private final DataInputStream stream = new DataInputStream(input);
+    /** Accumulated data. */
+    private byte[] data = new byte[DEFAULT_CAPACITY];
+    /** First unread index. */
+    private int start;
+    /** Last written index (excluded). */
+    private int end;
+
+    /**
+     * Internal constructor.
+     */
+    FrameDecoder()
+    {
+        super();
+    }
+
+    /**
+     * Append received data.
+     * 
+     * @param source The source buffer, consumed up to the length.
+     * @param length The number of bytes to read.
+     */
+    void append(ByteBuffer source, int length)
+    {
+        ensureCapacity(length);
+        source.get(data, end, length);
+        end += length;
+    }
+
+    /**
+     * Append received data.
+     * 
+     * @param source The source input.
+     * @param length The number of bytes to read.
+     * @throws IOException If unable to read the expected length.
+     */
+    void append(DataInput source, int length) throws IOException
+    {
+        ensureCapacity(length);
+        source.readFully(data, end, length);
+        end += length;
+    }
+
+    /**
+     * Get the next complete message. The returned stream is only valid until the next call, and reading past the
+     * message length acts as end of stream.
+     * 
+     * @return The message stream, <code>null</code> if no complete message available.
+     * @throws IOException If invalid message.
+     */
+    DataInputStream next() throws IOException
+    {
+        final int length = getLength();
+        if (length < 0)
+        {
+            return null;
+        }
+        input.set(start, start + length);
+        start += length;
+        return stream;
+    }
+
+    /**
+     * Get the number of pending bytes, not yet extracted as messages.
+     * 
+     * @return The pending bytes.
+     */
+    int getPending()
+    {
+        return end - start;
+    }
+
+    /**
+     * Get a name length, sent on one signed byte.
+     * 
+     * @param index The length index.
+     * @return The name length.
+     * @throws IOException If negative length.
+     */
+    private int getNameLength(int index) throws IOException
+    {
+        final int length = data[index];
+        if (length < 0)
+        {
+            throw new IOException(ERROR_LENGTH + length);
+        }
+        return length;
+    }
+
+    /**
+     * Get the length of the next message.
+     * 
+     * @return The message length, <code>-1</code> if not fully received.
+     * @throws IOException If invalid message.
+     */
+    private int getLength() throws IOException
+    {
+        final int available = end - start;
+        final int id = UtilVarint.sizeOf(data, start + 1, end);
+        if (id < 0)
+        {
+            if (available > UtilVarint.MAX_SIZE)
+            {
+                throw new IOException(ERROR_CLIENT_ID);
+            }
+            return -1;
+        }
+        final int header = 1 + id;
+        final int length;
+        switch (data[start])
+        {
+            case NetworkMessageSystemId.CONNECTING:
+                // Protocol version and name
+                if (available < header + 2)
+                {
+                    return -1;
+                }
+                length = header + 2 + getNameLength(start + header + 1);
+                break;
+            case NetworkMessageSystemId.OTHER_CLIENT_RENAMED:
+                if (available <= header)
+                {
+                    return -1;
+                }
+                length = header + 1 + getNameLength(start + header);
+                break;
+            case NetworkMessageSystemId.USER_MESSAGE:
+                if (available < header + Integer.BYTES)
+                {
+                    return -1;
+                }
+                final int size = readInt(start + header);
+                if (size < 0 || size > MAX_LENGTH - header - Integer.BYTES)
+                {
+                    throw new IOException(ERROR_LENGTH + size);
+                }
+                length = header + Integer.BYTES + size;
+                break;
+            case NetworkMessageSystemId.CONNECTED:
+            case NetworkMessageSystemId.PING:
+            case NetworkMessageSystemId.OTHER_CLIENT_DISCONNECTED:
+                length = header;
+                break;
+            default:
+                throw new IOException(ERROR_SYSTEM_ID + data[start]);
+        }
+        if (available < length)
+        {
+            return -1;
+        }
+        return length;
+    }
+
+    /**
+     * Read a big endian integer.
+     * 
+     * @param index The first byte index.
+     * @return The integer value.
+     */
+    private int readInt(int index)
+    {
+        final int mask = 0xFF;
+        return (data[index] & mask) << 24
+               | (data[index + 1] & mask) << 16
+               | (data[index + 2] & mask) << 8
+               | data[index + 3] & mask;
+    }
+
+    /**
+     * Ensure enough space to append data, compacting or growing the buffer if necessary.
+     * 
+     * @param length The length to append.
+     */
+    private void ensureCapacity(int length)
+    {
+        if (end + length > data.length && start > 0)
+        {
+            System.arraycopy(data, start, data, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if (end + length > data.length)
+        {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, end + length));
+        }
+    }
+
+    /**
+     * Input stream over the current message bounds.
+     */
+    private final class FrameInput extends InputStream
+    {
+        /** Current index. */
+        private int index;
+        /** Last index (excluded). */
+        private int limit;
+
+        /**
+         * Internal constructor.
+         */
+        FrameInput()
+        {
+            super();
+        }
+
+        /**
+         * Set the message bounds.
+         * 
+         * @param index The first index.
+         * @param limit The last index (excluded).
+         */
+        void set(int index, int limit)
+        {
+            this.index = index;
+            this.limit = limit;
+        }
+
+        /*
+         * InputStream
+         */
+
+        @Override
+        public int read()
+        {
+            if (index < limit)
+            {
+                return data[index++] & 0xFF;
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (index >= limit)
+            {
+                return -1;
+            }
+            final int read = Math.min(len, limit - index);
+            System.arraycopy(data, index, b, off, read);
+            index += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n)
+        {
+            final int skipped = (int) Math.max(0L, Math.min(n, limit - index));
+            index += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available()
+        {
+            return limit - index;
+        }
+    }
+}
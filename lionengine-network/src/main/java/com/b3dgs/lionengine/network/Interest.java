@@ -0,0 +1,413 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Localizable;
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+import com.b3dgs.lionengine.network.purview.Networkable;
+
+/**
+ * Area of interest management. Located networkables are bucketed in a spatial grid, and each client view only checks
+ * the cells it overlaps. Interest of each networkable is stored as a bitset of client ids, compared between updates to
+ * notify enter and leave events.
+ * <p>
+ * Messages from a located networkable are only sent to interested clients. Messages without known origin, and clients
+ * without view, are not filtered.
+ * </p>
+ */
+final class Interest
+{
+    /** Default cell size. */
+    static final int DEFAULT_CELL_SIZE = 256;
+    /** Default interest words. */
+    private static final int DEFAULT_WORDS = 2;
+    /** View data size (x, y, width, height). */
+    private static final int VIEW = 4;
+
+    /**
+     * Get the cell key.
+     * 
+     * @param cx The horizontal cell index.
+     * @param cy The vertical cell index.
+     * @return The cell key.
+     */
+    private static long getKey(int cx, int cy)
+    {
+        return (long) cx << Integer.SIZE | cy & 0xFFFFFFFFL;
+    }
+
+    /** Located networkables. */
+    private final Map<Networkable, Entry> entries = new HashMap<>();
+    /** Grid cells. */
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+    /** Current messages origin. */
+    private final Map<NetworkMessage, Entry> origins = new IdentityHashMap<>();
+    /** Clients view by id (<code>null</code> if none). */
+    private double[][] views = new double[DEFAULT_WORDS * Long.SIZE][];
+    /** Listeners. */
+    private final Collection<InterestListener> listeners = new ArrayList<>();
+    /** Cell size. */
+    private final int cellSize;
+    /** Interest words per entry, grown with clients id. */
+    private int words = DEFAULT_WORDS;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param cellSize The cell size.
+     * @throws LionEngineException If invalid argument.
+     */
+    Interest(int cellSize)
+    {
+        super();
+
+        Check.superiorStrict(cellSize, 0);
+
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Add a listener.
+     * 
+     * @param listener The listener to add.
+     */
+    void addListener(InterestListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * Locate a networkable, in order to filter its messages.
+     * 
+     * @param networkable The networkable entity.
+     * @param position The networkable position.
+     * @throws LionEngineException If invalid argument.
+     */
+    void locate(Networkable networkable, Localizable position)
+    {
+        Check.notNull(networkable);
+        Check.notNull(position);
+
+        remove(networkable);
+        final Entry entry = new Entry(networkable, position);
+        entries.put(networkable, entry);
+        getCell(entry.cell).add(entry);
+    }
+
+    /**
+     * Remove a networkable.
+     * 
+     * @param networkable The networkable entity.
+     */
+    void remove(Networkable networkable)
+    {
+        final Entry entry = entries.remove(networkable);
+        if (entry != null)
+        {
+            getCell(entry.cell).remove(entry);
+        }
+    }
+
+    /**
+     * Set the client view.
+     * 
+     * @param clientId The client id.
+     * @param x The horizontal location.
+     * @param y The vertical location.
+     * @param width The view width.
+     * @param height The view height.
+     * @throws LionEngineException If invalid client id.
+     */
+    void setView(int clientId, double x, double y, double width, double height)
+    {
+        Check.superiorOrEqual(clientId, 0);
+
+        ensureCapacity(clientId);
+        if (views[clientId] == null)
+        {
+            views[clientId] = new double[VIEW];
+        }
+        views[clientId][0] = x;
+        views[clientId][1] = y;
+        views[clientId][2] = width;
+        views[clientId][3] = height;
+    }
+
+    /**
+     * Remove the client view and its interest.
+     * 
+     * @param clientId The client id.
+     */
+    void removeClient(int clientId)
+    {
+        if (clientId < 0 || clientId >= views.length)
+        {
+            return;
+        }
+        views[clientId] = null;
+        final long mask = ~(1L << clientId % Long.SIZE);
+        for (final Entry entry : entries.values())
+        {
+            entry.current[clientId / Long.SIZE] &= mask;
+        }
+    }
+
+    /**
+     * Update grid and clients interest, notifying changes.
+     */
+    void update()
+    {
+        for (final Entry entry : entries.values())
+        {
+            final long cell = entry.computeCell();
+            if (cell != entry.cell)
+            {
+                getCell(entry.cell).remove(entry);
+                getCell(cell).add(entry);
+                entry.cell = cell;
+            }
+        }
+        for (int id = 0; id < views.length; id++)
+        {
+            if (views[id] != null)
+            {
+                updateView(id, views[id]);
+            }
+        }
+        for (final Entry entry : entries.values())
+        {
+            for (int word = 0; word < words; word++)
+            {
+                final long entered = entry.next[word] & ~entry.current[word];
+                final long left = entry.current[word] & ~entry.next[word];
+                if (entered != 0L || left != 0L)
+                {
+                    notify(entry.networkable, word, entered, left);
+                }
+                entry.current[word] = entry.next[word];
+                entry.next[word] = 0L;
+            }
+        }
+    }
+
+    /**
+     * Store the origin of the messages.
+     * 
+     * @param networkable The networkable source.
+     * @param messages The networkable messages.
+     */
+    void track(Networkable networkable, Collection<NetworkMessage> messages)
+    {
+        final Entry entry = entries.get(networkable);
+        if (entry != null)
+        {
+            for (final NetworkMessage message : messages)
+            {
+                origins.put(message, entry);
+            }
+        }
+    }
+
+    /**
+     * Clear the tracked messages origin.
+     */
+    void clearTracked()
+    {
+        origins.clear();
+    }
+
+    /**
+     * Check if client is interested by the message.
+     * 
+     * @param message The message to check.
+     * @param clientId The client id.
+     * @return <code>true</code> if interested, <code>false</code> else.
+     */
+    boolean isInterested(NetworkMessage message, int clientId)
+    {
+        final Entry entry = origins.get(message);
+        if (entry == null || clientId < 0 || clientId >= views.length || views[clientId] == null)
+        {
+            return true;
+        }
+        return (entry.current[clientId / Long.SIZE] & 1L << clientId % Long.SIZE) != 0L;
+    }
+
+    /**
+     * Mark entries inside client view.
+     * 
+     * @param id The client id.
+     * @param view The client view.
+     */
+    private void updateView(int id, double[] view)
+    {
+        final double x = view[0];
+        final double y = view[1];
+        final double width = view[2];
+        final double height = view[3];
+        final int minX = (int) Math.floor(x / cellSize);
+        final int minY = (int) Math.floor(y / cellSize);
+        final int maxX = (int) Math.floor((x + width) / cellSize);
+        final int maxY = (int) Math.floor((y + height) / cellSize);
+        final int word = id / Long.SIZE;
+        final long bit = 1L << id % Long.SIZE;
+
+        for (int cx = minX; cx <= maxX; cx++)
+        {
+            for (int cy = minY; cy <= maxY; cy++)
+            {
+                final List<Entry> cell = cells.get(Long.valueOf(getKey(cx, cy)));
+                if (cell == null)
+                {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++)
+                {
+                    final Entry entry = cell.get(i);
+                    final double ex = entry.position.getX();
+                    final double ey = entry.position.getY();
+                    if (ex >= x && ex <= x + width && ey >= y && ey <= y + height)
+                    {
+                        entry.next[word] |= bit;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Notify interest changes.
+     * 
+     * @param networkable The networkable entity.
+     * @param word The interest word index.
+     * @param entered The clients entered bits.
+     * @param left The clients left bits.
+     */
+    private void notify(Networkable networkable, int word, long entered, long left)
+    {
+        for (int bit = 0; bit < Long.SIZE; bit++)
+        {
+            final long mask = 1L << bit;
+            if ((entered & mask) != 0L)
+            {
+                final Integer clientId = Integer.valueOf(word * Long.SIZE + bit);
+                for (final InterestListener listener : listeners)
+                {
+                    listener.notifyInterestEntered(clientId, networkable);
+                }
+            }
+            else if ((left & mask) != 0L)
+            {
+                final Integer clientId = Integer.valueOf(word * Long.SIZE + bit);
+                for (final InterestListener listener : listeners)
+                {
+                    listener.notifyInterestLeft(clientId, networkable);
+                }
+            }
+        }
+    }
+
+    /**
+     * Grow views and entries interest to store the client id.
+     * 
+     * @param clientId The client id.
+     */
+    private void ensureCapacity(int clientId)
+    {
+        if (clientId >= views.length)
+        {
+            words = Math.max(words * 2, clientId / Long.SIZE + 1);
+            views = Arrays.copyOf(views, words * Long.SIZE);
+            for (final Entry entry : entries.values())
+            {
+                entry.current = Arrays.copyOf(entry.current, words);
+                entry.next = Arrays.copyOf(entry.next, words);
+            }
+        }
+    }
+
+    /**
+     * Get the cell, created if missing.
+     * 
+     * @param key The cell key.
+     * @return The cell entries.
+     */
+    private List<Entry> getCell(long key)
+    {
+        final Long index = Long.valueOf(key);
+        List<Entry> cell = cells.get(index);
+        if (cell == null)
+        {
+            cell = new ArrayList<>();
+            cells.put(index, cell);
+        }
+        return cell;
+    }
+
+    /**
+     * Located networkable.
+     */
+    private final class Entry
+    {
+        /** Networkable reference. */
+        private final Networkable networkable;
+        /** Position reference. */
+        private final Localizable position;
+        /** Current interested clients. */
+        private long[] current = new long[words];
+        /** Next interested clients. */
+        private long[] next = new long[words];
+        /** Current cell key. */
+        private long cell;
+
+        /**
+         * Create entry.
+         * 
+         * @param networkable The networkable reference.
+         * @param position The position reference.
+         */
+        Entry(Networkable networkable, Localizable position)
+        {
+            super();
+
+            this.networkable = networkable;
+            this.position = position;
+            cell = computeCell();
+        }
+
+        /**
+         * Get the cell key from current position.
+         * 
+         * @return The cell key.
+         */
+        long computeCell()
+        {
+            return getKey((int) Math.floor(position.getX() / cellSize), (int) Math.floor(position.getY() / cellSize));
+        }
+    }
+}
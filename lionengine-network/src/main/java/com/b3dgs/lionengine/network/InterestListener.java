@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import com.b3dgs.lionengine.network.purview.Networkable;
+
+/**
+ * Notify when a networkable enters or leaves the area of interest of a client.
+ */
+public interface InterestListener
+{
+    /**
+     * Notify networkable entered client area of interest.
+     * 
+     * @param clientId The client id.
+     * @param networkable The networkable entity.
+     */
+    void notifyInterestEntered(Integer clientId, Networkable networkable);
+
+    /**
+     * Notify networkable left client area of interest.
+     * 
+     * @param clientId The client id.
+     * @param networkable The networkable entity.
+     */
+    void notifyInterestLeft(Integer clientId, Networkable networkable);
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectStreamConstants;
+import java.nio.ByteBuffer;
+
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+
+/**
+ * Encode user messages once per update, into a reused buffer shared by all recipients.
+ * <p>
+ * Each message is encoded as a complete block data record, ready to be written as is on any client stream between two
+ * flushes of its object stream.
+ * </p>
+ */
+final class MessageEncoder extends ByteArrayOutputStream
+{
+    /** Default capacity. */
+    private static final int DEFAULT_CAPACITY = 4096;
+    /** Record header size (record type and length). */
+    private static final int RECORD_HEADER = 5;
+    /** Message header size (system id and length). */
+    private static final int MESSAGE_HEADER = 5;
+
+    /**
+     * Get the message payload of an encoded record, as written by {@link NetworkMessage#write}.
+     * 
+     * @param record The encoded record.
+     * @return The payload view, starting with message header.
+     */
+    static ByteBuffer payload(ByteBuffer record)
+    {
+        final ByteBuffer payload = record.duplicate();
+        payload.position(payload.position() + RECORD_HEADER + MESSAGE_HEADER);
+        return payload;
+    }
+
+    /**
+     * Internal constructor.
+     */
+    MessageEncoder()
+    {
+        super(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Encode the message after the previous ones.
+     * <p>
+     * Returned buffer shares the encoder content, and stays valid until next {@link #reset()}. It must not be
+     * modified, and each recipient must use its own {@link ByteBuffer#duplicate()} if it needs its own position.
+     * </p>
+     * 
+     * @param message The message to encode.
+     * @return The encoded message record.
+     * @throws IOException If error on encoding.
+     */
+    ByteBuffer encode(NetworkMessage message) throws IOException
+    {
+        final int start = count;
+        write(ObjectStreamConstants.TC_BLOCKDATALONG);
+        writeInt(0);
+        write(NetworkMessageSystemId.USER_MESSAGE);
+        writeInt(0);
+
+        final int length = message.write(this);
+        setInt(start + 1, MESSAGE_HEADER + length);
+        setInt(start + RECORD_HEADER + MESSAGE_HEADER - Integer.BYTES, length);
+
+        return ByteBuffer.wrap(buf, start, count - start).slice();
+    }
+
+    /**
+     * Append a big endian integer.
+     * 
+     * @param value The value to write.
+     */
+    private void writeInt(int value)
+    {
+        write(value >>> 24);
+        write(value >>> 16);
+        write(value >>> 8);
+        write(value);
+    }
+
+    /**
+     * Set a big endian integer at an already written index.
+     * 
+     * @param index The first byte index.
+     * @param value The value to set.
+     */
+    private void setInt(int index, int value)
+    {
+        buf[index] = (byte) (value >>> 24);
+        buf[index + 1] = (byte) (value >>> 16);
+        buf[index + 2] = (byte) (value >>> 8);
+        buf[index + 3] = (byte) value;
+    }
+}
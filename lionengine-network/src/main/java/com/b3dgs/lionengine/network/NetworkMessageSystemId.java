@@ -40,6 +40,8 @@ final class NetworkMessageSystemId
     public static final byte OTHER_CLIENT_RENAMED = -70;
     /** User message. */
     public static final byte USER_MESSAGE = -60;
+    /** Datagram channel available, with its hello token (sent once connected). */
+    public static final byte DATAGRAM = -50;
 
     /**
      * Private constructor.
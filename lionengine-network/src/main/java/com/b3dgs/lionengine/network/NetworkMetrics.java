@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of a connection metrics, cumulated since connection. Server side, one snapshot per client is available.
+ * Client side, snapshot describes the connection to the server.
+ * <p>
+ * Bytes are counted as for bandwidth, message types as received and sent by the user. Dropped frames are frames and
+ * messages ignored on reception (unexpected source, unknown type, duplicated or late datagram). Round trip time is
+ * sampled by client pings, and by datagram acknowledges when datagram channel is used.
+ * </p>
+ */
+public final class NetworkMetrics
+{
+    /** Round trip time histogram buckets, each bucket upper bound being twice the previous (last is unbounded). */
+    public static final int RTT_BUCKETS = 12;
+    /** Min to string size. */
+    private static final int MIN_LENGHT = 96;
+
+    /**
+     * Get the histogram bucket of a round trip time.
+     * 
+     * @param millis The round trip time in milliseconds.
+     * @return The bucket index.
+     */
+    static int getRttBucket(long millis)
+    {
+        if (millis <= 0L)
+        {
+            return 0;
+        }
+        return Math.min(RTT_BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(millis));
+    }
+
+    /**
+     * Get the exclusive upper bound of a round trip time histogram bucket.
+     * 
+     * @param bucket The bucket index.
+     * @return The upper bound in milliseconds, {@link Long#MAX_VALUE} for the last bucket.
+     */
+    public static long getRttBound(int bucket)
+    {
+        if (bucket >= RTT_BUCKETS - 1)
+        {
+            return Long.MAX_VALUE;
+        }
+        return 1L << bucket;
+    }
+
+    /** Client id. */
+    private final int id;
+    /** Client name (may be <code>null</code>). */
+    private final String name;
+    /** Bytes received. */
+    private final long bytesIn;
+    /** Bytes sent. */
+    private final long bytesOut;
+    /** Frames dropped. */
+    private final long dropped;
+    /** Decoded messages. */
+    private final long decoded;
+    /** Decode time. */
+    private final long decodeNanos;
+    /** Send queue depth. */
+    private final int queueDepth;
+    /** Received messages per type. */
+    private final long[] typesIn;
+    /** Sent messages per type. */
+    private final long[] typesOut;
+    /** Round trip time histogram. */
+    private final long[] rtt;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param id The client id.
+     * @param name The client name (may be <code>null</code>).
+     * @param bytesIn The bytes received.
+     * @param bytesOut The bytes sent.
+     * @param dropped The frames dropped.
+     * @param decoded The decoded messages.
+     * @param decodeNanos The cumulated decode time.
+     * @param queueDepth The send queue depth.
+     * @param typesIn The received messages per type (owned).
+     * @param typesOut The sent messages per type (owned).
+     * @param rtt The round trip time histogram (owned).
+     */
+    NetworkMetrics(int id,
+                   String name,
+                   long bytesIn,
+                   long bytesOut,
+                   long dropped,
+                   long decoded,
+                   long decodeNanos,
+                   int queueDepth,
+                   long[] typesIn,
+                   long[] typesOut,
+                   long[] rtt)
+    {
+        super();
+
+        this.id = id;
+        this.name = name;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.dropped = dropped;
+        this.decoded = decoded;
+        this.decodeNanos = decodeNanos;
+        this.queueDepth = queueDepth;
+        this.typesIn = typesIn;
+        this.typesOut = typesOut;
+        this.rtt = rtt;
+    }
+
+    /**
+     * Get the client id.
+     * 
+     * @return The client id.
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * Get the client name.
+     * 
+     * @return The client name (may be <code>null</code> if not yet named).
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Get the received bytes.
+     * 
+     * @return The received bytes.
+     */
+    public long getBytesIn()
+    {
+        return bytesIn;
+    }
+
+    /**
+     * Get the sent bytes.
+     * 
+     * @return The sent bytes.
+     */
+    public long getBytesOut()
+    {
+        return bytesOut;
+    }
+
+    /**
+     * Get the received messages of a type.
+     * 
+     * @param type The message type.
+     * @return The received messages.
+     */
+    public long getMessagesIn(byte type)
+    {
+        return typesIn[type & 0xFF];
+    }
+
+    /**
+     * Get the sent messages of a type.
+     * 
+     * @param type The message type.
+     * @return The sent messages.
+     */
+    public long getMessagesOut(byte type)
+    {
+        return typesOut[type & 0xFF];
+    }
+
+    /**
+     * Get the number of round trip time samples in histogram bucket.
+     * 
+     * @param bucket The bucket index in <code>[0, {@link #RTT_BUCKETS}[</code>.
+     * @return The samples number.
+     * @see #getRttBound(int)
+     */
+    public long getRttCount(int bucket)
+    {
+        return rtt[bucket];
+    }
+
+    /**
+     * Get the bytes waiting to be sent on stream.
+     * 
+     * @return The send queue depth in bytes.
+     */
+    public int getQueueDepth()
+    {
+        return queueDepth;
+    }
+
+    /**
+     * Get the dropped frames.
+     * 
+     * @return The dropped frames.
+     */
+    public long getFramesDropped()
+    {
+        return dropped;
+    }
+
+    /**
+     * Get the decoded messages, including rejected ones.
+     * 
+     * @return The decoded messages.
+     */
+    public long getDecoded()
+    {
+        return decoded;
+    }
+
+    /**
+     * Get the cumulated decode time.
+     * 
+     * @return The decode time in nano seconds.
+     */
+    public long getDecodeTime()
+    {
+        return decodeNanos;
+    }
+
+    /*
+     * Object
+     */
+
+    @Override
+    public String toString()
+    {
+        return new StringBuilder(MIN_LENGHT).append(getClass().getSimpleName())
+                                            .append(" [id=")
+                                            .append(id)
+                                            .append(", name=")
+                                            .append(name)
+                                            .append(", in=")
+                                            .append(bytesIn)
+                                            .append(", out=")
+                                            .append(bytesOut)
+                                            .append(", dropped=")
+                                            .append(dropped)
+                                            .append(", queue=")
+                                            .append(queueDepth)
+                                            .append(", rtt=")
+                                            .append(Arrays.toString(rtt))
+                                            .append("]")
+                                            .toString();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Verbose;
+
+/**
+ * Export connection metrics as plain text, one sample per line, readable offline or by any text based metrics
+ * collector:
+ * 
+ * <pre>
+ * network_bytes_in{id="0",name="bob"} 1024 1508150000000
+ * network_rtt_bucket{id="0",name="bob",le="16"} 12 1508150000000
+ * </pre>
+ * <p>
+ * Round trip time histogram is cumulative, each bucket counting samples strictly lower than its bound. A write error
+ * stops the export without interrupting the network.
+ * </p>
+ */
+public final class NetworkMetricsExporter implements NetworkMetricsListener
+{
+    /** Metrics prefix. */
+    private static final String PREFIX = "network_";
+    /** Line default size. */
+    private static final int LINE_LENGTH = 64;
+
+    /**
+     * Format metrics as text lines.
+     * 
+     * @param metrics The metrics to format.
+     * @param time The sample time in milliseconds.
+     * @return The formatted lines.
+     */
+    public static String format(NetworkMetrics metrics, long time)
+    {
+        final StringBuilder labels = new StringBuilder(LINE_LENGTH).append("{id=\"").append(metrics.getId());
+        if (metrics.getName() != null)
+        {
+            labels.append("\",name=\"").append(metrics.getName().replace("\\", "\\\\").replace("\"", "\\\""));
+        }
+        labels.append('"');
+        final String id = labels.toString();
+
+        final StringBuilder out = new StringBuilder(LINE_LENGTH * 8);
+        append(out, "bytes_in", id, null, metrics.getBytesIn(), time);
+        append(out, "bytes_out", id, null, metrics.getBytesOut(), time);
+        append(out, "frames_dropped", id, null, metrics.getFramesDropped(), time);
+        append(out, "queue_depth", id, null, metrics.getQueueDepth(), time);
+        append(out, "decoded", id, null, metrics.getDecoded(), time);
+        append(out, "decode_nanos", id, null, metrics.getDecodeTime(), time);
+        for (int type = 0; type < ConnectionMetrics.TYPES; type++)
+        {
+            final long in = metrics.getMessagesIn((byte) type);
+            if (in > 0L)
+            {
+                append(out, "messages_in", id, ",type=\"" + type + "\"", in, time);
+            }
+            final long sent = metrics.getMessagesOut((byte) type);
+            if (sent > 0L)
+            {
+                append(out, "messages_out", id, ",type=\"" + type + "\"", sent, time);
+            }
+        }
+        long count = 0L;
+        for (int bucket = 0; bucket < NetworkMetrics.RTT_BUCKETS; bucket++)
+        {
+            count += metrics.getRttCount(bucket);
+            final long bound = NetworkMetrics.getRttBound(bucket);
+            final String le = bound == Long.MAX_VALUE ? "+Inf" : String.valueOf(bound);
+            append(out, "rtt_bucket", id, ",le=\"" + le + "\"", count, time);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Append a sample line.
+     * 
+     * @param out The output.
+     * @param name The metric name.
+     * @param id The client labels, without closing brace.
+     * @param label The additional label (may be <code>null</code>).
+     * @param value The value.
+     * @param time The sample time.
+     */
+    private static void append(StringBuilder out, String name, String id, String label, long value, long time)
+    {
+        out.append(PREFIX).append(name).append(id);
+        if (label != null)
+        {
+            out.append(label);
+        }
+        out.append("} ").append(value).append(' ').append(time).append('\n');
+    }
+
+    /** Text output. */
+    private final Writer writer;
+    /** Exporting state. */
+    private boolean exporting = true;
+
+    /**
+     * Create exporter.
+     * 
+     * @param media The text output.
+     * @throws LionEngineException If invalid media.
+     */
+    public NetworkMetricsExporter(Media media)
+    {
+        super();
+
+        Check.notNull(media);
+
+        writer = new BufferedWriter(new OutputStreamWriter(media.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Flush and close the output. Further metrics are ignored.
+     */
+    public void close()
+    {
+        exporting = false;
+        try
+        {
+            writer.close();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Unable to close metrics export");
+        }
+    }
+
+    /*
+     * NetworkMetricsListener
+     */
+
+    @Override
+    public void notifyMetrics(NetworkMetrics metrics)
+    {
+        if (!exporting)
+        {
+            return;
+        }
+        try
+        {
+            writer.write(format(metrics, System.currentTimeMillis()));
+            writer.flush();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Metrics export stopped");
+            close();
+        }
+    }
+}
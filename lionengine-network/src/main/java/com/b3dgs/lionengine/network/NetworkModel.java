@@ -19,9 +19,11 @@ package com.b3dgs.lionengine.network;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 
+import com.b3dgs.lionengine.Check;
 import com.b3dgs.lionengine.network.message.NetworkMessage;
 import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
 
@@ -32,6 +34,9 @@ import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
  */
 abstract class NetworkModel<L extends ClientListener> implements Networker<L>
 {
+    /** Protocol revision, checked on connection (variable length ids). */
+    static final int PROTOCOL_VERSION = 2;
+
     /** Messages list. */
     protected final Collection<NetworkMessage> messagesOut;
     /** Messages list. */
@@ -40,6 +45,26 @@ abstract class NetworkModel<L extends ClientListener> implements Networker<L>
     protected final NetworkMessageDecoder decoder;
     /** The client connection listener. */
     protected final Collection<L> listeners;
+    /** Metrics listeners. */
+    private final Collection<NetworkMetricsListener> metricsListeners = new ArrayList<>(1);
+    /** Datagram delivery mode per message type (<code>null</code> if sent on stream). */
+    private final DatagramMode[] modes = new DatagramMode[1 << Byte.SIZE];
+    /** Datagram payload input. */
+    private final BufferInput datagramInput = new BufferInput();
+    /** Datagram payload reader. */
+    private final DataInputStream datagramReader = new DataInputStream(datagramInput);
+    /** Datagram channel (<code>null</code> if none). */
+    protected Datagram datagram;
+    /** Traffic recorder (<code>null</code> if none). */
+    private NetworkRecorder recorder;
+    /** Has datagram modes. */
+    private boolean datagramModes;
+    /** Simulated datagram loss. */
+    private double loss;
+    /** Simulated datagram latency. */
+    private int latency;
+    /** Simulated datagram jitter. */
+    private int jitter;
 
     /**
      * Internal constructor.
@@ -55,32 +80,222 @@ abstract class NetworkModel<L extends ClientListener> implements Networker<L>
     }
 
     /**
-     * Decode a message from its type.
+     * Check if at least one message type is sent over datagram.
+     * 
+     * @return <code>true</code> if datagram used, <code>false</code> else.
+     */
+    protected boolean hasDatagramModes()
+    {
+        return datagramModes;
+    }
+
+    /**
+     * Get the datagram delivery mode of the message type.
      * 
      * @param type The message type.
-     * @param from The client id source.
-     * @param dest The client id destination (-1 if all).
-     * @param buffer The data.
-     * @throws IOException Error on reading.
+     * @return The delivery mode (<code>null</code> if sent on stream).
      */
-    protected void decodeMessage(byte type, byte from, byte dest, DataInputStream buffer) throws IOException
+    protected DatagramMode getDatagramMode(byte type)
     {
-        final NetworkMessage message = decoder.getNetworkMessageFromType(type);
-        if (message != null)
+        return modes[type & 0xFF];
+    }
+
+    /**
+     * Set the datagram channel, applying simulated conditions.
+     * 
+     * @param datagram The datagram channel (<code>null</code> if none).
+     */
+    protected void setDatagram(Datagram datagram)
+    {
+        this.datagram = datagram;
+        if (datagram != null)
         {
-            final int skip = 3;
-            if (buffer.skipBytes(skip) == skip)
+            datagram.setConditions(loss, latency, jitter);
+        }
+    }
+
+    /**
+     * Start a new receive step for the recorder.
+     */
+    protected void recordTick()
+    {
+        if (recorder != null)
+        {
+            recorder.nextTick();
+        }
+    }
+
+    /**
+     * Check if traffic is recorded, to avoid preparing data when not.
+     * 
+     * @return <code>true</code> if recorder set, <code>false</code> else.
+     */
+    protected boolean hasRecorder()
+    {
+        return recorder != null;
+    }
+
+    /**
+     * Record a sent message payload.
+     * 
+     * @param payload The payload, starting with message header (position is not modified).
+     */
+    protected void recordSent(ByteBuffer payload)
+    {
+        if (recorder != null)
+        {
+            recorder.record(NetworkRecorder.OUTBOUND, -1, payload);
+        }
+    }
+
+    /**
+     * Notify metrics listeners, once per second.
+     * 
+     * @param metrics The connection metrics.
+     * @param id The client id.
+     * @param name The client name.
+     */
+    protected void notifyMetrics(ConnectionMetrics metrics, int id, String name)
+    {
+        if (!metricsListeners.isEmpty())
+        {
+            final NetworkMetrics snapshot = metrics.snapshot(id, name);
+            for (final NetworkMetricsListener listener : metricsListeners)
             {
-                message.decode(type, from, dest, buffer);
-                messagesIn.add(message);
+                listener.notifyMetrics(snapshot);
             }
         }
     }
 
+    /**
+     * Decode a received message payload.
+     * 
+     * @param payload The payload, starting with message header.
+     * @param from The expected client source, negative to accept any.
+     * @return The decoded message, <code>null</code> if rejected.
+     * @throws IOException Error on reading.
+     */
+    protected NetworkMessage decodePayload(ByteBuffer payload, int from) throws IOException
+    {
+        if (recorder != null)
+        {
+            recorder.record(NetworkRecorder.INBOUND, from, payload);
+        }
+        datagramInput.set(payload);
+        return decodeMessage(datagramReader, from);
+    }
+
+    /**
+     * Decode a received message payload, counting it in metrics.
+     * 
+     * @param payload The payload, starting with message header.
+     * @param from The expected client source, negative to accept any.
+     * @param metrics The connection metrics.
+     * @throws IOException Error on reading.
+     */
+    protected void decodePayload(ByteBuffer payload, int from, ConnectionMetrics metrics) throws IOException
+    {
+        final long start = System.nanoTime();
+        final NetworkMessage message = decodePayload(payload, from);
+        metrics.decoded(message, System.nanoTime() - start);
+    }
+
+    /**
+     * Decode a received message of known size, read in place if not recorded.
+     * 
+     * @param buffer The data, starting with message header.
+     * @param size The message size.
+     * @param from The expected client source, negative to accept any.
+     * @param metrics The connection metrics.
+     * @throws IOException Error on reading.
+     */
+    protected void decodeMessage(DataInputStream buffer, int size, int from, ConnectionMetrics metrics)
+            throws IOException
+    {
+        final long start = System.nanoTime();
+        final NetworkMessage message;
+        if (recorder == null)
+        {
+            message = decodeMessage(buffer, from);
+        }
+        else
+        {
+            final byte[] data = new byte[size];
+            buffer.readFully(data);
+            message = decodePayload(ByteBuffer.wrap(data), from);
+        }
+        metrics.decoded(message, System.nanoTime() - start);
+    }
+
+    /**
+     * Decode a message from its header.
+     * 
+     * @param buffer The data, starting with message header.
+     * @param from The expected client source, negative to accept any.
+     * @return The decoded message, <code>null</code> if rejected.
+     * @throws IOException Error on reading.
+     */
+    protected NetworkMessage decodeMessage(DataInputStream buffer, int from) throws IOException
+    {
+        final NetworkMessage message = NetworkMessage.read(decoder, buffer, from);
+        if (message != null)
+        {
+            messagesIn.add(message);
+        }
+        return message;
+    }
+
     /*
      * Networker
      */
 
+    @Override
+    public void setDatagramMode(byte type, DatagramMode mode)
+    {
+        modes[type & 0xFF] = mode;
+        boolean has = false;
+        for (final DatagramMode current : modes)
+        {
+            has |= current != null;
+        }
+        datagramModes = has;
+    }
+
+    @Override
+    public void setDatagramConditions(double loss, int latency, int jitter)
+    {
+        Check.superiorOrEqual(loss, 0.0);
+        Check.inferiorOrEqual(loss, 1.0);
+        Check.superiorOrEqual(latency, 0);
+        Check.superiorOrEqual(jitter, 0);
+
+        this.loss = loss;
+        this.latency = latency;
+        this.jitter = jitter;
+        if (datagram != null)
+        {
+            datagram.setConditions(loss, latency, jitter);
+        }
+    }
+
+    @Override
+    public void setRecorder(NetworkRecorder recorder)
+    {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void addMetricsListener(NetworkMetricsListener listener)
+    {
+        metricsListeners.add(listener);
+    }
+
+    @Override
+    public void removeMetricsListener(NetworkMetricsListener listener)
+    {
+        metricsListeners.remove(listener);
+    }
+
     @Override
     public void addListener(L listener)
     {
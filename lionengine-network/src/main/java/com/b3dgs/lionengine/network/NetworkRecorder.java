@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Verbose;
+import com.b3dgs.lionengine.network.message.UtilVarint;
+
+/**
+ * Record every user message payload received and sent by a networker into a compact append only binary log, in
+ * order to replay it later with {@link NetworkedWorldReplay}.
+ * <p>
+ * The log starts with a {@link #MAGIC} number and the protocol version, followed by one record per payload:
+ * </p>
+ * <ul>
+ * <li><code>byte</code>: direction ({@link #INBOUND} or {@link #OUTBOUND})</li>
+ * <li><code>varint</code>: tick delta since previous record, a tick being one networker receive step</li>
+ * <li><code>signed varint</code>: expected client source (negative for any)</li>
+ * <li><code>varint</code>: payload length</li>
+ * <li><code>bytes</code>: payload, as written by {@link com.b3dgs.lionengine.network.message.NetworkMessage#write}</li>
+ * </ul>
+ * <p>
+ * A write error stops the recording without interrupting the network.
+ * </p>
+ */
+public final class NetworkRecorder
+{
+    /** Log magic number. */
+    public static final int MAGIC = 0x4C4E5243;
+    /** Received payload. */
+    public static final byte INBOUND = 0;
+    /** Sent payload. */
+    public static final byte OUTBOUND = 1;
+    /** Copy buffer size. */
+    private static final int COPY_SIZE = 256;
+
+    /** Copy buffer for non array backed payloads. */
+    private final byte[] copy = new byte[COPY_SIZE];
+    /** Log output. */
+    private final DataOutputStream out;
+    /** Current tick. */
+    private int tick;
+    /** Last recorded tick. */
+    private int recorded;
+    /** Recorded payloads. */
+    private int frames;
+    /** Recording state. */
+    private boolean recording = true;
+
+    /**
+     * Create recorder.
+     * 
+     * @param media The log output.
+     * @throws LionEngineException If invalid media or unable to write.
+     */
+    public NetworkRecorder(Media media)
+    {
+        super();
+
+        Check.notNull(media);
+
+        out = new DataOutputStream(new BufferedOutputStream(media.getOutputStream()));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.write(NetworkModel.PROTOCOL_VERSION);
+        }
+        catch (final IOException exception)
+        {
+            close();
+            throw new LionEngineException(exception, media);
+        }
+    }
+
+    /**
+     * Get the current tick.
+     * 
+     * @return The current tick.
+     */
+    public int getTick()
+    {
+        return tick;
+    }
+
+    /**
+     * Get the number of recorded payloads.
+     * 
+     * @return The recorded payloads.
+     */
+    public int getFrames()
+    {
+        return frames;
+    }
+
+    /**
+     * Check if still recording.
+     * 
+     * @return <code>true</code> if recording, <code>false</code> if closed or stopped on error.
+     */
+    public boolean isRecording()
+    {
+        return recording;
+    }
+
+    /**
+     * Flush and close the log. Further payloads are ignored.
+     */
+    public void close()
+    {
+        recording = false;
+        try
+        {
+            out.close();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Unable to close network record");
+        }
+    }
+
+    /**
+     * Start a new tick, called on each networker receive step.
+     */
+    void nextTick()
+    {
+        tick++;
+    }
+
+    /**
+     * Record a payload. Payload position is not modified.
+     * 
+     * @param direction The direction ({@link #INBOUND} or {@link #OUTBOUND}).
+     * @param from The expected client source (negative for any).
+     * @param payload The payload.
+     */
+    void record(byte direction, int from, ByteBuffer payload)
+    {
+        if (!recording)
+        {
+            return;
+        }
+        try
+        {
+            final int length = payload.remaining();
+            out.write(direction);
+            UtilVarint.write(out, tick - recorded);
+            UtilVarint.writeSigned(out, from);
+            UtilVarint.write(out, length);
+            if (payload.hasArray())
+            {
+                out.write(payload.array(), payload.arrayOffset() + payload.position(), length);
+            }
+            else
+            {
+                final ByteBuffer view = payload.duplicate();
+                while (view.hasRemaining())
+                {
+                    final int count = Math.min(copy.length, view.remaining());
+                    view.get(copy, 0, count);
+                    out.write(copy, 0, count);
+                }
+            }
+            recorded = tick;
+            frames++;
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Network record stopped");
+            close();
+        }
+    }
+}
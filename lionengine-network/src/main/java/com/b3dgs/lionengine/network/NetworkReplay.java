@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Verbose;
+import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
+import com.b3dgs.lionengine.network.message.UtilVarint;
+
+/**
+ * Networker without socket, decoding payloads of a {@link NetworkRecorder} log. Each receive step decodes the payloads
+ * recorded during the next tick, as fast as called. Sent messages are discarded.
+ */
+final class NetworkReplay extends NetworkModel<ClientListener>
+{
+    /** Default payload buffer size. */
+    private static final int DEFAULT_SIZE = 1024;
+    /** Error log. */
+    private static final String ERROR_LOG = "Invalid network record: ";
+
+    /** Log media. */
+    private final Media media;
+    /** Log input. */
+    private final DataInputStream in;
+    /** Replayed direction. */
+    private final byte direction;
+    /** Payload buffer. */
+    private byte[] data = new byte[DEFAULT_SIZE];
+    /** Current tick. */
+    private int tick;
+    /** Pending record tick. */
+    private int nextTick;
+    /** Pending record direction. */
+    private byte nextDirection;
+    /** Pending record source. */
+    private int nextFrom;
+    /** Pending record length. */
+    private int nextLength;
+    /** Replayed payloads. */
+    private int frames;
+    /** Replayed bytes. */
+    private long bytes;
+    /** End reached. */
+    private boolean ended;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param decoder The message decoder.
+     * @param media The recorded log.
+     * @param direction The replayed direction ({@link NetworkRecorder#INBOUND} or {@link NetworkRecorder#OUTBOUND}).
+     * @throws LionEngineException If invalid arguments or log.
+     */
+    NetworkReplay(NetworkMessageDecoder decoder, Media media, byte direction)
+    {
+        super(decoder);
+
+        Check.notNull(decoder);
+        Check.notNull(media);
+        Check.superiorOrEqual(direction, NetworkRecorder.INBOUND);
+        Check.inferiorOrEqual(direction, NetworkRecorder.OUTBOUND);
+
+        this.media = media;
+        this.direction = direction;
+        in = new DataInputStream(new BufferedInputStream(media.getInputStream()));
+        try
+        {
+            if (in.readInt() != NetworkRecorder.MAGIC || in.readUnsignedByte() != PROTOCOL_VERSION)
+            {
+                throw new LionEngineException(media, ERROR_LOG);
+            }
+            readHeader();
+        }
+        catch (final IOException exception)
+        {
+            disconnect();
+            throw new LionEngineException(exception, media, ERROR_LOG);
+        }
+        catch (final LionEngineException exception)
+        {
+            disconnect();
+            throw exception;
+        }
+    }
+
+    /**
+     * Check if there are remaining records.
+     * 
+     * @return <code>true</code> if remaining records, <code>false</code> if end reached.
+     */
+    boolean hasNext()
+    {
+        return !ended;
+    }
+
+    /**
+     * Get the current tick.
+     * 
+     * @return The current tick.
+     */
+    int getTick()
+    {
+        return tick;
+    }
+
+    /**
+     * Get the number of replayed payloads.
+     * 
+     * @return The replayed payloads.
+     */
+    int getFrames()
+    {
+        return frames;
+    }
+
+    /**
+     * Get the number of replayed bytes.
+     * 
+     * @return The replayed bytes.
+     */
+    long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * Read the next record header. A truncated record ends the log.
+     * 
+     * @throws IOException If error on reading.
+     */
+    private void readHeader() throws IOException
+    {
+        final int value = in.read();
+        if (value < 0)
+        {
+            ended = true;
+            return;
+        }
+        try
+        {
+            nextDirection = (byte) value;
+            nextTick += UtilVarint.read(in);
+            nextFrom = UtilVarint.readSigned(in);
+            nextLength = UtilVarint.read(in);
+        }
+        catch (final EOFException exception)
+        {
+            Verbose.exception(exception, ERROR_LOG, media.getPath());
+            ended = true;
+        }
+    }
+
+    /**
+     * Read the pending record payload, and decode it if in replayed direction.
+     * 
+     * @throws IOException If error on reading.
+     */
+    private void readPayload() throws IOException
+    {
+        if (data.length < nextLength)
+        {
+            data = new byte[Math.max(data.length * 2, nextLength)];
+        }
+        try
+        {
+            in.readFully(data, 0, nextLength);
+        }
+        catch (final EOFException exception)
+        {
+            Verbose.exception(exception, ERROR_LOG, media.getPath());
+            ended = true;
+            return;
+        }
+        if (nextDirection == direction)
+        {
+            decodePayload(ByteBuffer.wrap(data, 0, nextLength), direction == NetworkRecorder.INBOUND ? nextFrom : -1);
+            frames++;
+            bytes += nextLength;
+        }
+    }
+
+    /*
+     * Networker
+     */
+
+    @Override
+    public void disconnect()
+    {
+        ended = true;
+        try
+        {
+            in.close();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, ERROR_LOG, media.getPath());
+        }
+    }
+
+    @Override
+    public void sendMessages()
+    {
+        messagesOut.clear();
+    }
+
+    @Override
+    public void receiveMessages()
+    {
+        messagesIn.clear();
+        recordTick();
+        tick++;
+        try
+        {
+            while (!ended && nextTick <= tick)
+            {
+                readPayload();
+                if (!ended)
+                {
+                    readHeader();
+                }
+            }
+        }
+        catch (final IOException exception)
+        {
+            disconnect();
+            throw new LionEngineException(exception, media, ERROR_LOG);
+        }
+    }
+
+    @Override
+    public int getBandwidth()
+    {
+        return 0;
+    }
+}
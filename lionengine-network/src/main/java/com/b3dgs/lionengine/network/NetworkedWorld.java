@@ -19,8 +19,10 @@ package com.b3dgs.lionengine.network;
 
 import java.util.Collection;
 
+import com.b3dgs.lionengine.LionEngineException;
 import com.b3dgs.lionengine.network.message.NetworkMessage;
 import com.b3dgs.lionengine.network.purview.Networkable;
+import com.b3dgs.lionengine.network.purview.Replicable;
 
 /**
  * Networkable world interface.
@@ -46,6 +48,62 @@ public interface NetworkedWorld extends ClientListener
      */
     void removeNetworkable(Networkable networkable);
 
+    /**
+     * Add a replicable entity to the world. Server side, its state is sent by snapshot deltas to each client. Client
+     * side, received state is loaded interpolated.
+     * 
+     * @param replicable The replicable entity.
+     * @throws LionEngineException If invalid replicable.
+     */
+    void addReplicable(Replicable replicable);
+
+    /**
+     * Remove a replicable entity from the world.
+     * 
+     * @param replicable The replicable entity.
+     */
+    void removeReplicable(Replicable replicable);
+
+    /**
+     * Send messages of this type over the datagram channel instead of the stream connection. Must be set before
+     * starting or connecting.
+     * 
+     * @param type The message type.
+     * @param mode The delivery mode (<code>null</code> to use stream connection).
+     */
+    void setDatagramMode(byte type, DatagramMode mode);
+
+    /**
+     * Simulate network conditions on sent datagrams, for testing purpose.
+     * 
+     * @param loss The loss ratio in <code>[0, 1]</code>.
+     * @param latency The latency in milliseconds.
+     * @param jitter The latency variation in milliseconds.
+     * @throws LionEngineException If invalid arguments.
+     */
+    void setDatagramConditions(double loss, int latency, int jitter);
+
+    /**
+     * Record received and sent user messages, until replaced. Recorder is not closed by the world.
+     * 
+     * @param recorder The recorder (<code>null</code> to stop recording).
+     */
+    void setRecorder(NetworkRecorder recorder);
+
+    /**
+     * Add a metrics listener, notified once per second with each connection metrics.
+     * 
+     * @param listener The listener.
+     */
+    void addMetricsListener(NetworkMetricsListener listener);
+
+    /**
+     * Remove a metrics listener.
+     * 
+     * @param listener The listener.
+     */
+    void removeMetricsListener(NetworkMetricsListener listener);
+
     /**
      * Add a network message.
      * 
@@ -59,5 +59,12 @@ public interface NetworkedWorldClient extends NetworkedWorld, ConnectionListener
      * 
      * @return The network id.
      */
-    byte getId();
+    int getId();
+
+    /**
+     * Get the metrics of the connection to the server.
+     * 
+     * @return The connection metrics snapshot.
+     */
+    NetworkMetrics getMetrics();
 }
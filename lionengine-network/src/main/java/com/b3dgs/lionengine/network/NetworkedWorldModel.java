@@ -20,6 +20,7 @@ package com.b3dgs.lionengine.network;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 
 import com.b3dgs.lionengine.network.message.NetworkMessage;
 import com.b3dgs.lionengine.network.purview.Networkable;
@@ -57,6 +58,14 @@ abstract class NetworkedWorldModel<L extends ClientListener, N extends NetworkMo
         willAdd = false;
     }
 
+    /**
+     * Consume a received message before it is applied to networkables.
+     * 
+     * @param message The received message.
+     * @return <code>true</code> if consumed (not applied to networkables), <code>false</code> else.
+     */
+    protected abstract boolean consume(NetworkMessage message);
+
     /**
      * Add a client connection listener.
      * 
@@ -105,6 +114,36 @@ abstract class NetworkedWorldModel<L extends ClientListener, N extends NetworkMo
         networkables.remove(networkable);
     }
 
+    @Override
+    public void setDatagramMode(byte type, DatagramMode mode)
+    {
+        network.setDatagramMode(type, mode);
+    }
+
+    @Override
+    public void setDatagramConditions(double loss, int latency, int jitter)
+    {
+        network.setDatagramConditions(loss, latency, jitter);
+    }
+
+    @Override
+    public void setRecorder(NetworkRecorder recorder)
+    {
+        network.setRecorder(recorder);
+    }
+
+    @Override
+    public void addMetricsListener(NetworkMetricsListener listener)
+    {
+        network.addMetricsListener(listener);
+    }
+
+    @Override
+    public void removeMetricsListener(NetworkMetricsListener listener)
+    {
+        network.removeMetricsListener(listener);
+    }
+
     @Override
     public void addMessage(NetworkMessage message)
     {
@@ -141,8 +180,15 @@ abstract class NetworkedWorldModel<L extends ClientListener, N extends NetworkMo
             willAdd = false;
         }
         network.receiveMessages();
-        for (final NetworkMessage message : network.getMessages())
+        final Iterator<NetworkMessage> messages = network.getMessages().iterator();
+        while (messages.hasNext())
         {
+            final NetworkMessage message = messages.next();
+            if (consume(message))
+            {
+                messages.remove();
+                continue;
+            }
             for (final Networkable networkable : networkables)
             {
                 networkable.applyMessage(message);
@@ -157,19 +203,19 @@ abstract class NetworkedWorldModel<L extends ClientListener, N extends NetworkMo
     }
 
     @Override
-    public void notifyClientConnected(Byte id, String name)
+    public void notifyClientConnected(Integer id, String name)
     {
         // Nothing to do
     }
 
     @Override
-    public void notifyClientDisconnected(Byte id, String name)
+    public void notifyClientDisconnected(Integer id, String name)
     {
         // Nothing to do
     }
 
     @Override
-    public void notifyClientNameChanged(Byte id, String name)
+    public void notifyClientNameChanged(Integer id, String name)
     {
         // Nothing to do
     }
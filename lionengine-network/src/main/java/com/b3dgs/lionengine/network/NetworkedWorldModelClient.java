@@ -17,7 +17,9 @@
  */
 package com.b3dgs.lionengine.network;
 
+import com.b3dgs.lionengine.network.message.NetworkMessage;
 import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
+import com.b3dgs.lionengine.network.purview.Replicable;
 
 /**
  * Networkable world implementation client side.
@@ -25,6 +27,9 @@ import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
 public class NetworkedWorldModelClient extends NetworkedWorldModel<ConnectionListener, ClientImpl>
                                        implements NetworkedWorldClient
 {
+    /** Snapshot replication. */
+    private final ReplicationClient replication = new ReplicationClient();
+
     /**
      * Constructor.
      * 
@@ -32,7 +37,7 @@ public class NetworkedWorldModelClient extends NetworkedWorldModel<ConnectionLis
      */
     public NetworkedWorldModelClient(NetworkMessageDecoder decoder)
     {
-        super(new ClientImpl(decoder));
+        super(new ClientImpl(new ReplicationDecoder(decoder)));
     }
 
     /*
@@ -57,6 +62,39 @@ public class NetworkedWorldModelClient extends NetworkedWorldModel<ConnectionLis
         network.removeListener(this);
     }
 
+    @Override
+    public void addReplicable(Replicable replicable)
+    {
+        replication.add(replicable);
+    }
+
+    @Override
+    public void removeReplicable(Replicable replicable)
+    {
+        replication.remove(replicable);
+    }
+
+    @Override
+    public void receiveMessages()
+    {
+        super.receiveMessages();
+        replication.update();
+    }
+
+    @Override
+    protected boolean consume(NetworkMessage message)
+    {
+        if (message instanceof SnapshotMessage)
+        {
+            if (replication.receive((SnapshotMessage) message))
+            {
+                network.addMessage(new SnapshotAckMessage(network.getId(), ((SnapshotMessage) message).getTick()));
+            }
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public void setName(String name)
     {
@@ -76,17 +114,23 @@ public class NetworkedWorldModelClient extends NetworkedWorldModel<ConnectionLis
     }
 
     @Override
-    public byte getId()
+    public int getId()
     {
         return network.getId();
     }
 
+    @Override
+    public NetworkMetrics getMetrics()
+    {
+        return network.getMetrics();
+    }
+
     /*
      * ConnectionListener
      */
 
     @Override
-    public void notifyConnectionEstablished(Byte id, String name)
+    public void notifyConnectionEstablished(Integer id, String name)
     {
         // Nothing to do
     }
@@ -98,7 +142,7 @@ public class NetworkedWorldModelClient extends NetworkedWorldModel<ConnectionLis
     }
 
     @Override
-    public void notifyConnectionTerminated(Byte id)
+    public void notifyConnectionTerminated(Integer id)
     {
         // Nothing to do
     }
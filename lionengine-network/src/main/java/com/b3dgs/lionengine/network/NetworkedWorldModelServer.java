@@ -17,14 +17,23 @@
  */
 package com.b3dgs.lionengine.network;
 
+import com.b3dgs.lionengine.Localizable;
+import com.b3dgs.lionengine.network.message.NetworkMessage;
 import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
+import com.b3dgs.lionengine.network.purview.Networkable;
+import com.b3dgs.lionengine.network.purview.Replicable;
 
 /**
  * Networkable world implementation server side.
  */
-public class NetworkedWorldModelServer extends NetworkedWorldModel<ClientListener, ServerImpl>
+public class NetworkedWorldModelServer extends NetworkedWorldModel<ClientListener, ServerModel<?>>
                                        implements NetworkedWorldServer
 {
+    /** Snapshot replication. */
+    private final ReplicationServer replication = new ReplicationServer();
+    /** Area of interest. */
+    private final Interest interest = new Interest(Interest.DEFAULT_CELL_SIZE);
+
     /**
      * Constructor.
      * 
@@ -32,7 +41,21 @@ public class NetworkedWorldModelServer extends NetworkedWorldModel<ClientListene
      */
     public NetworkedWorldModelServer(NetworkMessageDecoder decoder)
     {
-        super(new ServerImpl(decoder));
+        this(decoder, false);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param decoder The decoder reference.
+     * @param nonBlocking <code>true</code> to use a selector over non blocking channels, <code>false</code> to use one
+     *            blocking socket per client.
+     */
+    public NetworkedWorldModelServer(NetworkMessageDecoder decoder, boolean nonBlocking)
+    {
+        super(nonBlocking ? new ServerNio(new ReplicationDecoder(decoder))
+                          : new ServerImpl(new ReplicationDecoder(decoder)));
+        network.setInterest(interest);
     }
 
     /*
@@ -57,4 +80,100 @@ public class NetworkedWorldModelServer extends NetworkedWorldModel<ClientListene
         super.disconnect();
         network.removeListener(this);
     }
+
+    @Override
+    public void setInterest(Networkable networkable, Localizable position)
+    {
+        interest.locate(networkable, position);
+    }
+
+    @Override
+    public void setInterestView(Integer clientId, double x, double y, double width, double height)
+    {
+        interest.setView(clientId.intValue(), x, y, width, height);
+    }
+
+    @Override
+    public void addToGroup(int group, Integer clientId)
+    {
+        network.addToGroup(group, clientId);
+    }
+
+    @Override
+    public void removeFromGroup(int group, Integer clientId)
+    {
+        network.removeFromGroup(group, clientId);
+    }
+
+    @Override
+    public void addInterestListener(InterestListener listener)
+    {
+        interest.addListener(listener);
+    }
+
+    @Override
+    public NetworkMetrics getMetrics(Integer clientId)
+    {
+        return network.getMetrics(clientId);
+    }
+
+    @Override
+    public void removeNetworkable(Networkable networkable)
+    {
+        super.removeNetworkable(networkable);
+        interest.remove(networkable);
+    }
+
+    @Override
+    public void addReplicable(Replicable replicable)
+    {
+        replication.add(replicable);
+    }
+
+    @Override
+    public void removeReplicable(Replicable replicable)
+    {
+        replication.remove(replicable);
+    }
+
+    @Override
+    public void sendMessages()
+    {
+        replication.update(network);
+        interest.update();
+        for (final Networkable networkable : networkables)
+        {
+            interest.track(networkable, networkable.getNetworkMessages());
+        }
+        super.sendMessages();
+        interest.clearTracked();
+    }
+
+    @Override
+    protected boolean consume(NetworkMessage message)
+    {
+        if (message instanceof SnapshotAckMessage)
+        {
+            replication.acknowledge((SnapshotAckMessage) message);
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * ClientListener
+     */
+
+    @Override
+    public void notifyClientConnected(Integer id, String name)
+    {
+        replication.connect(id.intValue());
+    }
+
+    @Override
+    public void notifyClientDisconnected(Integer id, String name)
+    {
+        replication.disconnect(id.intValue());
+        interest.removeClient(id.intValue());
+    }
 }
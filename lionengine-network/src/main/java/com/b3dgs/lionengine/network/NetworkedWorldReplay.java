@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
+import com.b3dgs.lionengine.network.purview.Replicable;
+
+/**
+ * Networked world replaying a {@link NetworkRecorder} log without socket, at full speed. Each
+ * {@link #receiveMessages()} applies the messages recorded during the next tick to the networkables, and snapshots to
+ * the replicables without interpolation, in order to reproduce a recorded session deterministically. Sent messages are
+ * discarded.
+ * <p>
+ * Replaying the {@link NetworkRecorder#OUTBOUND} payloads of a server log reproduces what its clients received.
+ * </p>
+ */
+public class NetworkedWorldReplay extends NetworkedWorldModel<ClientListener, NetworkReplay>
+{
+    /** Snapshot replication. */
+    private final ReplicationClient replication = new ReplicationClient(false);
+
+    /**
+     * Constructor.
+     * 
+     * @param decoder The decoder reference.
+     * @param media The recorded log.
+     * @param direction The replayed direction ({@link NetworkRecorder#INBOUND} or {@link NetworkRecorder#OUTBOUND}).
+     * @throws LionEngineException If invalid arguments or log.
+     */
+    public NetworkedWorldReplay(NetworkMessageDecoder decoder, Media media, byte direction)
+    {
+        super(new NetworkReplay(new ReplicationDecoder(decoder), media, direction));
+    }
+
+    /**
+     * Check if there are remaining ticks to replay.
+     * 
+     * @return <code>true</code> if remaining ticks, <code>false</code> if end reached.
+     */
+    public boolean hasNext()
+    {
+        return network.hasNext();
+    }
+
+    /**
+     * Replay all remaining ticks, applying and discarding messages for each one.
+     * 
+     * @throws LionEngineException If invalid log.
+     */
+    public void replay()
+    {
+        while (network.hasNext())
+        {
+            receiveMessages();
+            sendMessages();
+        }
+    }
+
+    /**
+     * Get the current tick.
+     * 
+     * @return The current tick.
+     */
+    public int getTick()
+    {
+        return network.getTick();
+    }
+
+    /**
+     * Get the number of replayed payloads.
+     * 
+     * @return The replayed payloads.
+     */
+    public int getFrames()
+    {
+        return network.getFrames();
+    }
+
+    /**
+     * Get the number of replayed bytes.
+     * 
+     * @return The replayed bytes.
+     */
+    public long getBytes()
+    {
+        return network.getBytes();
+    }
+
+    /*
+     * NetworkedWorld
+     */
+
+    @Override
+    public void addReplicable(Replicable replicable)
+    {
+        replication.add(replicable);
+    }
+
+    @Override
+    public void removeReplicable(Replicable replicable)
+    {
+        replication.remove(replicable);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws LionEngineException If invalid log.
+     */
+    @Override
+    public void receiveMessages()
+    {
+        super.receiveMessages();
+        replication.update();
+    }
+
+    @Override
+    protected boolean consume(NetworkMessage message)
+    {
+        if (message instanceof SnapshotMessage)
+        {
+            replication.receive((SnapshotMessage) message);
+            return true;
+        }
+        return message instanceof SnapshotAckMessage;
+    }
+}
@@ -18,6 +18,9 @@
 package com.b3dgs.lionengine.network;
 
 import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Localizable;
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+import com.b3dgs.lionengine.network.purview.Networkable;
 
 /**
  * Networkable world interface server side.
@@ -33,4 +36,59 @@ public interface NetworkedWorldServer extends NetworkedWorld
      * @throws LionEngineException If unable to start server.
      */
     void startServer(String name, int port, String messageOfTheDay);
+
+    /**
+     * Locate a networkable (typically its transformable), in order to only send its messages to the clients which
+     * view contains it. Networkable must have been added.
+     * 
+     * @param networkable The networkable entity.
+     * @param position The networkable position.
+     * @throws LionEngineException If invalid arguments.
+     */
+    void setInterest(Networkable networkable, Localizable position);
+
+    /**
+     * Set the client area of interest (typically its camera). A client without view receives all messages.
+     * 
+     * @param clientId The client id.
+     * @param x The horizontal location.
+     * @param y The vertical location.
+     * @param width The view width.
+     * @param height The view height.
+     * @throws LionEngineException If invalid client id.
+     */
+    void setInterestView(Integer clientId, double x, double y, double width, double height);
+
+    /**
+     * Add a client to a destination group. Messages sent to {@link NetworkMessage#toGroup(int)} are only sent to the
+     * group members.
+     * 
+     * @param group The group id (must be positive).
+     * @param clientId The client id (must not be <code>null</code>).
+     * @throws LionEngineException If invalid arguments.
+     */
+    void addToGroup(int group, Integer clientId);
+
+    /**
+     * Remove a client from a destination group.
+     * 
+     * @param group The group id.
+     * @param clientId The client id.
+     */
+    void removeFromGroup(int group, Integer clientId);
+
+    /**
+     * Add an interest listener, notified when a located networkable enters or leaves a client view.
+     * 
+     * @param listener The listener to add.
+     */
+    void addInterestListener(InterestListener listener);
+
+    /**
+     * Get the metrics of a client connection.
+     * 
+     * @param clientId The client id.
+     * @return The client metrics snapshot, <code>null</code> if unknown client.
+     */
+    NetworkMetrics getMetrics(Integer clientId);
 }
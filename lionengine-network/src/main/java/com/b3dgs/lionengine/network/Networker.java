@@ -19,6 +19,7 @@ package com.b3dgs.lionengine.network;
 
 import java.util.Collection;
 
+import com.b3dgs.lionengine.LionEngineException;
 import com.b3dgs.lionengine.network.message.NetworkMessage;
 
 /**
@@ -33,6 +34,46 @@ interface Networker<L extends ClientListener>
      */
     void disconnect();
 
+    /**
+     * Send messages of this type over the datagram channel instead of the stream connection. Must be set before
+     * starting or connecting. Messages which do not fit in a single datagram are sent over the stream connection.
+     * 
+     * @param type The message type.
+     * @param mode The delivery mode (<code>null</code> to use stream connection).
+     */
+    void setDatagramMode(byte type, DatagramMode mode);
+
+    /**
+     * Simulate network conditions on sent datagrams, for testing purpose.
+     * 
+     * @param loss The loss ratio in <code>[0, 1]</code>.
+     * @param latency The latency in milliseconds.
+     * @param jitter The latency variation in milliseconds.
+     * @throws LionEngineException If invalid arguments.
+     */
+    void setDatagramConditions(double loss, int latency, int jitter);
+
+    /**
+     * Record received and sent user messages, until replaced. Recorder is not closed by the networker.
+     * 
+     * @param recorder The recorder (<code>null</code> to stop recording).
+     */
+    void setRecorder(NetworkRecorder recorder);
+
+    /**
+     * Add a metrics listener, notified once per second with each connection metrics.
+     * 
+     * @param listener The listener.
+     */
+    void addMetricsListener(NetworkMetricsListener listener);
+
+    /**
+     * Remove a metrics listener.
+     * 
+     * @param listener The listener.
+     */
+    void removeMetricsListener(NetworkMetricsListener listener);
+
     /**
      * Add a client connection listener.
      * 
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.network.purview.Replicable;
+
+/**
+ * Replication client side. Received deltas are applied on the baseline snapshot kept in a ring, and replicables state
+ * is interpolated between the two last snapshots, depending of the time elapsed since the last one.
+ */
+final class ReplicationClient
+{
+    /** Replicables sorted by id. */
+    private final Map<Integer, Replicable> replicables = new TreeMap<>();
+    /** Snapshots ring, indexed by tick. */
+    private final Snapshot[] snapshots = new Snapshot[ReplicationServer.SNAPSHOTS];
+    /** Interpolated states cache, by fields number. */
+    private final double[][] states = new double[Replicable.MAX_FIELDS + 1][];
+    /** Interpolate between snapshots, else load latest. */
+    private final boolean interpolate;
+    /** Previous snapshot. */
+    private Snapshot previous;
+    /** Latest snapshot. */
+    private Snapshot latest;
+    /** Previous snapshot reception time. */
+    private long previousTime;
+    /** Latest snapshot reception time. */
+    private long latestTime;
+
+    /**
+     * Internal constructor.
+     */
+    ReplicationClient()
+    {
+        this(true);
+    }
+
+    /**
+     * Internal constructor.
+     * 
+     * @param interpolate <code>true</code> to interpolate between snapshots, <code>false</code> to load latest
+     *            snapshot only (deterministic, independent of reception time).
+     */
+    ReplicationClient(boolean interpolate)
+    {
+        super();
+
+        this.interpolate = interpolate;
+    }
+
+    /**
+     * Add a replicable.
+     * 
+     * @param replicable The replicable to add.
+     * @throws LionEngineException If invalid replicable.
+     */
+    void add(Replicable replicable)
+    {
+        ReplicationServer.check(replicable);
+        replicables.put(Integer.valueOf(replicable.getReplicationId()), replicable);
+    }
+
+    /**
+     * Remove a replicable.
+     * 
+     * @param replicable The replicable to remove.
+     */
+    void remove(Replicable replicable)
+    {
+        replicables.remove(Integer.valueOf(replicable.getReplicationId()));
+    }
+
+    /**
+     * Receive a snapshot delta.
+     * 
+     * @param message The snapshot message.
+     * @return <code>true</code> if snapshot rebuilt and must be acknowledged, <code>false</code> if baseline missing.
+     */
+    boolean receive(SnapshotMessage message)
+    {
+        final int tick = message.getTick();
+        if (latest != null && tick <= latest.getTick())
+        {
+            return false;
+        }
+        final Snapshot base = getSnapshot(message.getBaseline());
+        if (message.getBaseline() >= 0 && base == null)
+        {
+            return false;
+        }
+        final int index = tick % ReplicationServer.SNAPSHOTS;
+        if (snapshots[index] == null)
+        {
+            snapshots[index] = new Snapshot();
+        }
+        message.apply(base, snapshots[index]);
+
+        previous = latest;
+        previousTime = latestTime;
+        latest = snapshots[index];
+        latestTime = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Load replicables state, interpolated between the two last snapshots.
+     */
+    void update()
+    {
+        if (latest == null)
+        {
+            return;
+        }
+        final double alpha = getAlpha();
+        for (final Replicable replicable : replicables.values())
+        {
+            final int id = replicable.getReplicationId();
+            final int last = latest.indexOf(id);
+            if (last < 0)
+            {
+                continue;
+            }
+            final double[] to = latest.getState(last);
+            final int before = previous == null ? -1 : previous.indexOf(id);
+            if (before < 0 || previous.getState(before).length != to.length || alpha >= 1.0)
+            {
+                replicable.loadState(getState(to.length, to));
+            }
+            else
+            {
+                final double[] from = previous.getState(before);
+                final double[] state = getState(to.length, null);
+                for (int i = 0; i < state.length; i++)
+                {
+                    state[i] = from[i] + (to[i] - from[i]) * alpha;
+                }
+                replicable.loadState(state);
+            }
+        }
+    }
+
+    /**
+     * Get the interpolation factor between previous and latest snapshot.
+     * 
+     * @return The interpolation factor in <code>[0, 1]</code>.
+     */
+    private double getAlpha()
+    {
+        final long interval = latestTime - previousTime;
+        if (!interpolate || previous == null || interval <= 0L)
+        {
+            return 1.0;
+        }
+        return Math.min(1.0, (System.nanoTime() - latestTime) / (double) interval);
+    }
+
+    /**
+     * Get the cached state to load.
+     * 
+     * @param fields The number of fields.
+     * @param source The source to copy (<code>null</code> for none).
+     * @return The state to load.
+     */
+    private double[] getState(int fields, double[] source)
+    {
+        if (states[fields] == null)
+        {
+            states[fields] = new double[fields];
+        }
+        if (source != null)
+        {
+            System.arraycopy(source, 0, states[fields], 0, fields);
+        }
+        return states[fields];
+    }
+
+    /**
+     * Get the snapshot of the tick.
+     * 
+     * @param tick The snapshot tick.
+     * @return The snapshot, <code>null</code> if not available.
+     */
+    private Snapshot getSnapshot(int tick)
+    {
+        if (tick < 0)
+        {
+            return null;
+        }
+        final Snapshot snapshot = snapshots[tick % ReplicationServer.SNAPSHOTS];
+        if (snapshot != null && snapshot.getTick() == tick)
+        {
+            return snapshot;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.network.purview.Replicable;
+
+/**
+ * Replication server side. A snapshot is taken at each update and kept in a ring, and each client receives the delta
+ * against the last snapshot it acknowledged (or a full one if too old or none).
+ */
+final class ReplicationServer
+{
+    /** Number of kept snapshots. */
+    static final int SNAPSHOTS = 32;
+    /** Default clients capacity. */
+    private static final int DEFAULT_CLIENTS = 16;
+
+    /**
+     * Check replicable validity.
+     * 
+     * @param replicable The replicable to check.
+     * @throws LionEngineException If invalid replicable.
+     */
+    static void check(Replicable replicable)
+    {
+        Check.notNull(replicable);
+        Check.superiorOrEqual(replicable.getReplicationId(), 0);
+        Check.superiorStrict(replicable.getReplicatedFields(), 0);
+        Check.inferiorOrEqual(replicable.getReplicatedFields(), Replicable.MAX_FIELDS);
+    }
+
+    /** Replicables sorted by id. */
+    private final Map<Integer, Replicable> replicables = new TreeMap<>();
+    /** Snapshots ring, indexed by tick. */
+    private final Snapshot[] snapshots = new Snapshot[SNAPSHOTS];
+    /** Connected clients. */
+    private final BitSet clients = new BitSet();
+    /** Last acknowledged tick by client id (-1 if none). */
+    private int[] acks = new int[DEFAULT_CLIENTS];
+    /** Current tick. */
+    private int tick = -1;
+
+    /**
+     * Internal constructor.
+     */
+    ReplicationServer()
+    {
+        super();
+    }
+
+    /**
+     * Add a replicable.
+     * 
+     * @param replicable The replicable to add.
+     * @throws LionEngineException If invalid replicable.
+     */
+    void add(Replicable replicable)
+    {
+        check(replicable);
+        replicables.put(Integer.valueOf(replicable.getReplicationId()), replicable);
+    }
+
+    /**
+     * Remove a replicable.
+     * 
+     * @param replicable The replicable to remove.
+     */
+    void remove(Replicable replicable)
+    {
+        replicables.remove(Integer.valueOf(replicable.getReplicationId()));
+    }
+
+    /**
+     * Notify client connected.
+     * 
+     * @param id The client id.
+     */
+    void connect(int id)
+    {
+        if (id >= 0)
+        {
+            if (id >= acks.length)
+            {
+                acks = Arrays.copyOf(acks, Math.max(acks.length * 2, id + 1));
+            }
+            clients.set(id);
+            acks[id] = -1;
+        }
+    }
+
+    /**
+     * Notify client disconnected.
+     * 
+     * @param id The client id.
+     */
+    void disconnect(int id)
+    {
+        if (id >= 0)
+        {
+            clients.clear(id);
+        }
+    }
+
+    /**
+     * Acknowledge a snapshot received by client.
+     * 
+     * @param ack The acknowledge message.
+     */
+    void acknowledge(SnapshotAckMessage ack)
+    {
+        final int id = ack.getClientId();
+        if (id >= 0 && clients.get(id) && ack.getTick() > acks[id] && ack.getTick() <= tick)
+        {
+            acks[id] = ack.getTick();
+        }
+    }
+
+    /**
+     * Take a snapshot and add the delta message of each client.
+     * 
+     * @param network The network reference.
+     */
+    void update(Networker<?> network)
+    {
+        if (replicables.isEmpty())
+        {
+            return;
+        }
+        tick++;
+        final int index = tick % SNAPSHOTS;
+        if (snapshots[index] == null)
+        {
+            snapshots[index] = new Snapshot();
+        }
+        final Snapshot current = snapshots[index];
+        current.clear(tick);
+        for (final Replicable replicable : replicables.values())
+        {
+            replicable.saveState(current.add(replicable.getReplicationId(), replicable.getReplicatedFields()));
+        }
+        for (int id = clients.nextSetBit(0); id >= 0; id = clients.nextSetBit(id + 1))
+        {
+            network.addMessage(new SnapshotMessage(current, getBaseline(acks[id]), id));
+        }
+    }
+
+    /**
+     * Get the baseline snapshot.
+     * 
+     * @param ack The acknowledged tick.
+     * @return The baseline snapshot, <code>null</code> if none available.
+     */
+    private Snapshot getBaseline(int ack)
+    {
+        if (ack < 0 || tick - ack >= SNAPSHOTS)
+        {
+            return null;
+        }
+        final Snapshot snapshot = snapshots[ack % SNAPSHOTS];
+        if (snapshot.getTick() == ack)
+        {
+            return snapshot;
+        }
+        return null;
+    }
+}
@@ -18,6 +18,7 @@
 package com.b3dgs.lionengine.network;
 
 import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.network.message.NetworkMessage;
 
 /**
  * List of services provided by a server.
@@ -45,7 +46,25 @@ interface Server extends Networker<ClientListener>
      * 
      * @param clientId The client id.
      */
-    void removeClient(Byte clientId);
+    void removeClient(Integer clientId);
+
+    /**
+     * Add a client to a destination group. Messages sent to {@link NetworkMessage#toGroup(int)} are only sent to the
+     * group members. Members are removed from their groups on disconnection.
+     * 
+     * @param group The group id (must be positive).
+     * @param clientId The client id (must not be <code>null</code>).
+     * @throws LionEngineException If invalid arguments.
+     */
+    void addToGroup(int group, Integer clientId);
+
+    /**
+     * Remove a client from a destination group.
+     * 
+     * @param group The group id.
+     * @param clientId The client id.
+     */
+    void removeFromGroup(int group, Integer clientId);
 
     /**
      * Get the number of client.
@@ -54,6 +73,28 @@ interface Server extends Networker<ClientListener>
      */
     int getNumberOfClients();
 
+    /**
+     * Get the number of messages decoded during last {@link #receiveMessages()}.
+     * 
+     * @return The number of messages received.
+     */
+    int getReceivedMessages();
+
+    /**
+     * Get the number of bytes consumed by messages decoded during last {@link #receiveMessages()}.
+     * 
+     * @return The number of bytes received.
+     */
+    int getReceivedBytes();
+
+    /**
+     * Get the metrics of a client connection.
+     * 
+     * @param clientId The client id.
+     * @return The client metrics snapshot, <code>null</code> if unknown client.
+     */
+    NetworkMetrics getMetrics(Integer clientId);
+
     /**
      * Get the server port.
      * 
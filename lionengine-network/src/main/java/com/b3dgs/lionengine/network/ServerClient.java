@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Client seen from the server side, whatever the underlying transport.
+ */
+interface ServerClient
+{
+    /**
+     * Set the connection state.
+     * 
+     * @param state The connection state.
+     */
+    void setState(StateConnection state);
+
+    /**
+     * Get the current connection state.
+     * 
+     * @return The connection state.
+     */
+    StateConnection getState();
+
+    /**
+     * Set the client name.
+     * 
+     * @param name The client name.
+     */
+    void setName(String name);
+
+    /**
+     * Get the client name.
+     * 
+     * @return The client name.
+     */
+    String getName();
+
+    /**
+     * Terminate client.
+     */
+    void terminate();
+
+    /**
+     * Send message to the client. It may be queued until next {@link #flush()}, which is also performed on
+     * {@link #terminate()}.
+     * 
+     * @param data The messages data.
+     */
+    void sendMessage(byte data);
+
+    /**
+     * Queue an encoded message record, sent on next {@link #flush()}. Output stream must have been flushed before.
+     * 
+     * @param record The encoded message record, shared between recipients (must not be modified).
+     * @throws IOException If error when writing.
+     */
+    void send(ByteBuffer record) throws IOException;
+
+    /**
+     * Send all pending data.
+     * 
+     * @throws IOException If error when writing.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Get the output stream.
+     * 
+     * @return The output stream.
+     */
+    ObjectOutputStream getOut();
+
+    /**
+     * Get the bytes waiting to be sent, after last {@link #flush()}.
+     * 
+     * @return The send queue depth in bytes.
+     */
+    int getQueueDepth();
+
+    /**
+     * Get the connection metrics.
+     * 
+     * @return The connection metrics.
+     */
+    ConnectionMetrics getMetrics();
+
+    /**
+     * Get the client id.
+     * 
+     * @return The client id.
+     */
+    int getId();
+}
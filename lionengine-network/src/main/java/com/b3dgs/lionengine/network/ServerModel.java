@@ -0,0 +1,1028 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
+import com.b3dgs.lionengine.Timing;
+import com.b3dgs.lionengine.Verbose;
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
+import com.b3dgs.lionengine.network.message.UtilVarint;
+
+/**
+ * Server base implementation, handling the connection protocol and messages dispatching whatever the transport.
+ * 
+ * @param <C> The client type.
+ */
+// CHECKSTYLE IGNORE LINE: ClassDataAbstractionCoupling
+abstract class ServerModel<C extends ServerClient> extends NetworkModel<ClientListener> implements Server
+{
+    /** Server name log. */
+    private static final String SERVER = "Server: ";
+    /** Default clients capacity. */
+    private static final int DEFAULT_CLIENTS = 16;
+
+    /**
+     * Send the id and the name to the client.
+     * 
+     * @param client The client to send to.
+     * @param id The id to send.
+     * @param name The name to send.
+     * @throws IOException In case of error.
+     */
+    private static void writeIdAndName(ServerClient client, int id, String name) throws IOException
+    {
+        // New client id
+        UtilVarint.write(client.getOut(), id);
+        // New client name
+        final byte[] data = name.getBytes(NetworkMessage.CHARSET);
+        client.getOut().writeByte(data.length);
+        client.getOut().write(data);
+    }
+
+    /**
+     * Check if the client is in a valid state.
+     * 
+     * @param client The client to test.
+     * @param from The client id.
+     * @param expected The expected client state.
+     * @return <code>true</code> if valid, <code>false</code> else.
+     */
+    private static boolean checkValidity(ServerClient client, int from, StateConnection expected)
+    {
+        return from >= 0 && client.getState() == expected;
+    }
+
+    /**
+     * Read a client name, its length sent on one signed byte.
+     * 
+     * @param buffer The data buffer.
+     * @return The client name.
+     * @throws IOException If negative length or unable to read name.
+     */
+    private static String readName(DataInputStream buffer) throws IOException
+    {
+        final int length = buffer.readByte();
+        if (length < 0)
+        {
+            throw new IOException("Invalid client name length: " + length);
+        }
+        final byte[] name = new byte[length];
+        buffer.readFully(name);
+        return new String(name, NetworkMessage.CHARSET);
+    }
+
+    /** Client list. */
+    protected final Map<Integer, C> clients;
+    /** Remove list. */
+    private final Collection<C> toRemove;
+    /** Average bandwidth. */
+    private final Timing bandwidthTimer;
+    /** Messages encoder. */
+    private final MessageEncoder encoder;
+    /** Destination groups members by group id. */
+    private final Map<Integer, BitSet> groups;
+    /** Datagram connections by remote address. */
+    private final Map<SocketAddress, DatagramConnection> addresses;
+    /** Datagram hello acknowledge packet. */
+    private final ByteBuffer helloAck;
+    /** Datagram hello tokens generator. */
+    private final Random random;
+    /** Datagram connections by client id. */
+    private DatagramConnection[] connections;
+    /** Datagram hello tokens by client id. */
+    private int[] tokens;
+    /** Released client ids, reused first. */
+    private int[] freeIds;
+    /** Number of released client ids. */
+    private int freeCount;
+    /** Next never used client id. */
+    private int nextFreshId;
+    /** Interest management (<code>null</code> if none). */
+    private Interest interest;
+    /** Current port. */
+    private int port;
+    /** Message of the day. */
+    private String messageOfTheDay;
+    /** Number of clients. */
+    private int clientsNumber;
+    /** Started flag. */
+    private boolean started;
+    /** Will remove a client. */
+    private boolean willRemove;
+    /** Bandwidth size. */
+    private int bandwidth;
+    /** Bandwidth per second. */
+    private int bandwidthPerSecond;
+    /** Messages decoded during last receive. */
+    private int receivedMessages;
+    /** Bytes consumed during last receive. */
+    private int receivedBytes;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param decoder The message decoder.
+     */
+    ServerModel(NetworkMessageDecoder decoder)
+    {
+        super(decoder);
+        clients = new HashMap<>(1);
+        toRemove = new HashSet<>(1);
+        bandwidthTimer = new Timing();
+        encoder = new MessageEncoder();
+        groups = new HashMap<>();
+        connections = new DatagramConnection[DEFAULT_CLIENTS];
+        tokens = new int[DEFAULT_CLIENTS];
+        freeIds = new int[DEFAULT_CLIENTS];
+        addresses = new HashMap<>(1);
+        helloAck = ByteBuffer.allocate(1);
+        random = new SecureRandom();
+        willRemove = false;
+        clientsNumber = 0;
+        messageOfTheDay = null;
+        port = -1;
+        started = false;
+        bandwidth = 0;
+    }
+
+    /**
+     * Set the interest management, filtering messages sent to all clients.
+     * 
+     * @param interest The interest management (<code>null</code> to disable).
+     */
+    void setInterest(Interest interest)
+    {
+        this.interest = interest;
+    }
+
+    /**
+     * Open the transport and start listening to client connection.
+     * 
+     * @param port The port number.
+     * @throws IOException If unable to open transport.
+     */
+    protected abstract void open(int port) throws IOException;
+
+    /**
+     * Close the transport, once all clients have been kicked.
+     */
+    protected abstract void close();
+
+    /**
+     * Get the next free client id, reusing released ones first. Can be called from an accepting thread.
+     * 
+     * @return The client id.
+     */
+    protected synchronized int nextId()
+    {
+        if (freeCount > 0)
+        {
+            freeCount--;
+            return freeIds[freeCount];
+        }
+        return nextFreshId++;
+    }
+
+    /**
+     * Release a client id, in order to be reused.
+     * 
+     * @param id The client id.
+     */
+    protected synchronized void releaseId(int id)
+    {
+        if (freeCount == freeIds.length)
+        {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount] = id;
+        freeCount++;
+    }
+
+    /**
+     * Get the datagram connection of the client.
+     * 
+     * @param id The client id.
+     * @return The datagram connection, <code>null</code> if none.
+     */
+    private DatagramConnection getConnection(int id)
+    {
+        if (id >= 0 && id < connections.length)
+        {
+            return connections[id];
+        }
+        return null;
+    }
+
+    /**
+     * Check if client is a recipient of the message.
+     * 
+     * @param message The message to send.
+     * @param group The message group members (<code>null</code> if not sent to a group).
+     * @param id The client id.
+     * @return <code>true</code> if recipient, <code>false</code> else.
+     */
+    private boolean isRecipient(NetworkMessage message, BitSet group, int id)
+    {
+        final int dest = message.getClientDestId();
+        if (dest == NetworkMessage.ALL)
+        {
+            return interest == null || interest.isInterested(message, id);
+        }
+        if (NetworkMessage.isGroup(dest))
+        {
+            return group != null && group.get(id);
+        }
+        return dest == id;
+    }
+
+    /**
+     * Add a client, and send its first data.
+     * 
+     * @param client The client to add.
+     */
+    protected void addClient(C client)
+    {
+        try
+        {
+            // Prepare first data
+            client.setState(StateConnection.CONNECTING);
+            client.getOut().writeByte(NetworkMessageSystemId.CONNECTING);
+            client.getOut().writeByte(PROTOCOL_VERSION);
+            UtilVarint.write(client.getOut(), client.getId());
+            client.getOut().flush();
+
+            // Update list
+            clients.put(Integer.valueOf(client.getId()), client);
+            clientsNumber++;
+        }
+        catch (final IOException exception)
+        {
+            Verbose.warning(Server.class, "addClient", "Error on adding client: ", exception.getMessage());
+            client.terminate();
+            releaseId(client.getId());
+        }
+    }
+
+    /**
+     * Remove a client from the server.
+     * 
+     * @param client The client to remove.
+     */
+    protected void removeClient(C client)
+    {
+        if (client != null && toRemove.add(client))
+        {
+            client.terminate();
+            clientsNumber--;
+            willRemove = true;
+            Verbose.info(SERVER, client.getName(), " disconnected");
+        }
+    }
+
+    /**
+     * Remove clients marked as removed.
+     */
+    protected void removeDeleted()
+    {
+        if (willRemove)
+        {
+            for (final C client : toRemove)
+            {
+                final int id = client.getId();
+                clients.remove(Integer.valueOf(id));
+                final DatagramConnection connection = getConnection(id);
+                if (connection != null)
+                {
+                    addresses.remove(connection.getRemote());
+                    connections[id] = null;
+                }
+                if (id < tokens.length)
+                {
+                    tokens[id] = 0;
+                }
+                for (final BitSet members : groups.values())
+                {
+                    members.clear(id);
+                }
+                releaseId(id);
+            }
+            toRemove.clear();
+            willRemove = false;
+        }
+    }
+
+    /**
+     * Prepare a new receive step, clearing last received messages and counters.
+     */
+    protected void prepareReceive()
+    {
+        messagesIn.clear();
+        receivedMessages = 0;
+        receivedBytes = 0;
+        recordTick();
+    }
+
+    /**
+     * Receive all pending datagrams, and send delayed ones. Must be called after streams receive, before
+     * {@link #removeDeleted()}.
+     */
+    protected void receiveDatagrams()
+    {
+        if (datagram == null)
+        {
+            return;
+        }
+        try
+        {
+            SocketAddress remote = datagram.receive();
+            while (remote != null)
+            {
+                receiveDatagram(remote, datagram.getReceived());
+                remote = datagram.receive();
+            }
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Error on receiving datagram");
+        }
+        datagram.update();
+    }
+
+    /**
+     * Read the message header and update the message depending of its ID.
+     * 
+     * @param client The client source.
+     * @param buffer The buffer input, starting with the message header and limited to the message.
+     * @throws IOException If error when reading.
+     */
+    protected void receive(C client, DataInputStream buffer) throws IOException
+    {
+        receivedMessages++;
+        receivedBytes += buffer.available();
+        client.getMetrics().received(buffer.available());
+
+        final byte messageSystemId = buffer.readByte();
+        final int from = UtilVarint.read(buffer);
+
+        // Check id
+        if (from == client.getId())
+        {
+            // Check message header type
+            updateMessage(client, buffer, messageSystemId, from);
+        }
+        else
+        {
+            client.getMetrics().dropped();
+        }
+    }
+
+    /**
+     * Handle a received datagram.
+     * 
+     * @param remote The datagram source.
+     * @param packet The datagram content.
+     */
+    private void receiveDatagram(SocketAddress remote, ByteBuffer packet)
+    {
+        if (!packet.hasRemaining())
+        {
+            return;
+        }
+        try
+        {
+            final byte kind = packet.get();
+            if (Datagram.HELLO == kind)
+            {
+                receiveHello(remote, packet);
+            }
+            else if (Datagram.DATA == kind)
+            {
+                final DatagramConnection connection = addresses.get(remote);
+                if (connection != null)
+                {
+                    connection.receive(packet);
+                }
+            }
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Invalid datagram from: ", String.valueOf(remote));
+        }
+    }
+
+    /**
+     * Bind the datagram source to the client matching the hello token, and acknowledge it.
+     * 
+     * @param remote The datagram source.
+     * @param packet The hello content.
+     * @throws IOException If error on acknowledge.
+     */
+    private void receiveHello(SocketAddress remote, ByteBuffer packet) throws IOException
+    {
+        final int id = UtilVarint.read(packet);
+        if (packet.remaining() < Integer.BYTES || id < 0 || id >= tokens.length)
+        {
+            return;
+        }
+        final int token = packet.getInt();
+        final C client = clients.get(Integer.valueOf(id));
+        if (client != null && client.getState() == StateConnection.CONNECTED && tokens[id] == token)
+        {
+            DatagramConnection connection = connections[id];
+            if (connection == null || !connection.getRemote().equals(remote))
+            {
+                if (connection != null)
+                {
+                    addresses.remove(connection.getRemote());
+                }
+                connection = new DatagramConnection(datagram,
+                                                    remote,
+                                                    payload -> receivePayload(client, payload),
+                                                    client.getMetrics());
+                connections[id] = connection;
+                addresses.put(remote, connection);
+            }
+            // Acknowledge each hello, as previous may have been lost
+            helloAck.clear();
+            helloAck.put(Datagram.HELLO_ACK);
+            helloAck.flip();
+            datagram.send(helloAck, remote);
+        }
+    }
+
+    /**
+     * Decode a message received by datagram, if from the connection client.
+     * 
+     * @param client The client source.
+     * @param payload The message payload.
+     * @throws IOException If error on decoding.
+     */
+    private void receivePayload(C client, ByteBuffer payload) throws IOException
+    {
+        if (client.getState() == StateConnection.CONNECTED)
+        {
+            receivedMessages++;
+            receivedBytes += payload.remaining();
+            bandwidth += payload.remaining();
+            client.getMetrics().received(payload.remaining());
+            decodePayload(payload, client.getId(), client.getMetrics());
+        }
+    }
+
+    /**
+     * Send pending datagrams of each client.
+     */
+    private void flushDatagrams()
+    {
+        if (datagram == null)
+        {
+            return;
+        }
+        for (final DatagramConnection connection : connections)
+        {
+            if (connection != null)
+            {
+                try
+                {
+                    connection.flush();
+                }
+                catch (final IOException exception)
+                {
+                    Verbose.exception(exception,
+                                      "Unable to send datagram to: ",
+                                      String.valueOf(connection.getRemote()));
+                }
+            }
+        }
+        datagram.update();
+    }
+
+    /**
+     * Update the receive connecting state.
+     * 
+     * @param client The current client.
+     * @param buffer The data buffer.
+     * @param from The id from.
+     * @param expected The expected client state.
+     * @throws IOException If error.
+     */
+    private void receiveConnecting(C client, DataInputStream buffer, int from, StateConnection expected)
+            throws IOException
+    {
+        if (checkValidity(client, from, expected))
+        {
+            final int version = buffer.readUnsignedByte();
+            if (version != PROTOCOL_VERSION)
+            {
+                Verbose.warning(Server.class,
+                                "receiveConnecting",
+                                "Unsupported client protocol version: ",
+                                String.valueOf(version));
+                client.sendMessage(NetworkMessageSystemId.KICKED);
+                removeClient(client);
+                return;
+            }
+            // Receive the name
+            client.setName(readName(buffer));
+
+            // Send new state
+            client.setState(StateConnection.CONNECTED);
+            client.getOut().writeByte(NetworkMessageSystemId.CONNECTED);
+            UtilVarint.write(client.getOut(), client.getId());
+            // Send the list of other clients, only those already named
+            int others = 0;
+            for (final C other : clients.values())
+            {
+                if (other.getId() != from && other.getName() != null)
+                {
+                    others++;
+                }
+            }
+            UtilVarint.write(client.getOut(), others);
+            for (final C other : clients.values())
+            {
+                if (other.getId() != from && other.getName() != null)
+                {
+                    writeIdAndName(client, other.getId(), other.getName());
+                }
+            }
+            // Send message of the day, empty if none
+            if (messageOfTheDay != null)
+            {
+                final byte[] motd = messageOfTheDay.getBytes(NetworkMessage.CHARSET);
+                client.getOut().writeByte(motd.length);
+                client.getOut().write(motd);
+            }
+            else
+            {
+                client.getOut().writeByte(0);
+            }
+            // Send
+            client.getOut().flush();
+        }
+    }
+
+    /**
+     * Update the receive connected state.
+     * 
+     * @param client The current client.
+     * @param from The id from.
+     * @param expected The expected client state.
+     * @throws IOException If error.
+     */
+    private void receiveConnected(C client, int from, StateConnection expected) throws IOException
+    {
+        if (checkValidity(client, from, expected))
+        {
+            // Terminate last connection step and accept it
+            Verbose.info(SERVER, client.getName(), " connected");
+            for (final ClientListener listener : listeners)
+            {
+                listener.notifyClientConnected(Integer.valueOf(client.getId()), client.getName());
+            }
+
+            // Notify other clients
+            notifyOthers(client, NetworkMessageSystemId.OTHER_CLIENT_CONNECTED, false);
+
+            // Offer datagram channel, bound by the client hello
+            if (datagram != null)
+            {
+                final int token = random.nextInt();
+                if (client.getId() >= tokens.length)
+                {
+                    final int capacity = Math.max(tokens.length * 2, client.getId() + 1);
+                    tokens = Arrays.copyOf(tokens, capacity);
+                    connections = Arrays.copyOf(connections, capacity);
+                }
+                tokens[client.getId()] = token;
+                client.getOut().writeByte(NetworkMessageSystemId.DATAGRAM);
+                client.getOut().writeInt(token);
+                client.getOut().flush();
+            }
+        }
+    }
+
+    /**
+     * Update the receive disconnected state.
+     * 
+     * @param client The current client.
+     * @param from The id from.
+     * @param expected The expected client state.
+     * @throws IOException If error.
+     */
+    private void receiveDisconnected(C client, int from, StateConnection expected) throws IOException
+    {
+        if (checkValidity(client, from, expected))
+        {
+            // Notify other clients
+            client.setState(StateConnection.DISCONNECTED);
+            for (final ClientListener listener : listeners)
+            {
+                listener.notifyClientDisconnected(Integer.valueOf(client.getId()), client.getName());
+            }
+            notifyOthers(client, NetworkMessageSystemId.OTHER_CLIENT_DISCONNECTED, true);
+            removeClient(Integer.valueOf(from));
+        }
+    }
+
+    /**
+     * Notify other clients about the client state. A client which cannot be reached is removed, without interrupting
+     * the notification of the others.
+     * 
+     * @param client The current client.
+     * @param messageSystemId The system message id.
+     * @param connectedOnly <code>true</code> to notify only connected clients, <code>false</code> to notify all.
+     */
+    private void notifyOthers(C client, byte messageSystemId, boolean connectedOnly)
+    {
+        for (final C other : clients.values())
+        {
+            if (other.getId() == client.getId() || connectedOnly && other.getState() != StateConnection.CONNECTED)
+            {
+                continue;
+            }
+            try
+            {
+                other.getOut().writeByte(messageSystemId);
+                writeIdAndName(other, client.getId(), client.getName());
+                // Send
+                other.getOut().flush();
+            }
+            catch (final IOException exception)
+            {
+                Verbose.exception(exception, "Unable to notify client: ", other.getName());
+                removeClient(other);
+            }
+        }
+    }
+
+    /**
+     * Update the receive renamed state.
+     * 
+     * @param client The current client.
+     * @param buffer The data buffer.
+     * @param from The id from.
+     * @param expected The expected client state.
+     * @throws IOException If error.
+     */
+    private void receiveRenamed(C client, DataInputStream buffer, int from, StateConnection expected)
+            throws IOException
+    {
+        if (checkValidity(client, from, expected))
+        {
+            // Receive the name
+            final String newName = readName(buffer);
+            Verbose.info(SERVER, client.getName(), " rennamed to ", newName);
+            client.setName(newName);
+
+            for (final ClientListener listener : listeners)
+            {
+                listener.notifyClientNameChanged(Integer.valueOf(client.getId()), client.getName());
+            }
+
+            // Notify all clients
+            for (final C other : clients.values())
+            {
+                other.getOut().writeByte(NetworkMessageSystemId.OTHER_CLIENT_RENAMED);
+                writeIdAndName(other, client.getId(), client.getName());
+                other.getOut().flush();
+            }
+        }
+    }
+
+    /**
+     * Update the receive standard message state.
+     * 
+     * @param client The client to test.
+     * @param buffer The data buffer.
+     * @param from The id from.
+     * @param expected The expected client state.
+     * @throws IOException If error.
+     */
+    private void receiveMessage(C client, DataInputStream buffer, int from, StateConnection expected)
+            throws IOException
+    {
+        if (checkValidity(client, from, expected))
+        {
+            final int size = buffer.readInt();
+            if (size > 0)
+            {
+                decodeMessage(buffer, size, from, client.getMetrics());
+            }
+            final int headerSize = Integer.BYTES;
+            bandwidth += headerSize + size;
+        }
+    }
+
+    /**
+     * Update the message depending of its ID.
+     * 
+     * @param client The client socket.
+     * @param buffer The buffer input.
+     * @param messageSystemId The message system ID.
+     * @param from The source ID.
+     * @throws IOException If error when reading.
+     */
+    private void updateMessage(C client, DataInputStream buffer, byte messageSystemId, int from) throws IOException
+    {
+        switch (messageSystemId)
+        {
+            case NetworkMessageSystemId.CONNECTING:
+                receiveConnecting(client, buffer, from, StateConnection.CONNECTING);
+                break;
+            case NetworkMessageSystemId.CONNECTED:
+                receiveConnected(client, from, StateConnection.CONNECTED);
+                break;
+            case NetworkMessageSystemId.PING:
+                client.getOut().writeByte(NetworkMessageSystemId.PING);
+                client.getOut().flush();
+                bandwidth += 1;
+                break;
+            case NetworkMessageSystemId.OTHER_CLIENT_DISCONNECTED:
+                receiveDisconnected(client, from, StateConnection.CONNECTED);
+                break;
+            case NetworkMessageSystemId.OTHER_CLIENT_RENAMED:
+                receiveRenamed(client, buffer, from, StateConnection.CONNECTED);
+                break;
+            case NetworkMessageSystemId.USER_MESSAGE:
+                receiveMessage(client, buffer, from, StateConnection.CONNECTED);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /*
+     * Server
+     */
+
+    @Override
+    public void setMessageOfTheDay(String message)
+    {
+        messageOfTheDay = message;
+    }
+
+    @Override
+    public void start(String name, int port)
+    {
+        if (!started)
+        {
+            try
+            {
+                open(port);
+                if (hasDatagramModes())
+                {
+                    setDatagram(Datagram.bind(port));
+                }
+                this.port = port;
+                bandwidthTimer.start();
+                started = true;
+            }
+            catch (final IOException exception)
+            {
+                throw new LionEngineException(exception, "Cannot create the server !");
+            }
+        }
+    }
+
+    @Override
+    public void removeClient(Integer clientId)
+    {
+        removeClient(clients.get(clientId));
+    }
+
+    @Override
+    public void addToGroup(int group, Integer clientId)
+    {
+        Check.superiorOrEqual(group, 0);
+        Check.notNull(clientId);
+
+        final Integer key = Integer.valueOf(group);
+        BitSet members = groups.get(key);
+        if (members == null)
+        {
+            members = new BitSet();
+            groups.put(key, members);
+        }
+        members.set(clientId.intValue());
+    }
+
+    @Override
+    public void removeFromGroup(int group, Integer clientId)
+    {
+        final BitSet members = groups.get(Integer.valueOf(group));
+        if (members != null)
+        {
+            members.clear(clientId.intValue());
+        }
+    }
+
+    @Override
+    public int getNumberOfClients()
+    {
+        return clientsNumber;
+    }
+
+    @Override
+    public NetworkMetrics getMetrics(Integer clientId)
+    {
+        final C client = clients.get(clientId);
+        if (client == null)
+        {
+            return null;
+        }
+        return client.getMetrics().snapshot(client.getId(), client.getName());
+    }
+
+    @Override
+    public int getReceivedMessages()
+    {
+        return receivedMessages;
+    }
+
+    @Override
+    public int getReceivedBytes()
+    {
+        return receivedBytes;
+    }
+
+    @Override
+    public int getBandwidth()
+    {
+        return bandwidthPerSecond;
+    }
+
+    @Override
+    public int getPort()
+    {
+        return port;
+    }
+
+    /*
+     * Networker
+     */
+
+    @Override
+    public void disconnect()
+    {
+        if (!started)
+        {
+            return;
+        }
+        receiveMessages();
+
+        // Disconnect all clients
+        final Collection<C> delete = new ArrayList<>(clients.size());
+        for (final C client : clients.values())
+        {
+            for (final C other : clients.values())
+            {
+                if (other.getId() == client.getId())
+                {
+                    continue;
+                }
+                try
+                {
+                    other.getOut().writeByte(NetworkMessageSystemId.OTHER_CLIENT_DISCONNECTED);
+                    writeIdAndName(other, client.getId(), client.getName());
+                    other.getOut().flush();
+                }
+                catch (final IOException exception)
+                {
+                    Verbose.exception(exception);
+                }
+            }
+            delete.add(client);
+        }
+        for (final C client : delete)
+        {
+            client.sendMessage(NetworkMessageSystemId.KICKED);
+            removeClient(client);
+        }
+        delete.clear();
+        clients.clear();
+        toRemove.clear();
+        groups.clear();
+        freeCount = 0;
+        nextFreshId = 0;
+        willRemove = false;
+        close();
+        if (datagram != null)
+        {
+            datagram.close();
+            setDatagram(null);
+            Arrays.fill(connections, null);
+            Arrays.fill(tokens, 0);
+            addresses.clear();
+        }
+        started = false;
+    }
+
+    @Override
+    public void sendMessages()
+    {
+        // Send messages
+        messagesOut.addAll(messagesIn);
+        encoder.reset();
+        for (final NetworkMessage message : messagesOut)
+        {
+            try
+            {
+                // Encoded once for all recipients
+                final ByteBuffer record = encoder.encode(message);
+                if (hasRecorder())
+                {
+                    recordSent(MessageEncoder.payload(record));
+                }
+                final BitSet group = NetworkMessage.isGroup(message.getClientDestId())
+                        ? groups.get(Integer.valueOf(NetworkMessage.getGroup(message.getClientDestId())))
+                        : null;
+                final DatagramMode mode = datagram != null ? getDatagramMode(message.getType()) : null;
+                final ByteBuffer payload = mode != null ? MessageEncoder.payload(record) : null;
+                final boolean datagramFits = payload != null && DatagramConnection.fits(payload.remaining());
+                for (final C client : clients.values())
+                {
+                    if (isRecipient(message, group, client.getId()))
+                    {
+                        final DatagramConnection connection = datagramFits ? getConnection(client.getId()) : null;
+                        if (connection != null)
+                        {
+                            connection.send(mode, payload);
+                            client.getMetrics().sent(message.getType(), payload.remaining());
+                        }
+                        else
+                        {
+                            client.send(record);
+                            client.getMetrics().sent(message.getType(), record.remaining());
+                        }
+                        bandwidth += record.remaining();
+                    }
+                }
+            }
+            catch (final IOException exception)
+            {
+                Verbose.exception(exception, "Unable to send the message: ", String.valueOf(message.getType()));
+            }
+        }
+        // One write per client
+        for (final C client : clients.values())
+        {
+            try
+            {
+                client.flush();
+                client.getMetrics().setQueueDepth(client.getQueueDepth());
+            }
+            catch (final IOException exception)
+            {
+                Verbose.exception(exception,
+                                  "Unable to send the messages for client: ",
+                                  String.valueOf(client.getId()));
+                removeClient(client);
+            }
+        }
+        flushDatagrams();
+        final long bandwidthMilli = 1000L;
+        if (bandwidthTimer.elapsed(bandwidthMilli))
+        {
+            bandwidthPerSecond = bandwidth;
+            bandwidth = 0;
+            bandwidthTimer.restart();
+            for (final C client : clients.values())
+            {
+                notifyMetrics(client.getMetrics(), client.getId(), client.getName());
+            }
+        }
+        messagesOut.clear();
+    }
+}
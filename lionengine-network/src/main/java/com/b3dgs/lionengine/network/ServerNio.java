@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+import com.b3dgs.lionengine.Verbose;
+import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
+
+/**
+ * Server implementation, using a selector over non blocking channels.
+ * <p>
+ * Accept, read and write are all performed on the caller thread during {@link #receiveMessages()} and
+ * {@link #sendMessages()}, so clients registration never races with messages handling. All complete messages
+ * received since last update are handled, and pending output is kept per client until the channel is writable.
+ * Messages sent are encoded once, copied into the pending output of each recipient, and written with a single write
+ * per client.
+ * </p>
+ * <p>
+ * Wire format is the same as {@link ServerImpl}, so any {@link Client} can connect.
+ * </p>
+ */
+final class ServerNio extends ServerModel<ClientChannel>
+{
+    /** Client buffers initial capacity. */
+    private static final int BUFFER_CAPACITY = 8192;
+    /** Client pending output limit, kicked when exceeded. */
+    private static final int MAX_PENDING = 4 * FrameDecoder.MAX_LENGTH;
+
+    /** Selector. */
+    private Selector selector;
+    /** Server channel. */
+    private ServerSocketChannel server;
+
+    /**
+     * Internal constructor.
+     * 
+     * @param decoder The message decoder.
+     */
+    ServerNio(NetworkMessageDecoder decoder)
+    {
+        super(decoder);
+    }
+
+    /**
+     * Accept all pending connections.
+     * 
+     * @throws IOException If error on server channel.
+     */
+    private void accept() throws IOException
+    {
+        SocketChannel channel = server.accept();
+        while (channel != null)
+        {
+            try
+            {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, Boolean.TRUE);
+                final SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                final ClientChannel client = new ClientChannel(nextId(), channel, key, BUFFER_CAPACITY, MAX_PENDING);
+                key.attach(client);
+                addClient(client);
+                write(client);
+            }
+            catch (final IOException exception)
+            {
+                Verbose.warning(Server.class, "addClient", "Error on adding client: ", exception.getMessage());
+                channel.close();
+            }
+            channel = server.accept();
+        }
+    }
+
+    /**
+     * Read client available data.
+     * 
+     * @param client The client reference.
+     */
+    private void read(ClientChannel client)
+    {
+        try
+        {
+            if (!client.read())
+            {
+                removeClient(client);
+            }
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Error on reading client: ", String.valueOf(client.getId()));
+            removeClient(client);
+        }
+    }
+
+    /**
+     * Write client pending data.
+     * 
+     * @param client The client reference.
+     */
+    private void write(ClientChannel client)
+    {
+        try
+        {
+            client.flush();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Error on writing client: ", String.valueOf(client.getId()));
+            removeClient(client);
+        }
+    }
+
+    /**
+     * Handle ready channels.
+     * 
+     * @throws IOException If error on selector.
+     */
+    private void select() throws IOException
+    {
+        if (selector.selectNow() > 0)
+        {
+            final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext())
+            {
+                final SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid())
+                {
+                    continue;
+                }
+                if (key.isAcceptable())
+                {
+                    accept();
+                    continue;
+                }
+                final ClientChannel client = (ClientChannel) key.attachment();
+                if (key.isReadable())
+                {
+                    read(client);
+                }
+                if (key.isValid() && key.isWritable())
+                {
+                    write(client);
+                }
+            }
+        }
+    }
+
+    /*
+     * ServerModel
+     */
+
+    @Override
+    protected void open(int port) throws IOException
+    {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.configureBlocking(false);
+        server.bind(new InetSocketAddress(port));
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    @Override
+    protected void close()
+    {
+        try
+        {
+            server.close();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Error on closing server");
+        }
+        try
+        {
+            selector.close();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Error on closing server");
+        }
+        server = null;
+        selector = null;
+    }
+
+    /*
+     * Networker
+     */
+
+    @Override
+    public void receiveMessages()
+    {
+        prepareReceive();
+        if (selector == null)
+        {
+            return;
+        }
+        try
+        {
+            select();
+        }
+        catch (final IOException exception)
+        {
+            Verbose.exception(exception, "Error on updating server");
+        }
+        for (final ClientChannel client : clients.values())
+        {
+            try
+            {
+                DataInputStream message = client.next();
+                while (message != null)
+                {
+                    receive(client, message);
+                    message = client.next();
+                }
+            }
+            catch (final IOException exception)
+            {
+                Verbose.exception(exception, "Error on updating client: ", String.valueOf(client.getId()));
+                removeClient(client);
+            }
+        }
+        receiveDatagrams();
+        removeDeleted();
+    }
+}
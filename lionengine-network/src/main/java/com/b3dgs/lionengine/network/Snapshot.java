@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.util.Arrays;
+
+/**
+ * Replicated world state at a given tick, entities sorted by id. Storage is reused between ticks.
+ */
+final class Snapshot
+{
+    /** Default capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** Entities id. */
+    private int[] ids;
+    /** Entities state. */
+    private double[][] states;
+    /** Number of entities. */
+    private int count;
+    /** Snapshot tick. */
+    private int tick;
+
+    /**
+     * Internal constructor.
+     */
+    Snapshot()
+    {
+        super();
+
+        ids = new int[DEFAULT_CAPACITY];
+        states = new double[DEFAULT_CAPACITY][];
+        tick = -1;
+    }
+
+    /**
+     * Clear the snapshot for a new tick.
+     * 
+     * @param tick The new tick.
+     */
+    void clear(int tick)
+    {
+        this.tick = tick;
+        count = 0;
+    }
+
+    /**
+     * Add an entity, with an id greater than the last added.
+     * 
+     * @param id The entity id.
+     * @param fields The number of fields.
+     * @return The entity state to fill.
+     */
+    double[] add(int id, int fields)
+    {
+        if (count == ids.length)
+        {
+            ids = Arrays.copyOf(ids, count * 2);
+            states = Arrays.copyOf(states, count * 2);
+        }
+        if (states[count] == null || states[count].length != fields)
+        {
+            states[count] = new double[fields];
+        }
+        ids[count] = id;
+        return states[count++];
+    }
+
+    /**
+     * Get the entity index.
+     * 
+     * @param id The entity id.
+     * @return The entity index, negative if not found.
+     */
+    int indexOf(int id)
+    {
+        return Arrays.binarySearch(ids, 0, count, id);
+    }
+
+    /**
+     * Get the entity id.
+     * 
+     * @param index The entity index.
+     * @return The entity id.
+     */
+    int getId(int index)
+    {
+        return ids[index];
+    }
+
+    /**
+     * Get the entity state.
+     * 
+     * @param index The entity index.
+     * @return The entity state.
+     */
+    double[] getState(int index)
+    {
+        return states[index];
+    }
+
+    /**
+     * Get the number of entities.
+     * 
+     * @return The number of entities.
+     */
+    int size()
+    {
+        return count;
+    }
+
+    /**
+     * Get the snapshot tick.
+     * 
+     * @return The snapshot tick (-1 if never set).
+     */
+    int getTick()
+    {
+        return tick;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+
+/**
+ * Acknowledge a received snapshot (client to server).
+ */
+final class SnapshotAckMessage extends NetworkMessage
+{
+    /** Message type (reserved). */
+    static final byte TYPE = Byte.MIN_VALUE + 1;
+
+    /** Acknowledged tick. */
+    private int tick;
+
+    /**
+     * Internal constructor (used in decoding case).
+     */
+    SnapshotAckMessage()
+    {
+        super();
+    }
+
+    /**
+     * Internal constructor.
+     * 
+     * @param clientId The client id.
+     * @param tick The acknowledged tick.
+     */
+    SnapshotAckMessage(int clientId, int tick)
+    {
+        super(TYPE, clientId);
+        this.tick = tick;
+    }
+
+    /**
+     * Get the acknowledged tick.
+     * 
+     * @return The acknowledged tick.
+     */
+    int getTick()
+    {
+        return tick;
+    }
+
+    /*
+     * NetworkMessage
+     */
+
+    @Override
+    protected void encode(ByteArrayOutputStream buffer) throws IOException
+    {
+        buffer.write(tick >>> 24);
+        buffer.write(tick >>> 16);
+        buffer.write(tick >>> 8);
+        buffer.write(tick);
+    }
+
+    @Override
+    protected void decode(DataInputStream buffer) throws IOException
+    {
+        tick = buffer.readInt();
+    }
+}
@@ -0,0 +1,519 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+import com.b3dgs.lionengine.network.message.UtilVarint;
+import com.b3dgs.lionengine.network.purview.Replicable;
+
+/**
+ * Snapshot delta (server to client), against the last snapshot acknowledged by the client, or full if none.
+ * <p>
+ * Data are:
+ * </p>
+ * <ul>
+ * <li>tick and baseline tick (-1 if full)</li>
+ * <li>number of changed entities and of changed values, then for each entity: id, number of fields, changed fields
+ * mask, type of each changed field (four bits each), changed values</li>
+ * <li>number of removed entities, then their id</li>
+ * </ul>
+ * <p>
+ * Values are encoded without loss on their smallest type: nothing if zero, signed variable length integer if a
+ * multiple of a power of two step (up to <code>1/8192</code>), else eight bytes. State quantized by the replicable
+ * (typically coordinates rounded to a <code>1/16</code> step) is then sent on a few bytes.
+ * </p>
+ */
+final class SnapshotMessage extends NetworkMessage
+{
+    /** Message type (reserved). */
+    static final byte TYPE = Byte.MIN_VALUE;
+    /** Changed values error. */
+    static final String ERROR_VALUES = "Invalid changed values count: ";
+    /** Mask of all fields. */
+    private static final long ALL = -1L;
+    /** Zero value type. */
+    private static final int ZERO = 0;
+    /** Double value type. */
+    private static final int DOUBLE = 1;
+    /** Fixed-point value type, followed by its fractional bits. */
+    private static final int FIXED = 2;
+    /** Type bits. */
+    private static final int TYPE_BITS = 4;
+    /** Type mask. */
+    private static final int TYPE_MASK = 0xF;
+    /** Maximum fractional bits. */
+    private static final int FRACTION_MAX = TYPE_MASK - FIXED;
+
+    /**
+     * Get the mask of all fields.
+     * 
+     * @param fields The number of fields.
+     * @return The fields mask.
+     */
+    private static long getMaskAll(int fields)
+    {
+        if (fields == Long.SIZE)
+        {
+            return ALL;
+        }
+        return (1L << fields) - 1L;
+    }
+
+    /**
+     * Get the changed fields mask.
+     * 
+     * @param state The current state.
+     * @param base The base state (<code>null</code> if none).
+     * @return The changed fields mask.
+     */
+    private static long getMask(double[] state, double[] base)
+    {
+        if (base == null || base.length != state.length)
+        {
+            return getMaskAll(state.length);
+        }
+        long mask = 0L;
+        for (int i = 0; i < state.length; i++)
+        {
+            if (Double.doubleToLongBits(state[i]) != Double.doubleToLongBits(base[i]))
+            {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Get the smallest lossless type of the value.
+     * 
+     * @param value The value to encode.
+     * @return The value type.
+     */
+    private static int getType(double value)
+    {
+        if (Double.doubleToRawLongBits(value) == 0L)
+        {
+            return ZERO;
+        }
+        for (int fraction = 0; fraction <= FRACTION_MAX; fraction++)
+        {
+            final double scaled = Math.scalb(value, fraction);
+            // Negative zero kept on a double
+            if (scaled != 0.0
+                && Double.compare(scaled, Math.rint(scaled)) == 0
+                && Math.abs(scaled) <= Integer.MAX_VALUE)
+            {
+                return FIXED + fraction;
+            }
+        }
+        return DOUBLE;
+    }
+
+    /**
+     * Write the value on its type.
+     * 
+     * @param out The output.
+     * @param type The value type.
+     * @param value The value to write.
+     * @throws IOException If error on writing.
+     */
+    private static void writeValue(DataOutputStream out, int type, double value) throws IOException
+    {
+        if (type == DOUBLE)
+        {
+            out.writeDouble(value);
+        }
+        else if (type >= FIXED)
+        {
+            UtilVarint.writeSigned(out, (int) Math.scalb(value, type - FIXED));
+        }
+    }
+
+    /**
+     * Read the value from its type.
+     * 
+     * @param in The input.
+     * @param type The value type.
+     * @return The read value.
+     * @throws IOException If error on reading.
+     */
+    private static double readValue(DataInputStream in, int type) throws IOException
+    {
+        if (type == DOUBLE)
+        {
+            return in.readDouble();
+        }
+        else if (type >= FIXED)
+        {
+            return Math.scalb((double) UtilVarint.readSigned(in), FIXED - type);
+        }
+        return 0.0;
+    }
+
+    /**
+     * Write the changed values type, two per byte.
+     * 
+     * @param out The output.
+     * @param state The entity state.
+     * @param mask The changed fields mask.
+     * @throws IOException If error on writing.
+     */
+    private static void encodeTypes(DataOutputStream out, double[] state, long mask) throws IOException
+    {
+        int packed = 0;
+        boolean half = false;
+        for (int field = 0; field < state.length; field++)
+        {
+            if ((mask & 1L << field) != 0L)
+            {
+                packed |= getType(state[field]) << (half ? TYPE_BITS : 0);
+                if (half)
+                {
+                    out.writeByte(packed);
+                    packed = 0;
+                }
+                half = !half;
+            }
+        }
+        if (half)
+        {
+            out.writeByte(packed);
+        }
+    }
+
+    /**
+     * Get the number of bytes used by a fields mask.
+     * 
+     * @param fields The number of fields.
+     * @return The mask bytes.
+     */
+    private static int getMaskBytes(int fields)
+    {
+        return (fields + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    /** Current snapshot (encoding case). */
+    private final Snapshot current;
+    /** Base snapshot (encoding case, <code>null</code> if full). */
+    private final Snapshot base;
+    /** Snapshot tick. */
+    private int tick;
+    /** Baseline tick (-1 if full). */
+    private int baseline;
+    /** Changed entities id (decoding case). */
+    private int[] ids;
+    /** Changed entities fields number (decoding case). */
+    private int[] fields;
+    /** Changed entities fields mask (decoding case). */
+    private long[] masks;
+    /** Changed values, in entities order (decoding case). */
+    private double[] values;
+    /** Changed values type of current entity (decoding case). */
+    private final int[] types = new int[Replicable.MAX_FIELDS];
+    /** Removed entities id, sorted (decoding case). */
+    private int[] removed;
+
+    /**
+     * Internal constructor (used in decoding case).
+     */
+    SnapshotMessage()
+    {
+        super();
+
+        current = null;
+        base = null;
+    }
+
+    /**
+     * Internal constructor.
+     * 
+     * @param current The current snapshot.
+     * @param base The base snapshot acknowledged by client (<code>null</code> if none).
+     * @param dest The client destination.
+     */
+    SnapshotMessage(Snapshot current, Snapshot base, int dest)
+    {
+        super(TYPE, -1, dest);
+
+        this.current = current;
+        this.base = base;
+        tick = current.getTick();
+        if (base == null)
+        {
+            baseline = -1;
+        }
+        else
+        {
+            baseline = base.getTick();
+        }
+    }
+
+    /**
+     * Get the snapshot tick.
+     * 
+     * @return The snapshot tick.
+     */
+    int getTick()
+    {
+        return tick;
+    }
+
+    /**
+     * Get the baseline tick.
+     * 
+     * @return The baseline tick (-1 if full).
+     */
+    int getBaseline()
+    {
+        return baseline;
+    }
+
+    /**
+     * Rebuild the full snapshot from its baseline and the received delta.
+     * 
+     * @param from The baseline snapshot (<code>null</code> if full).
+     * @param target The snapshot to rebuild.
+     */
+    void apply(Snapshot from, Snapshot target)
+    {
+        target.clear(tick);
+        final int baseSize = from == null ? 0 : from.size();
+        int i = 0;
+        int k = 0;
+        int value = 0;
+        while (i < baseSize || k < ids.length)
+        {
+            final int baseId = i < baseSize ? from.getId(i) : Integer.MAX_VALUE;
+            final int changedId = k < ids.length ? ids[k] : Integer.MAX_VALUE;
+            if (baseId < changedId)
+            {
+                if (Arrays.binarySearch(removed, baseId) < 0)
+                {
+                    final double[] state = from.getState(i);
+                    System.arraycopy(state, 0, target.add(baseId, state.length), 0, state.length);
+                }
+                i++;
+            }
+            else
+            {
+                final double[] state = target.add(ids[k], fields[k]);
+                if (baseId == changedId && from.getState(i).length == state.length)
+                {
+                    System.arraycopy(from.getState(i), 0, state, 0, state.length);
+                    i++;
+                }
+                else
+                {
+                    Arrays.fill(state, 0.0);
+                    if (baseId == changedId)
+                    {
+                        i++;
+                    }
+                }
+                for (int field = 0; field < state.length; field++)
+                {
+                    if ((masks[k] & 1L << field) != 0L)
+                    {
+                        state[field] = values[value++];
+                    }
+                }
+                k++;
+            }
+        }
+    }
+
+    /**
+     * Write the changed entities.
+     * 
+     * @param out The output.
+     * @throws IOException If error on writing.
+     */
+    private void encodeChanged(DataOutputStream out) throws IOException
+    {
+        final int size = current.size();
+        final long[] changed = new long[size];
+        int count = 0;
+        int total = 0;
+        for (int i = 0; i < size; i++)
+        {
+            final int index = base == null ? -1 : base.indexOf(current.getId(i));
+            changed[i] = getMask(current.getState(i), index < 0 ? null : base.getState(index));
+            if (changed[i] != 0L)
+            {
+                count++;
+                total += Long.bitCount(changed[i]);
+            }
+        }
+        UtilVarint.write(out, count);
+        UtilVarint.write(out, total);
+        int last = 0;
+        for (int i = 0; i < size; i++)
+        {
+            final long mask = changed[i];
+            if (mask != 0L)
+            {
+                final double[] state = current.getState(i);
+                // Sorted ids, sent as delta from previous
+                UtilVarint.write(out, current.getId(i) - last);
+                last = current.getId(i);
+                out.writeByte(state.length);
+                for (int b = 0; b < getMaskBytes(state.length); b++)
+                {
+                    out.writeByte((int) (mask >>> b * Byte.SIZE));
+                }
+                encodeTypes(out, state, mask);
+                for (int field = 0; field < state.length; field++)
+                {
+                    if ((mask & 1L << field) != 0L)
+                    {
+                        writeValue(out, getType(state[field]), state[field]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the changed values of an entity.
+     * 
+     * @param in The input.
+     * @param changed The number of changed values.
+     * @param offset The first value index.
+     * @throws IOException If error on reading.
+     */
+    private void decodeValues(DataInputStream in, int changed, int offset) throws IOException
+    {
+        int packed = 0;
+        for (int i = 0; i < changed; i++)
+        {
+            final boolean half = i % 2 == 1;
+            if (!half)
+            {
+                packed = in.readUnsignedByte();
+            }
+            types[i] = packed >>> (half ? TYPE_BITS : 0) & TYPE_MASK;
+        }
+        for (int i = 0; i < changed; i++)
+        {
+            values[offset + i] = readValue(in, types[i]);
+        }
+    }
+
+    /**
+     * Write the removed entities.
+     * 
+     * @param out The output.
+     * @throws IOException If error on writing.
+     */
+    private void encodeRemoved(DataOutputStream out) throws IOException
+    {
+        if (base == null)
+        {
+            UtilVarint.write(out, 0);
+            return;
+        }
+        final int size = base.size();
+        int count = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (current.indexOf(base.getId(i)) < 0)
+            {
+                count++;
+            }
+        }
+        UtilVarint.write(out, count);
+        int last = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (current.indexOf(base.getId(i)) < 0)
+            {
+                UtilVarint.write(out, base.getId(i) - last);
+                last = base.getId(i);
+            }
+        }
+    }
+
+    /*
+     * NetworkMessage
+     */
+
+    @Override
+    protected void encode(ByteArrayOutputStream buffer) throws IOException
+    {
+        final DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(tick);
+        out.writeInt(baseline);
+        encodeChanged(out);
+        encodeRemoved(out);
+    }
+
+    @Override
+    protected void decode(DataInputStream buffer) throws IOException
+    {
+        tick = buffer.readInt();
+        baseline = buffer.readInt();
+
+        final int count = UtilVarint.read(buffer);
+        final int total = UtilVarint.read(buffer);
+        if (total < 0 || total > (long) count * Replicable.MAX_FIELDS)
+        {
+            throw new IOException(ERROR_VALUES + total);
+        }
+        ids = new int[count];
+        fields = new int[count];
+        masks = new long[count];
+        values = new double[total];
+        int value = 0;
+        int last = 0;
+        for (int i = 0; i < count; i++)
+        {
+            ids[i] = last + UtilVarint.read(buffer);
+            last = ids[i];
+            fields[i] = buffer.readUnsignedByte();
+            for (int b = 0; b < getMaskBytes(fields[i]); b++)
+            {
+                masks[i] |= (long) buffer.readUnsignedByte() << b * Byte.SIZE;
+            }
+            final int changed = Long.bitCount(masks[i]);
+            if (value + changed > total)
+            {
+                throw new IOException(ERROR_VALUES + total);
+            }
+            decodeValues(buffer, changed, value);
+            value += changed;
+        }
+        if (value != total)
+        {
+            throw new IOException(ERROR_VALUES + total);
+        }
+
+        removed = new int[UtilVarint.read(buffer)];
+        last = 0;
+        for (int i = 0; i < removed.length; i++)
+        {
+            removed[i] = last + UtilVarint.read(buffer);
+            last = removed[i];
+        }
+    }
+}
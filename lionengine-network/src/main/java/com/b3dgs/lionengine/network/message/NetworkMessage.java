@@ -23,15 +23,87 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
 
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
 import com.b3dgs.lionengine.Verbose;
 
 /**
  * Network message description.
+ * <p>
+ * The destination is either {@link #ALL}, a client id, or a group of clients created with {@link #toGroup(int)}.
+ * Message header is encoded as type, then client id and destination as signed variable length integers.
+ * </p>
  */
 public abstract class NetworkMessage
 {
     /** Charset. */
     public static final Charset CHARSET = NetworkMessage.getCharset("UTF-8");
+    /** Destination for all clients. */
+    public static final int ALL = -1;
+
+    /**
+     * Get the destination value of a group of clients.
+     * 
+     * @param group The group id (must be positive).
+     * @return The destination value.
+     * @throws LionEngineException If invalid group.
+     */
+    public static int toGroup(int group)
+    {
+        Check.superiorOrEqual(group, 0);
+
+        return ALL - 1 - group;
+    }
+
+    /**
+     * Check if destination is a group of clients.
+     * 
+     * @param dest The destination value.
+     * @return <code>true</code> if group, <code>false</code> else.
+     */
+    public static boolean isGroup(int dest)
+    {
+        return dest < ALL;
+    }
+
+    /**
+     * Get the group id from a group destination.
+     * 
+     * @param dest The group destination value.
+     * @return The group id.
+     * @see #toGroup(int)
+     */
+    public static int getGroup(int dest)
+    {
+        return ALL - 1 - dest;
+    }
+
+    /**
+     * Read the header and decode the message data.
+     * 
+     * @param decoder The message decoder.
+     * @param buffer The data reference, starting with message header.
+     * @param from The expected client source, negative to accept any.
+     * @return The decoded message, <code>null</code> if unknown type or unexpected source.
+     * @throws IOException Error on reading.
+     */
+    public static NetworkMessage read(NetworkMessageDecoder decoder, DataInputStream buffer, int from)
+            throws IOException
+    {
+        final byte type = buffer.readByte();
+        final int clientId = UtilVarint.readSigned(buffer);
+        final int clientDestId = UtilVarint.readSigned(buffer);
+        if (from >= 0 && clientId != from)
+        {
+            return null;
+        }
+        final NetworkMessage message = decoder.getNetworkMessageFromType(type);
+        if (message != null)
+        {
+            message.decode(type, clientId, clientDestId, buffer);
+        }
+        return message;
+    }
 
     /**
      * Get the charset.
@@ -55,9 +127,9 @@ public abstract class NetworkMessage
     /** The message type (should be an enum ordinal to make the id clean). */
     private byte type;
     /** Id of the client who sent this message. */
-    private byte clientId;
+    private int clientId;
     /** Id of the client to sent this message. */
-    private byte clientDestId;
+    private int clientDestId;
 
     /**
      * Constructor base.
@@ -73,9 +145,9 @@ public abstract class NetworkMessage
      * @param type The message type.
      * @param clientId The client id.
      */
-    public NetworkMessage(byte type, byte clientId)
+    public NetworkMessage(byte type, int clientId)
     {
-        this(type, clientId, (byte) -1);
+        this(type, clientId, ALL);
     }
 
     /**
@@ -83,9 +155,9 @@ public abstract class NetworkMessage
      * 
      * @param type The message type.
      * @param clientId The client id.
-     * @param clientDestId The client destination id (-1 if all).
+     * @param clientDestId The client destination id ({@link #ALL} if all, or {@link #toGroup(int)}).
      */
-    public NetworkMessage(byte type, byte clientId, byte clientDestId)
+    public NetworkMessage(byte type, int clientId, int clientDestId)
     {
         this.type = type;
         this.clientId = clientId;
@@ -123,7 +195,7 @@ public abstract class NetworkMessage
      * 
      * @return The owner id of this message.
      */
-    public final byte getClientId()
+    public final int getClientId()
     {
         return clientId;
     }
@@ -133,7 +205,7 @@ public abstract class NetworkMessage
      * 
      * @return The destination of this message.
      */
-    public final byte getClientDestId()
+    public final int getClientDestId()
     {
         return clientDestId;
     }
@@ -147,13 +219,28 @@ public abstract class NetworkMessage
     public final ByteArrayOutputStream encode() throws IOException
     {
         final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        write(buffer);
+
+        return buffer;
+    }
+
+    /**
+     * Encode the message by appending its data to an existing buffer, allowing to reuse it between messages.
+     * 
+     * @param buffer The buffer to append to.
+     * @return The number of bytes written.
+     * @throws IOException Error on writing.
+     */
+    public final int write(ByteArrayOutputStream buffer) throws IOException
+    {
+        final int start = buffer.size();
 
         buffer.write(type);
-        buffer.write(clientId);
-        buffer.write(clientDestId);
+        UtilVarint.writeSigned(buffer, clientId);
+        UtilVarint.writeSigned(buffer, clientDestId);
         encode(buffer);
 
-        return buffer;
+        return buffer.size() - start;
     }
 
     /**
@@ -165,7 +252,7 @@ public abstract class NetworkMessage
      * @param buffer The data reference.
      * @throws IOException Error on reading.
      */
-    public final void decode(byte type, byte from, byte dest, DataInputStream buffer) throws IOException
+    public final void decode(byte type, int from, int dest, DataInputStream buffer) throws IOException
     {
         this.type = type;
         clientId = from;
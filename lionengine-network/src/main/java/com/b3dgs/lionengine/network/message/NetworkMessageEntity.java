@@ -20,87 +20,168 @@ package com.b3dgs.lionengine.network.message;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
-import com.b3dgs.lionengine.UtilConversion;
+import com.b3dgs.lionengine.Check;
+import com.b3dgs.lionengine.LionEngineException;
 
 /**
  * Standard entity message.
+ * <p>
+ * Actions are stored as primitives indexed by element ordinal, with a presence bitset, and are encoded automatically:
+ * </p>
+ * <ul>
+ * <li>entity id (signed variable length integer)</li>
+ * <li>presence bitmask (one bit per element)</li>
+ * <li>type of each present action (four bits each, booleans value included)</li>
+ * <li>value of each present action, in ordinal order, on its type size</li>
+ * </ul>
+ * <p>
+ * Doubles can be quantized with {@link #setPrecision(Enum, double)} (typically coordinates), in order to be sent as
+ * fixed-point integers instead of 8 bytes.
+ * </p>
  * 
  * @param <M> The message entity element enum.
  */
 public abstract class NetworkMessageEntity<M extends Enum<M>> extends NetworkMessage
 {
-    /** List of actions. */
-    private final Map<M, Object> actions = new HashMap<>(1);
+    /** Value out of range error. */
+    static final String ERROR_RANGE = "Quantized value out of range: ";
+    /** False type. */
+    private static final int FALSE = 0;
+    /** True type. */
+    private static final int TRUE = 1;
+    /** Char type. */
+    private static final int CHAR = 2;
+    /** Byte type. */
+    private static final int BYTE = 3;
+    /** Short type. */
+    private static final int SHORT = 4;
+    /** Integer type. */
+    private static final int INTEGER = 5;
+    /** Double type. */
+    private static final int DOUBLE = 6;
+    /** Quantized double type. */
+    private static final int FIXED = 7;
+    /** Type bits. */
+    private static final int TYPE_BITS = 4;
+    /** Type mask. */
+    private static final int TYPE_MASK = 0xF;
+    /** Bits per presence word. */
+    private static final int WORD_BITS = Long.SIZE;
+
+    /**
+     * Write a big endian short.
+     * 
+     * @param buffer The current buffer to write.
+     * @param value The value to write.
+     */
+    private static void writeShort(ByteArrayOutputStream buffer, int value)
+    {
+        buffer.write(value >>> Byte.SIZE);
+        buffer.write(value);
+    }
+
+    /**
+     * Write a big endian integer.
+     * 
+     * @param buffer The current buffer to write.
+     * @param value The value to write.
+     */
+    private static void writeInt(ByteArrayOutputStream buffer, int value)
+    {
+        writeShort(buffer, value >>> Short.SIZE);
+        writeShort(buffer, value);
+    }
+
+    /** Actions presence, one bit per element ordinal. */
+    private final long[] presence;
+    /** Actions type, by element ordinal. */
+    private final byte[] types;
+    /** Actions value raw bits, by element ordinal. */
+    private final long[] values;
+    /** Quantization step by element ordinal (0 if not quantized). */
+    private final double[] precisions;
     /** Entity number. */
-    private short entityId;
+    private int entityId;
 
     /**
      * Constructor (used in decoding case).
+     * 
+     * @param elements The message entity elements class.
+     * @throws LionEngineException If invalid argument.
      */
-    public NetworkMessageEntity()
+    public NetworkMessageEntity(Class<M> elements)
     {
-        super();
-        this.entityId = -1;
+        this(elements, (byte) 0, 0, -1, 0);
     }
 
     /**
      * Constructor (used for the client case).
      * 
+     * @param elements The message entity elements class.
      * @param type The message type.
      * @param clientId The client id.
+     * @throws LionEngineException If invalid argument.
      */
-    public NetworkMessageEntity(byte type, byte clientId)
+    public NetworkMessageEntity(Class<M> elements, byte type, int clientId)
     {
-        super(type, clientId);
-        this.entityId = -1;
+        this(elements, type, clientId, -1, ALL);
     }
 
     /**
      * Constructor (used to identify an entity from the server).
      * 
+     * @param elements The message entity elements class.
      * @param type The message type.
      * @param entityId The entity id.
+     * @param destId The client destination ({@link #ALL} if all).
+     * @throws LionEngineException If invalid argument.
      */
-    public NetworkMessageEntity(byte type, short entityId)
+    public NetworkMessageEntity(Class<M> elements, byte type, int entityId, int destId)
     {
-        super(type, (byte) -1);
-        this.entityId = entityId;
+        this(elements, type, -1, entityId, destId);
     }
 
     /**
-     * Constructor (used to identify an entity from the server).
+     * Internal constructor.
      * 
+     * @param elements The message entity elements class.
      * @param type The message type.
+     * @param clientId The client id.
      * @param entityId The entity id.
      * @param destId The client destination.
+     * @throws LionEngineException If invalid argument.
      */
-    public NetworkMessageEntity(byte type, short entityId, byte destId)
+    private NetworkMessageEntity(Class<M> elements, byte type, int clientId, int entityId, int destId)
     {
-        super(type, (byte) -1, destId);
+        super(type, clientId, destId);
         this.entityId = entityId;
+
+        Check.notNull(elements);
+        final int count = elements.getEnumConstants().length;
+        presence = new long[(count + WORD_BITS - 1) / WORD_BITS];
+        types = new byte[count];
+        values = new long[count];
+        precisions = new double[count];
     }
 
     /**
-     * Encode function for the current key.
+     * Set the quantization step of a double element. Its values are then sent as fixed-point integers, rounded to the
+     * nearest step. Must be set the same way on both sides, typically in the subclass constructor.
      * 
-     * @param buffer The current buffer to write.
-     * @param key The current key.
-     * @throws IOException Exception in case of error.
+     * @param element The element to quantize.
+     * @param step The quantization step (for example <code>0.01</code> for a centesimal precision, <code>0</code> to
+     *            disable).
+     * @throws LionEngineException If invalid argument.
      */
-    protected abstract void encode(ByteArrayOutputStream buffer, M key) throws IOException;
+    protected final void setPrecision(M element, double step)
+    {
+        Check.notNull(element);
+        Check.superiorOrEqual(step, 0.0);
 
-    /**
-     * Decode function for the current key number.
-     * 
-     * @param buffer The current buffer to read.
-     * @param i The current key number.
-     * @throws IOException Exception in case of error.
-     */
-    protected abstract void decode(DataInputStream buffer, int i) throws IOException;
+        precisions[element.ordinal()] = step;
+    }
 
     /**
      * Add an action.
@@ -110,7 +191,14 @@ public abstract class NetworkMessageEntity<M extends Enum<M>> extends NetworkMes
      */
     public void addAction(M element, boolean value)
     {
-        actions.put(element, Boolean.valueOf(value));
+        if (value)
+        {
+            set(element, TRUE, 1L);
+        }
+        else
+        {
+            set(element, FALSE, 0L);
+        }
     }
 
     /**
@@ -121,7 +209,7 @@ public abstract class NetworkMessageEntity<M extends Enum<M>> extends NetworkMes
      */
     public void addAction(M element, char value)
     {
-        actions.put(element, Character.valueOf(value));
+        set(element, CHAR, value);
     }
 
     /**
@@ -132,7 +220,7 @@ public abstract class NetworkMessageEntity<M extends Enum<M>> extends NetworkMes
      */
     public void addAction(M element, byte value)
     {
-        actions.put(element, Byte.valueOf(value));
+        set(element, BYTE, value);
     }
 
     /**
@@ -143,7 +231,7 @@ public abstract class NetworkMessageEntity<M extends Enum<M>> extends NetworkMes
      */
     public void addAction(M element, short value)
     {
-        actions.put(element, Short.valueOf(value));
+        set(element, SHORT, value);
     }
 
     /**
@@ -154,7 +242,7 @@ public abstract class NetworkMessageEntity<M extends Enum<M>> extends NetworkMes
      */
     public void addAction(M element, int value)
     {
-        actions.put(element, Integer.valueOf(value));
+        set(element, INTEGER, value);
     }
 
     /**
@@ -165,73 +253,90 @@ public abstract class NetworkMessageEntity<M extends Enum<M>> extends NetworkMes
      */
     public void addAction(M element, double value)
     {
-        actions.put(element, Double.valueOf(value));
+        if (precisions[element.ordinal()] > 0.0)
+        {
+            set(element, FIXED, Double.doubleToRawLongBits(value));
+        }
+        else
+        {
+            set(element, DOUBLE, Double.doubleToRawLongBits(value));
+        }
+    }
+
+    /**
+     * Remove all actions. Values of removed actions are reset to their default.
+     */
+    public void clearActions()
+    {
+        Arrays.fill(presence, 0L);
+        Arrays.fill(types, (byte) FALSE);
+        Arrays.fill(values, 0L);
     }
 
     /**
      * Get the action value.
      * 
      * @param element The action element.
-     * @return The action value.
+     * @return The action value (<code>0</code> or <code>false</code> if not present).
      */
     public boolean getActionBoolean(M element)
     {
-        return ((Boolean) actions.get(element)).booleanValue();
+        return values[element.ordinal()] != 0L;
     }
 
     /**
      * Get the action value.
      * 
      * @param element The action element.
-     * @return The action value.
+     * @return The action value (<code>0</code> or <code>false</code> if not present).
      */
     public byte getActionByte(M element)
     {
-        return ((Byte) actions.get(element)).byteValue();
+        return (byte) values[element.ordinal()];
     }
 
     /**
      * Get the action value.
      * 
      * @param element The action element.
-     * @return The action value.
+     * @return The action value (<code>0</code> or <code>false</code> if not present).
      */
     public char getActionChar(M element)
     {
-        return ((Character) actions.get(element)).charValue();
+        return (char) values[element.ordinal()];
     }
 
     /**
      * Get the action value.
      * 
      * @param element The action element.
-     * @return The action value.
+     * @return The action value (<code>0</code> or <code>false</code> if not present).
      */
     public short getActionShort(M element)
     {
-        return ((Short) actions.get(element)).shortValue();
+        return (short) values[element.ordinal()];
     }
 
     /**
      * Get the action value.
      * 
      * @param element The action element.
-     * @return The action value.
+     * @return The action value (<code>0</code> or <code>false</code> if not present).
      */
     public int getActionInteger(M element)
     {
-        return ((Integer) actions.get(element)).intValue();
+        return (int) values[element.ordinal()];
     }
 
     /**
-     * Get the action value.
+     * Get the action value. If quantized, value is rounded to the nearest step once received.
      * 
      * @param element The action element.
-     * @return The action value.
+     * @return The action value (<code>0</code> or <code>false</code> if not present).
      */
     public double getActionDouble(M element)
     {
-        return ((Double) actions.get(element)).doubleValue();
+        return Double.longBitsToDouble(values[element.ordinal()]);
     }
 
     /**
@@ -242,7 +347,7 @@ public abstract class NetworkMessageEntity<M extends Enum<M>> extends NetworkMes
      */
     public boolean hasAction(M element)
     {
-        return actions.containsKey(element);
+        return isPresent(element.ordinal());
     }
 
     /**
@@ -250,51 +355,212 @@ public abstract class NetworkMessageEntity<M extends Enum<M>> extends NetworkMes
      * 
      * @return The entity id.
      */
-    public short getEntityId()
+    public int getEntityId()
     {
         return entityId;
     }
 
-    /*
-     * NetworkMessage
+    /**
+     * Store an action.
+     * 
+     * @param element The action element.
+     * @param type The value type.
+     * @param value The value raw bits.
      */
+    private void set(M element, int type, long value)
+    {
+        final int ordinal = element.ordinal();
+        presence[ordinal / WORD_BITS] |= 1L << ordinal % WORD_BITS;
+        types[ordinal] = (byte) type;
+        values[ordinal] = value;
+    }
 
     /**
-     * Retrieve the keys, store its total number in the buffer, and call {@link #encode(ByteArrayOutputStream, Enum) for
-     * each key}.
+     * Check if the action is present.
+     * 
+     * @param ordinal The element ordinal.
+     * @return <code>true</code> if present, <code>false</code> else.
+     */
+    private boolean isPresent(int ordinal)
+    {
+        return (presence[ordinal / WORD_BITS] & 1L << ordinal % WORD_BITS) != 0L;
+    }
+
+    /**
+     * Write the action value.
      * 
      * @param buffer The current buffer to write.
+     * @param ordinal The element ordinal.
      * @throws IOException Exception in case of error.
      */
-    @Override
-    protected void encode(ByteArrayOutputStream buffer) throws IOException
+    private void encodeValue(ByteArrayOutputStream buffer, int ordinal) throws IOException
     {
-        buffer.write(UtilConversion.shortToByteArray(entityId));
-        final Collection<M> keys = actions.keySet();
-
-        // Fill the data
-        buffer.write((byte) keys.size());
-        for (final M key : keys)
+        final long value = values[ordinal];
+        switch (types[ordinal])
         {
-            encode(buffer, key);
+            case CHAR:
+            case SHORT:
+                writeShort(buffer, (int) value);
+                break;
+            case BYTE:
+                buffer.write((int) value);
+                break;
+            case INTEGER:
+                writeInt(buffer, (int) value);
+                break;
+            case DOUBLE:
+                writeInt(buffer, (int) (value >>> Integer.SIZE));
+                writeInt(buffer, (int) value);
+                break;
+            case FIXED:
+                writeInt(buffer, quantize(ordinal, Double.longBitsToDouble(value)));
+                break;
+            default:
+                break;
         }
     }
 
     /**
-     * Read the first byte to retrieve the total number of key and call {@link #decode(DataInputStream, int) for each
-     * key}.
+     * Read the action value.
      * 
      * @param buffer The current buffer to read.
+     * @param ordinal The element ordinal.
      * @throws IOException Exception in case of error.
      */
+    private void decodeValue(DataInputStream buffer, int ordinal) throws IOException
+    {
+        final long value;
+        switch (types[ordinal])
+        {
+            case TRUE:
+                value = 1L;
+                break;
+            case CHAR:
+                value = buffer.readChar();
+                break;
+            case BYTE:
+                value = buffer.readByte();
+                break;
+            case SHORT:
+                value = buffer.readShort();
+                break;
+            case INTEGER:
+                value = buffer.readInt();
+                break;
+            case DOUBLE:
+                value = buffer.readLong();
+                break;
+            case FIXED:
+                value = Double.doubleToRawLongBits(buffer.readInt() * precisions[ordinal]);
+                break;
+            default:
+                value = 0L;
+                break;
+        }
+        values[ordinal] = value;
+    }
+
+    /**
+     * Quantize the value to its fixed-point representation.
+     * 
+     * @param ordinal The element ordinal.
+     * @param value The value to quantize.
+     * @return The quantized value.
+     * @throws IOException If value cannot be represented.
+     */
+    private int quantize(int ordinal, double value) throws IOException
+    {
+        final long quantized = Math.round(value / precisions[ordinal]);
+        if (quantized < Integer.MIN_VALUE || quantized > Integer.MAX_VALUE)
+        {
+            throw new IOException(ERROR_RANGE + value);
+        }
+        return (int) quantized;
+    }
+
+    /*
+     * NetworkMessage
+     */
+
+    @Override
+    protected void encode(ByteArrayOutputStream buffer) throws IOException
+    {
+        UtilVarint.writeSigned(buffer, entityId);
+
+        // Presence mask
+        final int count = types.length;
+        for (int i = 0; i < count; i += Byte.SIZE)
+        {
+            buffer.write((int) (presence[i / WORD_BITS] >>> i % WORD_BITS));
+        }
+
+        // Types, two per byte
+        int packed = 0;
+        boolean half = false;
+        for (int i = 0; i < count; i++)
+        {
+            if (isPresent(i))
+            {
+                packed |= types[i] << (half ? TYPE_BITS : 0);
+                if (half)
+                {
+                    buffer.write(packed);
+                    packed = 0;
+                }
+                half = !half;
+            }
+        }
+        if (half)
+        {
+            buffer.write(packed);
+        }
+
+        // Values
+        for (int i = 0; i < count; i++)
+        {
+            if (isPresent(i))
+            {
+                encodeValue(buffer, i);
+            }
+        }
+    }
+
     @Override
     protected void decode(DataInputStream buffer) throws IOException
     {
-        entityId = buffer.readShort();
-        final int number = buffer.readByte();
-        for (int i = 0; i < number; i++)
+        entityId = UtilVarint.readSigned(buffer);
+
+        // Presence mask
+        clearActions();
+        final int count = types.length;
+        for (int i = 0; i < count; i += Byte.SIZE)
+        {
+            presence[i / WORD_BITS] |= (long) buffer.readUnsignedByte() << i % WORD_BITS;
+        }
+
+        // Types, two per byte
+        int packed = 0;
+        boolean half = false;
+        for (int i = 0; i < count; i++)
+        {
+            if (isPresent(i))
+            {
+                if (!half)
+                {
+                    packed = buffer.readUnsignedByte();
+                }
+                types[i] = (byte) (packed >>> (half ? TYPE_BITS : 0) & TYPE_MASK);
+                half = !half;
+            }
+        }
+
+        // Values
+        for (int i = 0; i < count; i++)
         {
-            decode(buffer, i);
+            if (isPresent(i))
+            {
+                decodeValue(buffer, i);
+            }
         }
     }
 }
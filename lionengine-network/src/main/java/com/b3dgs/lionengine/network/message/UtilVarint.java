@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network.message;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import com.b3dgs.lionengine.LionEngineException;
+
+/**
+ * Variable length integer encoding, used for ids on the network protocol.
+ * <p>
+ * Values are written 7 bits per byte, least significant first, the highest bit telling if another byte follows. Small
+ * values use a single byte, and any integer uses at most 5 bytes. Signed values are zigzag encoded, so small negative
+ * values stay small.
+ * </p>
+ * <p>
+ * This class is Thread-Safe.
+ * </p>
+ */
+public final class UtilVarint
+{
+    /** Maximum encoded size. */
+    public static final int MAX_SIZE = 5;
+    /** Value bits per byte. */
+    private static final int BITS = 7;
+    /** Value mask. */
+    private static final int VALUE = 0x7F;
+    /** Continuation flag. */
+    private static final int MORE = 0x80;
+    /** Malformed varint error. */
+    private static final String ERROR_MALFORMED = "Malformed varint !";
+
+    /**
+     * Get the encoded size of an unsigned value.
+     * 
+     * @param value The value.
+     * @return The encoded size in bytes.
+     */
+    public static int size(int value)
+    {
+        int size = 1;
+        int remaining = value >>> BITS;
+        while (remaining != 0)
+        {
+            size++;
+            remaining >>>= BITS;
+        }
+        return size;
+    }
+
+    /**
+     * Get the encoded size of a signed value.
+     * 
+     * @param value The value.
+     * @return The encoded size in bytes.
+     */
+    public static int sizeSigned(int value)
+    {
+        return size(zigzag(value));
+    }
+
+    /**
+     * Write an unsigned value.
+     * 
+     * @param out The output.
+     * @param value The value.
+     * @throws IOException If error on writing.
+     */
+    public static void write(OutputStream out, int value) throws IOException
+    {
+        int remaining = value;
+        while ((remaining & ~VALUE) != 0)
+        {
+            out.write(remaining & VALUE | MORE);
+            remaining >>>= BITS;
+        }
+        out.write(remaining);
+    }
+
+    /**
+     * Write a signed value.
+     * 
+     * @param out The output.
+     * @param value The value.
+     * @throws IOException If error on writing.
+     */
+    public static void writeSigned(OutputStream out, int value) throws IOException
+    {
+        write(out, zigzag(value));
+    }
+
+    /**
+     * Write an unsigned value.
+     * 
+     * @param out The output.
+     * @param value The value.
+     */
+    public static void write(ByteBuffer out, int value)
+    {
+        int remaining = value;
+        while ((remaining & ~VALUE) != 0)
+        {
+            out.put((byte) (remaining & VALUE | MORE));
+            remaining >>>= BITS;
+        }
+        out.put((byte) remaining);
+    }
+
+    /**
+     * Read an unsigned value.
+     * 
+     * @param in The input.
+     * @return The value read.
+     * @throws IOException If error on reading or malformed value.
+     */
+    public static int read(DataInput in) throws IOException
+    {
+        int value = 0;
+        for (int i = 0; i < MAX_SIZE; i++)
+        {
+            final int current = in.readUnsignedByte();
+            value |= (current & VALUE) << i * BITS;
+            if ((current & MORE) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException(ERROR_MALFORMED);
+    }
+
+    /**
+     * Read a signed value.
+     * 
+     * @param in The input.
+     * @return The value read.
+     * @throws IOException If error on reading or malformed value.
+     */
+    public static int readSigned(DataInput in) throws IOException
+    {
+        return unzigzag(read(in));
+    }
+
+    /**
+     * Read an unsigned value.
+     * 
+     * @param in The input.
+     * @return The value read.
+     * @throws IOException If not enough data or malformed value.
+     */
+    public static int read(ByteBuffer in) throws IOException
+    {
+        int value = 0;
+        for (int i = 0; i < MAX_SIZE && in.hasRemaining(); i++)
+        {
+            final int current = in.get() & 0xFF;
+            value |= (current & VALUE) << i * BITS;
+            if ((current & MORE) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException(ERROR_MALFORMED);
+    }
+
+    /**
+     * Get the size of an encoded value in an array.
+     * 
+     * @param data The data.
+     * @param start The first byte index.
+     * @param end The last byte index (excluded).
+     * @return The encoded size, <code>-1</code> if not complete.
+     */
+    public static int sizeOf(byte[] data, int start, int end)
+    {
+        for (int i = 0; i < MAX_SIZE && start + i < end; i++)
+        {
+            if ((data[start + i] & MORE) == 0)
+            {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read an unsigned value from an array, which must be complete.
+     * 
+     * @param data The data.
+     * @param start The first byte index.
+     * @return The value read.
+     * @see #sizeOf(byte[], int, int)
+     */
+    public static int read(byte[] data, int start)
+    {
+        int value = 0;
+        for (int i = 0; i < MAX_SIZE; i++)
+        {
+            final int current = data[start + i];
+            value |= (current & VALUE) << i * BITS;
+            if ((current & MORE) == 0)
+            {
+                break;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Map signed value to unsigned, small absolute values giving small results.
+     * 
+     * @param value The signed value.
+     * @return The unsigned value.
+     */
+    private static int zigzag(int value)
+    {
+        return value << 1 ^ value >> Integer.SIZE - 1;
+    }
+
+    /**
+     * Map back unsigned value to signed.
+     * 
+     * @param value The unsigned value.
+     * @return The signed value.
+     */
+    private static int unzigzag(int value)
+    {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    /**
+     * Private constructor.
+     */
+    private UtilVarint()
+    {
+        throw new LionEngineException(LionEngineException.ERROR_PRIVATE_CONSTRUCTOR);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network.purview;
+
+/**
+ * Describe an object which state is replicated from server to clients by snapshots.
+ * <p>
+ * State is a fixed set of numeric fields. Server saves it each update, and only fields changed since the last snapshot
+ * acknowledged by a client are sent to it. Client loads it interpolated between the two last received snapshots.
+ * </p>
+ */
+public interface Replicable
+{
+    /** Maximum number of replicated fields. */
+    int MAX_FIELDS = 64;
+
+    /**
+     * Get the replication id, identifying the object on both sides (must be positive).
+     * 
+     * @return The replication id.
+     */
+    int getReplicationId();
+
+    /**
+     * Get the number of replicated fields (must be constant, between 1 and {@link #MAX_FIELDS}).
+     * 
+     * @return The number of fields.
+     */
+    int getReplicatedFields();
+
+    /**
+     * Save the current state (server side). Integer values, and values rounded to a power of two step (such as
+     * <code>1/16</code>), are sent on less bytes than arbitrary ones.
+     * 
+     * @param state The state to fill, with a length equal to {@link #getReplicatedFields()}.
+     */
+    void saveState(double[] state);
+
+    /**
+     * Load the replicated state (client side). Array content must not be kept.
+     * 
+     * @param state The state to load, with a length equal to {@link #getReplicatedFields()}.
+     */
+    void loadState(double[] state);
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertNull;
+import static com.b3dgs.lionengine.UtilAssert.assertThrowsIo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.network.message.UtilVarint;
+
+/**
+ * Test {@link BlockDataDecoder}.
+ */
+public final class BlockDataDecoderTest
+{
+    /** User message payload size, above short block data. */
+    private static final int PAYLOAD = 300;
+
+    /**
+     * Create a client stream, with short and long block data records and a reset.
+     * 
+     * @return The stream data.
+     * @throws IOException If error.
+     */
+    private static byte[] createStream() throws IOException
+    {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeByte(NetworkMessageSystemId.PING);
+        UtilVarint.write(out, 3);
+        out.flush();
+        out.reset();
+        out.writeByte(NetworkMessageSystemId.USER_MESSAGE);
+        UtilVarint.write(out, 200);
+        out.writeInt(PAYLOAD);
+        for (int i = 0; i < PAYLOAD; i++)
+        {
+            out.writeByte(i);
+        }
+        out.writeByte(NetworkMessageSystemId.PING);
+        UtilVarint.write(out, 4);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Feed data by chunks, as received from a channel, and check decoded frames.
+     * 
+     * @param data The stream data.
+     * @param chunk The chunk size.
+     * @throws IOException If error.
+     */
+    private static void assertFrames(byte[] data, int chunk) throws IOException
+    {
+        final FrameDecoder frames = new FrameDecoder();
+        final BlockDataDecoder decoder = new BlockDataDecoder(frames);
+        final ByteBuffer in = ByteBuffer.allocate(16);
+        int offset = 0;
+        int count = 0;
+        while (offset < data.length)
+        {
+            final int length = Math.min(Math.min(chunk, in.remaining()), data.length - offset);
+            in.put(data, offset, length);
+            offset += length;
+            in.flip();
+            decoder.unwrap(in);
+            in.compact();
+
+            DataInputStream frame = frames.next();
+            while (frame != null)
+            {
+                assertFrame(count, frame);
+                count++;
+                frame = frames.next();
+            }
+        }
+        assertEquals(3, count);
+        assertEquals(0, in.position());
+        assertNull(frames.next());
+    }
+
+    /**
+     * Check frame content.
+     * 
+     * @param index The frame index.
+     * @param frame The frame.
+     * @throws IOException If error.
+     */
+    private static void assertFrame(int index, DataInputStream frame) throws IOException
+    {
+        if (index == 1)
+        {
+            assertEquals(NetworkMessageSystemId.USER_MESSAGE, frame.readByte());
+            assertEquals(200, UtilVarint.read(frame));
+            assertEquals(PAYLOAD, frame.readInt());
+            for (int i = 0; i < PAYLOAD; i++)
+            {
+                assertEquals((byte) i, frame.readByte());
+            }
+        }
+        else
+        {
+            assertEquals(NetworkMessageSystemId.PING, frame.readByte());
+            assertEquals(index == 0 ? 3 : 4, UtilVarint.read(frame));
+        }
+        assertEquals(-1, frame.read());
+    }
+
+    /**
+     * Test stream received at once and split everywhere, including inside stream header and record headers.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testSplit() throws IOException
+    {
+        final byte[] data = createStream();
+        for (int chunk = 1; chunk <= 16; chunk++)
+        {
+            assertFrames(data, chunk);
+        }
+    }
+
+    /**
+     * Test long block data record header split.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testLongRecordHeader() throws IOException
+    {
+        final FrameDecoder frames = new FrameDecoder();
+        final BlockDataDecoder decoder = new BlockDataDecoder(frames);
+        final ByteBuffer in = ByteBuffer.allocate(16);
+        in.putShort(ObjectStreamConstants.STREAM_MAGIC);
+        in.putShort(ObjectStreamConstants.STREAM_VERSION);
+        in.put(ObjectStreamConstants.TC_BLOCKDATALONG);
+        in.put((byte) 0);
+        in.put((byte) 0);
+        in.flip();
+        decoder.unwrap(in);
+
+        assertEquals(3, in.remaining());
+
+        in.compact();
+        in.put((byte) 0);
+        in.put((byte) 2);
+        in.put(NetworkMessageSystemId.PING);
+        in.put((byte) 1);
+        in.flip();
+        decoder.unwrap(in);
+
+        assertEquals(0, in.remaining());
+        assertEquals(NetworkMessageSystemId.PING, frames.next().readByte());
+    }
+
+    /**
+     * Test invalid stream header.
+     */
+    @Test
+    public void testInvalidHeader()
+    {
+        final BlockDataDecoder decoder = new BlockDataDecoder(new FrameDecoder());
+        final ByteBuffer in = ByteBuffer.allocate(4);
+        in.putShort(ObjectStreamConstants.STREAM_MAGIC);
+        in.putShort((short) 0);
+        in.flip();
+
+        assertThrowsIo(() -> decoder.unwrap(in), BlockDataDecoder.ERROR_HEADER);
+    }
+
+    /**
+     * Test unsupported records, such as objects.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testUnsupportedRecord() throws IOException
+    {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject("object");
+        out.flush();
+        final BlockDataDecoder decoder = new BlockDataDecoder(new FrameDecoder());
+
+        assertThrowsIo(() -> decoder.unwrap(ByteBuffer.wrap(buffer.toByteArray())), BlockDataDecoder.ERROR_RECORD);
+    }
+}
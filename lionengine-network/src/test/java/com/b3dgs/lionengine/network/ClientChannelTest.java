@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertThrowsIo;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link ClientChannel}.
+ */
+public final class ClientChannelTest
+{
+    /** Maximum pending output. */
+    private static final int MAX_PENDING = 256;
+    /** Record size. */
+    private static final int RECORD = 100;
+    /** Object stream header size. */
+    private static final int HEADER = 4;
+
+    /**
+     * Test pending output limit, client failing on next flush.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testOverflow() throws IOException
+    {
+        try (Selector selector = Selector.open();
+             ServerSocketChannel server = ServerSocketChannel.open();
+             SocketChannel remote = SocketChannel.open())
+        {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            remote.connect(server.getLocalAddress());
+
+            try (SocketChannel channel = server.accept())
+            {
+                channel.configureBlocking(false);
+                final SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                final ClientChannel client = new ClientChannel(1, channel, key, 64, MAX_PENDING);
+                final ByteBuffer record = ByteBuffer.wrap(new byte[RECORD]);
+
+                client.send(record);
+                client.send(record);
+
+                assertEquals(HEADER + 2 * RECORD, client.getQueueDepth());
+                assertThrowsIo(() -> client.send(record), ClientChannel.ERROR_OVERFLOW);
+                assertEquals(HEADER + 2 * RECORD, client.getQueueDepth());
+                assertThrowsIo(() -> client.flush(), ClientChannel.ERROR_OVERFLOW);
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link DatagramConnection}.
+ */
+public final class DatagramConnectionTest
+{
+    /** Resend delay, above minimum one. */
+    private static final long RESEND = 80L;
+    /** Receive timeout in milliseconds. */
+    private static final long TIMEOUT = 1000L;
+
+    /**
+     * Get the loopback address of a datagram.
+     * 
+     * @param datagram The datagram.
+     * @return The loopback address.
+     * @throws IOException If error.
+     */
+    private static SocketAddress getLoopback(Datagram datagram) throws IOException
+    {
+        final int port = ((InetSocketAddress) datagram.getAddress()).getPort();
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Create a single byte payload.
+     * 
+     * @param value The payload value.
+     * @return The payload.
+     */
+    private static ByteBuffer payload(int value)
+    {
+        return ByteBuffer.wrap(new byte[]
+        {
+            (byte) value
+        });
+    }
+
+    /**
+     * Get the number of round trips measured.
+     * 
+     * @param metrics The metrics.
+     * @return The round trips count.
+     */
+    private static long getRoundTrips(ConnectionMetrics metrics)
+    {
+        final NetworkMetrics snapshot = metrics.snapshot(0, null);
+        long count = 0L;
+        for (int i = 0; i < NetworkMetrics.RTT_BUCKETS; i++)
+        {
+            count += snapshot.getRttCount(i);
+        }
+        return count;
+    }
+
+    /**
+     * Receive pending packets, waiting for at least the expected number.
+     * 
+     * @param datagram The receiving datagram.
+     * @param connection The receiving connection.
+     * @param expected The minimum number of packets to wait for.
+     * @return The received packets count.
+     * @throws IOException If error.
+     * @throws InterruptedException If interrupted.
+     */
+    private static int receive(Datagram datagram, DatagramConnection connection, int expected)
+            throws IOException, InterruptedException
+    {
+        final long end = System.currentTimeMillis() + TIMEOUT;
+        int count = 0;
+        do
+        {
+            while (datagram.receive() != null)
+            {
+                final ByteBuffer packet = datagram.getReceived();
+                assertEquals(Datagram.DATA, packet.get());
+                connection.receive(packet);
+                count++;
+            }
+            if (count < expected)
+            {
+                Thread.sleep(1L);
+            }
+        }
+        while (count < expected && System.currentTimeMillis() < end);
+        return count;
+    }
+
+    /** Sender datagram. */
+    private Datagram datagramSender;
+    /** Receiver datagram. */
+    private Datagram datagramReceiver;
+    /** Sender metrics. */
+    private final ConnectionMetrics metricsSender = new ConnectionMetrics();
+    /** Receiver metrics. */
+    private final ConnectionMetrics metricsReceiver = new ConnectionMetrics();
+    /** Received payloads by receiver. */
+    private final List<Integer> payloads = new ArrayList<>();
+    /** Sender connection. */
+    private DatagramConnection sender;
+    /** Receiver connection. */
+    private DatagramConnection receiver;
+
+    /**
+     * Prepare connections.
+     * 
+     * @throws IOException If error.
+     */
+    @BeforeEach
+    public void before() throws IOException
+    {
+        datagramSender = Datagram.bind(0);
+        datagramReceiver = Datagram.bind(0);
+        sender = new DatagramConnection(datagramSender, getLoopback(datagramReceiver), payload ->
+        {
+            // Only acknowledges expected
+        }, metricsSender);
+        receiver = new DatagramConnection(datagramReceiver,
+                                          getLoopback(datagramSender),
+                                          payload -> payloads.add(Integer.valueOf(payload.get())),
+                                          metricsReceiver);
+    }
+
+    /**
+     * Close datagrams.
+     */
+    @AfterEach
+    public void after()
+    {
+        datagramSender.close();
+        datagramReceiver.close();
+    }
+
+    /**
+     * Test reliable message resent until acknowledged, and delivered once.
+     * 
+     * @throws IOException If error.
+     * @throws InterruptedException If interrupted.
+     */
+    @Test
+    public void testReliableResend() throws IOException, InterruptedException
+    {
+        datagramSender.setConditions(1.0, 0, 0);
+        sender.send(DatagramMode.RELIABLE, payload(1));
+        sender.flush();
+        datagramSender.setConditions(0.0, 0, 0);
+
+        Thread.sleep(RESEND);
+        sender.flush();
+        assertEquals(1, receive(datagramReceiver, receiver, 1));
+        assertEquals(1, payloads.size());
+
+        // Not acknowledged yet, duplicate is dropped
+        Thread.sleep(RESEND);
+        sender.flush();
+        assertEquals(1, receive(datagramReceiver, receiver, 1));
+        assertEquals(1, payloads.size());
+        assertEquals(1L, metricsReceiver.snapshot(0, null).getFramesDropped());
+
+        // Acknowledged, no more resent
+        receiver.flush();
+        assertEquals(1, receive(datagramSender, sender, 1));
+        Thread.sleep(RESEND);
+        sender.flush();
+        receive(datagramReceiver, receiver, 1);
+        assertEquals(1, payloads.size());
+        assertEquals(1L, metricsReceiver.snapshot(0, null).getFramesDropped());
+    }
+
+    /**
+     * Test acknowledge bits cover previous packets, and lost reliable message is resent.
+     * 
+     * @throws IOException If error.
+     * @throws InterruptedException If interrupted.
+     */
+    @Test
+    public void testAckBits() throws IOException, InterruptedException
+    {
+        sender.send(DatagramMode.UNRELIABLE, payload(1));
+        sender.flush();
+        datagramSender.setConditions(1.0, 0, 0);
+        sender.send(DatagramMode.RELIABLE, payload(2));
+        sender.flush();
+        datagramSender.setConditions(0.0, 0, 0);
+        sender.send(DatagramMode.UNRELIABLE, payload(3));
+        sender.flush();
+
+        assertEquals(2, receive(datagramReceiver, receiver, 2));
+        assertEquals(2, payloads.size());
+        assertEquals(Integer.valueOf(1), payloads.get(0));
+        assertEquals(Integer.valueOf(3), payloads.get(1));
+
+        // Acknowledges last packet and the first one by its bit, not the lost one
+        receiver.flush();
+        assertEquals(1, receive(datagramSender, sender, 1));
+        assertEquals(2L, getRoundTrips(metricsSender));
+
+        Thread.sleep(RESEND);
+        sender.flush();
+        receive(datagramReceiver, receiver, 1);
+        assertEquals(3, payloads.size());
+        assertEquals(Integer.valueOf(2), payloads.get(2));
+        assertTrue(sender.getRoundTripTime() >= 0L);
+    }
+
+    /**
+     * Test ordered messages are delivered in order, even if first one is lost.
+     * 
+     * @throws IOException If error.
+     * @throws InterruptedException If interrupted.
+     */
+    @Test
+    public void testOrdered() throws IOException, InterruptedException
+    {
+        datagramSender.setConditions(1.0, 0, 0);
+        sender.send(DatagramMode.ORDERED, payload(1));
+        sender.flush();
+        datagramSender.setConditions(0.0, 0, 0);
+        sender.send(DatagramMode.ORDERED, payload(2));
+        sender.flush();
+
+        assertEquals(1, receive(datagramReceiver, receiver, 1));
+        assertEquals(0, payloads.size());
+
+        Thread.sleep(RESEND);
+        sender.flush();
+        receive(datagramReceiver, receiver, 1);
+        assertEquals(2, payloads.size());
+        assertEquals(Integer.valueOf(1), payloads.get(0));
+        assertEquals(Integer.valueOf(2), payloads.get(1));
+    }
+}
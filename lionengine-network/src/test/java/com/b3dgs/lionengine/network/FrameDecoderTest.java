@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertNotNull;
+import static com.b3dgs.lionengine.UtilAssert.assertNull;
+import static com.b3dgs.lionengine.UtilAssert.assertThrowsIo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.network.message.UtilVarint;
+
+/**
+ * Test {@link FrameDecoder}.
+ */
+public final class FrameDecoderTest
+{
+    /**
+     * Create a user message frame.
+     * 
+     * @param clientId The client id.
+     * @param payload The payload.
+     * @return The frame data.
+     * @throws IOException If error.
+     */
+    private static byte[] createUserMessage(int clientId, byte[] payload) throws IOException
+    {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(NetworkMessageSystemId.USER_MESSAGE);
+        UtilVarint.write(out, clientId);
+        out.writeInt(payload.length);
+        out.write(payload);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Append data to decoder.
+     * 
+     * @param decoder The decoder.
+     * @param data The data.
+     * @param offset The first index.
+     * @param length The length.
+     */
+    private static void append(FrameDecoder decoder, byte[] data, int offset, int length)
+    {
+        decoder.append(ByteBuffer.wrap(data, offset, length), length);
+    }
+
+    /**
+     * Test complete frames.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testComplete() throws IOException
+    {
+        final FrameDecoder decoder = new FrameDecoder();
+        final byte[] ping = new byte[]
+        {
+            NetworkMessageSystemId.PING, 1
+        };
+        final byte[] message = createUserMessage(300, new byte[]
+        {
+            1, 2, 3
+        });
+        append(decoder, ping, 0, ping.length);
+        append(decoder, message, 0, message.length);
+
+        final DataInputStream first = decoder.next();
+        assertEquals(NetworkMessageSystemId.PING, first.readByte());
+        assertEquals(1, UtilVarint.read(first));
+        assertEquals(-1, first.read());
+
+        final DataInputStream second = decoder.next();
+        assertEquals(NetworkMessageSystemId.USER_MESSAGE, second.readByte());
+        assertEquals(300, UtilVarint.read(second));
+        assertEquals(3, second.readInt());
+        assertEquals(3, second.available());
+
+        assertNull(decoder.next());
+        assertEquals(0, decoder.getPending());
+    }
+
+    /**
+     * Test frames received byte per byte, split everywhere including inside client id and length.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testPartial() throws IOException
+    {
+        final FrameDecoder decoder = new FrameDecoder();
+        final byte[] message = createUserMessage(1_000_000, new byte[]
+        {
+            4, 5
+        });
+        for (int i = 0; i < message.length - 1; i++)
+        {
+            append(decoder, message, i, 1);
+            assertNull(decoder.next());
+        }
+        assertEquals(message.length - 1, decoder.getPending());
+
+        append(decoder, message, message.length - 1, 1);
+        final DataInputStream frame = decoder.next();
+        assertNotNull(frame);
+        assertEquals(NetworkMessageSystemId.USER_MESSAGE, frame.readByte());
+        assertEquals(1_000_000, UtilVarint.read(frame));
+        assertEquals(2, frame.readInt());
+        assertEquals(4, frame.readByte());
+        assertEquals(5, frame.readByte());
+        assertNull(decoder.next());
+    }
+
+    /**
+     * Test frames split across appends, with buffer growth and compaction.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testSplit() throws IOException
+    {
+        final FrameDecoder decoder = new FrameDecoder();
+        final byte[] payload = new byte[1500];
+        for (int i = 0; i < payload.length; i++)
+        {
+            payload[i] = (byte) i;
+        }
+        final byte[] message = createUserMessage(2, payload);
+        final byte[] data = new byte[message.length * 3];
+        for (int i = 0; i < 3; i++)
+        {
+            System.arraycopy(message, 0, data, i * message.length, message.length);
+        }
+
+        int received = 0;
+        int offset = 0;
+        final int chunk = 700;
+        while (offset < data.length)
+        {
+            final int length = Math.min(chunk, data.length - offset);
+            append(decoder, data, offset, length);
+            offset += length;
+            DataInputStream frame = decoder.next();
+            while (frame != null)
+            {
+                assertEquals(NetworkMessageSystemId.USER_MESSAGE, frame.readByte());
+                assertEquals(2, UtilVarint.read(frame));
+                assertEquals(payload.length, frame.readInt());
+                final byte[] read = new byte[payload.length];
+                frame.readFully(read);
+                assertEquals(payload[payload.length - 1], read[payload.length - 1]);
+                assertEquals(-1, frame.read());
+                received++;
+                frame = decoder.next();
+            }
+        }
+        assertEquals(3, received);
+        assertEquals(0, decoder.getPending());
+    }
+
+    /**
+     * Test name frames length.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testNames() throws IOException
+    {
+        final FrameDecoder decoder = new FrameDecoder();
+        final byte[] data = new byte[]
+        {
+            NetworkMessageSystemId.CONNECTING, 0, 2, 2, 'a', 'b', NetworkMessageSystemId.OTHER_CLIENT_RENAMED, 0, 1, 'c'
+        };
+        append(decoder, data, 0, 5);
+        assertNull(decoder.next());
+        append(decoder, data, 5, data.length - 5);
+
+        assertEquals(6, decoder.next().available());
+        assertEquals(4, decoder.next().available());
+        assertNull(decoder.next());
+    }
+
+    /**
+     * Test unknown system id is rejected.
+     */
+    @Test
+    public void testUnknownSystemId()
+    {
+        final FrameDecoder decoder = new FrameDecoder();
+        final byte[] data = new byte[]
+        {
+            NetworkMessageSystemId.DATAGRAM, 0
+        };
+        append(decoder, data, 0, data.length);
+
+        assertThrowsIo(() -> decoder.next(), FrameDecoder.ERROR_SYSTEM_ID);
+    }
+
+    /**
+     * Test malformed client id is rejected.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testMalformedClientId() throws IOException
+    {
+        final FrameDecoder decoder = new FrameDecoder();
+        final byte[] data = new byte[]
+        {
+            NetworkMessageSystemId.PING, -1, -1, -1, -1, -1
+        };
+        append(decoder, data, 0, data.length - 1);
+        assertNull(decoder.next());
+
+        append(decoder, data, data.length - 1, 1);
+        assertThrowsIo(() -> decoder.next(), FrameDecoder.ERROR_CLIENT_ID);
+    }
+
+    /**
+     * Test too long and negative length are rejected, before being received.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testInvalidLength() throws IOException
+    {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(NetworkMessageSystemId.USER_MESSAGE);
+        UtilVarint.write(out, 0);
+        out.writeInt(FrameDecoder.MAX_LENGTH);
+        final byte[] data = buffer.toByteArray();
+
+        final FrameDecoder decoder = new FrameDecoder();
+        append(decoder, data, 0, data.length);
+        assertThrowsIo(() -> decoder.next(), FrameDecoder.ERROR_LENGTH);
+
+        final byte[] negative = createUserMessage(0, new byte[0]);
+        negative[negative.length - 4] = -1;
+        final FrameDecoder other = new FrameDecoder();
+        append(other, negative, 0, negative.length);
+        assertThrowsIo(() -> other.next(), FrameDecoder.ERROR_LENGTH);
+    }
+
+    /**
+     * Test negative name length is rejected.
+     */
+    @Test
+    public void testNegativeName()
+    {
+        final FrameDecoder decoder = new FrameDecoder();
+        final byte[] data = new byte[]
+        {
+            NetworkMessageSystemId.CONNECTING, 0, 2, -1
+        };
+        append(decoder, data, 0, data.length);
+        assertThrowsIo(() -> decoder.next(), FrameDecoder.ERROR_LENGTH);
+
+        final FrameDecoder other = new FrameDecoder();
+        final byte[] renamed = new byte[]
+        {
+            NetworkMessageSystemId.OTHER_CLIENT_RENAMED, 0, -128
+        };
+        append(other, renamed, 0, renamed.length);
+        assertThrowsIo(() -> other.next(), FrameDecoder.ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.geom.Coord;
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+import com.b3dgs.lionengine.network.message.NetworkMessageChat;
+import com.b3dgs.lionengine.network.purview.Networkable;
+import com.b3dgs.lionengine.network.purview.NetworkableModel;
+
+/**
+ * Test {@link Interest}.
+ */
+public final class InterestTest
+{
+    /** Cell size. */
+    private static final int CELL = 64;
+
+    /** Entered notifications (client id, networkable). */
+    private final List<Object> entered = new ArrayList<>();
+    /** Left notifications (client id, networkable). */
+    private final List<Object> left = new ArrayList<>();
+    /** Networkable position. */
+    private final Coord position = new Coord(50.0, 50.0);
+    /** Networkable. */
+    private final Networkable networkable = new NetworkableModel();
+    /** Interest. */
+    private final Interest interest = new Interest(CELL);
+
+    /**
+     * Prepare interest.
+     */
+    @BeforeEach
+    public void before()
+    {
+        interest.addListener(new InterestListener()
+        {
+            @Override
+            public void notifyInterestEntered(Integer clientId, Networkable networkable)
+            {
+                entered.add(clientId);
+                entered.add(networkable);
+            }
+
+            @Override
+            public void notifyInterestLeft(Integer clientId, Networkable networkable)
+            {
+                left.add(clientId);
+                left.add(networkable);
+            }
+        });
+        interest.locate(networkable, position);
+    }
+
+    /**
+     * Test enter and leave a client view, across cells.
+     */
+    @Test
+    public void testEnterLeave()
+    {
+        interest.setView(0, 0.0, 0.0, 100.0, 100.0);
+        interest.update();
+
+        assertEquals(Arrays.asList(Integer.valueOf(0), networkable), entered);
+        assertTrue(left.isEmpty());
+
+        entered.clear();
+        interest.update();
+
+        assertTrue(entered.isEmpty());
+        assertTrue(left.isEmpty());
+
+        position.set(500.0, 500.0);
+        interest.update();
+
+        assertTrue(entered.isEmpty());
+        assertEquals(Arrays.asList(Integer.valueOf(0), networkable), left);
+
+        left.clear();
+        position.set(90.0, 10.0);
+        interest.update();
+
+        assertEquals(Arrays.asList(Integer.valueOf(0), networkable), entered);
+        assertTrue(left.isEmpty());
+    }
+
+    /**
+     * Test messages filtering by client interest.
+     */
+    @Test
+    public void testInterested()
+    {
+        final NetworkMessage message = new NetworkMessageChat((byte) 0, 0, "message");
+        interest.setView(1, 0.0, 0.0, 100.0, 100.0);
+        interest.setView(2, 200.0, 200.0, 100.0, 100.0);
+        interest.update();
+        interest.track(networkable, Arrays.asList(message));
+
+        assertTrue(interest.isInterested(message, 1));
+        assertFalse(interest.isInterested(message, 2));
+        // No view, not filtered
+        assertTrue(interest.isInterested(message, 3));
+
+        interest.clearTracked();
+
+        assertTrue(interest.isInterested(message, 2));
+    }
+
+    /**
+     * Test client ids beyond initial capacity, and client removal.
+     */
+    @Test
+    public void testGrowAndRemove()
+    {
+        final int id = 200;
+        interest.setView(id, 0.0, 0.0, 100.0, 100.0);
+        interest.update();
+
+        assertEquals(Arrays.asList(Integer.valueOf(id), networkable), entered);
+
+        final NetworkMessage message = new NetworkMessageChat((byte) 0, 0, "message");
+        interest.track(networkable, Arrays.asList(message));
+        interest.removeClient(id);
+        interest.update();
+
+        assertTrue(left.isEmpty());
+        assertTrue(interest.isInterested(message, id));
+
+        interest.remove(networkable);
+        interest.setView(id, 0.0, 0.0, 100.0, 100.0);
+        entered.clear();
+        interest.update();
+
+        assertTrue(entered.isEmpty());
+    }
+}
@@ -0,0 +1,443 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertTimeout;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+import com.b3dgs.lionengine.network.message.NetworkMessageChat;
+import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
+
+/**
+ * Test servers and clients over loopback, all updated from the test thread.
+ */
+public final class NetworkLoopbackTest
+{
+    /** Chat message type. */
+    private static final byte CHAT = 1;
+    /** Reliable datagram message type. */
+    private static final byte RELIABLE = 2;
+    /** Ordered datagram message type. */
+    private static final byte ORDERED = 3;
+    /** Messages decoder. */
+    private static final NetworkMessageDecoder DECODER = type -> new NetworkMessageChat();
+    /** Test timeout in milliseconds. */
+    private static final long TIMEOUT = 10_000L;
+
+    /**
+     * Get a free local port.
+     * 
+     * @return The port.
+     * @throws IOException If error.
+     */
+    private static int getFreePort() throws IOException
+    {
+        try (ServerSocket socket = new ServerSocket(0))
+        {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Test connection on blocking server.
+     */
+    @Test
+    public void testConnectBlocking()
+    {
+        assertTimeout(TIMEOUT, () -> testConnect(new ServerImpl(DECODER)));
+    }
+
+    /**
+     * Test connection on non blocking server.
+     */
+    @Test
+    public void testConnectNio()
+    {
+        assertTimeout(TIMEOUT, () -> testConnect(new ServerNio(DECODER)));
+    }
+
+    /**
+     * Test relay on blocking server.
+     */
+    @Test
+    public void testRelayBlocking()
+    {
+        assertTimeout(TIMEOUT, () -> testRelay(new ServerImpl(DECODER)));
+    }
+
+    /**
+     * Test relay on non blocking server.
+     */
+    @Test
+    public void testRelayNio()
+    {
+        assertTimeout(TIMEOUT, () -> testRelay(new ServerNio(DECODER)));
+    }
+
+    /**
+     * Test load on blocking server.
+     */
+    @Test
+    public void testLoadBlocking()
+    {
+        assertTimeout(TIMEOUT, () -> testLoad(new ServerImpl(DECODER)));
+    }
+
+    /**
+     * Test load on non blocking server.
+     */
+    @Test
+    public void testLoadNio()
+    {
+        assertTimeout(TIMEOUT, () -> testLoad(new ServerNio(DECODER)));
+    }
+
+    /**
+     * Test datagram delivery with loss and latency on blocking server.
+     */
+    @Test
+    public void testDatagramConditionsBlocking()
+    {
+        assertTimeout(TIMEOUT, () -> testDatagramConditions(new ServerImpl(DECODER)));
+    }
+
+    /**
+     * Test datagram delivery with loss and latency on non blocking server.
+     */
+    @Test
+    public void testDatagramConditionsNio()
+    {
+        assertTimeout(TIMEOUT, () -> testDatagramConditions(new ServerNio(DECODER)));
+    }
+
+    /**
+     * Test clients connect while server is updated on the same thread.
+     * 
+     * @param server The server to test.
+     * @throws IOException If error.
+     */
+    private static void testConnect(Server server) throws IOException
+    {
+        final Loopback loopback = new Loopback(server, 2);
+        try
+        {
+            loopback.connect();
+
+            assertEquals(2, server.getNumberOfClients());
+            assertTrue(loopback.clients.get(0).getId() != loopback.clients.get(1).getId());
+        }
+        finally
+        {
+            loopback.disconnect();
+        }
+    }
+
+    /**
+     * Test a message sent by a client is relayed by server to the other client.
+     * 
+     * @param server The server to test.
+     * @throws IOException If error.
+     */
+    private static void testRelay(Server server) throws IOException
+    {
+        final Loopback loopback = new Loopback(server, 2);
+        try
+        {
+            loopback.connect();
+
+            final Client sender = loopback.clients.get(0);
+            sender.addMessage(new NetworkMessageChat(CHAT, sender.getId(), "hello"));
+            loopback.update(() -> !loopback.received.get(1).isEmpty());
+
+            final NetworkMessageChat received = (NetworkMessageChat) loopback.received.get(1).get(0);
+            assertEquals(CHAT, received.getType());
+            assertEquals(sender.getId(), received.getClientId());
+            assertEquals("hello", received.getMessage());
+        }
+        finally
+        {
+            loopback.disconnect();
+        }
+    }
+
+    /**
+     * Test many clients sending messages on each update, all relayed to everyone in order.
+     * 
+     * @param server The server to test.
+     * @throws IOException If error.
+     */
+    private static void testLoad(Server server) throws IOException
+    {
+        final int clients = 32;
+        final int messages = 20;
+        final Loopback loopback = new Loopback(server, clients);
+        try
+        {
+            loopback.connect();
+
+            for (int i = 0; i < messages; i++)
+            {
+                for (final Client client : loopback.clients)
+                {
+                    client.addMessage(new NetworkMessageChat(CHAT, client.getId(), String.valueOf(i)));
+                }
+                loopback.update(() -> true);
+            }
+            final int expected = clients * messages;
+            loopback.update(() -> loopback.received.stream().allMatch(list -> list.size() >= expected));
+
+            for (final List<NetworkMessage> received : loopback.received)
+            {
+                assertEquals(expected, received.size());
+                final int[] next = new int[clients];
+                for (final NetworkMessage message : received)
+                {
+                    final int index = loopback.getIndex(message.getClientId());
+                    assertEquals(String.valueOf(next[index]), ((NetworkMessageChat) message).getMessage());
+                    next[index]++;
+                }
+            }
+        }
+        finally
+        {
+            loopback.disconnect();
+        }
+    }
+
+    /**
+     * Test reliable and ordered datagram messages relayed with simulated loss, latency and jitter on every peer.
+     * Reliable ones must be received once, and ordered ones once and in sending order.
+     * 
+     * @param server The server to test.
+     * @throws IOException If error.
+     */
+    private static void testDatagramConditions(Server server) throws IOException
+    {
+        final int messages = 40;
+        final Loopback loopback = new Loopback(server, 2);
+        try
+        {
+            loopback.setDatagram(RELIABLE, DatagramMode.RELIABLE);
+            loopback.setDatagram(ORDERED, DatagramMode.ORDERED);
+            loopback.connect();
+            loopback.setConditions(0.2, 20, 10);
+            // Let datagram hello be acknowledged
+            loopback.updateFor(300L);
+
+            final Client sender = loopback.clients.get(0);
+            for (int i = 0; i < messages; i++)
+            {
+                sender.addMessage(new NetworkMessageChat(RELIABLE, sender.getId(), String.valueOf(i)));
+                sender.addMessage(new NetworkMessageChat(ORDERED, sender.getId(), String.valueOf(i)));
+                loopback.update(() -> true);
+            }
+            final List<NetworkMessage> received = loopback.received.get(1);
+            loopback.update(() -> received.size() >= messages * 2);
+            // Late duplicates must be dropped
+            loopback.updateFor(200L);
+
+            final Set<String> reliables = new HashSet<>();
+            int ordered = 0;
+            for (final NetworkMessage message : received)
+            {
+                final String value = ((NetworkMessageChat) message).getMessage();
+                if (message.getType() == RELIABLE)
+                {
+                    assertTrue(reliables.add(value));
+                }
+                else
+                {
+                    assertEquals(ORDERED, message.getType());
+                    assertEquals(String.valueOf(ordered), value);
+                    ordered++;
+                }
+            }
+            assertEquals(messages, reliables.size());
+            assertEquals(messages, ordered);
+
+            long roundTrips = 0L;
+            for (int i = 0; i < NetworkMetrics.RTT_BUCKETS; i++)
+            {
+                roundTrips += sender.getMetrics().getRttCount(i);
+            }
+            assertTrue(roundTrips > 0L);
+        }
+        finally
+        {
+            loopback.disconnect();
+        }
+    }
+
+    /**
+     * Server and clients, updated together.
+     */
+    private static final class Loopback
+    {
+        /** Server. */
+        private final Server server;
+        /** Clients. */
+        private final List<Client> clients = new ArrayList<>();
+        /** Received messages per client. */
+        private final List<List<NetworkMessage>> received = new ArrayList<>();
+        /** Server port. */
+        private final int port;
+
+        /**
+         * Create loopback.
+         * 
+         * @param server The server.
+         * @param count The number of clients.
+         * @throws IOException If error.
+         */
+        Loopback(Server server, int count) throws IOException
+        {
+            super();
+
+            this.server = server;
+            port = getFreePort();
+            for (int i = 0; i < count; i++)
+            {
+                final Client client = new ClientImpl(DECODER);
+                client.setName("client" + i);
+                clients.add(client);
+                received.add(new ArrayList<>());
+            }
+        }
+
+        /**
+         * Set datagram delivery mode on all peers.
+         * 
+         * @param type The message type.
+         * @param mode The delivery mode.
+         */
+        void setDatagram(byte type, DatagramMode mode)
+        {
+            server.setDatagramMode(type, mode);
+            for (final Client client : clients)
+            {
+                client.setDatagramMode(type, mode);
+            }
+        }
+
+        /**
+         * Set simulated datagram conditions on all peers.
+         * 
+         * @param loss The loss ratio.
+         * @param latency The latency in milliseconds.
+         * @param jitter The jitter in milliseconds.
+         */
+        void setConditions(double loss, int latency, int jitter)
+        {
+            server.setDatagramConditions(loss, latency, jitter);
+            for (final Client client : clients)
+            {
+                client.setDatagramConditions(loss, latency, jitter);
+            }
+        }
+
+        /**
+         * Update server and clients during a duration.
+         * 
+         * @param millis The duration in milliseconds.
+         */
+        void updateFor(long millis)
+        {
+            final long end = System.currentTimeMillis() + millis;
+            update(() -> System.currentTimeMillis() >= end);
+        }
+
+        /**
+         * Start server and connect all clients.
+         */
+        void connect()
+        {
+            server.start("server", port);
+            for (final Client client : clients)
+            {
+                client.connect("127.0.0.1", port);
+            }
+            update(() -> server.getNumberOfClients() == clients.size()
+                         && clients.stream().allMatch(client -> client.getId() >= 0));
+        }
+
+        /**
+         * Update server and clients until condition is met.
+         * 
+         * @param condition The condition to wait.
+         */
+        void update(BooleanSupplier condition)
+        {
+            do
+            {
+                server.receiveMessages();
+                server.sendMessages();
+                for (int i = 0; i < clients.size(); i++)
+                {
+                    final Client client = clients.get(i);
+                    client.receiveMessages();
+                    received.get(i).addAll(client.getMessages());
+                    client.sendMessages();
+                }
+                Thread.yield();
+            }
+            while (!condition.getAsBoolean());
+        }
+
+        /**
+         * Get the client index from its id.
+         * 
+         * @param id The client id.
+         * @return The client index.
+         */
+        int getIndex(int id)
+        {
+            for (int i = 0; i < clients.size(); i++)
+            {
+                if (clients.get(i).getId() == id)
+                {
+                    return i;
+                }
+            }
+            throw new AssertionError(String.valueOf(id));
+        }
+
+        /**
+         * Disconnect clients and server.
+         */
+        void disconnect()
+        {
+            for (final Client client : clients)
+            {
+                client.disconnect();
+            }
+            server.disconnect();
+        }
+    }
+}
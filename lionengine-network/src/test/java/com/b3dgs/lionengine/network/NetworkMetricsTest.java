@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.network.message.NetworkMessageChat;
+
+/**
+ * Test {@link ConnectionMetrics}, {@link NetworkMetrics} and {@link NetworkMetricsExporter}.
+ */
+public final class NetworkMetricsTest
+{
+    /** Chat message type. */
+    private static final byte CHAT = 4;
+
+    /**
+     * Test round trip time buckets.
+     */
+    @Test
+    public void testRttBucket()
+    {
+        assertEquals(0, NetworkMetrics.getRttBucket(0L));
+        assertEquals(1, NetworkMetrics.getRttBucket(1L));
+        assertEquals(2, NetworkMetrics.getRttBucket(2L));
+        assertEquals(2, NetworkMetrics.getRttBucket(3L));
+        assertEquals(5, NetworkMetrics.getRttBucket(16L));
+        assertEquals(NetworkMetrics.RTT_BUCKETS - 1, NetworkMetrics.getRttBucket(Long.MAX_VALUE));
+
+        for (int bucket = 0; bucket < NetworkMetrics.RTT_BUCKETS - 1; bucket++)
+        {
+            final long bound = NetworkMetrics.getRttBound(bucket);
+            assertEquals(bucket + 1, NetworkMetrics.getRttBucket(bound));
+        }
+        assertEquals(Long.MAX_VALUE, NetworkMetrics.getRttBound(NetworkMetrics.RTT_BUCKETS - 1));
+    }
+
+    /**
+     * Test counters snapshot.
+     */
+    @Test
+    public void testSnapshot()
+    {
+        final ConnectionMetrics metrics = new ConnectionMetrics();
+        metrics.received(10);
+        metrics.received(5);
+        metrics.decoded(new NetworkMessageChat(CHAT, 1, "a"), 100L);
+        metrics.decoded(null, 50L);
+        metrics.sent(CHAT, 7);
+        metrics.sent(3);
+        metrics.dropped();
+        metrics.roundTrip(3L);
+        metrics.roundTrip(3L);
+        metrics.setQueueDepth(42);
+
+        final NetworkMetrics snapshot = metrics.snapshot(2, "bob");
+
+        assertEquals(2, snapshot.getId());
+        assertEquals("bob", snapshot.getName());
+        assertEquals(15L, snapshot.getBytesIn());
+        assertEquals(10L, snapshot.getBytesOut());
+        assertEquals(1L, snapshot.getMessagesIn(CHAT));
+        assertEquals(1L, snapshot.getMessagesOut(CHAT));
+        assertEquals(0L, snapshot.getMessagesIn((byte) 0));
+        assertEquals(2L, snapshot.getFramesDropped());
+        assertEquals(2L, snapshot.getDecoded());
+        assertEquals(150L, snapshot.getDecodeTime());
+        assertEquals(2L, snapshot.getRttCount(2));
+        assertEquals(42, snapshot.getQueueDepth());
+
+        metrics.received(1);
+
+        assertEquals(15L, snapshot.getBytesIn());
+        assertEquals(16L, metrics.snapshot(2, "bob").getBytesIn());
+    }
+
+    /**
+     * Test text export format.
+     */
+    @Test
+    public void testFormat()
+    {
+        final ConnectionMetrics metrics = new ConnectionMetrics();
+        metrics.received(1024);
+        metrics.sent(CHAT, 8);
+        metrics.roundTrip(3L);
+        metrics.roundTrip(20L);
+
+        final String text = NetworkMetricsExporter.format(metrics.snapshot(0, "b\"o"), 1000L);
+
+        assertTrue(text.contains("network_bytes_in{id=\"0\",name=\"b\\\"o\"} 1024 1000\n"));
+        assertTrue(text.contains("network_messages_out{id=\"0\",name=\"b\\\"o\",type=\"4\"} 1 1000\n"));
+        assertTrue(text.contains("network_rtt_bucket{id=\"0\",name=\"b\\\"o\",le=\"2\"} 0 1000\n"));
+        assertTrue(text.contains("network_rtt_bucket{id=\"0\",name=\"b\\\"o\",le=\"4\"} 1 1000\n"));
+        assertTrue(text.contains("network_rtt_bucket{id=\"0\",name=\"b\\\"o\",le=\"+Inf\"} 2 1000\n"));
+        assertFalse(text.contains("messages_in"));
+
+        final String unnamed = NetworkMetricsExporter.format(metrics.snapshot(3, null), 0L);
+
+        assertTrue(unnamed.startsWith("network_bytes_in{id=\"3\"} 1024 0\n"));
+    }
+}
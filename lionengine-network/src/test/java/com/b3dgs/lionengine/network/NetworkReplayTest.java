@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.Media;
+import com.b3dgs.lionengine.Medias;
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+import com.b3dgs.lionengine.network.message.NetworkMessageChat;
+import com.b3dgs.lionengine.network.message.NetworkMessageDecoder;
+
+/**
+ * Test {@link NetworkRecorder} and {@link NetworkReplay}.
+ */
+public final class NetworkReplayTest
+{
+    /** Chat message type. */
+    private static final byte CHAT = 1;
+    /** Messages decoder. */
+    private static final NetworkMessageDecoder DECODER = type -> new NetworkMessageChat();
+
+    /**
+     * Prepare test.
+     */
+    @BeforeAll
+    public static void beforeTests()
+    {
+        Medias.setResourcesDirectory(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Clean up test.
+     */
+    @AfterAll
+    public static void afterTests()
+    {
+        Medias.setResourcesDirectory(null);
+    }
+
+    /**
+     * Get a chat message payload.
+     * 
+     * @param clientId The client id.
+     * @param text The message text.
+     * @return The payload.
+     * @throws IOException If error.
+     */
+    private static ByteBuffer payload(int clientId, String text) throws IOException
+    {
+        return ByteBuffer.wrap(new NetworkMessageChat(CHAT, clientId, text).encode().toByteArray());
+    }
+
+    /**
+     * Replay the next tick.
+     * 
+     * @param replay The replay.
+     * @return The replayed texts.
+     */
+    private static List<String> next(NetworkReplay replay)
+    {
+        replay.receiveMessages();
+        final List<String> texts = new ArrayList<>();
+        for (final NetworkMessage message : replay.getMessages())
+        {
+            texts.add(message.getClientId() + ":" + ((NetworkMessageChat) message).getMessage());
+        }
+        return texts;
+    }
+
+    /** Log media. */
+    private final Media media = Medias.create("network_record.bin");
+
+    /**
+     * Delete log.
+     */
+    @AfterEach
+    public void after()
+    {
+        assertTrue(media.getFile().delete());
+    }
+
+    /**
+     * Record a log with inbound payloads on first and third ticks, and an outbound one on first tick.
+     * 
+     * @throws IOException If error.
+     */
+    private void record() throws IOException
+    {
+        final NetworkRecorder recorder = new NetworkRecorder(media);
+        recorder.nextTick();
+        recorder.record(NetworkRecorder.INBOUND, 1, payload(1, "a"));
+        recorder.record(NetworkRecorder.OUTBOUND, -1, payload(0, "out"));
+        recorder.nextTick();
+        recorder.nextTick();
+        recorder.record(NetworkRecorder.INBOUND, 2, payload(2, "b"));
+        recorder.close();
+
+        assertEquals(3, recorder.getTick());
+        assertEquals(3, recorder.getFrames());
+        assertFalse(recorder.isRecording());
+    }
+
+    /**
+     * Test replay decodes recorded payloads on their tick, in replayed direction only.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testReplay() throws IOException
+    {
+        record();
+
+        final NetworkReplay inbound = new NetworkReplay(DECODER, media, NetworkRecorder.INBOUND);
+
+        assertEquals(Arrays.asList("1:a"), next(inbound));
+        assertTrue(next(inbound).isEmpty());
+        assertTrue(inbound.hasNext());
+        assertEquals(Arrays.asList("2:b"), next(inbound));
+        assertFalse(inbound.hasNext());
+        assertEquals(3, inbound.getTick());
+        assertEquals(2, inbound.getFrames());
+
+        inbound.disconnect();
+
+        final NetworkReplay outbound = new NetworkReplay(DECODER, media, NetworkRecorder.OUTBOUND);
+
+        assertEquals(Arrays.asList("0:out"), next(outbound));
+        assertTrue(next(outbound).isEmpty());
+        assertTrue(next(outbound).isEmpty());
+        assertEquals(1, outbound.getFrames());
+
+        outbound.disconnect();
+    }
+
+    /**
+     * Test truncated trailing record ends the log.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testTruncated() throws IOException
+    {
+        record();
+        try (RandomAccessFile file = new RandomAccessFile(media.getFile(), "rw"))
+        {
+            file.setLength(file.length() - 1L);
+        }
+
+        final NetworkReplay replay = new NetworkReplay(DECODER, media, NetworkRecorder.INBOUND);
+
+        assertEquals(Arrays.asList("1:a"), next(replay));
+        assertTrue(next(replay).isEmpty());
+        assertTrue(next(replay).isEmpty());
+        assertFalse(replay.hasNext());
+        assertEquals(1, replay.getFrames());
+
+        replay.disconnect();
+    }
+}
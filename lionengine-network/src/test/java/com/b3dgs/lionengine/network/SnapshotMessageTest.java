@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertThrowsIo;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.b3dgs.lionengine.network.message.NetworkMessage;
+
+/**
+ * Test {@link SnapshotMessage}.
+ */
+public final class SnapshotMessageTest
+{
+    /**
+     * Encode and decode the message.
+     * 
+     * @param current The current snapshot.
+     * @param base The base snapshot (<code>null</code> if full).
+     * @return The decoded message.
+     * @throws IOException If error.
+     */
+    private static SnapshotMessage transfer(Snapshot current, Snapshot base) throws IOException
+    {
+        final ByteArrayOutputStream encoded = new SnapshotMessage(current, base, 0).encode();
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(encoded.toByteArray()));
+        final NetworkMessage message = NetworkMessage.read(type -> new SnapshotMessage(), input, -1);
+        assertEquals(0, input.available());
+        return (SnapshotMessage) message;
+    }
+
+    /**
+     * Get the encoded size.
+     * 
+     * @param current The current snapshot.
+     * @param base The base snapshot (<code>null</code> if full).
+     * @return The encoded size.
+     * @throws IOException If error.
+     */
+    private static int size(Snapshot current, Snapshot base) throws IOException
+    {
+        return new SnapshotMessage(current, base, 0).encode().size();
+    }
+
+    /**
+     * Add an entity state.
+     * 
+     * @param snapshot The snapshot.
+     * @param id The entity id.
+     * @param state The entity state.
+     */
+    private static void add(Snapshot snapshot, int id, double... state)
+    {
+        System.arraycopy(state, 0, snapshot.add(id, state.length), 0, state.length);
+    }
+
+    /**
+     * Check snapshots are the same.
+     * 
+     * @param expected The expected snapshot.
+     * @param actual The actual snapshot.
+     */
+    private static void assertSnapshot(Snapshot expected, Snapshot actual)
+    {
+        assertEquals(expected.getTick(), actual.getTick());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertEquals(expected.getId(i), actual.getId(i));
+            assertEquals(expected.getState(i).length, actual.getState(i).length);
+            for (int field = 0; field < expected.getState(i).length; field++)
+            {
+                assertEquals(expected.getState(i)[field], actual.getState(i)[field]);
+            }
+        }
+    }
+
+    /**
+     * Test full snapshot.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testFull() throws IOException
+    {
+        final Snapshot current = new Snapshot();
+        current.clear(10);
+        add(current, 1, 1.0, 2.0, 3.0);
+        add(current, 5, 4.0);
+        add(current, 300, -5.5, 6.25);
+
+        final SnapshotMessage message = transfer(current, null);
+
+        assertEquals(10, message.getTick());
+        assertEquals(-1, message.getBaseline());
+
+        final Snapshot target = new Snapshot();
+        message.apply(null, target);
+
+        assertSnapshot(current, target);
+    }
+
+    /**
+     * Test delta snapshot, with changed, unchanged, added and resized entities.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testDelta() throws IOException
+    {
+        final Snapshot base = new Snapshot();
+        base.clear(10);
+        add(base, 1, 1.0, 2.0, 3.0);
+        add(base, 5, 4.0);
+        add(base, 7, 7.0, 7.0);
+
+        final Snapshot current = new Snapshot();
+        current.clear(12);
+        add(current, 1, 1.0, 2.5, 3.0);
+        add(current, 5, 4.0);
+        add(current, 6, 8.0, 9.0);
+        add(current, 7, 7.0, 7.0, 7.0);
+
+        final SnapshotMessage message = transfer(current, base);
+
+        assertEquals(12, message.getTick());
+        assertEquals(10, message.getBaseline());
+
+        final Snapshot target = new Snapshot();
+        message.apply(base, target);
+
+        assertSnapshot(current, target);
+        assertTrue(size(current, base) < size(current, null));
+    }
+
+    /**
+     * Test removed entities.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testRemoval() throws IOException
+    {
+        final Snapshot base = new Snapshot();
+        base.clear(3);
+        add(base, 2, 1.0);
+        add(base, 4, 2.0);
+        add(base, 9, 3.0);
+
+        final Snapshot current = new Snapshot();
+        current.clear(4);
+        add(current, 4, 2.0);
+
+        final Snapshot target = new Snapshot();
+        transfer(current, base).apply(base, target);
+
+        assertSnapshot(current, target);
+
+        final Snapshot empty = new Snapshot();
+        empty.clear(5);
+        transfer(empty, current).apply(current, target);
+
+        assertSnapshot(empty, target);
+    }
+
+    /**
+     * Test values are encoded without loss on their smallest type.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testValues() throws IOException
+    {
+        final Snapshot current = new Snapshot();
+        current.clear(0);
+        add(current,
+            1,
+            0.0,
+            -0.0,
+            1.0,
+            -300.0,
+            12.0625,
+            Math.scalb(1.0, -13),
+            0.1,
+            Integer.MAX_VALUE + 1.0,
+            Double.NaN,
+            Double.NEGATIVE_INFINITY);
+
+        final Snapshot target = new Snapshot();
+        transfer(current, null).apply(null, target);
+
+        assertSnapshot(current, target);
+        assertEquals(Double.valueOf(-0.0), Double.valueOf(target.getState(0)[1]));
+
+        // Zero, small integer and quantized coordinate on less than a double
+        final Snapshot quantized = new Snapshot();
+        quantized.clear(0);
+        add(quantized, 1, 0.0, 5.0, 128.5);
+        final Snapshot doubles = new Snapshot();
+        doubles.clear(0);
+        add(doubles, 1, 0.1, 0.2, 0.3);
+
+        assertEquals(size(doubles, null) - 3 * Double.BYTES + 1 + 2, size(quantized, null));
+    }
+
+    /**
+     * Test invalid changed values count.
+     */
+    @Test
+    public void testInvalidValues()
+    {
+        final byte[] data = new byte[]
+        {
+            SnapshotMessage.TYPE, 0, 0, 0, 0, 0, 0, -1, -1, -1, -1, 1, 2, 1, 1, 1, 0, 0
+        };
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+
+        assertThrowsIo(() -> NetworkMessage.read(type -> new SnapshotMessage(), input, -1),
+                       SnapshotMessage.ERROR_VALUES);
+    }
+}
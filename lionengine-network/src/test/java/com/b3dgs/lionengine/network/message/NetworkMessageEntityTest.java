@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network.message;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertFalse;
+import static com.b3dgs.lionengine.UtilAssert.assertThrowsIo;
+import static com.b3dgs.lionengine.UtilAssert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link NetworkMessageEntity}.
+ */
+public final class NetworkMessageEntityTest
+{
+    /** Quantization step. */
+    private static final double STEP = 0.1;
+    /** Header size (type, client id and destination on one byte each). */
+    private static final int HEADER = 3;
+
+    /**
+     * Encode and decode the message.
+     * 
+     * @param message The message to transfer.
+     * @return The decoded message.
+     * @throws IOException If error.
+     */
+    private static Entity transfer(Entity message) throws IOException
+    {
+        final byte[] data = message.encode().toByteArray();
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        final Entity decoded = (Entity) NetworkMessage.read(type -> new Entity(), input, -1);
+        assertEquals(0, input.available());
+        return decoded;
+    }
+
+    /**
+     * Get the encoded size without header.
+     * 
+     * @param message The message to encode.
+     * @return The body size.
+     * @throws IOException If error.
+     */
+    private static int size(Entity message) throws IOException
+    {
+        return message.encode().size() - HEADER;
+    }
+
+    /**
+     * Test all types round trip.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testTypes() throws IOException
+    {
+        final Entity message = new Entity(300);
+        message.addAction(Element.FLAG, true);
+        message.addAction(Element.OFF, false);
+        message.addAction(Element.KEY, 'z');
+        message.addAction(Element.STATE, (byte) -2);
+        message.addAction(Element.ANGLE, (short) -1000);
+        message.addAction(Element.LIFE, Integer.MIN_VALUE);
+        message.addAction(Element.SPEED, -1.0 / 3.0);
+        message.addAction(Element.X, 12.34);
+
+        final Entity decoded = transfer(message);
+
+        assertEquals(300, decoded.getEntityId());
+        assertTrue(decoded.getActionBoolean(Element.FLAG));
+        assertTrue(decoded.hasAction(Element.OFF));
+        assertFalse(decoded.getActionBoolean(Element.OFF));
+        assertEquals('z', decoded.getActionChar(Element.KEY));
+        assertEquals(-2, decoded.getActionByte(Element.STATE));
+        assertEquals(-1000, decoded.getActionShort(Element.ANGLE));
+        assertEquals(Integer.MIN_VALUE, decoded.getActionInteger(Element.LIFE));
+        assertEquals(-1.0 / 3.0, decoded.getActionDouble(Element.SPEED));
+        assertEquals(Math.round(12.34 / STEP) * STEP, decoded.getActionDouble(Element.X));
+        assertFalse(decoded.hasAction(Element.Y));
+    }
+
+    /**
+     * Test presence mask and packed types encoding size.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testPresence() throws IOException
+    {
+        final Entity message = new Entity(1);
+
+        // Entity id, then presence mask on two bytes (nine elements)
+        assertEquals(3, size(message));
+
+        // Booleans only need their type
+        message.addAction(Element.FLAG, true);
+        assertEquals(4, size(message));
+        message.addAction(Element.OFF, false);
+        assertEquals(4, size(message));
+
+        // Third type starts a new byte, followed by its value
+        message.addAction(Element.STATE, (byte) 1);
+        assertEquals(6, size(message));
+
+        // Quantized double on four bytes, full double on eight
+        message.addAction(Element.X, 1.0);
+        assertEquals(10, size(message));
+        message.addAction(Element.Y, 1.0);
+        assertEquals(19, size(message));
+
+        // Last element on second presence byte
+        final Entity decoded = transfer(message);
+        assertTrue(decoded.hasAction(Element.Y));
+        assertEquals(1.0, decoded.getActionDouble(Element.Y));
+    }
+
+    /**
+     * Test cleared and absent actions return default values.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testClear() throws IOException
+    {
+        final Entity message = new Entity(1);
+        message.addAction(Element.FLAG, true);
+        message.addAction(Element.LIFE, 5);
+        message.addAction(Element.X, 2.0);
+        message.clearActions();
+
+        assertFalse(message.hasAction(Element.FLAG));
+        assertFalse(message.getActionBoolean(Element.FLAG));
+        assertEquals(0, message.getActionInteger(Element.LIFE));
+        assertEquals(0.0, message.getActionDouble(Element.X));
+
+        message.addAction(Element.LIFE, 7);
+        final Entity decoded = transfer(message);
+
+        assertEquals(7, decoded.getActionInteger(Element.LIFE));
+        assertFalse(decoded.getActionBoolean(Element.FLAG));
+        assertEquals(0.0, decoded.getActionDouble(Element.X));
+    }
+
+    /**
+     * Test decoding reuse resets previous actions.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testDecodeReuse() throws IOException
+    {
+        final Entity target = new Entity();
+        final Entity first = new Entity(1);
+        first.addAction(Element.LIFE, 5);
+        final Entity second = new Entity(2);
+        second.addAction(Element.FLAG, true);
+
+        NetworkMessage.read(type -> target,
+                            new DataInputStream(new ByteArrayInputStream(first.encode().toByteArray())),
+                            -1);
+        NetworkMessage.read(type -> target,
+                            new DataInputStream(new ByteArrayInputStream(second.encode().toByteArray())),
+                            -1);
+
+        assertEquals(2, target.getEntityId());
+        assertTrue(target.getActionBoolean(Element.FLAG));
+        assertFalse(target.hasAction(Element.LIFE));
+        assertEquals(0, target.getActionInteger(Element.LIFE));
+    }
+
+    /**
+     * Test quantized value out of range.
+     */
+    @Test
+    public void testQuantizedRange()
+    {
+        final Entity message = new Entity(1);
+        message.addAction(Element.X, Integer.MAX_VALUE * STEP * 2.0);
+
+        assertThrowsIo(() -> message.encode(), NetworkMessageEntity.ERROR_RANGE);
+    }
+
+    /**
+     * Entity elements.
+     */
+    private enum Element
+    {
+        /** Flag. */
+        FLAG,
+        /** Off. */
+        OFF,
+        /** Key. */
+        KEY,
+        /** State. */
+        STATE,
+        /** Angle. */
+        ANGLE,
+        /** Life. */
+        LIFE,
+        /** Speed. */
+        SPEED,
+        /** Horizontal. */
+        X,
+        /** Vertical. */
+        Y;
+    }
+
+    /**
+     * Entity message mock.
+     */
+    private static final class Entity extends NetworkMessageEntity<Element>
+    {
+        /**
+         * Create message.
+         */
+        Entity()
+        {
+            super(Element.class);
+
+            setPrecision(Element.X, STEP);
+        }
+
+        /**
+         * Create message.
+         * 
+         * @param entityId The entity id.
+         */
+        Entity(int entityId)
+        {
+            super(Element.class, (byte) 1, entityId, NetworkMessage.ALL);
+
+            setPrecision(Element.X, STEP);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2013-2017 Byron 3D Games Studio (www.b3dgs.com) Pierre-Alexandre (contact@b3dgs.com)
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package com.b3dgs.lionengine.network.message;
+
+import static com.b3dgs.lionengine.UtilAssert.assertEquals;
+import static com.b3dgs.lionengine.UtilAssert.assertPrivateConstructor;
+import static com.b3dgs.lionengine.UtilAssert.assertThrowsIo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link UtilVarint}.
+ */
+public final class UtilVarintTest
+{
+    /** Tested values. */
+    private static final int[] VALUES = new int[]
+    {
+        0, 1, 63, 64, 127, 128, 300, 16_383, 16_384, 2_097_151, 2_097_152, Integer.MAX_VALUE, -1, -64, -65,
+        Integer.MIN_VALUE
+    };
+
+    /**
+     * Test the constructor.
+     */
+    @Test
+    public void testConstructorPrivate()
+    {
+        assertPrivateConstructor(UtilVarint.class);
+    }
+
+    /**
+     * Test unsigned round trip on stream, with encoded size.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testUnsigned() throws IOException
+    {
+        for (final int value : VALUES)
+        {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            UtilVarint.write(out, value);
+            final byte[] data = out.toByteArray();
+
+            assertEquals(UtilVarint.size(value), data.length);
+            assertEquals(data.length, UtilVarint.sizeOf(data, 0, data.length));
+            assertEquals(value, UtilVarint.read(data, 0));
+            assertEquals(value, UtilVarint.read(new DataInputStream(new ByteArrayInputStream(data))));
+        }
+        assertEquals(1, UtilVarint.size(127));
+        assertEquals(2, UtilVarint.size(128));
+        assertEquals(UtilVarint.MAX_SIZE, UtilVarint.size(-1));
+    }
+
+    /**
+     * Test signed round trip, small absolute values being small.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testSigned() throws IOException
+    {
+        for (final int value : VALUES)
+        {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            UtilVarint.writeSigned(out, value);
+            final byte[] data = out.toByteArray();
+
+            assertEquals(UtilVarint.sizeSigned(value), data.length);
+            assertEquals(value, UtilVarint.readSigned(new DataInputStream(new ByteArrayInputStream(data))));
+        }
+        assertEquals(1, UtilVarint.sizeSigned(-1));
+        assertEquals(1, UtilVarint.sizeSigned(-64));
+        assertEquals(2, UtilVarint.sizeSigned(-65));
+    }
+
+    /**
+     * Test round trip on buffer.
+     * 
+     * @throws IOException If error.
+     */
+    @Test
+    public void testBuffer() throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate(VALUES.length * UtilVarint.MAX_SIZE);
+        for (final int value : VALUES)
+        {
+            UtilVarint.write(buffer, value);
+        }
+        buffer.flip();
+        for (final int value : VALUES)
+        {
+            assertEquals(value, UtilVarint.read(buffer));
+        }
+        assertEquals(0, buffer.remaining());
+    }
+
+    /**
+     * Test incomplete and malformed values.
+     */
+    @Test
+    public void testMalformed()
+    {
+        final byte[] incomplete = new byte[]
+        {
+            -128, -128
+        };
+        assertEquals(-1, UtilVarint.sizeOf(incomplete, 0, incomplete.length));
+        assertThrowsIo(() -> UtilVarint.read(ByteBuffer.wrap(incomplete)), "Malformed varint !");
+
+        final byte[] malformed = new byte[]
+        {
+            -1, -1, -1, -1, -1, 1
+        };
+        assertEquals(-1, UtilVarint.sizeOf(malformed, 0, malformed.length));
+        assertThrowsIo(() -> UtilVarint.read(new DataInputStream(new ByteArrayInputStream(malformed))),
+                       "Malformed varint !");
+    }
+}